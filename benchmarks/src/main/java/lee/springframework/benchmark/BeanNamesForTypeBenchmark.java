@@ -0,0 +1,90 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: BeanNamesForTypeBenchmark.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.benchmark;
+
+import lee.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@code getBeanNamesForType} with warm caches (frozen configuration,
+ * by-type caches populated) and with cold caches (metadata caches cleared
+ * before every invocation, forcing a full type match over all beans).
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 17:25
+ * @lastdate:
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanNamesForTypeBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class FactoryState {
+
+    @Param({"1000", "10000"})
+    public int serviceCount;
+
+    DefaultListableBeanFactory beanFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      this.beanFactory = SyntheticBeanFactories.createBeanFactory(this.serviceCount, true);
+      this.beanFactory.preInstantiateSingletons();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      this.beanFactory.destroySingletons();
+    }
+  }
+
+
+  @State(Scope.Benchmark)
+  public static class ColdFactoryState extends FactoryState {
+
+    @Setup(Level.Invocation)
+    public void clearCaches() {
+      this.beanFactory.clearMetadataCache();
+    }
+  }
+
+
+  @Benchmark
+  public String[] warm(FactoryState state) {
+    return state.beanFactory.getBeanNamesForType(SyntheticBeans.PricingService.class);
+  }
+
+  @Benchmark
+  public String[] warmInterface(FactoryState state) {
+    return state.beanFactory.getBeanNamesForType(SyntheticBeans.Service.class);
+  }
+
+  @Benchmark
+  public String[] cold(ColdFactoryState state) {
+    return state.beanFactory.getBeanNamesForType(SyntheticBeans.PricingService.class);
+  }
+
+}
@@ -0,0 +1,79 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: GetBeanBenchmark.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.benchmark;
+
+import lee.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@code getBean} by name and by type against a pre-instantiated,
+ * frozen bean factory: the steady state of a running application.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 17:20
+ * @lastdate:
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetBeanBenchmark {
+
+  @Param({"1000"})
+  public int serviceCount;
+
+  private DefaultListableBeanFactory beanFactory;
+
+  private String serviceBeanName;
+
+
+  @Setup
+  public void setUp() {
+    this.beanFactory = SyntheticBeanFactories.createBeanFactory(this.serviceCount, true);
+    this.beanFactory.preInstantiateSingletons();
+    this.serviceBeanName = SyntheticBeanFactories.serviceBeanName(this.serviceCount / 2);
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.beanFactory.destroySingletons();
+  }
+
+
+  @Benchmark
+  public Object getBeanByName() {
+    return this.beanFactory.getBean(this.serviceBeanName);
+  }
+
+  @Benchmark
+  public Object getBeanByNameAndType() {
+    return this.beanFactory.getBean(this.serviceBeanName, SyntheticBeans.Service.class);
+  }
+
+  @Benchmark
+  public Object getBeanByType() {
+    return this.beanFactory.getBean(SyntheticBeans.Repository.class);
+  }
+
+}
@@ -0,0 +1,68 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: PreInstantiateSingletonsBenchmark.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.benchmark;
+
+import lee.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@code preInstantiateSingletons} on freshly populated bean
+ * factories with 1k and 10k singletons, in single-shot mode since every
+ * invocation needs a new factory.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 17:30
+ * @lastdate:
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+public class PreInstantiateSingletonsBenchmark {
+
+  @Param({"1000", "10000"})
+  public int serviceCount;
+
+  private DefaultListableBeanFactory beanFactory;
+
+
+  @Setup(Level.Invocation)
+  public void setUp() {
+    this.beanFactory = SyntheticBeanFactories.createBeanFactory(this.serviceCount, true);
+  }
+
+  @TearDown(Level.Invocation)
+  public void tearDown() {
+    this.beanFactory.destroySingletons();
+  }
+
+
+  @Benchmark
+  public DefaultListableBeanFactory preInstantiateSingletons() {
+    this.beanFactory.preInstantiateSingletons();
+    return this.beanFactory;
+  }
+
+}
@@ -0,0 +1,71 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: PrototypeCreationBenchmark.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.benchmark;
+
+import lee.springframework.beans.factory.support.DefaultListableBeanFactory;
+import lee.springframework.beans.factory.support.MethodHandleInstantiationStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks prototype creation: instantiation, property injection of a
+ * constant String, a converted int and a bean reference, and an init method.
+ * Runs with both the default and the MethodHandle instantiation strategy.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 17:35
+ * @lastdate:
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrototypeCreationBenchmark {
+
+  @Param({"cglib", "methodHandle"})
+  public String instantiationStrategy;
+
+  private DefaultListableBeanFactory beanFactory;
+
+
+  @Setup
+  public void setUp() {
+    this.beanFactory = SyntheticBeanFactories.createBeanFactory(10, true);
+    if ("methodHandle".equals(this.instantiationStrategy)) {
+      this.beanFactory.setInstantiationStrategy(new MethodHandleInstantiationStrategy());
+    }
+    this.beanFactory.preInstantiateSingletons();
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.beanFactory.destroySingletons();
+  }
+
+
+  @Benchmark
+  public Object createPrototype() {
+    return this.beanFactory.getBean(SyntheticBeanFactories.ORDER_BEAN_NAME);
+  }
+
+}
@@ -0,0 +1,78 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: PublishEventBenchmark.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.benchmark;
+
+import lee.springframework.context.ApplicationEvent;
+import lee.springframework.context.ApplicationListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@code publishEvent} of an arbitrary payload object through a
+ * refreshed application context with a varying number of listeners.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 17:45
+ * @lastdate:
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PublishEventBenchmark {
+
+  @Param({"1", "10", "100"})
+  public int listenerCount;
+
+  private SyntheticApplicationContext context;
+
+  private final Object payload = "payload";
+
+
+  @Setup
+  public void setUp(final Blackhole blackhole) {
+    this.context = new SyntheticApplicationContext(10);
+    for (int i = 0; i < this.listenerCount; i++) {
+      this.context.addApplicationListener(new ApplicationListener<ApplicationEvent>() {
+        @Override
+        public void onApplicationEvent(ApplicationEvent event) {
+          blackhole.consume(event);
+        }
+      });
+    }
+    this.context.refresh();
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.context.close();
+  }
+
+
+  @Benchmark
+  public void publishPayload() {
+    this.context.publishEvent(this.payload);
+  }
+
+}
@@ -0,0 +1,81 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: ResolveDependencyBenchmark.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.benchmark;
+
+import lee.springframework.beans.factory.cofnig.DependencyDescriptor;
+import lee.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@code resolveDependency} for a field injection point, both with
+ * a shared descriptor and with a new descriptor per resolution (the way
+ * annotation-driven injection resolves dependencies).
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 17:40
+ * @lastdate:
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolveDependencyBenchmark {
+
+  @Param({"1000"})
+  public int serviceCount;
+
+  private DefaultListableBeanFactory beanFactory;
+
+  private Field field;
+
+  private DependencyDescriptor descriptor;
+
+
+  @Setup
+  public void setUp() throws NoSuchFieldException {
+    this.beanFactory = SyntheticBeanFactories.createBeanFactory(this.serviceCount, true);
+    this.beanFactory.preInstantiateSingletons();
+    this.field = SyntheticBeans.InjectionTarget.class.getField("repository");
+    this.descriptor = new DependencyDescriptor(this.field, true);
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.beanFactory.destroySingletons();
+  }
+
+
+  @Benchmark
+  public Object sharedDescriptor() {
+    return this.beanFactory.resolveDependency(this.descriptor, SyntheticBeanFactories.ORDER_BEAN_NAME);
+  }
+
+  @Benchmark
+  public Object newDescriptor() {
+    return this.beanFactory.resolveDependency(
+            new DependencyDescriptor(this.field, true), SyntheticBeanFactories.ORDER_BEAN_NAME);
+  }
+
+}
@@ -0,0 +1,52 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: SyntheticApplicationContext.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.benchmark;
+
+import lee.springframework.beans.BeansException;
+import lee.springframework.beans.factory.cofnig.ConfigurableListableBeanFactory;
+import lee.springframework.beans.factory.support.DefaultListableBeanFactory;
+import lee.springframework.context.support.AbstractApplicationContext;
+
+/**
+ * Minimal application context around a synthetic bean factory,
+ * for benchmarks that need the full context lifecycle (e.g. event publication).
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 17:15
+ * @lastdate:
+ */
+public class SyntheticApplicationContext extends AbstractApplicationContext {
+
+  private final DefaultListableBeanFactory beanFactory;
+
+
+  /**
+   * Create a new context with the given number of generated service beans.
+   * Needs to be refreshed before use.
+   */
+  public SyntheticApplicationContext(int serviceCount) {
+    this.beanFactory = new DefaultListableBeanFactory();
+    SyntheticBeanFactories.registerBeanDefinitions(this.beanFactory, serviceCount);
+  }
+
+
+  @Override
+  protected void refreshBeanFactory() throws BeansException, IllegalStateException {
+  }
+
+  @Override
+  protected void closeBeanFactory() {
+  }
+
+  @Override
+  public ConfigurableListableBeanFactory getBeanFactory() {
+    return this.beanFactory;
+  }
+
+}
@@ -0,0 +1,89 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: SyntheticBeanFactories.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.benchmark;
+
+import lee.springframework.beans.factory.cofnig.BeanDefinition;
+import lee.springframework.beans.factory.cofnig.RuntimeBeanReference;
+import lee.springframework.beans.factory.support.DefaultListableBeanFactory;
+import lee.springframework.beans.factory.support.RootBeanDefinition;
+
+/**
+ * Generators for synthetic bean factories of a given size, shaped like a
+ * typical application: singletons of a few service types, each delegating
+ * to an earlier one, one repository and one prototype.
+ *
+ * <p>Like {@code context-indexer}, this module comes as sources only: the
+ * benchmarks are compiled together with the framework sources they measure,
+ * with JMH and its annotation processor on the class path, and run through
+ * {@code org.openjdk.jmh.Main}.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 17:10
+ * @lastdate: 2026-10-18
+ */
+public abstract class SyntheticBeanFactories {
+
+  public static final String REPOSITORY_BEAN_NAME = "repository";
+
+  public static final String ORDER_BEAN_NAME = "order";
+
+  /** How far back a generated service delegates: keeps dependency chains short */
+  private static final int DELEGATION_DISTANCE = 7;
+
+
+  /**
+   * Return the name of the generated service bean with the given index.
+   */
+  public static String serviceBeanName(int index) {
+    return "service" + index;
+  }
+
+  /**
+   * Create a bean factory with the given number of generated service singletons,
+   * plus the repository singleton and the order prototype.
+   * @param serviceCount the number of service beans to generate
+   * @param freeze whether to freeze the configuration, as an application context would
+   */
+  public static DefaultListableBeanFactory createBeanFactory(int serviceCount, boolean freeze) {
+    DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    registerBeanDefinitions(beanFactory, serviceCount);
+    if (freeze) {
+      beanFactory.freezeConfiguration();
+    }
+    return beanFactory;
+  }
+
+  /**
+   * Register the synthetic bean definitions with the given bean factory.
+   * @param beanFactory the bean factory to populate
+   * @param serviceCount the number of service beans to generate
+   */
+  public static void registerBeanDefinitions(DefaultListableBeanFactory beanFactory, int serviceCount) {
+    beanFactory.registerBeanDefinition(REPOSITORY_BEAN_NAME, new RootBeanDefinition(SyntheticBeans.JdbcRepository.class));
+
+    for (int i = 0; i < serviceCount; i++) {
+      Class<?> beanClass = SyntheticBeans.SERVICE_CLASSES[i % SyntheticBeans.SERVICE_CLASSES.length];
+      RootBeanDefinition bd = new RootBeanDefinition(beanClass);
+      bd.getPropertyValues().add("name", serviceBeanName(i));
+      if (i >= DELEGATION_DISTANCE) {
+        bd.getPropertyValues().add("delegate", new RuntimeBeanReference(serviceBeanName(i - DELEGATION_DISTANCE)));
+      }
+      beanFactory.registerBeanDefinition(serviceBeanName(i), bd);
+    }
+
+    RootBeanDefinition order = new RootBeanDefinition(SyntheticBeans.Order.class);
+    order.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+    order.setInitMethodName("init");
+    order.getPropertyValues().add("currency", "CNY");
+    order.getPropertyValues().add("quantity", "3");
+    order.getPropertyValues().add("repository", new RuntimeBeanReference(REPOSITORY_BEAN_NAME));
+    beanFactory.registerBeanDefinition(ORDER_BEAN_NAME, order);
+  }
+
+}
@@ -0,0 +1,130 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: SyntheticBeans.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.benchmark;
+
+/**
+ * Bean classes that the synthetic bean factories are populated with:
+ * a handful of service types spread across the generated singletons,
+ * plus a prototype with constant and referenced properties.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 17:05
+ * @lastdate:
+ */
+public abstract class SyntheticBeans {
+
+  /** The bean classes that generated singletons are assigned round-robin */
+  static final Class<?>[] SERVICE_CLASSES = new Class<?>[] {
+          AccountService.class, InventoryService.class, PricingService.class, ShippingService.class};
+
+
+  public interface Service {
+
+    Service getDelegate();
+  }
+
+
+  public interface Repository {
+  }
+
+
+  public static class AbstractService implements Service {
+
+    private Service delegate;
+
+    private String name;
+
+    public void setDelegate(Service delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Service getDelegate() {
+      return this.delegate;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return this.name;
+    }
+  }
+
+
+  public static class AccountService extends AbstractService {
+  }
+
+
+  public static class InventoryService extends AbstractService {
+  }
+
+
+  public static class PricingService extends AbstractService {
+  }
+
+
+  public static class ShippingService extends AbstractService {
+  }
+
+
+  public static class JdbcRepository implements Repository {
+  }
+
+
+  /**
+   * Prototype bean: a constant String and int, and a reference to a singleton.
+   */
+  public static class Order {
+
+    private String currency;
+
+    private int quantity;
+
+    private Repository repository;
+
+    public void init() {
+    }
+
+    public void setCurrency(String currency) {
+      this.currency = currency;
+    }
+
+    public String getCurrency() {
+      return this.currency;
+    }
+
+    public void setQuantity(int quantity) {
+      this.quantity = quantity;
+    }
+
+    public int getQuantity() {
+      return this.quantity;
+    }
+
+    public void setRepository(Repository repository) {
+      this.repository = repository;
+    }
+
+    public Repository getRepository() {
+      return this.repository;
+    }
+  }
+
+
+  /**
+   * Holder of an injection point for dependency resolution benchmarks.
+   */
+  public static class InjectionTarget {
+
+    public Repository repository;
+  }
+
+}
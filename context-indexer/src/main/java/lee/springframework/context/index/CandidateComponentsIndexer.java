@@ -0,0 +1,286 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: CandidateComponentsIndexer.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/18
+ */
+
+package lee.springframework.context.index;
+
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Annotation {@link Processor} that writes the {@code CandidateComponentsIndex}
+ * file for the classes of the current compilation unit.
+ * 编译期注解处理器，生成 {@code META-INF/spring.components} 组件索引
+ *
+ * <p>A type is indexed under every {@code lee.springframework.stereotype.Indexed}
+ * annotation present on it, directly or as meta-annotation, and under every
+ * {@code @Indexed} superclass or interface it extends or implements. The
+ * file lists, per stereotype, the binary names of the candidate types in
+ * sorted order so that builds are reproducible.
+ *
+ * <p>Shipped in its own {@code context-indexer} module rather than the core
+ * library, registered through {@code META-INF/services/javax.annotation.processing.Processor}
+ * there: only projects that put that module on their annotation processor
+ * path get an index. It has no dependency on the core library, which it
+ * only knows by annotation name. Entries of a previous index file are kept
+ * for types that still exist, so incremental compilation does not lose
+ * components that were not recompiled.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-18 09:40
+ * @lastdate: 2026-10-18
+ * @see lee.springframework.context.index.CandidateComponentsIndexLoader
+ */
+public class CandidateComponentsIndexer implements Processor {
+
+  private static final String INDEXED_ANNOTATION = "lee.springframework.stereotype.Indexed";
+
+  private ProcessingEnvironment processingEnv;
+
+  private Elements elements;
+
+  /** Stereotype -> binary names of the types processed in this compilation */
+  private final Map<String, Set<String>> index = new TreeMap<String, Set<String>>();
+
+  /** Binary names of all types processed in this compilation, indexed or not */
+  private final Set<String> processedTypes = new HashSet<String>();
+
+
+  @Override
+  public Set<String> getSupportedOptions() {
+    return Collections.emptySet();
+  }
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Collections.singleton("*");
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public synchronized void init(ProcessingEnvironment processingEnv) {
+    this.processingEnv = processingEnv;
+    this.elements = processingEnv.getElementUtils();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (Element element : roundEnv.getRootElements()) {
+      processElement(element);
+    }
+    if (roundEnv.processingOver()) {
+      writeIndex();
+    }
+    // Never claim annotations: other processors may be interested too.
+    return false;
+  }
+
+  @Override
+  public Iterable<? extends Completion> getCompletions(
+          Element element, AnnotationMirror annotation, ExecutableElement member, String userText) {
+
+    return Collections.emptyList();
+  }
+
+
+  private void processElement(Element element) {
+    if (element.getKind() != ElementKind.CLASS && element.getKind() != ElementKind.INTERFACE) {
+      return;
+    }
+    TypeElement type = (TypeElement) element;
+    String typeName = this.elements.getBinaryName(type).toString();
+    this.processedTypes.add(typeName);
+
+    Set<String> stereotypes = new TreeSet<String>();
+    collectAnnotationStereotypes(type, stereotypes, new HashSet<String>());
+    collectTypeStereotypes(type, stereotypes, new HashSet<String>());
+    for (String stereotype : stereotypes) {
+      Set<String> types = this.index.get(stereotype);
+      if (types == null) {
+        types = new TreeSet<String>();
+        this.index.put(stereotype, types);
+      }
+      types.add(typeName);
+    }
+
+    // Nested types are not root elements, but may well be components.
+    for (Element enclosed : type.getEnclosedElements()) {
+      processElement(enclosed);
+    }
+  }
+
+  /**
+   * Collect every {@code @Indexed} annotation present on the given element,
+   * walking meta-annotations.
+   */
+  private void collectAnnotationStereotypes(Element element, Set<String> stereotypes, Set<String> visited) {
+    for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+      TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+      String annotationName = annotationType.getQualifiedName().toString();
+      if (annotationName.startsWith("java.lang.annotation.") || !visited.add(annotationName)) {
+        continue;
+      }
+      if (isIndexed(annotationType)) {
+        stereotypes.add(annotationName);
+      }
+      collectAnnotationStereotypes(annotationType, stereotypes, visited);
+    }
+  }
+
+  /**
+   * Collect every {@code @Indexed} superclass or interface of the given type.
+   */
+  private void collectTypeStereotypes(TypeElement type, Set<String> stereotypes, Set<String> visited) {
+    collectSupertypeStereotypes(type.getSuperclass(), stereotypes, visited);
+    for (TypeMirror itf : type.getInterfaces()) {
+      collectSupertypeStereotypes(itf, stereotypes, visited);
+    }
+  }
+
+  private void collectSupertypeStereotypes(TypeMirror supertype, Set<String> stereotypes, Set<String> visited) {
+    if (supertype.getKind() != TypeKind.DECLARED) {
+      return;
+    }
+    TypeElement element = (TypeElement) ((DeclaredType) supertype).asElement();
+    String name = element.getQualifiedName().toString();
+    if (!visited.add(name)) {
+      return;
+    }
+    if (isIndexed(element)) {
+      stereotypes.add(name);
+    }
+    collectTypeStereotypes(element, stereotypes, visited);
+  }
+
+  private static boolean isIndexed(Element element) {
+    for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+      TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+      if (INDEXED_ANNOTATION.contentEquals(annotationType.getQualifiedName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+
+  //---------------------------------------------------------------------
+  // Reading and writing the index file
+  //---------------------------------------------------------------------
+
+  private void writeIndex() {
+    Filer filer = this.processingEnv.getFiler();
+    mergePreviousIndex(filer);
+    if (this.index.isEmpty()) {
+      return;
+    }
+    try {
+      FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "",
+              CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION);
+      OutputStream out = file.openOutputStream();
+      try {
+        Writer writer = new OutputStreamWriter(out, "ISO-8859-1");
+        for (Map.Entry<String, Set<String>> entry : this.index.entrySet()) {
+          writer.write(entry.getKey());
+          writer.write('=');
+          boolean first = true;
+          for (String type : entry.getValue()) {
+            if (!first) {
+              writer.write(',');
+            }
+            writer.write(type);
+            first = false;
+          }
+          writer.write('\n');
+        }
+        writer.flush();
+      }
+      finally {
+        out.close();
+      }
+    }
+    catch (IOException ex) {
+      this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+              "Unable to write component index: " + ex);
+    }
+  }
+
+  /**
+   * Keep the entries of the index file from a previous compilation for
+   * types that have not been processed in this one and still exist.
+   */
+  private void mergePreviousIndex(Filer filer) {
+    Properties previous = new Properties();
+    try {
+      FileObject file = filer.getResource(StandardLocation.CLASS_OUTPUT, "",
+              CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION);
+      InputStream in = file.openInputStream();
+      try {
+        previous.load(in);
+      }
+      finally {
+        in.close();
+      }
+    }
+    catch (FileNotFoundException ex) {
+      return;
+    }
+    catch (IOException ex) {
+      // Some compilers signal a missing resource differently: start from scratch.
+      return;
+    }
+
+    for (String stereotype : previous.stringPropertyNames()) {
+      for (String type : previous.getProperty(stereotype).split(",")) {
+        type = type.trim();
+        if (type.length() == 0 || this.processedTypes.contains(type) ||
+                this.elements.getTypeElement(type.replace('$', '.')) == null) {
+          continue;
+        }
+        Set<String> types = this.index.get(stereotype);
+        if (types == null) {
+          types = new TreeSet<String>();
+          this.index.put(stereotype, types);
+        }
+        types.add(type);
+      }
+    }
+  }
+
+}
@@ -12,6 +12,7 @@ import lee.springframework.beans.factory.BeanFactory;
 import lee.springframework.beans.factory.HierarchicalBeanFactory;
 import lee.springframework.beans.factory.NoSuchBeanDefinitionException;
 import lee.springframework.core.convert.ConversionService;
+import lee.springframework.core.metrics.ApplicationStartup;
 import sun.plugin.com.TypeConverter;
 
 import java.beans.PropertyEditor;
@@ -144,6 +145,19 @@ public interface ConfigurableBeanFactory extends HierarchicalBeanFactory, Single
    */
   ConversionService getConversionService();
 
+  /**
+   * Set the {@code ApplicationStartup} for this bean factory.
+   * <p>This allows the application context to record metrics during application startup.
+   * @param applicationStartup the new application startup
+   * @see ApplicationStartup#DEFAULT
+   */
+  void setApplicationStartup(ApplicationStartup applicationStartup);
+
+  /**
+   * Return the {@code ApplicationStartup} for this bean factory.
+   */
+  ApplicationStartup getApplicationStartup();
+
   /**
    * Add a PropertyEditorRegistrar to be applied to all bean creation processes.
    * <p>Such a registrar creates new PropertyEditor instances and registers them
@@ -18,12 +18,15 @@ import lee.springframework.core.GenericTypeResolver;
 import lee.springframework.core.MethodParameter;
 import lee.springframework.core.ParameterNameDiscoverer;
 import lee.springframework.core.ResolvableType;
+import lee.springframework.core.metrics.ApplicationStartup;
+import lee.springframework.core.metrics.StartupStep;
 import lee.springframework.util.ClassUtils;
 import lee.springframework.util.ObjectUtils;
 import lee.springframework.util.ReflectionUtils;
 import lee.springframework.util.StringUtils;
 import sun.plugin.com.TypeConverter;
 
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -36,6 +39,7 @@ import java.security.PrivilegedExceptionAction;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
 
 /**
  * @description:
@@ -81,6 +85,13 @@ public class AbstractAutowireCapableBeanFactory  extends AbstractBeanFactory imp
   private final ConcurrentMap<Class<?>, PropertyDescriptor[]> filteredPropertyDescriptorsCache =
           new ConcurrentHashMap<Class<?>, PropertyDescriptor[]>(256);
 
+  /** Cache of direct setter invokers, keyed by bean class */
+  private final PropertySetterCache propertySetterCache = new PropertySetterCache();
+
+  /** Cache of creation plans for non-singleton beans: bean name -> BeanCreationPlan */
+  private final ConcurrentMap<String, BeanCreationPlan> creationPlanCache =
+          new ConcurrentHashMap<String, BeanCreationPlan>(64);
+
 
   /**
    * Create a new AbstractAutowireCapableBeanFactory.
@@ -332,9 +343,17 @@ public class AbstractAutowireCapableBeanFactory  extends AbstractBeanFactory imp
   public Object applyBeanPostProcessorsBeforeInitialization(Object existingBean, String beanName)
           throws BeansException {
 
+    ApplicationStartup applicationStartup = getApplicationStartup();
     Object result = existingBean;
     for (BeanPostProcessor beanProcessor : getBeanPostProcessors()) {
-      result = beanProcessor.postProcessBeforeInitialization(result, beanName);
+      StartupStep step = applicationStartup.start("beans.postProcessBeforeInitialization")
+              .tag("beanName", beanName).tag("postProcessor", beanProcessor.getClass().getName());
+      try {
+        result = beanProcessor.postProcessBeforeInitialization(result, beanName);
+      }
+      finally {
+        step.end();
+      }
       if (result == null) {
         return result;
       }
@@ -346,9 +365,17 @@ public class AbstractAutowireCapableBeanFactory  extends AbstractBeanFactory imp
   public Object applyBeanPostProcessorsAfterInitialization(Object existingBean, String beanName)
           throws BeansException {
 
+    ApplicationStartup applicationStartup = getApplicationStartup();
     Object result = existingBean;
     for (BeanPostProcessor beanProcessor : getBeanPostProcessors()) {
-      result = beanProcessor.postProcessAfterInitialization(result, beanName);
+      StartupStep step = applicationStartup.start("beans.postProcessAfterInitialization")
+              .tag("beanName", beanName).tag("postProcessor", beanProcessor.getClass().getName());
+      try {
+        result = beanProcessor.postProcessAfterInitialization(result, beanName);
+      }
+      finally {
+        step.end();
+      }
       if (result == null) {
         return result;
       }
@@ -376,43 +403,49 @@ public class AbstractAutowireCapableBeanFactory  extends AbstractBeanFactory imp
     if (logger.isDebugEnabled()) {
       logger.debug("Creating instance of bean '" + beanName + "'");
     }
-    RootBeanDefinition mbdToUse = mbd;
+    StartupStep createBeanStep = getApplicationStartup().start("beans.createBean").tag("beanName", beanName);
+    try {
+      RootBeanDefinition mbdToUse = mbd;
 
-    // Make sure bean class is actually resolved at this point, and
-    // clone the bean definition in case of a dynamically resolved Class
-    // which cannot be stored in the shared merged bean definition.
-    Class<?> resolvedClass = resolveBeanClass(mbd, beanName);
-    if (resolvedClass != null && !mbd.hasBeanClass() && mbd.getBeanClassName() != null) {
-      mbdToUse = new RootBeanDefinition(mbd);
-      mbdToUse.setBeanClass(resolvedClass);
-    }
+      // Make sure bean class is actually resolved at this point, and
+      // clone the bean definition in case of a dynamically resolved Class
+      // which cannot be stored in the shared merged bean definition.
+      Class<?> resolvedClass = resolveBeanClass(mbd, beanName);
+      if (resolvedClass != null && !mbd.hasBeanClass() && mbd.getBeanClassName() != null) {
+        mbdToUse = new RootBeanDefinition(mbd);
+        mbdToUse.setBeanClass(resolvedClass);
+      }
 
-    // Prepare method overrides.
-    try {
-      mbdToUse.prepareMethodOverrides();
-    }
-    catch (BeanDefinitionValidationException ex) {
-      throw new BeanDefinitionStoreException(mbdToUse.getResourceDescription(),
-              beanName, "Validation of method overrides failed", ex);
-    }
+      // Prepare method overrides.
+      try {
+        mbdToUse.prepareMethodOverrides();
+      }
+      catch (BeanDefinitionValidationException ex) {
+        throw new BeanDefinitionStoreException(mbdToUse.getResourceDescription(),
+                beanName, "Validation of method overrides failed", ex);
+      }
 
-    try {
-      // Give BeanPostProcessors a chance to return a proxy instead of the target bean instance.
-      Object bean = resolveBeforeInstantiation(beanName, mbdToUse);
-      if (bean != null) {
-        return bean;
+      try {
+        // Give BeanPostProcessors a chance to return a proxy instead of the target bean instance.
+        Object bean = resolveBeforeInstantiation(beanName, mbdToUse);
+        if (bean != null) {
+          return bean;
+        }
+      }
+      catch (Throwable ex) {
+        throw new BeanCreationException(mbdToUse.getResourceDescription(), beanName,
+                "BeanPostProcessor before instantiation of bean failed", ex);
       }
-    }
-    catch (Throwable ex) {
-      throw new BeanCreationException(mbdToUse.getResourceDescription(), beanName,
-              "BeanPostProcessor before instantiation of bean failed", ex);
-    }
 
-    Object beanInstance = doCreateBean(beanName, mbdToUse, args);
-    if (logger.isDebugEnabled()) {
-      logger.debug("Finished creating instance of bean '" + beanName + "'");
+      Object beanInstance = doCreateBean(beanName, mbdToUse, args);
+      if (logger.isDebugEnabled()) {
+        logger.debug("Finished creating instance of bean '" + beanName + "'");
+      }
+      return beanInstance;
+    }
+    finally {
+      createBeanStep.end();
     }
-    return beanInstance;
   }
 
   /**
@@ -432,7 +465,10 @@ public class AbstractAutowireCapableBeanFactory  extends AbstractBeanFactory imp
   protected Object doCreateBean(final String beanName, final RootBeanDefinition mbd, final Object[] args)
           throws BeanCreationException {
 
-    // Instantiate the bean.
+    // Instantiate the bean, compiling a creation plan along the way if there is none yet.
+    if (args == null) {
+      obtainCreationPlan(beanName, mbd);
+    }
     BeanWrapper instanceWrapper = null;
     if (mbd.isSingleton()) {
       instanceWrapper = this.factoryBeanInstanceCache.remove(beanName);
@@ -477,10 +513,23 @@ public class AbstractAutowireCapableBeanFactory  extends AbstractBeanFactory imp
 
     // Initialize the bean instance.
     Object exposedObject = bean;
+    ApplicationStartup applicationStartup = getApplicationStartup();
     try {
-      populateBean(beanName, mbd, instanceWrapper);
+      StartupStep step = applicationStartup.start("beans.populateBean").tag("beanName", beanName);
+      try {
+        populateBean(beanName, mbd, instanceWrapper);
+      }
+      finally {
+        step.end();
+      }
       if (exposedObject != null) {
-        exposedObject = initializeBean(beanName, exposedObject, mbd);
+        step = applicationStartup.start("beans.initializeBean").tag("beanName", beanName);
+        try {
+          exposedObject = initializeBean(beanName, exposedObject, mbd);
+        }
+        finally {
+          step.end();
+        }
       }
     }
     catch (Throwable ex) {
@@ -831,11 +880,21 @@ public class AbstractAutowireCapableBeanFactory  extends AbstractBeanFactory imp
    * that we couldn't obtain a shortcut FactoryBean instance
    */
   private FactoryBean<?> getSingletonFactoryBeanForTypeCheck(String beanName, RootBeanDefinition mbd) {
-    synchronized (getSingletonMutex()) {
+    // Only lock the bean at hand: if another thread is creating it right now,
+    // don't wait for it but rather report that no shortcut instance is available.
+    Lock lock = tryAcquireSingletonLock(beanName);
+    if (lock == null) {
+      return null;
+    }
+    try {
       BeanWrapper bw = this.factoryBeanInstanceCache.get(beanName);
       if (bw != null) {
         return (FactoryBean<?>) bw.getWrappedInstance();
       }
+      Object beanInstance = getSingleton(beanName, false);
+      if (beanInstance instanceof FactoryBean) {
+        return (FactoryBean<?>) beanInstance;
+      }
       if (isSingletonCurrentlyInCreation(beanName) ||
               (mbd.getFactoryBeanName() != null && isSingletonCurrentlyInCreation(mbd.getFactoryBeanName()))) {
         return null;
@@ -863,6 +922,9 @@ public class AbstractAutowireCapableBeanFactory  extends AbstractBeanFactory imp
       }
       return fb;
     }
+    finally {
+      lock.unlock();
+    }
   }
 
   /**
@@ -959,10 +1021,19 @@ public class AbstractAutowireCapableBeanFactory  extends AbstractBeanFactory imp
    * @see InstantiationAwareBeanPostProcessor#postProcessBeforeInstantiation
    */
   protected Object applyBeanPostProcessorsBeforeInstantiation(Class<?> beanClass, String beanName) {
+    ApplicationStartup applicationStartup = getApplicationStartup();
     for (BeanPostProcessor bp : getBeanPostProcessors()) {
       if (bp instanceof InstantiationAwareBeanPostProcessor) {
         InstantiationAwareBeanPostProcessor ibp = (InstantiationAwareBeanPostProcessor) bp;
-        Object result = ibp.postProcessBeforeInstantiation(beanClass, beanName);
+        StartupStep step = applicationStartup.start("beans.postProcessBeforeInstantiation")
+                .tag("beanName", beanName).tag("postProcessor", bp.getClass().getName());
+        Object result;
+        try {
+          result = ibp.postProcessBeforeInstantiation(beanClass, beanName);
+        }
+        finally {
+          step.end();
+        }
         if (result != null) {
           return result;
         }
@@ -999,10 +1070,20 @@ public class AbstractAutowireCapableBeanFactory  extends AbstractBeanFactory imp
     boolean resolved = false;
     boolean autowireNecessary = false;
     if (args == null) {
-      synchronized (mbd.constructorArgumentLock) {
-        if (mbd.resolvedConstructorOrFactoryMethod != null) {
-          resolved = true;
-          autowireNecessary = mbd.constructorArgumentsResolved;
+      BeanCreationPlan plan = getCreationPlan(beanName, mbd);
+      if (plan != null && plan.instantiationResolved) {
+        resolved = true;
+        autowireNecessary = plan.autowireNecessary;
+      }
+      else {
+        synchronized (mbd.constructorArgumentLock) {
+          if (mbd.resolvedConstructorOrFactoryMethod != null) {
+            resolved = true;
+            autowireNecessary = mbd.constructorArgumentsResolved;
+          }
+        }
+        if (resolved && plan != null) {
+          plan.resolveInstantiation(autowireNecessary);
         }
       }
     }
@@ -1421,18 +1502,20 @@ public class AbstractAutowireCapableBeanFactory  extends AbstractBeanFactory imp
       }
     }
 
+    // Replay the compiled property injections when re-creating the same bean,
+    // as long as the property values have not been altered by autowiring.
+    BeanCreationPlan plan = (pvs == mbd.getPropertyValues() ? getCreationPlan(beanName, mbd) : null);
+    if (plan != null && plan.propertyInjections != null) {
+      applyPropertyInjections(beanName, mbd, bw, plan.propertyInjections);
+      return;
+    }
+
     if (pvs instanceof MutablePropertyValues) {
       mpvs = (MutablePropertyValues) pvs;
       if (mpvs.isConverted()) {
         // Shortcut: use the pre-converted values as-is.
-        try {
-          bw.setPropertyValues(mpvs);
-          return;
-        }
-        catch (BeansException ex) {
-          throw new BeanCreationException(
-                  mbd.getResourceDescription(), beanName, "Error setting property values", ex);
-        }
+        setPropertyValues(beanName, mbd, bw, mpvs.getPropertyValueList());
+        return;
       }
       original = mpvs.getPropertyValueList();
     }
@@ -1445,22 +1528,29 @@ public class AbstractAutowireCapableBeanFactory  extends AbstractBeanFactory imp
       converter = bw;
     }
     BeanDefinitionValueResolver valueResolver = new BeanDefinitionValueResolver(this, beanName, mbd, converter);
+    boolean directInjection = isDirectPropertyInjectionPossible(bw);
 
     // Create a deep copy, resolving any references for values.
     List<PropertyValue> deepCopy = new ArrayList<PropertyValue>(original.size());
+    List<BeanCreationPlan.PropertyInjection> injections = (plan != null ?
+            new ArrayList<BeanCreationPlan.PropertyInjection>(original.size()) : null);
     boolean resolveNecessary = false;
     for (PropertyValue pv : original) {
       if (pv.isConverted()) {
         deepCopy.add(pv);
+        if (injections != null) {
+          injections.add(new BeanCreationPlan.PropertyInjection(pv, false, false));
+        }
       }
       else {
         String propertyName = pv.getName();
         Object originalValue = pv.getValue();
         Object resolvedValue = valueResolver.resolveValueIfNecessary(pv, originalValue);
         Object convertedValue = resolvedValue;
-        boolean convertible = bw.isWritableProperty(propertyName) &&
-                !PropertyAccessorUtils.isNestedOrIndexedProperty(propertyName);
-        if (convertible) {
+        PropertySetterCache.PropertySetter setter = (directInjection ? getDirectSetter(bw, propertyName) : null);
+        boolean convertible = (setter != null || (bw.isWritableProperty(propertyName) &&
+                !PropertyAccessorUtils.isNestedOrIndexedProperty(propertyName)));
+        if (convertible && (setter == null || !isInjectableAsIs(setter, resolvedValue))) {
           convertedValue = convertForProperty(resolvedValue, propertyName, bw, converter);
         }
         // Possibly store converted value in merged bean definition,
@@ -1470,16 +1560,25 @@ public class AbstractAutowireCapableBeanFactory  extends AbstractBeanFactory imp
             pv.setConvertedValue(convertedValue);
           }
           deepCopy.add(pv);
+          if (injections != null) {
+            injections.add(new BeanCreationPlan.PropertyInjection(pv, false, false));
+          }
         }
         else if (convertible && originalValue instanceof TypedStringValue &&
                 !((TypedStringValue) originalValue).isDynamic() &&
                 !(convertedValue instanceof Collection || ObjectUtils.isArray(convertedValue))) {
           pv.setConvertedValue(convertedValue);
           deepCopy.add(pv);
+          if (injections != null) {
+            injections.add(new BeanCreationPlan.PropertyInjection(pv, false, false));
+          }
         }
         else {
           resolveNecessary = true;
           deepCopy.add(new PropertyValue(pv, convertedValue));
+          if (injections != null) {
+            injections.add(new BeanCreationPlan.PropertyInjection(pv, true, convertible));
+          }
         }
       }
     }
@@ -1488,8 +1587,104 @@ public class AbstractAutowireCapableBeanFactory  extends AbstractBeanFactory imp
     }
 
     // Set our (possibly massaged) deep copy.
+    setPropertyValues(beanName, mbd, bw, deepCopy);
+
+    // Only keep the compiled injections once they have been applied successfully.
+    if (injections != null) {
+      plan.propertyInjections = Collections.unmodifiableList(injections);
+    }
+  }
+
+  /**
+   * Apply the property injections compiled into a creation plan, resolving
+   * and converting the dynamic values only: constant values have been
+   * converted once when the plan was compiled.
+   * @param beanName the bean name passed for better exception information
+   * @param mbd the merged bean definition
+   * @param bw the BeanWrapper wrapping the target object
+   * @param injections the compiled property injections
+   */
+  private void applyPropertyInjections(String beanName, BeanDefinition mbd, BeanWrapper bw,
+                                       List<BeanCreationPlan.PropertyInjection> injections) {
+
+    TypeConverter converter = null;
+    BeanDefinitionValueResolver valueResolver = null;
+    boolean directInjection = isDirectPropertyInjectionPossible(bw);
+    List<PropertyValue> values = new ArrayList<PropertyValue>(injections.size());
+    for (BeanCreationPlan.PropertyInjection injection : injections) {
+      PropertyValue pv = injection.propertyValue;
+      if (!injection.resolveNecessary) {
+        values.add(pv);
+        continue;
+      }
+      if (valueResolver == null) {
+        converter = getCustomTypeConverter();
+        if (converter == null) {
+          converter = bw;
+        }
+        valueResolver = new BeanDefinitionValueResolver(this, beanName, mbd, converter);
+      }
+      Object resolvedValue = valueResolver.resolveValueIfNecessary(pv, pv.getValue());
+      Object convertedValue = resolvedValue;
+      if (injection.convertible) {
+        PropertySetterCache.PropertySetter setter = (directInjection ? getDirectSetter(bw, pv.getName()) : null);
+        if (setter == null || !isInjectableAsIs(setter, resolvedValue)) {
+          convertedValue = convertForProperty(resolvedValue, pv.getName(), bw, converter);
+        }
+      }
+      values.add(new PropertyValue(pv, convertedValue));
+    }
+
+    setPropertyValues(beanName, mbd, bw, values);
+  }
+
+  /**
+   * Set the given (resolved and possibly converted) property values on the
+   * bean instance, in their original order. Values that need no conversion
+   * for their target property are injected through the cached setter of the
+   * bean class directly, all others go through the BeanWrapper.
+   * <p>Each setter is invoked once: a failing value is recorded and the remaining
+   * ones are still applied, so that failures are reported the same way as without
+   * direct injection: all of them, in a PropertyBatchUpdateException.
+   * @param beanName the bean name passed for better exception information
+   * @param mbd the merged bean definition
+   * @param bw the BeanWrapper wrapping the target object
+   * @param values the property values to set
+   * @see #isDirectPropertyInjectionPossible
+   */
+  private void setPropertyValues(String beanName, BeanDefinition mbd, BeanWrapper bw, List<PropertyValue> values) {
     try {
-      bw.setPropertyValues(new MutablePropertyValues(deepCopy));
+      if (!isDirectPropertyInjectionPossible(bw)) {
+        bw.setPropertyValues(new MutablePropertyValues(values));
+        return;
+      }
+
+      Object bean = bw.getWrappedInstance();
+      List<PropertyAccessException> propertyAccessExceptions = null;
+      for (PropertyValue pv : values) {
+        Object value = (pv.isConverted() ? pv.getConvertedValue() : pv.getValue());
+        PropertySetterCache.PropertySetter setter = getDirectSetter(bw, pv.getName());
+        try {
+          if (setter != null && isInjectableAsIs(setter, value)) {
+            invokeDirectSetter(setter, bean, pv.getName(), value);
+          }
+          else {
+            // No setter or no type match: let the BeanWrapper convert and apply the value.
+            bw.setPropertyValue(pv);
+          }
+        }
+        catch (PropertyAccessException ex) {
+          if (propertyAccessExceptions == null) {
+            propertyAccessExceptions = new LinkedList<PropertyAccessException>();
+          }
+          propertyAccessExceptions.add(ex);
+        }
+      }
+      if (propertyAccessExceptions != null) {
+        PropertyAccessException[] paeArray =
+                propertyAccessExceptions.toArray(new PropertyAccessException[propertyAccessExceptions.size()]);
+        throw new PropertyBatchUpdateException(paeArray);
+      }
     }
     catch (BeansException ex) {
       throw new BeanCreationException(
@@ -1497,6 +1692,56 @@ public class AbstractAutowireCapableBeanFactory  extends AbstractBeanFactory imp
     }
   }
 
+  /**
+   * Invoke the given setter, reporting an exception thrown by it like the
+   * BeanWrapper does: as a MethodInvocationException for the property.
+   */
+  private void invokeDirectSetter(PropertySetterCache.PropertySetter setter, Object bean,
+                                  String propertyName, Object value) throws PropertyAccessException {
+    try {
+      setter.set(bean, value);
+    }
+    catch (Exception ex) {
+      PropertyChangeEvent propertyChangeEvent = new PropertyChangeEvent(bean, propertyName, null, value);
+      throw new MethodInvocationException(propertyChangeEvent, ex);
+    }
+  }
+
+  /**
+   * Determine whether property values may be injected through cached setters,
+   * bypassing the BeanWrapper: only if there are no custom editors or custom
+   * type converter which might want to process a value even if it already
+   * matches the property type, and no SecurityManager to run the setters under.
+   * @param bw the BeanWrapper wrapping the target object
+   */
+  private boolean isDirectPropertyInjectionPossible(BeanWrapper bw) {
+    return (System.getSecurityManager() == null && bw.getWrappedInstance() != null &&
+            getCustomTypeConverter() == null && getCustomEditors().isEmpty() &&
+            getPropertyEditorRegistrars().isEmpty());
+  }
+
+  /**
+   * Return the cached setter for the given top-level property of the wrapped bean.
+   * @return the setter, or {@code null} for nested or indexed property paths
+   * and for properties without an accessible setter
+   */
+  private PropertySetterCache.PropertySetter getDirectSetter(BeanWrapper bw, String propertyName) {
+    if (PropertyAccessorUtils.isNestedOrIndexedProperty(propertyName)) {
+      return null;
+    }
+    return this.propertySetterCache.getSetter(bw.getWrappedClass(), propertyName);
+  }
+
+  /**
+   * Determine whether the given value can be injected through the given setter
+   * as-is: with a ConversionService around, only if the value is exactly of
+   * the property type, since the service might still convert it otherwise.
+   */
+  private boolean isInjectableAsIs(PropertySetterCache.PropertySetter setter, Object value) {
+    return (setter.acceptsAsIs(value) &&
+            (getConversionService() == null || value.getClass() == setter.getPropertyType()));
+  }
+
   /**
    * Convert the given value for the specified target property.
    */
@@ -1636,9 +1881,22 @@ public class AbstractAutowireCapableBeanFactory  extends AbstractBeanFactory imp
           throws Throwable {
 
     String initMethodName = mbd.getInitMethodName();
-    final Method initMethod = (mbd.isNonPublicAccessAllowed() ?
-            BeanUtils.findMethod(bean.getClass(), initMethodName) :
-            ClassUtils.getMethodIfAvailable(bean.getClass(), initMethodName));
+    BeanCreationPlan plan = getCreationPlan(beanName, mbd);
+    final Method initMethod;
+    if (plan != null && plan.isInitMethodResolvedFor(bean.getClass())) {
+      initMethod = plan.getInitMethod(bean.getClass());
+    }
+    else {
+      initMethod = (mbd.isNonPublicAccessAllowed() ?
+              BeanUtils.findMethod(bean.getClass(), initMethodName) :
+              ClassUtils.getMethodIfAvailable(bean.getClass(), initMethodName));
+      if (plan != null && System.getSecurityManager() == null) {
+        if (initMethod != null) {
+          ReflectionUtils.makeAccessible(initMethod);
+        }
+        plan.resolveInitMethod(bean.getClass(), initMethod);
+      }
+    }
     if (initMethod == null) {
       if (mbd.isEnforceInitMethod()) {
         throw new BeanDefinitionValidationException("Couldn't find an init method named '" +
@@ -1712,6 +1970,76 @@ public class AbstractAutowireCapableBeanFactory  extends AbstractBeanFactory imp
     this.factoryBeanInstanceCache.remove(beanName);
   }
 
+  /**
+   * Overridden to clear the creation plan for the given bean as well.
+   */
+  @Override
+  protected void clearMergedBeanDefinition(String beanName) {
+    super.clearMergedBeanDefinition(beanName);
+    this.creationPlanCache.remove(beanName);
+  }
+
+  /**
+   * Overridden to clear creation plans for beans whose merged bean definition got dropped.
+   */
+  @Override
+  public void clearMetadataCache() {
+    super.clearMetadataCache();
+    Iterator<String> planned = this.creationPlanCache.keySet().iterator();
+    while (planned.hasNext()) {
+      if (!isBeanEligibleForMetadataCaching(planned.next())) {
+        planned.remove();
+      }
+    }
+  }
+
+  /**
+   * Obtain the creation plan for the given non-singleton bean, compiling
+   * a new (initially empty) plan if none exists for the given merged bean
+   * definition yet. Singletons are created once and never get a plan.
+   * @param beanName the name of the bean
+   * @param mbd the merged bean definition that the bean is created with
+   * @return the creation plan, or {@code null} for a singleton bean
+   * @see #getCreationPlanKey
+   */
+  BeanCreationPlan obtainCreationPlan(String beanName, RootBeanDefinition mbd) {
+    if (mbd.isSingleton()) {
+      return null;
+    }
+    RootBeanDefinition key = (RootBeanDefinition) getCreationPlanKey(beanName, mbd);
+    BeanCreationPlan plan = this.creationPlanCache.get(beanName);
+    if (plan == null || !plan.isPlanFor(key)) {
+      plan = new BeanCreationPlan(key);
+      this.creationPlanCache.put(beanName, plan);
+    }
+    return plan;
+  }
+
+  /**
+   * Return the creation plan compiled for the given merged bean definition, if any.
+   * @param beanName the name of the bean
+   * @param mbd the merged bean definition that the bean is created with
+   * @return the creation plan, or {@code null} if none has been compiled for it
+   */
+  BeanCreationPlan getCreationPlan(String beanName, BeanDefinition mbd) {
+    if (mbd == null || this.creationPlanCache.isEmpty()) {
+      return null;
+    }
+    BeanCreationPlan plan = this.creationPlanCache.get(beanName);
+    return (plan != null && plan.isPlanFor(getCreationPlanKey(beanName, mbd)) ? plan : null);
+  }
+
+  /**
+   * Determine the bean definition to key the creation plan of the given bean on:
+   * the merged bean definition from the cache, also when creating with a copy of
+   * it, as {@link #createBean} does for a dynamically resolved bean class. Any
+   * other definition, e.g. that of an inner bean, is a key of its own.
+   */
+  private BeanDefinition getCreationPlanKey(String beanName, BeanDefinition mbd) {
+    RootBeanDefinition cachedMbd = getCachedMergedBeanDefinition(beanName);
+    return (cachedMbd != null && (cachedMbd == mbd || cachedMbd.equals(mbd)) ? cachedMbd : mbd);
+  }
+
 
   /**
    * Special DependencyDescriptor variant for Spring's good old autowire="byType" mode.
@@ -7,11 +7,573 @@
 
 package lee.springframework.beans.factory.support;
 
+import lee.springframework.beans.factory.BeanDefinitionStoreException;
+import lee.springframework.beans.factory.NoSuchBeanDefinitionException;
+import lee.springframework.beans.factory.cofnig.BeanDefinition;
+import lee.springframework.core.env.Environment;
+import lee.springframework.core.env.EnvironmentCapable;
+import lee.springframework.core.io.Resource;
+import lee.springframework.core.io.ResourceLoader;
+import lee.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import lee.springframework.core.io.support.ResourcePatternResolver;
+import lee.springframework.util.Assert;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
+ * Abstract base class for bean definition readers which implement
+ * the {@link BeanDefinitionReader} interface.
+ *
+ * <p>Provides common properties like the bean registry to work on
+ * and the class loader to use for loading bean classes.
+ *
+ * <p>If a {@link #setParallelLoadingExecutor parallel loading executor} is set,
+ * multiple resources given to {@link #loadBeanDefinitions(Resource...)} (or
+ * resolved from multiple locations) are parsed concurrently on that executor.
+ * Each resource is parsed into a list of pending registrations, which the
+ * calling thread then replays into the registry one resource after the other,
+ * in the order the resources have been given. Overriding of bean definitions,
+ * generated bean names, and the error reported for the first invalid resource
+ * are therefore the same as with sequential loading. Work that needs to see
+ * the registry itself, such as custom namespace parsing, can be recorded as a
+ * {@link DeferredRegistration} to run during that replay.
+ *
  * @description:
  * @author: liyong18
  * @createdate: 2018-07-30 17:46
- * @lastdate:
+ * @lastdate: 2026-10-18
  */
-public class AbstractBeanDefinitionReader {
+public abstract class AbstractBeanDefinitionReader implements EnvironmentCapable, BeanDefinitionReader {
+
+  /** Prefix of the placeholders for bean names generated when replaying */
+  private static final String DEFERRED_NAME_PREFIX = "(generated)#";
+
+  /** Logger available to subclasses */
+  protected final Log logger = LogFactory.getLog(getClass());
+
+  private final BeanDefinitionRegistry registry;
+
+  private ResourceLoader resourceLoader;
+
+  private ClassLoader beanClassLoader;
+
+  private Environment environment;
+
+  private BeanNameGenerator beanNameGenerator = new DefaultBeanNameGenerator();
+
+  private Executor parallelLoadingExecutor;
+
+
+  /**
+   * Create a new AbstractBeanDefinitionReader for the given bean factory.
+   * <p>If the passed-in bean factory does not only implement the
+   * BeanDefinitionRegistry interface but also the ResourceLoader interface,
+   * it will be used as default ResourceLoader as well. This will usually
+   * be the case for an ApplicationContext.
+   * <p>If given a plain BeanDefinitionRegistry, the default ResourceLoader
+   * will be a PathMatchingResourcePatternResolver.
+   * <p>If the passed-in bean factory also implements EnvironmentCapable, its
+   * environment will be used by this reader.
+   *
+   * @param registry the BeanFactory to load bean definitions into,
+   * in the form of a BeanDefinitionRegistry
+   */
+  protected AbstractBeanDefinitionReader(BeanDefinitionRegistry registry) {
+    Assert.notNull(registry, "BeanDefinitionRegistry must not be null");
+    this.registry = registry;
+
+    // Determine ResourceLoader to use.
+    if (this.registry instanceof ResourceLoader) {
+      this.resourceLoader = (ResourceLoader) this.registry;
+    }
+    else {
+      this.resourceLoader = new PathMatchingResourcePatternResolver();
+    }
+
+    // Inherit Environment if possible
+    if (this.registry instanceof EnvironmentCapable) {
+      this.environment = ((EnvironmentCapable) this.registry).getEnvironment();
+    }
+  }
+
+
+  public final BeanDefinitionRegistry getBeanFactory() {
+    return this.registry;
+  }
+
+  @Override
+  public final BeanDefinitionRegistry getRegistry() {
+    return this.registry;
+  }
+
+  /**
+   * Set the ResourceLoader to use for resource locations.
+   * If specifying a ResourcePatternResolver, the bean definition reader
+   * will be capable of resolving resource patterns to Resource arrays.
+   * <p>Default is PathMatchingResourcePatternResolver, also capable of
+   * resource pattern resolving through the ResourcePatternResolver interface.
+   * <p>Setting this to {@code null} suggests that absolute resource loading
+   * is not available for this bean definition reader.
+   *
+   * @see lee.springframework.core.io.support.ResourcePatternResolver
+   * @see lee.springframework.core.io.support.PathMatchingResourcePatternResolver
+   */
+  public void setResourceLoader(ResourceLoader resourceLoader) {
+    this.resourceLoader = resourceLoader;
+  }
+
+  @Override
+  public ResourceLoader getResourceLoader() {
+    return this.resourceLoader;
+  }
+
+  /**
+   * Set the ClassLoader to use for bean classes.
+   * <p>Default is {@code null}, which suggests to not load bean classes
+   * eagerly but rather to just register bean definitions with class names,
+   * with the corresponding Classes to be resolved later (or never).
+   */
+  public void setBeanClassLoader(ClassLoader beanClassLoader) {
+    this.beanClassLoader = beanClassLoader;
+  }
+
+  @Override
+  public ClassLoader getBeanClassLoader() {
+    return this.beanClassLoader;
+  }
+
+  /**
+   * Set the Environment to use when reading bean definitions. Most often used
+   * for evaluating profile information to determine which bean definitions
+   * should be read and which should be omitted.
+   */
+  public void setEnvironment(Environment environment) {
+    this.environment = environment;
+  }
+
+  @Override
+  public Environment getEnvironment() {
+    return this.environment;
+  }
+
+  /**
+   * Set the BeanNameGenerator to use for anonymous beans
+   * (without explicit bean name specified).
+   * <p>Default is a {@link DefaultBeanNameGenerator}.
+   */
+  public void setBeanNameGenerator(BeanNameGenerator beanNameGenerator) {
+    this.beanNameGenerator = (beanNameGenerator != null ? beanNameGenerator : new DefaultBeanNameGenerator());
+  }
+
+  @Override
+  public BeanNameGenerator getBeanNameGenerator() {
+    return this.beanNameGenerator;
+  }
+
+  /**
+   * Set the executor to parse multiple resources on concurrently.
+   * <p>Default is none: resources are parsed and registered one after the
+   * other on the calling thread. Registration always happens on the calling
+   * thread, in the order of the given resources.
+   */
+  public void setParallelLoadingExecutor(Executor parallelLoadingExecutor) {
+    this.parallelLoadingExecutor = parallelLoadingExecutor;
+  }
+
+  public Executor getParallelLoadingExecutor() {
+    return this.parallelLoadingExecutor;
+  }
+
+
+  @Override
+  public int loadBeanDefinitions(Resource resource) throws BeanDefinitionStoreException {
+    return loadBeanDefinitions(resource, getRegistry());
+  }
+
+  @Override
+  public int loadBeanDefinitions(Resource... resources) throws BeanDefinitionStoreException {
+    Assert.notNull(resources, "Resource array must not be null");
+    if (this.parallelLoadingExecutor != null && resources.length > 1) {
+      return loadBeanDefinitionsInParallel(resources);
+    }
+    int counter = 0;
+    for (Resource resource : resources) {
+      counter += loadBeanDefinitions(resource);
+    }
+    return counter;
+  }
+
+  @Override
+  public int loadBeanDefinitions(String location) throws BeanDefinitionStoreException {
+    return loadBeanDefinitions(getResources(location));
+  }
+
+  @Override
+  public int loadBeanDefinitions(String... locations) throws BeanDefinitionStoreException {
+    Assert.notNull(locations, "Location array must not be null");
+    List<Resource> resources = new ArrayList<Resource>(locations.length);
+    for (String location : locations) {
+      Collections.addAll(resources, getResources(location));
+    }
+    return loadBeanDefinitions(resources.toArray(new Resource[resources.size()]));
+  }
+
+  /**
+   * Load bean definitions from the specified resource into the given registry.
+   * <p>The registry is either the {@link #getRegistry() target registry} or,
+   * when loading in parallel, a registry that records the registrations to
+   * replay them later; implementations must register everything they read
+   * with it (rather than with the target registry), and derive the names of
+   * anonymous beans through {@link #generateBeanName}.
+   *
+   * @param resource the resource descriptor
+   * @param registry the registry to register the bean definitions with
+   * @return the number of bean definitions found
+   * @throws BeanDefinitionStoreException in case of loading or parsing errors
+   */
+  protected abstract int loadBeanDefinitions(Resource resource, BeanDefinitionRegistry registry)
+          throws BeanDefinitionStoreException;
+
+  /**
+   * Generate a name for the given anonymous bean definition, to be registered
+   * with the given registry. When loading in parallel, the name is determined
+   * only when the definition is actually registered, so that it is the same as
+   * with sequential loading.
+   *
+   * @param definition the anonymous bean definition
+   * @param registry the registry passed to {@link #loadBeanDefinitions(Resource, BeanDefinitionRegistry)}
+   * @return the bean name (possibly a placeholder to be replaced on registration)
+   */
+  protected String generateBeanName(BeanDefinition definition, BeanDefinitionRegistry registry) {
+    if (registry instanceof DeferredRegistry) {
+      return ((DeferredRegistry) registry).deferBeanName();
+    }
+    return this.beanNameGenerator.generateBeanName(definition, registry);
+  }
+
+  /**
+   * Resolve the given location (or location pattern) into Resources,
+   * through the ResourceLoader of this reader.
+   * @param location the resource location, with placeholders resolved already
+   * @return the corresponding Resources (possibly several for a pattern)
+   * @throws BeanDefinitionStoreException if no ResourceLoader is available
+   * or the pattern cannot be resolved
+   * @see #getResourceLoader()
+   */
+  protected Resource[] getResources(String location) throws BeanDefinitionStoreException {
+    ResourceLoader resourceLoader = getResourceLoader();
+    if (resourceLoader == null) {
+      throw new BeanDefinitionStoreException(
+              "Cannot import bean definitions from location [" + location + "]: no ResourceLoader available");
+    }
+    if (resourceLoader instanceof ResourcePatternResolver) {
+      // Resource pattern matching available.
+      try {
+        return ((ResourcePatternResolver) resourceLoader).getResources(location);
+      }
+      catch (IOException ex) {
+        throw new BeanDefinitionStoreException(
+                "Could not resolve bean definition resource pattern [" + location + "]", ex);
+      }
+    }
+    else {
+      // Can only load single resources by absolute URL.
+      return new Resource[] {resourceLoader.getResource(location)};
+    }
+  }
+
+
+  //---------------------------------------------------------------------
+  // Parallel loading
+  //---------------------------------------------------------------------
+
+  /**
+   * Return whether the given registry only records registrations, for a
+   * resource being parsed in parallel, rather than being the target registry.
+   * @see #deferRegistration
+   */
+  protected boolean isDeferredRegistry(BeanDefinitionRegistry registry) {
+    return (registry instanceof DeferredRegistry);
+  }
+
+  /**
+   * Record the given registration with the given recording registry, to be
+   * run against the target registry when the registrations of the resource
+   * are replayed, in order with the others.
+   * @param registry the recording registry, as passed to the parsing code
+   * @param registration the registration to run on replay
+   * @see #isDeferredRegistry
+   */
+  protected void deferRegistration(BeanDefinitionRegistry registry, DeferredRegistration registration) {
+    Assert.isTrue(isDeferredRegistry(registry), "Not a registry of a resource loaded in parallel");
+    Assert.notNull(registration, "DeferredRegistration must not be null");
+    ((DeferredRegistry) registry).registrations.add(new Object[] {null, registration});
+  }
+
+  /**
+   * Parse the given resources concurrently, then register their bean
+   * definitions on the calling thread, in the order of the resources.
+   */
+  private int loadBeanDefinitionsInParallel(Resource[] resources) throws BeanDefinitionStoreException {
+    if (logger.isDebugEnabled()) {
+      logger.debug("Loading bean definitions from " + resources.length + " resources in parallel");
+    }
+    final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    List<FutureTask<DeferredRegistry>> tasks = new ArrayList<FutureTask<DeferredRegistry>>(resources.length);
+    for (final Resource resource : resources) {
+      FutureTask<DeferredRegistry> task = new FutureTask<DeferredRegistry>(new Callable<DeferredRegistry>() {
+        @Override
+        public DeferredRegistry call() {
+          Thread currentThread = Thread.currentThread();
+          ClassLoader previousClassLoader = currentThread.getContextClassLoader();
+          currentThread.setContextClassLoader(contextClassLoader);
+          try {
+            DeferredRegistry deferred = new DeferredRegistry(resource);
+            deferred.beanDefinitionCount = loadBeanDefinitions(resource, deferred);
+            return deferred;
+          }
+          finally {
+            currentThread.setContextClassLoader(previousClassLoader);
+          }
+        }
+      });
+      tasks.add(task);
+      try {
+        this.parallelLoadingExecutor.execute(task);
+      }
+      catch (RejectedExecutionException ex) {
+        // Executor saturated or shut down: parse on the calling thread.
+        task.run();
+      }
+    }
+
+    int counter = 0;
+    try {
+      for (FutureTask<DeferredRegistry> task : tasks) {
+        counter += awaitParsed(task).replay(getRegistry());
+      }
+    }
+    finally {
+      // Stop parsing what will not be registered anyway after a failure.
+      for (FutureTask<DeferredRegistry> task : tasks) {
+        task.cancel(true);
+      }
+    }
+    return counter;
+  }
+
+  private DeferredRegistry awaitParsed(FutureTask<DeferredRegistry> task) throws BeanDefinitionStoreException {
+    try {
+      return task.get();
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new BeanDefinitionStoreException("Interrupted while loading bean definitions", ex);
+    }
+    catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new BeanDefinitionStoreException("Failed to load bean definitions", cause);
+    }
+  }
+
+
+  /**
+   * Registry that records the registrations made while parsing a single
+   * resource, to be replayed into the target registry later on.
+   * <p>Lookups only see what has been recorded for the resource itself.
+   */
+  private class DeferredRegistry implements BeanDefinitionRegistry {
+
+    private final Resource resource;
+
+    /** Registrations in order: bean definitions, aliases and deferred registrations */
+    private final List<Object[]> registrations = new ArrayList<Object[]>();
+
+    private final Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<String, BeanDefinition>();
+
+    /** Alias -> name */
+    private final Map<String, String> aliases = new LinkedHashMap<String, String>();
+
+    private int deferredNameCount;
+
+    int beanDefinitionCount;
+
+    public DeferredRegistry(Resource resource) {
+      this.resource = resource;
+    }
+
+    public String deferBeanName() {
+      return DEFERRED_NAME_PREFIX + (this.deferredNameCount++);
+    }
+
+    @Override
+    public void registerBeanDefinition(String beanName, BeanDefinition beanDefinition) {
+      Assert.hasText(beanName, "Bean name must not be empty");
+      Assert.notNull(beanDefinition, "BeanDefinition must not be null");
+      this.beanDefinitions.put(beanName, beanDefinition);
+      this.registrations.add(new Object[] {beanName, beanDefinition});
+    }
+
+    @Override
+    public void registerAlias(String name, String alias) {
+      Assert.hasText(name, "'name' must not be empty");
+      Assert.hasText(alias, "'alias' must not be empty");
+      this.aliases.put(alias, name);
+      this.registrations.add(new Object[] {name, alias});
+    }
+
+    @Override
+    public void removeBeanDefinition(String beanName) {
+      throw new UnsupportedOperationException("Cannot remove bean definitions while loading in parallel");
+    }
+
+    @Override
+    public void removeAlias(String alias) {
+      throw new UnsupportedOperationException("Cannot remove aliases while loading in parallel");
+    }
+
+    @Override
+    public BeanDefinition getBeanDefinition(String beanName) throws NoSuchBeanDefinitionException {
+      BeanDefinition bd = this.beanDefinitions.get(beanName);
+      if (bd == null) {
+        throw new NoSuchBeanDefinitionException(beanName);
+      }
+      return bd;
+    }
+
+    @Override
+    public boolean containsBeanDefinition(String beanName) {
+      return this.beanDefinitions.containsKey(beanName);
+    }
+
+    @Override
+    public String[] getBeanDefinitionNames() {
+      return this.beanDefinitions.keySet().toArray(new String[this.beanDefinitions.size()]);
+    }
+
+    @Override
+    public int getBeanDefinitionCount() {
+      return this.beanDefinitions.size();
+    }
+
+    @Override
+    public boolean isBeanNameInUse(String beanName) {
+      return (this.beanDefinitions.containsKey(beanName) || this.aliases.containsKey(beanName) ||
+              this.aliases.containsValue(beanName));
+    }
+
+    @Override
+    public boolean isAlias(String name) {
+      return this.aliases.containsKey(name);
+    }
+
+    @Override
+    public String[] getAliases(String name) {
+      List<String> result = new ArrayList<String>();
+      for (Map.Entry<String, String> entry : this.aliases.entrySet()) {
+        if (entry.getValue().equals(name)) {
+          result.add(entry.getKey());
+        }
+      }
+      return result.toArray(new String[result.size()]);
+    }
+
+    /**
+     * Register everything recorded with the given registry, in order,
+     * generating the names deferred during parsing.
+     * @return the number of bean definitions found in the resource
+     */
+    public int replay(BeanDefinitionRegistry registry) throws BeanDefinitionStoreException {
+      Map<String, String> generatedNames = new HashMap<String, String>();
+      int deferredCount = 0;
+      for (Object[] registration : this.registrations) {
+        if (registration[1] instanceof DeferredRegistration) {
+          try {
+            deferredCount += ((DeferredRegistration) registration[1]).register(registry);
+          }
+          catch (BeanDefinitionStoreException ex) {
+            throw ex;
+          }
+          catch (RuntimeException ex) {
+            throw new BeanDefinitionStoreException(this.resource.getDescription(),
+                    "Failed to register bean definitions", ex);
+          }
+          continue;
+        }
+        String name = (String) registration[0];
+        if (name.startsWith(DEFERRED_NAME_PREFIX)) {
+          String generatedName = generatedNames.get(name);
+          if (generatedName == null) {
+            if (!(registration[1] instanceof BeanDefinition)) {
+              throw new BeanDefinitionStoreException(this.resource.getDescription(),
+                      "Alias '" + registration[1] + "' registered for a bean whose name has not been generated yet");
+            }
+            generatedName = getBeanNameGenerator().generateBeanName((BeanDefinition) registration[1], registry);
+            generatedNames.put(name, generatedName);
+          }
+          name = generatedName;
+        }
+        if (registration[1] instanceof BeanDefinition) {
+          try {
+            registry.registerBeanDefinition(name, (BeanDefinition) registration[1]);
+          }
+          catch (BeanDefinitionStoreException ex) {
+            throw ex;
+          }
+          catch (Exception ex) {
+            throw new BeanDefinitionStoreException(this.resource.getDescription(), name,
+                    "Failed to register bean definition", ex);
+          }
+        }
+        else {
+          String alias = (String) registration[1];
+          try {
+            registry.registerAlias(name, alias);
+          }
+          catch (Exception ex) {
+            throw new BeanDefinitionStoreException(this.resource.getDescription(),
+                    "Failed to register alias '" + alias + "' for bean with name '" + name + "'", ex);
+          }
+        }
+      }
+      return this.beanDefinitionCount + deferredCount;
+    }
+  }
+
+
+  /**
+   * Registration work that has to run against the target registry itself,
+   * e.g. a custom namespace parser that looks up or generates bean names.
+   * @see #deferRegistration
+   */
+  protected interface DeferredRegistration {
+
+    /**
+     * Perform the registration.
+     * @param registry the target registry
+     * @return the number of bean definitions registered
+     * @throws BeanDefinitionStoreException in case of registration errors
+     */
+    int register(BeanDefinitionRegistry registry) throws BeanDefinitionStoreException;
+  }
+
 }
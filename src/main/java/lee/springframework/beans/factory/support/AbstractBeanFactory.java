@@ -18,6 +18,8 @@ import lee.springframework.beans.factory.cofnig.BeanExpressionResolver;
 import lee.springframework.beans.factory.cofnig.ConfigurableBeanFactory;
 import lee.springframework.core.ResolvableType;
 import lee.springframework.core.convert.ConversionService;
+import lee.springframework.core.metrics.ApplicationStartup;
+import lee.springframework.core.metrics.StartupStep;
 import lee.springframework.util.Assert;
 import lee.springframework.util.ClassUtils;
 import lee.springframework.util.ObjectUtils;
@@ -28,14 +30,24 @@ import java.beans.PropertyEditor;
 import java.security.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
+ * Abstract base class for {@link BeanFactory} implementations, providing the
+ * full capabilities of the {@link ConfigurableBeanFactory} SPI.
+ *
+ * <p>Singleton caching is inherited from {@link DefaultSingletonBeanRegistry}
+ * and FactoryBean handling from {@link FactoryBeanRegistrySupport}: singletons
+ * get created under their own per-bean creation lock.
+ *
  * @description:
  * @author: liyong18
  * @createdate: 2018-08-04 11:16
- * @lastdate:
+ * @lastdate: 2026-10-18
  */
-public class AbstractBeanFactory {
+public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport implements ConfigurableBeanFactory {
 
   /** Parent bean instantiation, for bean inheritance support */
   private BeanFactory parentBeanFactory;
@@ -85,8 +97,8 @@ public class AbstractBeanFactory {
   private SecurityContextProvider securityContextProvider;
 
   /** Map from bean name to merged RootBeanDefinition */
-  private final Map<String, RootBeanDefinition> mergedBeanDefinitions =
-          new ConcurrentHashMap<String, RootBeanDefinition>(256);
+  private final ConcurrentMap<String, MergedBeanDefinitionHolder> mergedBeanDefinitions =
+          new ConcurrentHashMap<String, MergedBeanDefinitionHolder>(256);
 
   /** Names of beans that have already been created at least once */
   private final Set<String> alreadyCreated =
@@ -96,6 +108,29 @@ public class AbstractBeanFactory {
   private final ThreadLocal<Object> prototypesCurrentlyInCreation =
           new NamedThreadLocal<Object>("Prototype beans currently in creation");
 
+  /** Current generation of the lookup table of fully initialized singletons */
+  private final AtomicReference<SingletonLookupTable> singletonLookupTable =
+          new AtomicReference<SingletonLookupTable>(new SingletonLookupTable(0, null));
+
+  /** Records startup steps for bean creation; no-op by default */
+  private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
+  /**
+   * Number of changes to bean definitions, aliases and singletons of this factory
+   * and its ancestors, for validating parent lookups
+   */
+  private final AtomicLong modificationCount = new AtomicLong();
+
+  /** Whether every ancestor reports its changes to its child factories, so that parent lookups can be cached */
+  private volatile boolean parentLookupsCacheable = true;
+
+  /** Child factories to report changes to, held weakly */
+  private final Set<AbstractBeanFactory> childBeanFactories =
+          Collections.newSetFromMap(new WeakHashMap<AbstractBeanFactory, Boolean>());
+
+  /** Singletons obtained from the parent factory, keyed by requested bean name */
+  private final ConcurrentMap<String, ParentLookup> parentLookupCache = new ConcurrentHashMap<String, ParentLookup>(64);
+
 
   /**
    * Create a new AbstractBeanFactory.
@@ -109,7 +144,7 @@ public class AbstractBeanFactory {
    * @see #getBean
    */
   public AbstractBeanFactory(BeanFactory parentBeanFactory) {
-    this.parentBeanFactory = parentBeanFactory;
+    attachToParentBeanFactory(parentBeanFactory);
   }
 
 
@@ -161,6 +196,25 @@ public class AbstractBeanFactory {
           final String name, final Class<T> requiredType, final Object[] args, boolean typeCheckOnly)
           throws BeansException {
 
+    // Fast path for fully initialized singletons, once the lookup table got published.
+    if (args == null) {
+      Map<String, Object> lookupTable = this.singletonLookupTable.get().entries;
+      if (lookupTable != null) {
+        Object cachedBean = lookupTable.get(name);
+        if (cachedBean != null && (requiredType == null || requiredType.isInstance(cachedBean))) {
+          return (T) cachedBean;
+        }
+      }
+    }
+
+    // Fast path for beans resolved through the parent factory before, with no changes since.
+    if (args == null && getParentBeanFactory() != null) {
+      ParentLookup parentLookup = getValidParentLookup(name);
+      if (parentLookup != null && (requiredType == null || requiredType.isInstance(parentLookup.beanInstance))) {
+        return (T) parentLookup.beanInstance;
+      }
+    }
+
     final String beanName = transformedBeanName(name);
     Object bean;
 
@@ -177,6 +231,8 @@ public class AbstractBeanFactory {
         }
       }
       bean = getObjectForBeanInstance(sharedInstance, name, beanName, null);
+      // E.g. a FactoryBean whose object got obtained for the first time: next time on the fast path.
+      addToSingletonLookupTable(beanName);
     }
 
     else {
@@ -197,7 +253,7 @@ public class AbstractBeanFactory {
         }
         else {
           // No args -> delegate to standard getBean method.
-          return parentBeanFactory.getBean(nameToLookup, requiredType);
+          return getBeanFromParent(parentBeanFactory, name, nameToLookup, requiredType);
         }
       }
 
@@ -205,6 +261,8 @@ public class AbstractBeanFactory {
         markBeanAsCreated(beanName);
       }
 
+      // Only lookups that miss the singleton cache get recorded, i.e. those that may create a bean.
+      StartupStep getBeanStep = this.applicationStartup.start("beans.getBean").tag("beanName", beanName);
       try {
         final RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
         checkMergedBeanDefinition(mbd, beanName, args);
@@ -222,7 +280,7 @@ public class AbstractBeanFactory {
           }
         }
 
-        // Create bean instance.
+        // Create bean instance, holding only this bean's creation lock.
         if (mbd.isSingleton()) {
           sharedInstance = getSingleton(beanName, new ObjectFactory<Object>() {
             @Override
@@ -240,6 +298,8 @@ public class AbstractBeanFactory {
             }
           });
           bean = getObjectForBeanInstance(sharedInstance, name, beanName, mbd);
+          // A lazy singleton got created after publication: make it available on the fast path too.
+          addToSingletonLookupTable(beanName);
         }
 
         else if (mbd.isPrototype()) {
@@ -288,6 +348,9 @@ public class AbstractBeanFactory {
         cleanupAfterBeanCreationFailure(beanName);
         throw ex;
       }
+      finally {
+        getBeanStep.end();
+      }
     }
 
     // Check if required type matches the type of the actual bean instance.
@@ -314,7 +377,10 @@ public class AbstractBeanFactory {
     }
     // Not found -> check parent.
     BeanFactory parentBeanFactory = getParentBeanFactory();
-    return (parentBeanFactory != null && parentBeanFactory.containsBean(originalBeanName(name)));
+    if (parentBeanFactory == null) {
+      return false;
+    }
+    return (getValidParentLookup(name) != null || parentBeanFactory.containsBean(originalBeanName(name)));
   }
 
   @Override
@@ -622,7 +688,7 @@ public class AbstractBeanFactory {
     if (this.parentBeanFactory != null && this.parentBeanFactory != parentBeanFactory) {
       throw new IllegalStateException("Already associated with parent BeanFactory: " + this.parentBeanFactory);
     }
-    this.parentBeanFactory = parentBeanFactory;
+    attachToParentBeanFactory(parentBeanFactory);
   }
 
   @Override
@@ -675,6 +741,17 @@ public class AbstractBeanFactory {
     return this.conversionService;
   }
 
+  @Override
+  public void setApplicationStartup(ApplicationStartup applicationStartup) {
+    Assert.notNull(applicationStartup, "ApplicationStartup must not be null");
+    this.applicationStartup = applicationStartup;
+  }
+
+  @Override
+  public ApplicationStartup getApplicationStartup() {
+    return this.applicationStartup;
+  }
+
   @Override
   public void addPropertyEditorRegistrar(PropertyEditorRegistrar registrar) {
     Assert.notNull(registrar, "PropertyEditorRegistrar must not be null");
@@ -1115,6 +1192,27 @@ public class AbstractBeanFactory {
   }
 
 
+  /**
+   * Cache the given merged bean definition as if it had just been merged,
+   * e.g. when restoring a {@link BeanFactorySnapshot}.
+   * @param beanName the name of the bean
+   * @param mbd the merged bean definition for the bean
+   */
+  void restoreMergedBeanDefinition(String beanName, RootBeanDefinition mbd) {
+    this.mergedBeanDefinitions.put(beanName, new MergedBeanDefinitionHolder(mbd));
+  }
+
+  /**
+   * Return the merged bean definition currently cached for the given bean,
+   * without merging it if not cached (or stale).
+   * @param beanName the name of the bean
+   * @return the cached merged bean definition, or {@code null} if none
+   */
+  RootBeanDefinition getCachedMergedBeanDefinition(String beanName) {
+    MergedBeanDefinitionHolder holder = this.mergedBeanDefinitions.get(beanName);
+    return (holder != null && !holder.stale ? holder.mbd : null);
+  }
+
   /**
    * Return a merged RootBeanDefinition, traversing the parent bean definition
    * if the specified bean corresponds to a child bean definition.
@@ -1124,10 +1222,10 @@ public class AbstractBeanFactory {
    * @throws BeanDefinitionStoreException in case of an invalid bean definition
    */
   protected RootBeanDefinition getMergedLocalBeanDefinition(String beanName) throws BeansException {
-    // Quick check on the concurrent map first, with minimal locking.
-    RootBeanDefinition mbd = this.mergedBeanDefinitions.get(beanName);
-    if (mbd != null) {
-      return mbd;
+    // Quick check on the concurrent map first, without any locking.
+    MergedBeanDefinitionHolder holder = this.mergedBeanDefinitions.get(beanName);
+    if (holder != null && !holder.stale) {
+      return holder.mbd;
     }
     return getMergedBeanDefinition(beanName, getBeanDefinition(beanName));
   }
@@ -1160,75 +1258,110 @@ public class AbstractBeanFactory {
           String beanName, BeanDefinition bd, BeanDefinition containingBd)
           throws BeanDefinitionStoreException {
 
-    synchronized (this.mergedBeanDefinitions) {
-      RootBeanDefinition mbd = null;
-
-      // Check with full lock now in order to enforce the same merged instance.
-      if (containingBd == null) {
-        mbd = this.mergedBeanDefinitions.get(beanName);
+    MergedBeanDefinitionHolder current = null;
+    if (containingBd == null) {
+      current = this.mergedBeanDefinitions.get(beanName);
+      if (current != null && !current.stale) {
+        return current.mbd;
       }
+    }
 
-      if (mbd == null) {
-        if (bd.getParentName() == null) {
-          // Use copy of given root bean definition.
-          if (bd instanceof RootBeanDefinition) {
-            mbd = ((RootBeanDefinition) bd).cloneBeanDefinition();
-          }
-          else {
-            mbd = new RootBeanDefinition(bd);
+    RootBeanDefinition mbd = mergeBeanDefinition(beanName, bd, containingBd);
+
+    // Only cache the merged bean definition for top-level beans, publishing it
+    // unless another thread got there first: in order to enforce the same merged
+    // instance for all callers, the first published (non-stale) instance wins.
+    if (containingBd == null && isCacheBeanMetadata()) {
+      MergedBeanDefinitionHolder holder = new MergedBeanDefinitionHolder(mbd);
+      while (true) {
+        if (current == null) {
+          current = this.mergedBeanDefinitions.putIfAbsent(beanName, holder);
+          if (current == null) {
+            return mbd;
           }
         }
+        else if (!current.stale) {
+          return current.mbd;
+        }
+        else if (this.mergedBeanDefinitions.replace(beanName, current, holder)) {
+          return mbd;
+        }
         else {
-          // Child bean definition: needs to be merged with parent.
-          BeanDefinition pbd;
-          try {
-            String parentBeanName = transformedBeanName(bd.getParentName());
-            if (!beanName.equals(parentBeanName)) {
-              pbd = getMergedBeanDefinition(parentBeanName);
-            }
-            else {
-              BeanFactory parent = getParentBeanFactory();
-              if (parent instanceof ConfigurableBeanFactory) {
-                pbd = ((ConfigurableBeanFactory) parent).getMergedBeanDefinition(parentBeanName);
-              }
-              else {
-                throw new NoSuchBeanDefinitionException(parentBeanName,
-                        "Parent name '" + parentBeanName + "' is equal to bean name '" + beanName +
-                                "': cannot be resolved without an AbstractBeanFactory parent");
-              }
-            }
-          }
-          catch (NoSuchBeanDefinitionException ex) {
-            throw new BeanDefinitionStoreException(bd.getResourceDescription(), beanName,
-                    "Could not resolve parent bean definition '" + bd.getParentName() + "'", ex);
-          }
-          // Deep copy with overridden values.
-          mbd = new RootBeanDefinition(pbd);
-          mbd.overrideFrom(bd);
+          current = this.mergedBeanDefinitions.get(beanName);
         }
+      }
+    }
+    return mbd;
+  }
 
-        // Set default singleton scope, if not configured before.
-        if (!StringUtils.hasLength(mbd.getScope())) {
-          mbd.setScope(RootBeanDefinition.SCOPE_SINGLETON);
-        }
+  /**
+   * Merge the given bean definition with its parent, if any, into a new
+   * RootBeanDefinition. Parent definitions are obtained through the merged
+   * bean definition cache, so that every level of a parent chain only gets
+   * merged once.
+   * @param beanName the name of the bean definition
+   * @param bd the original bean definition (Root/ChildBeanDefinition)
+   * @param containingBd the containing bean definition in case of inner bean,
+   * or {@code null} in case of a top-level bean
+   * @return the newly merged RootBeanDefinition
+   * @throws BeanDefinitionStoreException in case of an invalid bean definition
+   */
+  private RootBeanDefinition mergeBeanDefinition(String beanName, BeanDefinition bd, BeanDefinition containingBd)
+          throws BeanDefinitionStoreException {
 
-        // A bean contained in a non-singleton bean cannot be a singleton itself.
-        // Let's correct this on the fly here, since this might be the result of
-        // parent-child merging for the outer bean, in which case the original inner bean
-        // definition will not have inherited the merged outer bean's singleton status.
-        if (containingBd != null && !containingBd.isSingleton() && mbd.isSingleton()) {
-          mbd.setScope(containingBd.getScope());
+    RootBeanDefinition mbd;
+    if (bd.getParentName() == null) {
+      // Use copy of given root bean definition.
+      if (bd instanceof RootBeanDefinition) {
+        mbd = ((RootBeanDefinition) bd).cloneBeanDefinition();
+      }
+      else {
+        mbd = new RootBeanDefinition(bd);
+      }
+    }
+    else {
+      // Child bean definition: needs to be merged with parent.
+      BeanDefinition pbd;
+      try {
+        String parentBeanName = transformedBeanName(bd.getParentName());
+        if (!beanName.equals(parentBeanName)) {
+          pbd = getMergedBeanDefinition(parentBeanName);
         }
-
-        // Only cache the merged bean definition if we're already about to create an
-        // instance of the bean, or at least have already created an instance before.
-        if (containingBd == null && isCacheBeanMetadata()) {
-          this.mergedBeanDefinitions.put(beanName, mbd);
+        else {
+          BeanFactory parent = getParentBeanFactory();
+          if (parent instanceof ConfigurableBeanFactory) {
+            pbd = ((ConfigurableBeanFactory) parent).getMergedBeanDefinition(parentBeanName);
+          }
+          else {
+            throw new NoSuchBeanDefinitionException(parentBeanName,
+                    "Parent name '" + parentBeanName + "' is equal to bean name '" + beanName +
+                            "': cannot be resolved without an AbstractBeanFactory parent");
+          }
         }
       }
+      catch (NoSuchBeanDefinitionException ex) {
+        throw new BeanDefinitionStoreException(bd.getResourceDescription(), beanName,
+                "Could not resolve parent bean definition '" + bd.getParentName() + "'", ex);
+      }
+      // Deep copy with overridden values.
+      mbd = new RootBeanDefinition(pbd);
+      mbd.overrideFrom(bd);
+    }
+
+    // Set default singleton scope, if not configured before.
+    if (!StringUtils.hasLength(mbd.getScope())) {
+      mbd.setScope(RootBeanDefinition.SCOPE_SINGLETON);
+    }
 
-      return mbd;
+    // A bean contained in a non-singleton bean cannot be a singleton itself.
+    // Let's correct this on the fly here, since this might be the result of
+    // parent-child merging for the outer bean, in which case the original inner bean
+    // definition will not have inherited the merged outer bean's singleton status.
+    if (containingBd != null && !containingBd.isSingleton() && mbd.isSingleton()) {
+      mbd.setScope(containingBd.getScope());
     }
+
+    return mbd;
   }
 
   /**
@@ -1462,14 +1595,15 @@ public class AbstractBeanFactory {
    */
   protected void markBeanAsCreated(String beanName) {
     if (!this.alreadyCreated.contains(beanName)) {
-      synchronized (this.mergedBeanDefinitions) {
-        if (!this.alreadyCreated.contains(beanName)) {
-          // Let the bean definition get re-merged now that we're actually creating
-          // the bean... just in case some of its metadata changed in the meantime.
-          clearMergedBeanDefinition(beanName);
-          this.alreadyCreated.add(beanName);
-        }
+      // Let the bean definition get re-merged now that we're actually creating
+      // the bean... just in case some of its metadata changed in the meantime.
+      // Replace exactly the holder read: if another thread has published a
+      // fresh merge meanwhile, that one is current already and stays in place.
+      MergedBeanDefinitionHolder holder = this.mergedBeanDefinitions.get(beanName);
+      if (holder != null && !holder.stale) {
+        this.mergedBeanDefinitions.replace(beanName, holder, new MergedBeanDefinitionHolder(holder.mbd, true));
       }
+      this.alreadyCreated.add(beanName);
     }
   }
 
@@ -1478,9 +1612,7 @@ public class AbstractBeanFactory {
    * @param beanName the name of the bean
    */
   protected void cleanupAfterBeanCreationFailure(String beanName) {
-    synchronized (this.mergedBeanDefinitions) {
-      this.alreadyCreated.remove(beanName);
-    }
+    this.alreadyCreated.remove(beanName);
   }
 
   /**
@@ -1520,6 +1652,201 @@ public class AbstractBeanFactory {
     return !this.alreadyCreated.isEmpty();
   }
 
+  /**
+   * Build and publish a lookup table for all fully initialized singletons,
+   * from then on resolving {@link #getBean} calls for them in a single hash probe.
+   * <p>The table maps every bean name and alias to the object exposed for it -
+   * the FactoryBean's product in case of a FactoryBean whose singleton object has
+   * been created already - and every FactoryBean reference ("&amp;name") to the
+   * FactoryBean itself. Anything not in the table goes through the regular
+   * {@link #doGetBean} algorithm.
+   * <p>Singletons created and FactoryBean objects obtained after publication get
+   * added to the table one by one; {@link #invalidateSingletonLookupTable()} turns
+   * the fast path off again. If the table gets invalidated while being built,
+   * it is not published.
+   * @see DefaultListableBeanFactory#preInstantiateSingletons()
+   */
+  protected void publishSingletonLookupTable() {
+    SingletonLookupTable current = this.singletonLookupTable.get();
+    String[] singletonNames = getSingletonNames();
+    Map<String, Object> entries = new ConcurrentHashMap<String, Object>(singletonNames.length * 2);
+    for (String beanName : singletonNames) {
+      if (isSingletonCurrentlyInCreation(beanName)) {
+        continue;
+      }
+      Object beanInstance = getSingleton(beanName, false);
+      if (beanInstance != null) {
+        putSingletonLookupEntries(entries, beanName, beanInstance);
+      }
+    }
+    // Only if not invalidated in the meantime: the table might contain destroyed singletons otherwise.
+    this.singletonLookupTable.compareAndSet(current, new SingletonLookupTable(current.generation + 1, entries));
+  }
+
+  /**
+   * Add the given singleton to the published lookup table, if any, once it is
+   * fully initialized.
+   * <p>A concurrent invalidation replaces the whole table: an entry added to
+   * the table replaced just before simply gets discarded with it.
+   * @param beanName the name of the singleton
+   */
+  private void addToSingletonLookupTable(String beanName) {
+    Map<String, Object> entries = this.singletonLookupTable.get().entries;
+    if (entries == null || entries.containsKey(beanName) || isSingletonCurrentlyInCreation(beanName)) {
+      return;
+    }
+    Object beanInstance = getSingleton(beanName, false);
+    if (beanInstance != null) {
+      putSingletonLookupEntries(entries, beanName, beanInstance);
+    }
+  }
+
+  private void putSingletonLookupEntries(Map<String, Object> entries, String beanName, Object beanInstance) {
+    String[] aliases = getAliases(beanName);
+    Object exposedObject = beanInstance;
+    if (beanInstance instanceof FactoryBean) {
+      entries.put(FACTORY_BEAN_PREFIX + beanName, beanInstance);
+      for (String alias : aliases) {
+        entries.put(FACTORY_BEAN_PREFIX + alias, beanInstance);
+      }
+      // Only a singleton object that has been obtained from the FactoryBean already...
+      exposedObject = getCachedObjectForFactoryBean(beanName);
+      if (exposedObject == null) {
+        return;
+      }
+    }
+    entries.put(beanName, exposedObject);
+    for (String alias : aliases) {
+      entries.put(alias, exposedObject);
+    }
+  }
+
+  /**
+   * Discard the singleton lookup table, e.g. when bean definitions or aliases
+   * changed or singletons got destroyed, resolving all {@link #getBean} calls
+   * through the regular algorithm until the table gets published again.
+   * <p>Since the same changes may turn around the outcome of lookups delegated
+   * to a parent factory, cached parent lookups get invalidated as well.
+   * @see #publishSingletonLookupTable()
+   * @see #markModified()
+   */
+  protected void invalidateSingletonLookupTable() {
+    SingletonLookupTable current;
+    do {
+      current = this.singletonLookupTable.get();
+    }
+    while (!this.singletonLookupTable.compareAndSet(current, new SingletonLookupTable(current.generation + 1, null)));
+    markModified();
+  }
+
+  /**
+   * Obtain the given bean from the parent factory, caching it if it turns out
+   * to be a singleton. Only singletons are cached, so the cache is bounded by
+   * the number of singletons in the ancestors.
+   * @param parentBeanFactory the parent factory
+   * @param name the name as requested from this factory
+   * @param nameToLookup the name to request from the parent factory
+   * @param requiredType the required type of the bean, if any
+   */
+  private <T> T getBeanFromParent(BeanFactory parentBeanFactory, String name, String nameToLookup,
+                                  Class<T> requiredType) throws BeansException {
+
+    // Taken upfront: changes made while the parent resolves the bean invalidate the entry.
+    long modificationCount = this.modificationCount.get();
+    T bean = parentBeanFactory.getBean(nameToLookup, requiredType);
+    if (this.parentLookupsCacheable && bean != null && parentBeanFactory.isSingleton(nameToLookup)) {
+      this.parentLookupCache.put(name, new ParentLookup(modificationCount, bean));
+    }
+    return bean;
+  }
+
+  /**
+   * Return the cached parent lookup for the given name, if still valid.
+   */
+  private ParentLookup getValidParentLookup(String name) {
+    ParentLookup parentLookup = this.parentLookupCache.get(name);
+    if (parentLookup != null && parentLookup.modificationCount == this.modificationCount.get()) {
+      return parentLookup;
+    }
+    return null;
+  }
+
+  /**
+   * Record a change to the bean definitions, aliases or singletons of this factory,
+   * invalidating all parent lookups cached by this factory and its child factories.
+   * <p>Changes are pushed down to the child factories rather than pulled from the
+   * ancestors, so that validating a cached lookup does not walk the hierarchy.
+   */
+  protected void markModified() {
+    this.modificationCount.incrementAndGet();
+    this.parentLookupCache.clear();
+    for (AbstractBeanFactory child : getChildBeanFactories()) {
+      child.markModified();
+    }
+  }
+
+  /**
+   * Associate this factory with the given parent, registering with it for
+   * change reports if it is an AbstractBeanFactory.
+   */
+  private void attachToParentBeanFactory(BeanFactory parentBeanFactory) {
+    if (parentBeanFactory instanceof AbstractBeanFactory && this.parentBeanFactory != parentBeanFactory) {
+      AbstractBeanFactory parent = (AbstractBeanFactory) parentBeanFactory;
+      synchronized (parent.childBeanFactories) {
+        parent.childBeanFactories.add(this);
+      }
+    }
+    this.parentBeanFactory = parentBeanFactory;
+    updateParentLookupsCacheable();
+  }
+
+  /**
+   * Determine whether parent lookups can be cached: only if every ancestor is an
+   * AbstractBeanFactory, which reports its changes. Updates the child factories too.
+   */
+  private void updateParentLookupsCacheable() {
+    BeanFactory parentBeanFactory = getParentBeanFactory();
+    this.parentLookupsCacheable = (parentBeanFactory == null || (parentBeanFactory instanceof AbstractBeanFactory &&
+            ((AbstractBeanFactory) parentBeanFactory).parentLookupsCacheable));
+    markModified();
+    for (AbstractBeanFactory child : getChildBeanFactories()) {
+      child.updateParentLookupsCacheable();
+    }
+  }
+
+  private AbstractBeanFactory[] getChildBeanFactories() {
+    synchronized (this.childBeanFactories) {
+      return this.childBeanFactories.toArray(new AbstractBeanFactory[this.childBeanFactories.size()]);
+    }
+  }
+
+  /**
+   * Invalidates parent lookups as well.
+   */
+  @Override
+  public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
+    super.registerSingleton(beanName, singletonObject);
+    markModified();
+  }
+
+  /**
+   * Invalidates the singleton lookup table as well.
+   */
+  @Override
+  public void registerAlias(String name, String alias) {
+    super.registerAlias(name, alias);
+    invalidateSingletonLookupTable();
+  }
+
+  /**
+   * Invalidates the singleton lookup table as well.
+   */
+  @Override
+  public void removeAlias(String alias) {
+    super.removeAlias(alias);
+    invalidateSingletonLookupTable();
+  }
+
   /**
    * Get the object for the given bean instance, either the bean
    * instance itself or its created object in case of a FactoryBean.
@@ -1679,6 +2006,62 @@ public class AbstractBeanFactory {
           throws BeanCreationException;
 
 
+  /**
+   * Singleton obtained through the parent factory, valid as long as the
+   * modification count of this factory is unchanged.
+   */
+  private static final class ParentLookup {
+
+    private final long modificationCount;
+
+    private final Object beanInstance;
+
+    public ParentLookup(long modificationCount, Object beanInstance) {
+      this.modificationCount = modificationCount;
+      this.beanInstance = beanInstance;
+    }
+  }
+
+
+  /**
+   * Cache entry for a merged bean definition, replaced by a stale copy once
+   * the bean definition needs to be re-merged on next access. Immutable, so
+   * that every state change is a compare-and-set on the cache.
+   */
+  private static final class MergedBeanDefinitionHolder {
+
+    private final RootBeanDefinition mbd;
+
+    private final boolean stale;
+
+    public MergedBeanDefinitionHolder(RootBeanDefinition mbd) {
+      this(mbd, false);
+    }
+
+    public MergedBeanDefinitionHolder(RootBeanDefinition mbd, boolean stale) {
+      this.mbd = mbd;
+      this.stale = stale;
+    }
+  }
+
+
+  /**
+   * A generation of the singleton lookup table: replaced as a whole on every
+   * publication and invalidation, so that a table built from an outdated state
+   * cannot be published over a later invalidation.
+   */
+  private static final class SingletonLookupTable {
+
+    private final long generation;
+
+    /** The table entries, or {@code null} if the table is not in use */
+    private final Map<String, Object> entries;
+
+    public SingletonLookupTable(long generation, Map<String, Object> entries) {
+      this.generation = generation;
+      this.entries = entries;
+    }
+  }
 
 
 }
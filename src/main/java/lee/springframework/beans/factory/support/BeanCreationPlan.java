@@ -0,0 +1,133 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: BeanCreationPlan.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.beans.factory.support;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Creation plan for a non-singleton bean, compiled while the first instance
+ * for a given merged {@link RootBeanDefinition} is being created and replayed
+ * for every further instance created from that same definition.
+ *
+ * <p>The plan is filled in step by step as the first creation proceeds: it
+ * records the constructor resolution outcome, which property values are constant
+ * (pre-converted once) versus dynamic (resolved per instance), and the resolved
+ * init method. The plan is keyed on the merged bean definition from the factory's
+ * cache, so it also serves the copies of that definition that get created for
+ * a dynamically resolved bean class; a re-merged definition gets a new plan.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 14:05
+ * @lastdate: 2026-10-18
+ */
+final class BeanCreationPlan {
+
+  /** The cached merged bean definition that this plan has been compiled for */
+  final RootBeanDefinition beanDefinition;
+
+  /** Whether the constructor resolution outcome below has been recorded */
+  volatile boolean instantiationResolved;
+
+  /** Whether the resolved constructor needs to be autowired with arguments */
+  volatile boolean autowireNecessary;
+
+  /** Property injection steps, in original order, or {@code null} if not compiled yet */
+  volatile List<PropertyInjection> propertyInjections;
+
+  /** The init method resolved against the most recent bean class, or {@code null} */
+  private volatile ResolvedInitMethod resolvedInitMethod;
+
+
+  BeanCreationPlan(RootBeanDefinition beanDefinition) {
+    this.beanDefinition = beanDefinition;
+  }
+
+
+  /**
+   * Return whether this plan applies to the given merged bean definition.
+   */
+  public boolean isPlanFor(Object mbd) {
+    return (this.beanDefinition == mbd);
+  }
+
+  /**
+   * Record the constructor resolution outcome for further instances.
+   */
+  public void resolveInstantiation(boolean autowireNecessary) {
+    this.autowireNecessary = autowireNecessary;
+    this.instantiationResolved = true;
+  }
+
+  /**
+   * Record the init method resolved against the given bean class.
+   * @param targetClass the class of the bean the method has been looked up on
+   * @param initMethod the init method (already made accessible), or {@code null} if none
+   */
+  public void resolveInitMethod(Class<?> targetClass, Method initMethod) {
+    this.resolvedInitMethod = new ResolvedInitMethod(targetClass, initMethod);
+  }
+
+  /**
+   * Return whether the init method has been resolved against the given bean class.
+   */
+  public boolean isInitMethodResolvedFor(Class<?> targetClass) {
+    ResolvedInitMethod resolved = this.resolvedInitMethod;
+    return (resolved != null && resolved.targetClass == targetClass);
+  }
+
+  /**
+   * Return the init method resolved against the given bean class.
+   * @return the init method, or {@code null} if none has been found
+   * (or if it has not been resolved against the given class yet)
+   */
+  public Method getInitMethod(Class<?> targetClass) {
+    ResolvedInitMethod resolved = this.resolvedInitMethod;
+    return (resolved != null && resolved.targetClass == targetClass ? resolved.initMethod : null);
+  }
+
+
+  /**
+   * A single property injection step of a creation plan.
+   */
+  static final class PropertyInjection {
+
+    /** The property value from the merged bean definition */
+    final PropertyValue propertyValue;
+
+    /** Whether the value has to be resolved for every instance (e.g. a bean reference) */
+    final boolean resolveNecessary;
+
+    /** Whether the resolved value can be converted for the target property */
+    final boolean convertible;
+
+    PropertyInjection(PropertyValue propertyValue, boolean resolveNecessary, boolean convertible) {
+      this.propertyValue = propertyValue;
+      this.resolveNecessary = resolveNecessary;
+      this.convertible = convertible;
+    }
+  }
+
+
+  /**
+   * Init method resolved against a specific bean class.
+   */
+  private static final class ResolvedInitMethod {
+
+    final Class<?> targetClass;
+
+    final Method initMethod;
+
+    ResolvedInitMethod(Class<?> targetClass, Method initMethod) {
+      this.targetClass = targetClass;
+      this.initMethod = initMethod;
+    }
+  }
+
+}
@@ -7,13 +7,20 @@
 
 package lee.springframework.beans.factory.support;
 
+import lee.springframework.beans.factory.BeanDefinitionStoreException;
+import lee.springframework.core.io.Resource;
+import lee.springframework.core.io.ResourceLoader;
+
 /**
+ * Simple interface for bean definition readers.
+ * Specifies load methods with Resource and String location parameters.
+ *
  * @description:
  * @author: liyong18
  * @createdate: 2018-07-29 09:00
  * @lastdate:
  */
-public class BeanDefinitionReader   {
+public interface BeanDefinitionReader {
 
 
   /**
@@ -0,0 +1,380 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: BeanFactorySnapshot.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.beans.factory.support;
+
+import lee.springframework.beans.factory.cofnig.BeanDefinition;
+import lee.springframework.util.Assert;
+import lee.springframework.util.ClassUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Writes and restores the bean definition state of a {@link DefaultListableBeanFactory}
+ * as a compact binary file, so that later starts can skip parsing, merging and
+ * type prediction for unchanged configuration.
+ *
+ * <p>A snapshot contains the registered bean definitions in registration order,
+ * the merged bean definitions including their resolved bean classes, the aliases
+ * and the by-type index. It is meant to be taken once the bean factory
+ * post-processors have run, and before any singleton is created: singleton
+ * instances are not part of it.
+ *
+ * <p>Every snapshot carries a fingerprint of the classpath (the location, size and
+ * modification time of every jar and class directory entry) and the Java version.
+ * A snapshot whose fingerprint does not match the current classpath is ignored on
+ * restore, as is one in an unknown format. Configuration that does not live on the
+ * classpath, e.g. environment-specific placeholder values, is not covered by the
+ * fingerprint: snapshots must not be shared between environments.
+ *
+ * <p>File layout: an uncompressed header (magic number, format version,
+ * fingerprint), followed by the deflated bean definitions, aliases and type index
+ * in the explicit encoding of {@link PrecompiledBeanDefinitions}: a string table,
+ * then values referencing it. Classes are written by name only; no Java
+ * serialization is involved. Bean definitions that this encoding cannot
+ * represent, e.g. with method overrides or qualifiers, are not snapshotted.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 21:30
+ * @lastdate: 2026-10-18
+ * @see DefaultListableBeanFactory#restoreSnapshot
+ */
+public abstract class BeanFactorySnapshot {
+
+  private static final int MAGIC = 0x4C42534E;
+
+  private static final int FORMAT_VERSION = 2;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final Log logger = LogFactory.getLog(BeanFactorySnapshot.class);
+
+
+  /**
+   * Write a snapshot of the given bean factory to the given file, replacing it atomically.
+   * @param beanFactory the bean factory, with all bean factory post-processors applied
+   * @param file the snapshot file to write
+   * @return {@code true} if the snapshot has been written, {@code false} if the bean
+   * definitions cannot be represented in the snapshot format
+   * @throws IOException if the file cannot be written
+   */
+  public static boolean write(DefaultListableBeanFactory beanFactory, File file) throws IOException {
+    Assert.notNull(beanFactory, "BeanFactory must not be null");
+    Assert.notNull(file, "File must not be null");
+
+    String[] beanNames = beanFactory.getBeanDefinitionNames();
+    BeanTypeIndex typeIndex = beanFactory.getBeanTypeIndex();
+    Map<String, Set<Class<?>>> indexedTypes = typeIndex.getIndexedTypes();
+    Set<String> unindexedBeanNames = typeIndex.getUnindexedBeanNames();
+
+    PrecompiledBeanDefinitions.Encoder encoder = new PrecompiledBeanDefinitions.Encoder();
+    DataOutputStream body = encoder.out;
+    try {
+      body.writeInt(beanNames.length);
+      for (String beanName : beanNames) {
+        RootBeanDefinition mbd = beanFactory.getMergedLocalBeanDefinition(beanName);
+        encoder.writeString(beanName);
+        encoder.writeDefinition(beanFactory.getBeanDefinition(beanName));
+        encoder.writeDefinition(mbd);
+        encoder.writeString(mbd.hasBeanClass() ? mbd.getBeanClass().getName() : null);
+      }
+
+      List<String[]> aliases = new ArrayList<String[]>();
+      for (String beanName : beanNames) {
+        for (String alias : beanFactory.getAliases(beanName)) {
+          aliases.add(new String[] {alias, beanName});
+        }
+      }
+      body.writeInt(aliases.size());
+      for (String[] alias : aliases) {
+        encoder.writeString(alias[0]);
+        encoder.writeString(alias[1]);
+      }
+    }
+    catch (IllegalArgumentException ex) {
+      logger.info("Not writing bean factory snapshot: " + ex.getMessage());
+      return false;
+    }
+
+    Map<Class<?>, Integer> classTable = new LinkedHashMap<Class<?>, Integer>();
+    for (Set<Class<?>> types : indexedTypes.values()) {
+      for (Class<?> type : types) {
+        if (!classTable.containsKey(type)) {
+          classTable.put(type, classTable.size());
+        }
+      }
+    }
+    body.writeInt(classTable.size());
+    for (Class<?> type : classTable.keySet()) {
+      encoder.writeString(type.getName());
+    }
+    body.writeInt(indexedTypes.size());
+    for (Map.Entry<String, Set<Class<?>>> entry : indexedTypes.entrySet()) {
+      encoder.writeString(entry.getKey());
+      body.writeInt(entry.getValue().size());
+      for (Class<?> type : entry.getValue()) {
+        body.writeInt(classTable.get(type));
+      }
+    }
+    body.writeInt(unindexedBeanNames.size());
+    for (String beanName : unindexedBeanNames) {
+      encoder.writeString(beanName);
+    }
+
+    File tempFile = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+    boolean written = false;
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeUTF(computeClasspathFingerprint(beanFactory.getBeanClassLoader()));
+      out.flush();
+
+      DeflaterOutputStream deflater = new DeflaterOutputStream(out);
+      encoder.writeTo(new DataOutputStream(deflater));
+      deflater.finish();
+      written = true;
+    }
+    finally {
+      out.close();
+      if (!written) {
+        tempFile.delete();
+      }
+    }
+    Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    if (logger.isDebugEnabled()) {
+      logger.debug("Wrote snapshot of " + beanNames.length + " bean definitions to [" + file + "]");
+    }
+    return true;
+  }
+
+  /**
+   * Restore the given bean factory from the given snapshot file, if it is valid
+   * for the current classpath.
+   * <p>Nothing is deserialized: the file only holds strings, numbers and flags,
+   * and the only classes loaded are the bean classes and indexed types named in it.
+   * @param beanFactory the bean factory to restore into, without any bean definitions yet
+   * @param file the snapshot file to read
+   * @return {@code true} if the snapshot has been restored, {@code false} if the file
+   * does not exist, is stale or corrupt, in which case the bean factory is left untouched
+   * @throws IOException if the file cannot be read
+   */
+  public static boolean restore(DefaultListableBeanFactory beanFactory, File file) throws IOException {
+    Assert.notNull(beanFactory, "BeanFactory must not be null");
+    Assert.notNull(file, "File must not be null");
+    if (!file.isFile()) {
+      return false;
+    }
+
+    ClassLoader classLoader = beanFactory.getBeanClassLoader();
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    try {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        logger.info("Ignoring bean factory snapshot [" + file + "]: unknown format");
+        return false;
+      }
+      if (!in.readUTF().equals(computeClasspathFingerprint(classLoader))) {
+        logger.info("Ignoring bean factory snapshot [" + file + "]: classpath has changed");
+        return false;
+      }
+
+      ByteBuffer buffer = ByteBuffer.wrap(readFully(new InflaterInputStream(in)));
+      PrecompiledBeanDefinitions.Decoder decoder = new PrecompiledBeanDefinitions.Decoder(buffer);
+      int beanCount = buffer.getInt();
+      Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<String, BeanDefinition>();
+      Map<String, RootBeanDefinition> mergedBeanDefinitions = new HashMap<String, RootBeanDefinition>();
+      for (int i = 0; i < beanCount; i++) {
+        String beanName = decoder.readString();
+        beanDefinitions.put(beanName, decoder.readDefinition());
+        RootBeanDefinition mbd = new RootBeanDefinition(decoder.readDefinition());
+        String beanClassName = decoder.readString();
+        if (beanClassName != null) {
+          mbd.setBeanClass(ClassUtils.forName(beanClassName, classLoader));
+        }
+        mergedBeanDefinitions.put(beanName, mbd);
+      }
+
+      int aliasCount = buffer.getInt();
+      Map<String, String> aliases = new LinkedHashMap<String, String>();
+      for (int i = 0; i < aliasCount; i++) {
+        String alias = decoder.readString();
+        aliases.put(alias, decoder.readString());
+      }
+
+      int classCount = buffer.getInt();
+      List<Class<?>> classTable = new ArrayList<Class<?>>();
+      for (int i = 0; i < classCount; i++) {
+        classTable.add(ClassUtils.forName(decoder.readString(), classLoader));
+      }
+      int indexedCount = buffer.getInt();
+      Map<String, Set<Class<?>>> indexedTypes = new LinkedHashMap<String, Set<Class<?>>>();
+      for (int i = 0; i < indexedCount; i++) {
+        String beanName = decoder.readString();
+        int typeCount = buffer.getInt();
+        Set<Class<?>> types = new LinkedHashSet<Class<?>>();
+        for (int j = 0; j < typeCount; j++) {
+          types.add(classTable.get(buffer.getInt()));
+        }
+        indexedTypes.put(beanName, types);
+      }
+      int unindexedCount = buffer.getInt();
+      Set<String> unindexedBeanNames = new LinkedHashSet<String>();
+      for (int i = 0; i < unindexedCount; i++) {
+        unindexedBeanNames.add(decoder.readString());
+      }
+
+      // Everything has been read successfully: only now touch the bean factory.
+      beanFactory.restoreSnapshot(beanDefinitions, mergedBeanDefinitions, indexedTypes, unindexedBeanNames);
+      for (Map.Entry<String, String> alias : aliases.entrySet()) {
+        beanFactory.registerAlias(alias.getValue(), alias.getKey());
+      }
+      if (logger.isDebugEnabled()) {
+        logger.debug("Restored " + beanCount + " bean definitions from snapshot [" + file + "]");
+      }
+      return true;
+    }
+    catch (ClassNotFoundException ex) {
+      logger.info("Ignoring bean factory snapshot [" + file + "]: " + ex);
+      return false;
+    }
+    catch (LinkageError err) {
+      logger.info("Ignoring bean factory snapshot [" + file + "]: " + err);
+      return false;
+    }
+    catch (RuntimeException ex) {
+      // Truncated or corrupt content: buffer underflow, invalid index or negative size.
+      logger.info("Ignoring bean factory snapshot [" + file + "]: corrupt content - " + ex);
+      return false;
+    }
+    finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Compute a fingerprint of the classpath visible to the given ClassLoader:
+   * a SHA-256 digest over the Java version and the location, size and
+   * modification time of every classpath jar and of every file in classpath directories.
+   * @param classLoader the ClassLoader to compute the fingerprint for (may be {@code null})
+   * @return the fingerprint, as a hex String
+   */
+  public static String computeClasspathFingerprint(ClassLoader classLoader) {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    }
+    catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 not supported", ex);
+    }
+    update(digest, System.getProperty("java.version"));
+
+    Set<File> classpathElements = new LinkedHashSet<File>();
+    for (ClassLoader cl = classLoader; cl != null; cl = cl.getParent()) {
+      if (cl instanceof URLClassLoader) {
+        for (URL url : ((URLClassLoader) cl).getURLs()) {
+          if ("file".equals(url.getProtocol())) {
+            try {
+              classpathElements.add(new File(url.toURI()));
+            }
+            catch (URISyntaxException ex) {
+              classpathElements.add(new File(url.getPath()));
+            }
+          }
+        }
+      }
+    }
+    String classPath = System.getProperty("java.class.path");
+    if (classPath != null) {
+      for (String element : classPath.split(File.pathSeparator)) {
+        if (element.length() > 0) {
+          classpathElements.add(new File(element));
+        }
+      }
+    }
+
+    for (File element : classpathElements) {
+      update(digest, element.getAbsolutePath());
+      if (element.isDirectory()) {
+        try {
+          final Path root = element.toPath();
+          Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+              update(digest, root.relativize(file).toString() + ':' + attrs.size() + ':' +
+                      attrs.lastModifiedTime().toMillis());
+              return FileVisitResult.CONTINUE;
+            }
+          });
+        }
+        catch (IOException ex) {
+          // Unreadable directory: still part of the fingerprint by name.
+          update(digest, "?");
+        }
+      }
+      else {
+        update(digest, element.length() + ":" + element.lastModified());
+      }
+    }
+
+    StringBuilder fingerprint = new StringBuilder(64);
+    for (byte b : digest.digest()) {
+      fingerprint.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return fingerprint.toString();
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    digest.update(String.valueOf(value).getBytes(UTF_8));
+    digest.update((byte) 0);
+  }
+
+  private static byte[] readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return out.toByteArray();
+  }
+
+}
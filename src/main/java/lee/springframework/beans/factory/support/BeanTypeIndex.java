@@ -0,0 +1,240 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: BeanTypeIndex.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.beans.factory.support;
+
+import lee.springframework.util.ClassUtils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of bean names keyed by the types that the corresponding beans are known
+ * to expose, allowing {@link DefaultListableBeanFactory} to narrow a by-type
+ * lookup down to a handful of candidates instead of type-checking every bean.
+ *
+ * <p>Each bean is in one of three states: <i>pending</i> (registered or changed,
+ * not indexed yet), <i>indexed</i> under the type hierarchy of its predicted
+ * or actual class, or <i>unindexed</i> because its exposed type cannot be
+ * determined up front (e.g. a FactoryBean). Unindexed beans are part of every
+ * candidate set, so the index only ever narrows the beans to check and never
+ * decides a type match on its own.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 10:12
+ * @lastdate:
+ */
+final class BeanTypeIndex {
+
+  /** Bean names, keyed by every type in the hierarchy of the indexed bean class */
+  private final Map<Class<?>, Set<String>> beanNamesByType = new HashMap<Class<?>, Set<String>>(256);
+
+  /** Indexed types, keyed by bean name: for removal of stale entries */
+  private final Map<String, Set<Class<?>>> typesByBeanName = new HashMap<String, Set<Class<?>>>(256);
+
+  /** Names of beans that need to be type-checked for every lookup */
+  private final Set<String> unindexedBeanNames = new HashSet<String>(16);
+
+  /** Names of beans awaiting indexing, with a token identifying the registration */
+  private final Map<String, Object> pendingBeanNames = new LinkedHashMap<String, Object>(256);
+
+
+  /**
+   * Mark the given bean as pending, dropping whatever was indexed for it before.
+   * @param beanName the name of the bean that got registered or changed
+   */
+  public synchronized void markPending(String beanName) {
+    removeIndexEntries(beanName);
+    this.pendingBeanNames.put(beanName, new Object());
+  }
+
+  /**
+   * Mark all of the given beans as pending, discarding the entire index.
+   * @param beanNames the names of all beans known to the factory
+   */
+  public synchronized void reset(Collection<String> beanNames) {
+    this.beanNamesByType.clear();
+    this.typesByBeanName.clear();
+    this.unindexedBeanNames.clear();
+    this.pendingBeanNames.clear();
+    for (String beanName : beanNames) {
+      this.pendingBeanNames.put(beanName, new Object());
+    }
+  }
+
+  /**
+   * Remove the given bean from the index altogether.
+   * @param beanName the name of the bean that got removed
+   */
+  public synchronized void remove(String beanName) {
+    removeIndexEntries(beanName);
+    this.pendingBeanNames.remove(beanName);
+  }
+
+  /**
+   * Return whether there are beans awaiting indexing.
+   */
+  public synchronized boolean hasPendingBeanNames() {
+    return !this.pendingBeanNames.isEmpty();
+  }
+
+  /**
+   * Return a snapshot of the beans awaiting indexing, keyed by bean name,
+   * with the registration token to hand back to {@link #index} or
+   * {@link #markUnindexed}.
+   */
+  public synchronized Map<String, Object> getPendingBeanNames() {
+    return new LinkedHashMap<String, Object>(this.pendingBeanNames);
+  }
+
+  /**
+   * Index the given bean under the type hierarchy of the given class.
+   * Ignored if the bean has been registered again in the meantime.
+   * @param beanName the name of the bean
+   * @param token the token obtained from {@link #getPendingBeanNames()}
+   * @param beanClass the class that the bean exposes, or {@code null}
+   * if the bean can never match (e.g. an abstract bean definition)
+   */
+  public void index(String beanName, Object token, Class<?> beanClass) {
+    Set<Class<?>> types = (beanClass != null ? getTypeHierarchy(beanClass) : Collections.<Class<?>>emptySet());
+    synchronized (this) {
+      if (this.pendingBeanNames.get(beanName) != token) {
+        return;
+      }
+      this.pendingBeanNames.remove(beanName);
+      for (Class<?> type : types) {
+        Set<String> beanNames = this.beanNamesByType.get(type);
+        if (beanNames == null) {
+          beanNames = new HashSet<String>(4);
+          this.beanNamesByType.put(type, beanNames);
+        }
+        beanNames.add(beanName);
+      }
+      this.typesByBeanName.put(beanName, types);
+    }
+  }
+
+  /**
+   * Mark the given bean as unindexed: it will be a candidate for every lookup.
+   * Ignored if the bean has been registered again in the meantime.
+   * @param beanName the name of the bean
+   * @param token the token obtained from {@link #getPendingBeanNames()}
+   */
+  public synchronized void markUnindexed(String beanName, Object token) {
+    if (this.pendingBeanNames.get(beanName) == token) {
+      this.pendingBeanNames.remove(beanName);
+      this.unindexedBeanNames.add(beanName);
+    }
+  }
+
+  /**
+   * Return the types that each indexed bean is indexed under, keyed by bean name.
+   * @see #restore
+   */
+  public synchronized Map<String, Set<Class<?>>> getIndexedTypes() {
+    return new LinkedHashMap<String, Set<Class<?>>>(this.typesByBeanName);
+  }
+
+  /**
+   * Return the names of the beans marked as unindexed.
+   * @see #restore
+   */
+  public synchronized Set<String> getUnindexedBeanNames() {
+    return new LinkedHashSet<String>(this.unindexedBeanNames);
+  }
+
+  /**
+   * Replace the entire index with previously exported state, marking all
+   * other given beans as pending.
+   * @param indexedTypes the indexed types keyed by bean name, as returned by {@link #getIndexedTypes()}
+   * @param unindexedBeanNames the unindexed beans, as returned by {@link #getUnindexedBeanNames()}
+   * @param beanNames the names of all beans known to the factory
+   */
+  public synchronized void restore(Map<String, Set<Class<?>>> indexedTypes, Set<String> unindexedBeanNames,
+                                   Collection<String> beanNames) {
+    reset(beanNames);
+    for (Map.Entry<String, Set<Class<?>>> entry : indexedTypes.entrySet()) {
+      String beanName = entry.getKey();
+      if (this.pendingBeanNames.remove(beanName) != null) {
+        for (Class<?> type : entry.getValue()) {
+          Set<String> beanNamesForType = this.beanNamesByType.get(type);
+          if (beanNamesForType == null) {
+            beanNamesForType = new HashSet<String>(4);
+            this.beanNamesByType.put(type, beanNamesForType);
+          }
+          beanNamesForType.add(beanName);
+        }
+        this.typesByBeanName.put(beanName, entry.getValue());
+      }
+    }
+    for (String beanName : unindexedBeanNames) {
+      if (this.pendingBeanNames.remove(beanName) != null) {
+        this.unindexedBeanNames.add(beanName);
+      }
+    }
+  }
+
+  /**
+   * Return the names of all beans that may match the given type: the beans
+   * indexed under that type plus all unindexed beans. Beans that are still
+   * pending (typically registered concurrently with the lookup) are included
+   * as well, since nothing is known about their type yet.
+   * @param type the raw type to look up
+   * @return the candidate bean names (never {@code null})
+   */
+  public synchronized Set<String> getCandidateBeanNames(Class<?> type) {
+    Set<String> indexed = this.beanNamesByType.get(type);
+    Set<String> candidates = new HashSet<String>((indexed != null ? indexed.size() : 0) +
+            this.unindexedBeanNames.size() + this.pendingBeanNames.size());
+    if (indexed != null) {
+      candidates.addAll(indexed);
+    }
+    candidates.addAll(this.unindexedBeanNames);
+    candidates.addAll(this.pendingBeanNames.keySet());
+    return candidates;
+  }
+
+
+  private void removeIndexEntries(String beanName) {
+    this.unindexedBeanNames.remove(beanName);
+    Set<Class<?>> types = this.typesByBeanName.remove(beanName);
+    if (types != null) {
+      for (Class<?> type : types) {
+        Set<String> beanNames = this.beanNamesByType.get(type);
+        if (beanNames != null) {
+          beanNames.remove(beanName);
+          if (beanNames.isEmpty()) {
+            this.beanNamesByType.remove(type);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Collect the given class, its superclasses and all of its interfaces,
+   * except for {@code Object} which is never looked up through the index.
+   */
+  private static Set<Class<?>> getTypeHierarchy(Class<?> beanClass) {
+    Set<Class<?>> types = new LinkedHashSet<Class<?>>();
+    Class<?> current = beanClass;
+    while (current != null && current != Object.class) {
+      types.add(current);
+      current = current.getSuperclass();
+    }
+    types.addAll(ClassUtils.getAllInterfacesForClassAsSet(beanClass));
+    return types;
+  }
+
+}
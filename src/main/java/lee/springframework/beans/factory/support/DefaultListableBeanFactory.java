@@ -20,6 +20,7 @@ import lee.springframework.core.ResolvableType;
 import lee.springframework.util.Assert;
 import lee.springframework.util.ClassUtils;
 import lee.springframework.util.ObjectUtils;
+import lee.springframework.util.ReflectionUtils;
 import lee.springframework.util.StringUtils;
 import sun.plugin.com.TypeConverter;
 
@@ -28,11 +29,18 @@ import java.io.*;
 import java.lang.annotation.Annotation;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @description:
@@ -84,6 +92,9 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
   /** Resolver to use for checking if a bean definition is an autowire candidate */
   private AutowireCandidateResolver autowireCandidateResolver = new SimpleAutowireCandidateResolver();
 
+  /** Optional Executor for pre-instantiating independent singletons in parallel */
+  private Executor preInstantiationExecutor;
+
   /** Map from dependency type to corresponding autowired value */
   private final Map<Class<?>, Object> resolvableDependencies = new ConcurrentHashMap<Class<?>, Object>(16);
 
@@ -96,9 +107,22 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
   /** Map of singleton-only bean names, keyed by dependency type */
   private final Map<Class<?>, String[]> singletonBeanNamesByType = new ConcurrentHashMap<Class<?>, String[]>(64);
 
+  /** Map of resolved autowire candidate names, keyed by injection point and requesting bean */
+  private final Map<AutowireResolutionKey, String[]> autowireResolutionCache =
+          new ConcurrentHashMap<AutowireResolutionKey, String[]>(256);
+
+  /** Index of bean names by exposed type, narrowing down by-type lookups */
+  private final BeanTypeIndex beanTypeIndex = new BeanTypeIndex();
+
   /** List of bean definition names, in registration order */
   private volatile List<String> beanDefinitionNames = new ArrayList<String>(256);
 
+  /** Registration sequence number of each bean definition name, for ordering candidates of the type index */
+  private final Map<String, Long> beanDefinitionOrder = new ConcurrentHashMap<String, Long>(256);
+
+  /** Last registration sequence number handed out */
+  private final AtomicLong beanDefinitionSequence = new AtomicLong();
+
   /** List of names of manually registered singletons, in registration order */
   private volatile Set<String> manualSingletonNames = new LinkedHashSet<String>(16);
 
@@ -108,6 +132,10 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
   /** Whether bean definition metadata may be cached for all beans */
   private volatile boolean configurationFrozen = false;
 
+  /** Names of singletons whose initialization is deferred until first use */
+  private final Set<String> deferredSingletonNames =
+          Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>(64));
+
 
   /**
    * Create a new DefaultListableBeanFactory.
@@ -240,6 +268,25 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
     return this.autowireCandidateResolver;
   }
 
+  /**
+   * Specify an {@link Executor} (e.g. a {@link java.util.concurrent.ForkJoinPool})
+   * to pre-instantiate non-lazy singletons on, in parallel where the dependency
+   * graph allows for it.
+   * <p>Default is none: singletons are pre-instantiated one at a time on the
+   * calling thread, in registration order.
+   * @see #preInstantiateSingletons()
+   */
+  public void setPreInstantiationExecutor(Executor preInstantiationExecutor) {
+    this.preInstantiationExecutor = preInstantiationExecutor;
+  }
+
+  /**
+   * Return the Executor to pre-instantiate singletons on, if any.
+   */
+  public Executor getPreInstantiationExecutor() {
+    return this.preInstantiationExecutor;
+  }
+
 
   @Override
   public void copyConfigurationFrom(ConfigurableBeanFactory otherFactory) {
@@ -249,6 +296,7 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
       this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
       this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
       this.dependencyComparator = otherListableFactory.dependencyComparator;
+      this.preInstantiationExecutor = otherListableFactory.preInstantiationExecutor;
       // A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware...
       setAutowireCandidateResolver(BeanUtils.instantiateClass(getAutowireCandidateResolver().getClass()));
       // Make resolvable dependencies (e.g. ResourceLoader) available here as well...
@@ -335,9 +383,12 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
 
   private String[] doGetBeanNamesForType(ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
     List<String> result = new ArrayList<String>();
+    Set<String> candidateNames = getIndexedCandidateNames(type);
 
-    // Check all bean definitions.
-    for (String beanName : this.beanDefinitionNames) {
+    // Check all bean definitions, or only those that the type index does not rule out.
+    List<String> beanNamesToCheck = (candidateNames != null ?
+            getBeanDefinitionNamesInOrder(candidateNames) : this.beanDefinitionNames);
+    for (String beanName : beanNamesToCheck) {
       // Only consider bean as eligible if the bean name
       // is not defined as alias for some other bean.
       if (!isAlias(beanName)) {
@@ -391,6 +442,9 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
 
     // Check manually registered singletons too.
     for (String beanName : this.manualSingletonNames) {
+      if (candidateNames != null && !candidateNames.contains(beanName)) {
+        continue;
+      }
       try {
         // In case of FactoryBean, match object created by FactoryBean.
         if (isFactoryBean(beanName)) {
@@ -418,6 +472,112 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
     return StringUtils.toStringArray(result);
   }
 
+  /**
+   * Return those of the given names that are bean definition names, in
+   * registration order: the order of {@link #getBeanDefinitionNames()}.
+   * @param beanNames the candidate names, possibly including manually
+   * registered singletons
+   */
+  private List<String> getBeanDefinitionNamesInOrder(Set<String> beanNames) {
+    final Map<String, Long> order = new HashMap<String, Long>(beanNames.size());
+    for (String beanName : beanNames) {
+      Long sequence = this.beanDefinitionOrder.get(beanName);
+      if (sequence != null) {
+        order.put(beanName, sequence);
+      }
+    }
+    List<String> result = new ArrayList<String>(order.keySet());
+    Collections.sort(result, new Comparator<String>() {
+      @Override
+      public int compare(String name1, String name2) {
+        return order.get(name1).compareTo(order.get(name2));
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Determine the names of the beans that may match the given type according
+   * to the type index, indexing all beans registered since the last lookup.
+   * @param type the type to look up
+   * @return the candidate bean names, or {@code null} if the type cannot be
+   * looked up through the index and all beans need to be checked
+   */
+  private Set<String> getIndexedCandidateNames(ResolvableType type) {
+    Class<?> rawType = type.resolve();
+    if (rawType == null || rawType == Object.class) {
+      return null;
+    }
+    if (this.beanTypeIndex.hasPendingBeanNames()) {
+      for (Map.Entry<String, Object> entry : this.beanTypeIndex.getPendingBeanNames().entrySet()) {
+        indexBeanType(entry.getKey(), entry.getValue());
+      }
+    }
+    return this.beanTypeIndex.getCandidateBeanNames(rawType);
+  }
+
+  /**
+   * Index the given bean by the class of its singleton instance, if already
+   * available, or by its predicted type otherwise. Beans whose exposed type
+   * cannot be determined without initializing anything - FactoryBeans,
+   * decorated definitions, lazy beans that must not be class-loaded -
+   * remain unindexed and get type-checked on every lookup.
+   * @param beanName the name of the bean to index
+   * @param token the registration token handed out by the index
+   */
+  private void indexBeanType(String beanName, Object token) {
+    try {
+      Object singletonInstance = getSingleton(beanName, false);
+      if (singletonInstance != null) {
+        if (singletonInstance instanceof FactoryBean) {
+          this.beanTypeIndex.markUnindexed(beanName, token);
+        }
+        else {
+          this.beanTypeIndex.index(beanName, token, singletonInstance.getClass());
+        }
+        return;
+      }
+      if (!containsBeanDefinition(beanName)) {
+        this.beanTypeIndex.markUnindexed(beanName, token);
+        return;
+      }
+      RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+      if (mbd.isAbstract()) {
+        this.beanTypeIndex.index(beanName, token, null);
+      }
+      else if (mbd.getDecoratedDefinition() != null ||
+              (!mbd.hasBeanClass() && mbd.isLazyInit() && !isAllowEagerClassLoading()) ||
+              requiresEagerInitForType(mbd.getFactoryBeanName()) || isFactoryBean(beanName, mbd)) {
+        this.beanTypeIndex.markUnindexed(beanName, token);
+      }
+      else {
+        Class<?> beanType = predictBeanType(beanName, mbd);
+        if (beanType != null) {
+          this.beanTypeIndex.index(beanName, token, beanType);
+        }
+        else {
+          this.beanTypeIndex.markUnindexed(beanName, token);
+        }
+      }
+    }
+    catch (BeansException ex) {
+      // Leave the type check - and any error reporting - to the regular lookup path.
+      if (this.logger.isDebugEnabled()) {
+        this.logger.debug("Could not index type of bean '" + beanName + "'", ex);
+      }
+      this.beanTypeIndex.markUnindexed(beanName, token);
+    }
+  }
+
+  /**
+   * Discard the type index, re-indexing all beans on the next by-type lookup.
+   */
+  private void resetBeanTypeIndex() {
+    List<String> beanNames = new ArrayList<String>(this.beanDefinitionNames);
+    beanNames.addAll(this.manualSingletonNames);
+    this.beanTypeIndex.reset(beanNames);
+  }
+
   /**
    * Check whether the specified bean would need to be eagerly initialized
    * in order to determine its type.
@@ -533,6 +693,7 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
                 "] does not implement specified dependency type [" + dependencyType.getName() + "]");
       }
       this.resolvableDependencies.put(dependencyType, autowiredValue);
+      this.autowireResolutionCache.clear();
     }
   }
 
@@ -627,6 +788,7 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
   public void clearMetadataCache() {
     super.clearMetadataCache();
     clearByTypeCache();
+    resetBeanTypeIndex();
   }
 
   @Override
@@ -650,6 +812,129 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
     return (this.configurationFrozen || super.isBeanEligibleForMetadataCaching(beanName));
   }
 
+  /**
+   * Return the type index of this factory, e.g. for writing a {@link BeanFactorySnapshot}.
+   */
+  BeanTypeIndex getBeanTypeIndex() {
+    return this.beanTypeIndex;
+  }
+
+  /**
+   * Populate this factory from a {@link BeanFactorySnapshot}: register the given
+   * bean definitions as they are, without override checks, and seed the merged
+   * bean definition cache and the type index with the given state.
+   * @param beanDefinitions the bean definitions, keyed by bean name in registration order
+   * @param mergedBeanDefinitions the merged bean definitions, keyed by bean name
+   * @param indexedTypes the indexed types keyed by bean name
+   * @param unindexedBeanNames the names of the beans not indexed by type
+   * @throws IllegalStateException if bean definitions have been registered already
+   */
+  void restoreSnapshot(Map<String, BeanDefinition> beanDefinitions,
+                       Map<String, RootBeanDefinition> mergedBeanDefinitions,
+                       Map<String, Set<Class<?>>> indexedTypes, Set<String> unindexedBeanNames) {
+
+    synchronized (this.beanDefinitionMap) {
+      Assert.state(this.beanDefinitionMap.isEmpty(),
+              "Cannot restore a snapshot into a bean factory with registered bean definitions");
+      this.beanDefinitionMap.putAll(beanDefinitions);
+      this.beanDefinitionNames = new ArrayList<String>(beanDefinitions.keySet());
+      for (String beanName : this.beanDefinitionNames) {
+        this.beanDefinitionOrder.put(beanName, this.beanDefinitionSequence.incrementAndGet());
+      }
+      this.manualSingletonNames.removeAll(beanDefinitions.keySet());
+      this.frozenBeanDefinitionNames = null;
+    }
+    for (Map.Entry<String, RootBeanDefinition> entry : mergedBeanDefinitions.entrySet()) {
+      restoreMergedBeanDefinition(entry.getKey(), entry.getValue());
+    }
+    List<String> beanNames = new ArrayList<String>(this.beanDefinitionNames);
+    beanNames.addAll(this.manualSingletonNames);
+    this.beanTypeIndex.restore(indexedTypes, unindexedBeanNames, beanNames);
+    invalidateSingletonLookupTable();
+    clearByTypeCache();
+  }
+
+  /**
+   * Defer the initialization of all singletons that are not reachable from the
+   * given root beans: {@link #preInstantiateSingletons()} skips them as if they
+   * were lazy-init, and by-type injection points with an interface type receive
+   * a proxy that creates the actual bean on its first method call.
+   * <p>Reachability follows bean references in property values and constructor
+   * arguments (including inner beans), "depends-on" declarations and factory
+   * beans. Infrastructure beans, FactoryBeans and {@link SmartInitializingSingleton
+   * SmartInitializingSingletons} are always treated as roots, since they are
+   * expected to take effect at startup.
+   * <p>Injection that is not declared in the bean definitions, e.g. annotation-driven
+   * autowiring into a root bean, still works: the deferred bean then gets proxied,
+   * or created right away if the injection point is not an interface.
+   * @param rootBeanNames the names of the beans needed at startup
+   * @return the names of the singletons that got deferred
+   * @see #preInstantiateSingletons()
+   */
+  public Set<String> deferSingletonsNotReachableFrom(String... rootBeanNames) {
+    Set<String> reachable = new HashSet<String>();
+    Deque<String> toVisit = new ArrayDeque<String>();
+    for (String rootBeanName : rootBeanNames) {
+      toVisit.add(canonicalName(transformedBeanName(rootBeanName)));
+    }
+    List<String> beanNames = new ArrayList<String>(this.beanDefinitionNames);
+    for (String beanName : beanNames) {
+      RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+      if (mbd.isAbstract()) {
+        continue;
+      }
+      // Predict the type rather than relying on a resolved bean class: class names may not
+      // have been resolved yet, and factory methods may return FactoryBeans or callbacks too.
+      if (mbd.getRole() == BeanDefinition.ROLE_INFRASTRUCTURE || isFactoryBean(beanName) ||
+              isSmartInitializingSingleton(beanName, mbd)) {
+        toVisit.add(beanName);
+      }
+    }
+
+    while (!toVisit.isEmpty()) {
+      String beanName = toVisit.poll();
+      if (!reachable.add(beanName) || !containsBeanDefinition(beanName)) {
+        continue;
+      }
+      Set<String> references = new LinkedHashSet<String>();
+      collectReferencedBeanNames(getMergedLocalBeanDefinition(beanName), references);
+      for (String reference : references) {
+        String canonicalReference = canonicalName(transformedBeanName(reference));
+        if (!reachable.contains(canonicalReference)) {
+          toVisit.add(canonicalReference);
+        }
+      }
+    }
+
+    Set<String> deferred = new LinkedHashSet<String>();
+    for (String beanName : beanNames) {
+      RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+      if (!reachable.contains(beanName) && !mbd.isAbstract() && mbd.isSingleton() && !mbd.isLazyInit()) {
+        deferred.add(beanName);
+      }
+    }
+    this.deferredSingletonNames.addAll(deferred);
+    if (this.logger.isDebugEnabled()) {
+      this.logger.debug("Deferring initialization of " + deferred.size() + " singletons not reachable from " +
+              Arrays.asList(rootBeanNames) + ": " + deferred);
+    }
+    return deferred;
+  }
+
+  private boolean isSmartInitializingSingleton(String beanName, RootBeanDefinition mbd) {
+    Class<?> beanType = predictBeanType(beanName, mbd, SmartInitializingSingleton.class);
+    return (beanType != null && SmartInitializingSingleton.class.isAssignableFrom(beanType));
+  }
+
+  /**
+   * Return whether the initialization of the given singleton has been deferred
+   * until first use.
+   * @see #deferSingletonsNotReachableFrom
+   */
+  public boolean isDeferredSingleton(String beanName) {
+    return this.deferredSingletonNames.contains(beanName);
+  }
+
   @Override
   public void preInstantiateSingletons() throws BeansException {
     if (this.logger.isDebugEnabled()) {
@@ -661,30 +946,21 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
     List<String> beanNames = new ArrayList<String>(this.beanDefinitionNames);
 
     // Trigger initialization of all non-lazy singleton beans...
-    for (String beanName : beanNames) {
-      RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-      if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-        if (isFactoryBean(beanName)) {
-          final FactoryBean<?> factory = (FactoryBean<?>) getBean(FACTORY_BEAN_PREFIX + beanName);
-          boolean isEagerInit;
-          if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-            isEagerInit = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
-              @Override
-              public Boolean run() {
-                return ((SmartFactoryBean<?>) factory).isEagerInit();
-              }
-            }, getAccessControlContext());
-          }
-          else {
-            isEagerInit = (factory instanceof SmartFactoryBean &&
-                    ((SmartFactoryBean<?>) factory).isEagerInit());
-          }
-          if (isEagerInit) {
-            getBean(beanName);
-          }
+    if (this.preInstantiationExecutor != null) {
+      List<String> eagerBeanNames = new ArrayList<String>(beanNames.size());
+      for (String beanName : beanNames) {
+        RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+        if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit() && !isDeferredSingleton(beanName)) {
+          eagerBeanNames.add(beanName);
         }
-        else {
-          getBean(beanName);
+      }
+      preInstantiateSingletonsInParallel(eagerBeanNames, this.preInstantiationExecutor);
+    }
+    else {
+      for (String beanName : beanNames) {
+        RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+        if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit() && !isDeferredSingleton(beanName)) {
+          preInstantiateSingleton(beanName);
         }
       }
     }
@@ -708,6 +984,210 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
         }
       }
     }
+
+    // All singletons are fully initialized now: with a frozen configuration,
+    // serve further lookups for them from a single lookup table.
+    if (isConfigurationFrozen()) {
+      publishSingletonLookupTable();
+    }
+  }
+
+
+  /**
+   * Collect the names of the beans that the given bean definition refers to:
+   * bean references in its property values and constructor arguments,
+   * recursively through inner beans and collections, as well as its
+   * "depends-on" beans and its factory bean.
+   */
+  private void collectReferencedBeanNames(BeanDefinition bd, Set<String> result) {
+    String[] dependsOn = bd.getDependsOn();
+    if (dependsOn != null) {
+      result.addAll(Arrays.asList(dependsOn));
+    }
+    if (bd.getFactoryBeanName() != null) {
+      result.add(bd.getFactoryBeanName());
+    }
+    for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+      collectReferencedBeanNames(pv.getValue(), result);
+    }
+    ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+    for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getIndexedArgumentValues().values()) {
+      collectReferencedBeanNames(valueHolder.getValue(), result);
+    }
+    for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+      collectReferencedBeanNames(valueHolder.getValue(), result);
+    }
+  }
+
+  private void collectReferencedBeanNames(Object value, Set<String> result) {
+    if (value instanceof RuntimeBeanReference) {
+      result.add(((RuntimeBeanReference) value).getBeanName());
+    }
+    else if (value instanceof BeanDefinitionHolder) {
+      collectReferencedBeanNames(((BeanDefinitionHolder) value).getBeanDefinition(), result);
+    }
+    else if (value instanceof BeanDefinition) {
+      collectReferencedBeanNames((BeanDefinition) value, result);
+    }
+    else if (value instanceof Collection) {
+      for (Object element : (Collection<?>) value) {
+        collectReferencedBeanNames(element, result);
+      }
+    }
+    else if (value instanceof Map) {
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        collectReferencedBeanNames(entry.getKey(), result);
+        collectReferencedBeanNames(entry.getValue(), result);
+      }
+    }
+    else if (value instanceof Object[]) {
+      for (Object element : (Object[]) value) {
+        collectReferencedBeanNames(element, result);
+      }
+    }
+  }
+
+  /**
+   * Pre-instantiate the given non-lazy singleton, going through its
+   * FactoryBean's eager-init decision in case of a FactoryBean.
+   * @param beanName the name of the bean
+   */
+  private void preInstantiateSingleton(String beanName) {
+    if (isFactoryBean(beanName)) {
+      final FactoryBean<?> factory = (FactoryBean<?>) getBean(FACTORY_BEAN_PREFIX + beanName);
+      boolean isEagerInit;
+      if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+        isEagerInit = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+          @Override
+          public Boolean run() {
+            return ((SmartFactoryBean<?>) factory).isEagerInit();
+          }
+        }, getAccessControlContext());
+      }
+      else {
+        isEagerInit = (factory instanceof SmartFactoryBean &&
+                ((SmartFactoryBean<?>) factory).isEagerInit());
+      }
+      if (isEagerInit) {
+        getBean(beanName);
+      }
+    }
+    else {
+      getBean(beanName);
+    }
+  }
+
+  /**
+   * Pre-instantiate the given singletons on the given Executor.
+   * <p>The dependency graph is built from the "depends-on" declarations and
+   * the dependencies registered so far; a bean is only submitted once all of
+   * the beans it depends on have been created, so independent subtrees get
+   * created concurrently. Creation itself still goes through {@link #getBean},
+   * so the singleton registry's locking and its handling of circular references
+   * apply unchanged; dependencies that are not declared upfront simply get
+   * created on whichever thread needs them first.
+   * <p>Beans that fail with a {@link BeanCurrentlyInCreationException} - a
+   * circular reference that spans two creating threads - are retried on the
+   * calling thread once all other beans are done. Any other failure stops
+   * submitting further beans and gets rethrown once the running ones completed.
+   * @param beanNames the names of the non-lazy singletons, in registration order
+   * @param executor the Executor to create the singletons on
+   */
+  private void preInstantiateSingletonsInParallel(List<String> beanNames, Executor executor) {
+    Set<String> remaining = new LinkedHashSet<String>(beanNames);
+    Map<String, Set<String>> pendingDependencies = new HashMap<String, Set<String>>(beanNames.size());
+    Map<String, List<String>> waitingDependents = new HashMap<String, List<String>>(beanNames.size());
+    for (String beanName : beanNames) {
+      Set<String> dependencies = new LinkedHashSet<String>();
+      String[] dependsOn = getMergedLocalBeanDefinition(beanName).getDependsOn();
+      if (dependsOn != null) {
+        for (String dependency : dependsOn) {
+          dependencies.add(canonicalName(dependency));
+        }
+      }
+      dependencies.addAll(Arrays.asList(getDependenciesForBean(beanName)));
+      dependencies.retainAll(remaining);
+      dependencies.remove(beanName);
+      pendingDependencies.put(beanName, dependencies);
+      for (String dependency : dependencies) {
+        List<String> dependents = waitingDependents.get(dependency);
+        if (dependents == null) {
+          dependents = new ArrayList<String>(4);
+          waitingDependents.put(dependency, dependents);
+        }
+        dependents.add(beanName);
+      }
+    }
+
+    BlockingQueue<PreInstantiationResult> completions = new LinkedBlockingQueue<PreInstantiationResult>();
+    ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    List<String> retryBeanNames = new ArrayList<String>();
+    Throwable failure = null;
+    int running = 0;
+
+    for (String beanName : beanNames) {
+      if (pendingDependencies.get(beanName).isEmpty()) {
+        remaining.remove(beanName);
+        executor.execute(new PreInstantiationTask(beanName, contextClassLoader, completions));
+        running++;
+      }
+    }
+
+    while (running > 0) {
+      PreInstantiationResult result;
+      try {
+        result = completions.take();
+      }
+      catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new BeanCreationException("Interrupted while pre-instantiating singletons", ex);
+      }
+      running--;
+      if (result.failure != null) {
+        if (isCircularReferenceFailure(result.failure)) {
+          retryBeanNames.add(result.beanName);
+        }
+        else if (failure == null) {
+          failure = result.failure;
+        }
+      }
+      if (failure != null) {
+        continue;
+      }
+      List<String> dependents = waitingDependents.get(result.beanName);
+      if (dependents != null) {
+        for (String dependent : dependents) {
+          Set<String> dependencies = pendingDependencies.get(dependent);
+          dependencies.remove(result.beanName);
+          if (dependencies.isEmpty() && remaining.remove(dependent)) {
+            executor.execute(new PreInstantiationTask(dependent, contextClassLoader, completions));
+            running++;
+          }
+        }
+      }
+    }
+
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+
+    // Circular depends-on declarations and cross-thread circular references:
+    // let the calling thread sort them out, raising the usual exceptions if need be.
+    for (String beanName : retryBeanNames) {
+      preInstantiateSingleton(beanName);
+    }
+    for (String beanName : remaining) {
+      preInstantiateSingleton(beanName);
+    }
+  }
+
+  private boolean isCircularReferenceFailure(Throwable failure) {
+    return (failure instanceof BeanCurrentlyInCreationException ||
+            (failure instanceof BeanCreationException &&
+                    ((BeanCreationException) failure).getMostSpecificCause() instanceof BeanCurrentlyInCreationException));
   }
 
 
@@ -774,6 +1254,7 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
           updatedDefinitions.addAll(this.beanDefinitionNames);
           updatedDefinitions.add(beanName);
           this.beanDefinitionNames = updatedDefinitions;
+          this.beanDefinitionOrder.put(beanName, this.beanDefinitionSequence.incrementAndGet());
           if (this.manualSingletonNames.contains(beanName)) {
             Set<String> updatedSingletons = new LinkedHashSet<String>(this.manualSingletonNames);
             updatedSingletons.remove(beanName);
@@ -785,14 +1266,20 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
         // Still in startup registration phase
         this.beanDefinitionMap.put(beanName, beanDefinition);
         this.beanDefinitionNames.add(beanName);
+        this.beanDefinitionOrder.put(beanName, this.beanDefinitionSequence.incrementAndGet());
         this.manualSingletonNames.remove(beanName);
       }
       this.frozenBeanDefinitionNames = null;
     }
+    this.beanTypeIndex.markPending(beanName);
+    invalidateSingletonLookupTable();
 
     if (oldBeanDefinition != null || containsSingleton(beanName)) {
       resetBeanDefinition(beanName);
     }
+    else if (isConfigurationFrozen()) {
+      clearByTypeCache();
+    }
   }
 
   @Override
@@ -819,9 +1306,12 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
       // Still in startup registration phase
       this.beanDefinitionNames.remove(beanName);
     }
+    this.beanDefinitionOrder.remove(beanName);
     this.frozenBeanDefinitionNames = null;
 
     resetBeanDefinition(beanName);
+    this.beanTypeIndex.remove(beanName);
+    invalidateSingletonLookupTable();
   }
 
   /**
@@ -832,6 +1322,7 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
   protected void resetBeanDefinition(String beanName) {
     // Remove the merged bean definition for the given bean, if already created.
     clearMergedBeanDefinition(beanName);
+    this.deferredSingletonNames.remove(beanName);
 
     // Remove corresponding bean from singleton cache, if any. Shouldn't usually
     // be necessary, rather just meant for overriding a context's default beans
@@ -873,27 +1364,61 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
       }
     }
     else {
-      // Still in startup registration phase
-      if (!this.beanDefinitionMap.containsKey(beanName)) {
-        this.manualSingletonNames.add(beanName);
+      // Still in startup registration phase, but possibly registering on
+      // several threads at once, e.g. during a concurrent context refresh
+      synchronized (this.beanDefinitionMap) {
+        if (!this.beanDefinitionMap.containsKey(beanName)) {
+          this.manualSingletonNames.add(beanName);
+        }
       }
     }
 
     clearByTypeCache();
   }
 
+  /**
+   * Re-indexes the type of the given bean once its singleton instance is
+   * available, since the instance may expose more than the predicted type.
+   */
+  @Override
+  protected void addSingleton(String beanName, Object singletonObject) {
+    super.addSingleton(beanName, singletonObject);
+    this.beanTypeIndex.markPending(beanName);
+  }
+
   @Override
   public void destroySingleton(String beanName) {
+    invalidateSingletonLookupTable();
     super.destroySingleton(beanName);
     this.manualSingletonNames.remove(beanName);
+    if (containsBeanDefinition(beanName)) {
+      this.beanTypeIndex.markPending(beanName);
+    }
+    else {
+      this.beanTypeIndex.remove(beanName);
+    }
     clearByTypeCache();
   }
 
   @Override
   public void destroySingletons() {
+    invalidateSingletonLookupTable();
     super.destroySingletons();
     this.manualSingletonNames.clear();
     clearByTypeCache();
+    resetBeanTypeIndex();
+  }
+
+  /**
+   * Discards the type index when a post-processor is added that may
+   * predict bean types differently from the bean definitions.
+   */
+  @Override
+  public void addBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
+    super.addBeanPostProcessor(beanPostProcessor);
+    if (beanPostProcessor instanceof SmartInstantiationAwareBeanPostProcessor) {
+      resetBeanTypeIndex();
+    }
   }
 
   /**
@@ -902,6 +1427,7 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
   private void clearByTypeCache() {
     this.allBeanNamesByType.clear();
     this.singletonBeanNamesByType.clear();
+    this.autowireResolutionCache.clear();
   }
 
 
@@ -1024,6 +1550,19 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
         return multipleBeans;
       }
 
+      // Shortcut for an injection point that has been resolved before.
+      AutowireResolutionKey resolutionKey = null;
+      if (isConfigurationFrozen()) {
+        resolutionKey = new AutowireResolutionKey(descriptor, beanName, false);
+        String[] resolved = this.autowireResolutionCache.get(resolutionKey);
+        if (resolved != null) {
+          if (autowiredBeanNames != null) {
+            autowiredBeanNames.add(resolved[0]);
+          }
+          return resolveAutowiredCandidate(descriptor, resolved[0], type);
+        }
+      }
+
       Map<String, Object> matchingBeans = findAutowireCandidates(beanName, type, descriptor);
       if (matchingBeans.isEmpty()) {
         if (descriptor.isRequired()) {
@@ -1057,17 +1596,35 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
         instanceCandidate = entry.getValue();
       }
 
+      if (resolutionKey != null && containsBean(autowiredBeanName)) {
+        this.autowireResolutionCache.put(resolutionKey, new String[] {autowiredBeanName});
+      }
       if (autowiredBeanNames != null) {
         autowiredBeanNames.add(autowiredBeanName);
       }
       return (instanceCandidate instanceof Class ?
-              descriptor.resolveCandidate(autowiredBeanName, type, this) : instanceCandidate);
+              resolveAutowiredCandidate(descriptor, autowiredBeanName, type) : instanceCandidate);
     }
     finally {
       ConstructorResolver.setCurrentInjectionPoint(previousInjectionPoint);
     }
   }
 
+  /**
+   * Resolve the given autowire candidate, handing out a lazy-resolution proxy
+   * instead if its initialization has been deferred and the type allows for it.
+   */
+  private Object resolveAutowiredCandidate(DependencyDescriptor descriptor, String candidateName, Class<?> type) {
+    if (type.isInterface() && isDeferredSingleton(candidateName) && !containsSingleton(candidateName)) {
+      if (this.logger.isDebugEnabled()) {
+        this.logger.debug("Injecting lazy-resolution proxy for deferred singleton '" + candidateName + "'");
+      }
+      return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+              new DeferredSingletonInvocationHandler(candidateName, type));
+    }
+    return descriptor.resolveCandidate(candidateName, type, this);
+  }
+
   private Object resolveMultipleBeans(DependencyDescriptor descriptor, String beanName,
                                       Set<String> autowiredBeanNames, TypeConverter typeConverter) {
 
@@ -1083,8 +1640,7 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
       if (componentType == null) {
         return null;
       }
-      Map<String, Object> matchingBeans = findAutowireCandidates(beanName, componentType,
-              new MultiElementDescriptor(descriptor));
+      Map<String, Object> matchingBeans = findMultipleAutowireCandidates(beanName, componentType, descriptor);
       if (matchingBeans.isEmpty()) {
         return null;
       }
@@ -1103,8 +1659,7 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
       if (elementType == null) {
         return null;
       }
-      Map<String, Object> matchingBeans = findAutowireCandidates(beanName, elementType,
-              new MultiElementDescriptor(descriptor));
+      Map<String, Object> matchingBeans = findMultipleAutowireCandidates(beanName, elementType, descriptor);
       if (matchingBeans.isEmpty()) {
         return null;
       }
@@ -1128,8 +1683,7 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
       if (valueType == null) {
         return null;
       }
-      Map<String, Object> matchingBeans = findAutowireCandidates(beanName, valueType,
-              new MultiElementDescriptor(descriptor));
+      Map<String, Object> matchingBeans = findMultipleAutowireCandidates(beanName, valueType, descriptor);
       if (matchingBeans.isEmpty()) {
         return null;
       }
@@ -1143,6 +1697,42 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
     }
   }
 
+  /**
+   * Find the bean instances for the elements of a collection, array or map
+   * dependency, in their original order. Once the configuration is frozen,
+   * the candidate names are cached per injection point and requesting bean,
+   * skipping the candidate scan for repeated injection.
+   * @see #findAutowireCandidates
+   */
+  private Map<String, Object> findMultipleAutowireCandidates(
+          String beanName, Class<?> elementType, DependencyDescriptor descriptor) {
+
+    DependencyDescriptor multiDescriptor = new MultiElementDescriptor(descriptor);
+    if (!isConfigurationFrozen()) {
+      return findAutowireCandidates(beanName, elementType, multiDescriptor);
+    }
+
+    AutowireResolutionKey resolutionKey = new AutowireResolutionKey(descriptor, beanName, true);
+    String[] resolved = this.autowireResolutionCache.get(resolutionKey);
+    if (resolved != null) {
+      Map<String, Object> matchingBeans = new LinkedHashMap<String, Object>(resolved.length);
+      for (String candidateName : resolved) {
+        matchingBeans.put(candidateName, multiDescriptor.resolveCandidate(candidateName, elementType, this));
+      }
+      return matchingBeans;
+    }
+
+    Map<String, Object> matchingBeans = findAutowireCandidates(beanName, elementType, multiDescriptor);
+    for (String candidateName : matchingBeans.keySet()) {
+      if (!containsBean(candidateName)) {
+        // A resolvable dependency rather than a bean: needs to be looked up every time.
+        return matchingBeans;
+      }
+    }
+    this.autowireResolutionCache.put(resolutionKey, StringUtils.toStringArray(matchingBeans.keySet()));
+    return matchingBeans;
+  }
+
   private boolean indicatesMultipleBeans(Class<?> type) {
     return (type.isArray() || (type.isInterface() &&
             (Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type))));
@@ -1693,4 +2283,142 @@ public class DefaultListableBeanFactory  extends AbstractAutowireCapableBeanFact
   }
 
 
+  /**
+   * Key for the autowire resolution cache: an injection point (by descriptor
+   * equality, since descriptors tend to get re-created for every injection),
+   * the requesting bean, and whether the multiple candidates of a collection,
+   * array or map dependency have been resolved.
+   */
+  private static final class AutowireResolutionKey {
+
+    private final DependencyDescriptor descriptor;
+
+    private final String beanName;
+
+    private final boolean multiple;
+
+    public AutowireResolutionKey(DependencyDescriptor descriptor, String beanName, boolean multiple) {
+      this.descriptor = descriptor;
+      this.beanName = beanName;
+      this.multiple = multiple;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof AutowireResolutionKey)) {
+        return false;
+      }
+      AutowireResolutionKey otherKey = (AutowireResolutionKey) other;
+      return (this.multiple == otherKey.multiple && this.descriptor.equals(otherKey.descriptor) &&
+              ObjectUtils.nullSafeEquals(this.beanName, otherKey.beanName));
+    }
+
+    @Override
+    public int hashCode() {
+      return (this.descriptor.hashCode() * 29 + ObjectUtils.nullSafeHashCode(this.beanName)) * 2 +
+              (this.multiple ? 1 : 0);
+    }
+  }
+
+
+  /**
+   * Task creating a single singleton during parallel pre-instantiation,
+   * reporting back to the coordinating thread through the given queue.
+   */
+  private class PreInstantiationTask implements Runnable {
+
+    private final String beanName;
+
+    private final ClassLoader contextClassLoader;
+
+    private final BlockingQueue<PreInstantiationResult> completions;
+
+    public PreInstantiationTask(String beanName, ClassLoader contextClassLoader,
+                                BlockingQueue<PreInstantiationResult> completions) {
+      this.beanName = beanName;
+      this.contextClassLoader = contextClassLoader;
+      this.completions = completions;
+    }
+
+    @Override
+    public void run() {
+      Thread currentThread = Thread.currentThread();
+      ClassLoader previousClassLoader = currentThread.getContextClassLoader();
+      currentThread.setContextClassLoader(this.contextClassLoader);
+      Throwable failure = null;
+      try {
+        preInstantiateSingleton(this.beanName);
+      }
+      catch (Throwable ex) {
+        failure = ex;
+      }
+      finally {
+        currentThread.setContextClassLoader(previousClassLoader);
+        this.completions.add(new PreInstantiationResult(this.beanName, failure));
+      }
+    }
+  }
+
+
+  private static class PreInstantiationResult {
+
+    private final String beanName;
+
+    private final Throwable failure;
+
+    public PreInstantiationResult(String beanName, Throwable failure) {
+      this.beanName = beanName;
+      this.failure = failure;
+    }
+  }
+
+
+  /**
+   * InvocationHandler for a lazy-resolution proxy of a deferred singleton:
+   * obtains the actual bean on the first method call, and delegates to it.
+   */
+  private class DeferredSingletonInvocationHandler implements InvocationHandler {
+
+    private final String beanName;
+
+    private final Class<?> type;
+
+    private volatile Object target;
+
+    public DeferredSingletonInvocationHandler(String beanName, Class<?> type) {
+      this.beanName = beanName;
+      this.type = type;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String methodName = method.getName();
+      if (methodName.equals("equals") && method.getParameterTypes().length == 1) {
+        // Only consider equal when proxies are identical.
+        return (proxy == args[0]);
+      }
+      else if (methodName.equals("hashCode") && method.getParameterTypes().length == 0) {
+        // Use hashCode of proxy, without creating the target.
+        return System.identityHashCode(proxy);
+      }
+
+      Object target = this.target;
+      if (target == null) {
+        target = getBean(this.beanName, this.type);
+        this.target = target;
+      }
+      try {
+        ReflectionUtils.makeAccessible(method);
+        return method.invoke(target, args);
+      }
+      catch (InvocationTargetException ex) {
+        throw ex.getTargetException();
+      }
+    }
+  }
+
+
 }
@@ -0,0 +1,1183 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: DefaultSingletonBeanRegistry.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.beans.factory.support;
+
+import lee.springframework.beans.BeansException;
+import lee.springframework.beans.factory.cofnig.SingletonBeanRegistry;
+import lee.springframework.core.SimpleAliasRegistry;
+import lee.springframework.util.Assert;
+import lee.springframework.util.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Generic registry for shared bean instances, implementing the
+ * {@link SingletonBeanRegistry}. Allows for registering singleton instances
+ * that should be shared for all callers of the registry, to be obtained via bean name.
+ * 共享bean实例的通用注册器
+ *
+ * <p>Also supports registration of
+ * {@link org.springframework.beans.factory.DisposableBean} instances,
+ * (which might or might not correspond to registered singletons),
+ * to be destroyed on shutdown of the registry. Dependencies between
+ * beans can be registered to enforce an appropriate shutdown order.
+ *
+ * <p>Singleton creation is guarded by a lock per bean name rather than by one
+ * registry-wide monitor: creating unrelated singletons on different threads does
+ * not contend, while concurrent requests for the same singleton still wait for,
+ * and share, the single instance created. Early singleton references are only
+ * handed out to the thread that is creating the singleton, so other threads never
+ * observe a partially initialized instance. A circular reference that spans two
+ * creating threads is detected while waiting for the lock: one of the threads
+ * backs off, releasing the locks it holds, waits for the other thread to finish
+ * and then retries, finding the singletons created by the other thread.
+ * 单例创建按bean名称加锁, 不同bean的创建互不阻塞
+ *
+ * <p>The registry-wide monitor ({@link #getSingletonMutex()}) only guards the
+ * short-lived updates of the internal maps.
+ *
+ * <p>With a {@link #setDestructionExecutor destruction executor}, singletons get
+ * destroyed concurrently on shutdown wherever the registered dependencies allow:
+ * a bean is only destroyed once all beans depending on it (and its containing
+ * bean) have been destroyed, so independent subtrees shut down in parallel.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 11:05
+ * @lastdate: 2026-10-18
+ * @see #getSingleton(String, ObjectFactory)
+ */
+public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements SingletonBeanRegistry {
+
+  /**
+   * Internal marker for a null singleton object:
+   * used as marker value for concurrent Maps (which don't support null values).
+   */
+  protected static final Object NULL_OBJECT = new Object();
+
+  /** Interval for re-checking for a lock cycle while waiting for a singleton lock */
+  private static final long LOCK_CYCLE_CHECK_INTERVAL = 50;
+
+
+  /** Logger available to subclasses */
+  protected final Log logger = LogFactory.getLog(getClass());
+
+  /** Cache of singleton objects: bean name --> bean instance */
+  private final Map<String, Object> singletonObjects = new ConcurrentHashMap<String, Object>(256);
+
+  /** Cache of singleton factories: bean name --> ObjectFactory */
+  private final Map<String, ObjectFactory<?>> singletonFactories = new HashMap<String, ObjectFactory<?>>(16);
+
+  /** Cache of early singleton objects: bean name --> bean instance */
+  private final Map<String, Object> earlySingletonObjects = new HashMap<String, Object>(16);
+
+  /** Set of registered singletons, containing the bean names in registration order */
+  private final Set<String> registeredSingletons = new LinkedHashSet<String>(256);
+
+  /** Creation locks, keyed by bean name */
+  private final ConcurrentMap<String, SingletonCreationLock> singletonLocks =
+          new ConcurrentHashMap<String, SingletonCreationLock>(256);
+
+  /** Bean names that threads are currently waiting to lock: thread --> bean name */
+  private final Map<Thread, String> singletonLockWaiters = new ConcurrentHashMap<Thread, String>(16);
+
+  /** Number of creation lock holds of the current thread, reentrant holds included */
+  private final ThreadLocal<int[]> singletonLockHoldCount =
+          new NamedThreadLocal<int[]>("Singleton creation lock holds") {
+            @Override
+            protected int[] initialValue() {
+              return new int[1];
+            }
+          };
+
+  /** Names of beans that are currently in creation */
+  private final Set<String> singletonsCurrentlyInCreation =
+          Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>(16));
+
+  /** Threads creating the singletons that are currently in creation: bean name --> thread */
+  private final Map<String, Thread> singletonCreationThreads = new ConcurrentHashMap<String, Thread>(16);
+
+  /** Names of beans currently excluded from in creation checks */
+  private final Set<String> inCreationCheckExclusions =
+          Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>(16));
+
+  /** List of suppressed Exceptions, available for associating related causes */
+  private final ThreadLocal<Set<Exception>> suppressedExceptions =
+          new NamedThreadLocal<Set<Exception>>("Suppressed singleton creation exceptions");
+
+  /** Flag that indicates whether we're currently within destroySingletons */
+  private boolean singletonsCurrentlyInDestruction = false;
+
+  /** Disposable bean instances: bean name --> disposable instance */
+  private final Map<String, Object> disposableBeans = new LinkedHashMap<String, Object>();
+
+  /** Map between containing bean names: bean name --> Set of bean names that the bean contains */
+  private final Map<String, Set<String>> containedBeanMap = new ConcurrentHashMap<String, Set<String>>(16);
+
+  /** Map between dependent bean names: bean name --> Set of dependent bean names */
+  private final Map<String, Set<String>> dependentBeanMap = new ConcurrentHashMap<String, Set<String>>(64);
+
+  /** Map between depending bean names: bean name --> Set of bean names for the bean's dependencies */
+  private final Map<String, Set<String>> dependenciesForBeanMap = new ConcurrentHashMap<String, Set<String>>(64);
+
+  /** Executor to destroy independent singletons on concurrently, if any */
+  private Executor destructionExecutor;
+
+  /** Maximum time to wait for the destruction of a single bean, in milliseconds; 0 for no limit */
+  private long destructionTimeout = 0;
+
+
+  @Override
+  public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
+    Assert.notNull(beanName, "'beanName' must not be null");
+    Lock lock = acquireSingletonLock(beanName);
+    try {
+      Object oldObject = this.singletonObjects.get(beanName);
+      if (oldObject != null) {
+        throw new IllegalStateException("Could not register object [" + singletonObject +
+                "] under bean name '" + beanName + "': there is already object [" + oldObject + "] bound");
+      }
+      addSingleton(beanName, singletonObject);
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Add the given singleton object to the singleton cache of this instantiation.
+   * <p>To be called for eager registration of singletons.
+   * @param beanName the name of the bean
+   * @param singletonObject the singleton object
+   */
+  protected void addSingleton(String beanName, Object singletonObject) {
+    synchronized (this.singletonObjects) {
+      this.singletonObjects.put(beanName, (singletonObject != null ? singletonObject : NULL_OBJECT));
+      this.singletonFactories.remove(beanName);
+      this.earlySingletonObjects.remove(beanName);
+      this.registeredSingletons.add(beanName);
+    }
+  }
+
+  /**
+   * Add the given singleton instantiation for building the specified singleton
+   * if necessary.
+   * <p>To be called for eager registration of singletons, e.g. to be able to
+   * resolve circular references.
+   * @param beanName the name of the bean
+   * @param singletonFactory the instantiation for the singleton object
+   */
+  protected void addSingletonFactory(String beanName, ObjectFactory<?> singletonFactory) {
+    Assert.notNull(singletonFactory, "Singleton instantiation must not be null");
+    synchronized (this.singletonObjects) {
+      if (!this.singletonObjects.containsKey(beanName)) {
+        this.singletonFactories.put(beanName, singletonFactory);
+        this.earlySingletonObjects.remove(beanName);
+        this.registeredSingletons.add(beanName);
+      }
+    }
+  }
+
+  @Override
+  public Object getSingleton(String beanName) {
+    return getSingleton(beanName, true);
+  }
+
+  /**
+   * Return the (raw) singleton object registered under the given name.
+   * <p>Checks already instantiated singletons and also allows for an early
+   * reference to a currently created singleton (resolving a circular reference).
+   * Early references are only exposed to the thread creating the singleton:
+   * any other thread gets {@code null} and has to go through
+   * {@link #getSingleton(String, ObjectFactory)}, waiting for the creation to finish.
+   * @param beanName the name of the bean to look for
+   * @param allowEarlyReference whether early references should be created or not
+   * @return the registered singleton object, or {@code null} if none found
+   */
+  protected Object getSingleton(String beanName, boolean allowEarlyReference) {
+    Object singletonObject = this.singletonObjects.get(beanName);
+    if (singletonObject == null && isSingletonCurrentlyInCreation(beanName) &&
+            this.singletonCreationThreads.get(beanName) == Thread.currentThread()) {
+      synchronized (this.singletonObjects) {
+        singletonObject = this.earlySingletonObjects.get(beanName);
+        if (singletonObject == null && allowEarlyReference) {
+          ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
+          if (singletonFactory != null) {
+            singletonObject = singletonFactory.getObject();
+            this.earlySingletonObjects.put(beanName, singletonObject);
+            this.singletonFactories.remove(beanName);
+          }
+        }
+      }
+    }
+    return (singletonObject != NULL_OBJECT ? singletonObject : null);
+  }
+
+  /**
+   * Return the (raw) singleton object registered under the given name,
+   * creating and registering a new one if none registered yet.
+   * <p>Only the creation lock of the given bean is held while the singleton
+   * is being created, so singletons with different names get created concurrently.
+   * If this thread had to back off from a lock cycle with another creating thread,
+   * the outermost creation on this thread is retried once the other thread is done.
+   * @param beanName the name of the bean
+   * @param singletonFactory the ObjectFactory to lazily create the singleton
+   * with, if necessary
+   * @return the registered singleton object
+   */
+  public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
+    Assert.notNull(beanName, "'beanName' must not be null");
+    while (true) {
+      boolean outermost = !isHoldingSingletonLock();
+      try {
+        return doGetSingleton(beanName, singletonFactory);
+      }
+      catch (BeansException ex) {
+        if (!outermost || !awaitSingletonLockCycleResolution(ex)) {
+          throw ex;
+        }
+      }
+    }
+  }
+
+  private Object doGetSingleton(String beanName, ObjectFactory<?> singletonFactory) {
+    Object singletonObject = this.singletonObjects.get(beanName);
+    if (singletonObject == null) {
+      Lock lock = acquireSingletonLock(beanName);
+      try {
+        singletonObject = this.singletonObjects.get(beanName);
+        if (singletonObject == null) {
+          if (this.singletonsCurrentlyInDestruction) {
+            throw new BeanCreationNotAllowedException(beanName,
+                    "Singleton bean creation not allowed while singletons of this instantiation are in destruction " +
+                            "(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+          }
+          if (logger.isDebugEnabled()) {
+            logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+          }
+          beforeSingletonCreation(beanName);
+          boolean newSingleton = false;
+          boolean recordSuppressedExceptions = (this.suppressedExceptions.get() == null);
+          if (recordSuppressedExceptions) {
+            this.suppressedExceptions.set(new LinkedHashSet<Exception>());
+          }
+          try {
+            singletonObject = singletonFactory.getObject();
+            newSingleton = true;
+          }
+          catch (IllegalStateException ex) {
+            // Has the singleton object implicitly appeared in the meantime ->
+            // if yes, proceed with it since the exception indicates that state.
+            singletonObject = this.singletonObjects.get(beanName);
+            if (singletonObject == null) {
+              throw ex;
+            }
+          }
+          catch (BeanCreationException ex) {
+            if (recordSuppressedExceptions) {
+              for (Exception suppressedException : this.suppressedExceptions.get()) {
+                ex.addRelatedCause(suppressedException);
+              }
+            }
+            throw ex;
+          }
+          finally {
+            if (recordSuppressedExceptions) {
+              this.suppressedExceptions.remove();
+            }
+            afterSingletonCreation(beanName);
+          }
+          if (newSingleton) {
+            addSingleton(beanName, singletonObject);
+          }
+        }
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+    return (singletonObject != NULL_OBJECT ? singletonObject : null);
+  }
+
+  /**
+   * Acquire the creation lock for the given singleton, waiting for any other
+   * thread currently creating it.
+   * <p>While waiting, the lock owner is checked for (transitively) waiting on a
+   * lock held by the current thread: such a cycle can never resolve itself, so
+   * exactly one of the threads in the cycle backs off by throwing an exception
+   * that unwinds its creation, to be retried by its outermost creation through
+   * {@link #awaitSingletonLockCycleResolution}.
+   * @param beanName the name of the bean
+   * @return the acquired lock, to be unlocked by the caller
+   * @throws BeanCurrentlyInCreationException if the current thread backs off
+   * from a lock cycle between creating threads
+   * @see #tryAcquireSingletonLock(String)
+   */
+  protected Lock acquireSingletonLock(String beanName) {
+    SingletonCreationLock lock = getSingletonLock(beanName);
+    if (lock.tryLock()) {
+      return lock;
+    }
+    Thread currentThread = Thread.currentThread();
+    this.singletonLockWaiters.put(currentThread, beanName);
+    try {
+      while (!lock.tryLock(LOCK_CYCLE_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+        Set<Thread> cycle = getSingletonLockCycle(beanName, currentThread);
+        if (cycle != null && isSingletonLockCycleVictim(currentThread, cycle)) {
+          throw new SingletonLockCycleException(beanName);
+        }
+      }
+      return lock;
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new BeanCreationException(beanName, "Interrupted while waiting for singleton creation", ex);
+    }
+    finally {
+      this.singletonLockWaiters.remove(currentThread);
+    }
+  }
+
+  /**
+   * Acquire the creation lock for the given singleton if it is not held by
+   * another thread, without waiting.
+   * @param beanName the name of the bean
+   * @return the acquired lock, to be unlocked by the caller, or {@code null}
+   * if the singleton is currently being created by another thread
+   * @see #acquireSingletonLock(String)
+   */
+  protected Lock tryAcquireSingletonLock(String beanName) {
+    SingletonCreationLock lock = getSingletonLock(beanName);
+    return (lock.tryLock() ? lock : null);
+  }
+
+  private SingletonCreationLock getSingletonLock(String beanName) {
+    SingletonCreationLock lock = this.singletonLocks.get(beanName);
+    if (lock == null) {
+      SingletonCreationLock newLock = new SingletonCreationLock(beanName);
+      lock = this.singletonLocks.putIfAbsent(beanName, newLock);
+      if (lock == null) {
+        lock = newLock;
+      }
+    }
+    return lock;
+  }
+
+  /**
+   * Return whether the current thread holds any singleton creation lock.
+   */
+  protected boolean isHoldingSingletonLock() {
+    return (this.singletonLockHoldCount.get()[0] > 0);
+  }
+
+  /**
+   * Check whether the given exception stems from the current thread backing off
+   * from a lock cycle and, if so, wait for the other thread to release the lock
+   * that this thread was waiting for, so that the creation can be retried.
+   * <p>To be called by the outermost singleton creation on the current thread
+   * only, i.e. with no singleton creation locks held anymore.
+   * @param ex the exception thrown by the creation
+   * @return {@code true} if the creation should be retried, {@code false}
+   * if the exception should be propagated as-is
+   */
+  protected boolean awaitSingletonLockCycleResolution(BeansException ex) {
+    SingletonLockCycleException cycleEx = null;
+    for (Throwable cause = ex; cause != null && cycleEx == null; cause = cause.getCause()) {
+      if (cause instanceof SingletonLockCycleException) {
+        cycleEx = (SingletonLockCycleException) cause;
+      }
+      if (cause.getCause() == cause) {
+        break;
+      }
+    }
+    if (cycleEx == null || isHoldingSingletonLock()) {
+      return false;
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug("Backed off from singleton lock cycle on bean '" + cycleEx.getBeanName() +
+              "': waiting for the other creating thread, then retrying");
+    }
+    // No locks held by this thread anymore: this wait cannot be part of a cycle.
+    acquireSingletonLock(cycleEx.getBeanName()).unlock();
+    return true;
+  }
+
+  /**
+   * Determine whether waiting for the lock of the given bean would close a cycle:
+   * its owner waits for a lock whose owner waits ... for a lock held by the
+   * given thread.
+   * @return the threads in the cycle, or {@code null} if there is no cycle
+   */
+  private Set<Thread> getSingletonLockCycle(String beanName, Thread waitingThread) {
+    Set<Thread> visited = new LinkedHashSet<Thread>();
+    String lockedBeanName = beanName;
+    while (lockedBeanName != null) {
+      SingletonCreationLock lock = this.singletonLocks.get(lockedBeanName);
+      Thread owner = (lock != null ? lock.getOwningThread() : null);
+      if (owner == null || !visited.add(owner)) {
+        return null;
+      }
+      if (owner == waitingThread) {
+        return visited;
+      }
+      lockedBeanName = this.singletonLockWaiters.get(owner);
+    }
+    return null;
+  }
+
+  /**
+   * All threads in a cycle are blocked and see the same cycle, so picking the
+   * thread with the highest id lets exactly one of them back off.
+   */
+  private boolean isSingletonLockCycleVictim(Thread waitingThread, Set<Thread> cycle) {
+    for (Thread thread : cycle) {
+      if (thread.getId() > waitingThread.getId()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Register an Exception that happened to get suppressed during the creation of a
+   * singleton bean instance, e.g. a temporary circular reference resolution problem.
+   * @param ex the Exception to register
+   */
+  protected void onSuppressedException(Exception ex) {
+    Set<Exception> exceptions = this.suppressedExceptions.get();
+    if (exceptions != null) {
+      exceptions.add(ex);
+    }
+  }
+
+  /**
+   * Remove the bean with the given name from the singleton cache of this instantiation,
+   * to be able to clean up eager registration of a singleton if creation failed.
+   * @param beanName the name of the bean
+   * @see #getSingletonMutex()
+   */
+  protected void removeSingleton(String beanName) {
+    synchronized (this.singletonObjects) {
+      this.singletonObjects.remove(beanName);
+      this.singletonFactories.remove(beanName);
+      this.earlySingletonObjects.remove(beanName);
+      this.registeredSingletons.remove(beanName);
+    }
+  }
+
+  @Override
+  public boolean containsSingleton(String beanName) {
+    return this.singletonObjects.containsKey(beanName);
+  }
+
+  @Override
+  public String[] getSingletonNames() {
+    synchronized (this.singletonObjects) {
+      return StringUtils.toStringArray(this.registeredSingletons);
+    }
+  }
+
+  @Override
+  public int getSingletonCount() {
+    synchronized (this.singletonObjects) {
+      return this.registeredSingletons.size();
+    }
+  }
+
+
+  public void setCurrentlyInCreation(String beanName, boolean inCreation) {
+    Assert.notNull(beanName, "Bean name must not be null");
+    if (!inCreation) {
+      this.inCreationCheckExclusions.add(beanName);
+    }
+    else {
+      this.inCreationCheckExclusions.remove(beanName);
+    }
+  }
+
+  public boolean isCurrentlyInCreation(String beanName) {
+    Assert.notNull(beanName, "Bean name must not be null");
+    return (!this.inCreationCheckExclusions.contains(beanName) && isActuallyInCreation(beanName));
+  }
+
+  protected boolean isActuallyInCreation(String beanName) {
+    return isSingletonCurrentlyInCreation(beanName);
+  }
+
+  /**
+   * Return whether the specified singleton bean is currently in creation
+   * (within the entire instantiation), on any thread.
+   * @param beanName the name of the bean
+   */
+  public boolean isSingletonCurrentlyInCreation(String beanName) {
+    return this.singletonsCurrentlyInCreation.contains(beanName);
+  }
+
+  /**
+   * Callback before singleton creation.
+   * <p>The default implementation register the singleton as currently in creation,
+   * on the current thread.
+   * @param beanName the name of the singleton about to be created
+   * @see #isSingletonCurrentlyInCreation
+   */
+  protected void beforeSingletonCreation(String beanName) {
+    if (!this.inCreationCheckExclusions.contains(beanName) && !this.singletonsCurrentlyInCreation.add(beanName)) {
+      throw new BeanCurrentlyInCreationException(beanName);
+    }
+    this.singletonCreationThreads.put(beanName, Thread.currentThread());
+  }
+
+  /**
+   * Callback after singleton creation.
+   * <p>The default implementation marks the singleton as not in creation anymore.
+   * @param beanName the name of the singleton that has been created
+   * @see #isSingletonCurrentlyInCreation
+   */
+  protected void afterSingletonCreation(String beanName) {
+    this.singletonCreationThreads.remove(beanName);
+    if (!this.inCreationCheckExclusions.contains(beanName) && !this.singletonsCurrentlyInCreation.remove(beanName)) {
+      throw new IllegalStateException("Singleton '" + beanName + "' isn't currently in creation");
+    }
+  }
+
+
+  /**
+   * Add the given bean to the list of disposable beans in this registry.
+   * <p>Disposable beans usually correspond to registered singletons,
+   * matching the bean name but potentially being a different instance
+   * (for example, a DisposableBean adapter for a singleton that does not
+   * naturally implement Spring's DisposableBean interface).
+   * @param beanName the name of the bean
+   * @param bean the bean instance
+   */
+  public void registerDisposableBean(String beanName, DisposableBean bean) {
+    synchronized (this.disposableBeans) {
+      this.disposableBeans.put(beanName, bean);
+    }
+  }
+
+  /**
+   * Register a containment relationship between two beans,
+   * e.g. between an inner bean and its containing outer bean.
+   * <p>Also registers the containing bean as dependent on the contained bean
+   * in terms of destruction order.
+   * @param containedBeanName the name of the contained (inner) bean
+   * @param containingBeanName the name of the containing (outer) bean
+   * @see #registerDependentBean
+   */
+  public void registerContainedBean(String containedBeanName, String containingBeanName) {
+    // A quick check for an existing entry upfront, avoiding synchronization...
+    Set<String> containedBeans = this.containedBeanMap.get(containingBeanName);
+    if (containedBeans != null && containedBeans.contains(containedBeanName)) {
+      return;
+    }
+
+    // No entry yet -> fully synchronized manipulation of the containedBeans Set
+    synchronized (this.containedBeanMap) {
+      containedBeans = this.containedBeanMap.get(containingBeanName);
+      if (containedBeans == null) {
+        containedBeans = new LinkedHashSet<String>(8);
+        this.containedBeanMap.put(containingBeanName, containedBeans);
+      }
+      containedBeans.add(containedBeanName);
+    }
+    registerDependentBean(containedBeanName, containingBeanName);
+  }
+
+  /**
+   * Register a dependent bean for the given bean,
+   * to be destroyed before the given bean is destroyed.
+   * @param beanName the name of the bean
+   * @param dependentBeanName the name of the dependent bean
+   */
+  public void registerDependentBean(String beanName, String dependentBeanName) {
+    String canonicalName = canonicalName(beanName);
+
+    synchronized (this.dependentBeanMap) {
+      Set<String> dependentBeans = this.dependentBeanMap.get(canonicalName);
+      if (dependentBeans == null) {
+        dependentBeans = new LinkedHashSet<String>(8);
+        this.dependentBeanMap.put(canonicalName, dependentBeans);
+      }
+      if (!dependentBeans.add(dependentBeanName)) {
+        return;
+      }
+    }
+
+    synchronized (this.dependenciesForBeanMap) {
+      Set<String> dependenciesForBean = this.dependenciesForBeanMap.get(dependentBeanName);
+      if (dependenciesForBean == null) {
+        dependenciesForBean = new LinkedHashSet<String>(8);
+        this.dependenciesForBeanMap.put(dependentBeanName, dependenciesForBean);
+      }
+      dependenciesForBean.add(canonicalName);
+    }
+  }
+
+  /**
+   * Determine whether the specified dependent bean has been registered as
+   * dependent on the given bean or on any of its transitive dependencies.
+   * @param beanName the name of the bean to check
+   * @param dependentBeanName the name of the dependent bean
+   * @since 4.0
+   */
+  protected boolean isDependent(String beanName, String dependentBeanName) {
+    synchronized (this.dependentBeanMap) {
+      return isDependent(beanName, dependentBeanName, null);
+    }
+  }
+
+  private boolean isDependent(String beanName, String dependentBeanName, Set<String> alreadySeen) {
+    if (alreadySeen != null && alreadySeen.contains(beanName)) {
+      return false;
+    }
+    String canonicalName = canonicalName(beanName);
+    Set<String> dependentBeans = this.dependentBeanMap.get(canonicalName);
+    if (dependentBeans == null) {
+      return false;
+    }
+    if (dependentBeans.contains(dependentBeanName)) {
+      return true;
+    }
+    for (String transitiveDependency : dependentBeans) {
+      if (alreadySeen == null) {
+        alreadySeen = new HashSet<String>();
+      }
+      alreadySeen.add(beanName);
+      if (isDependent(transitiveDependency, dependentBeanName, alreadySeen)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Determine whether a dependent bean has been registered for the given name.
+   * @param beanName the name of the bean to check
+   */
+  protected boolean hasDependentBean(String beanName) {
+    return this.dependentBeanMap.containsKey(beanName);
+  }
+
+  /**
+   * Return the names of all beans which depend on the specified bean, if any.
+   * @param beanName the name of the bean
+   * @return the array of dependent bean names, or an empty array if none
+   */
+  public String[] getDependentBeans(String beanName) {
+    synchronized (this.dependentBeanMap) {
+      Set<String> dependentBeans = this.dependentBeanMap.get(beanName);
+      if (dependentBeans == null) {
+        return new String[0];
+      }
+      return StringUtils.toStringArray(dependentBeans);
+    }
+  }
+
+  /**
+   * Return the names of all beans that the specified bean depends on, if any.
+   * @param beanName the name of the bean
+   * @return the array of names of beans which the bean depends on,
+   * or an empty array if none
+   */
+  public String[] getDependenciesForBean(String beanName) {
+    synchronized (this.dependenciesForBeanMap) {
+      Set<String> dependenciesForBean = this.dependenciesForBeanMap.get(beanName);
+      if (dependenciesForBean == null) {
+        return new String[0];
+      }
+      return StringUtils.toStringArray(dependenciesForBean);
+    }
+  }
+
+  /**
+   * Set an executor to destroy singletons on concurrently in {@link #destroySingletons()},
+   * as far as the registered dependencies between them allow.
+   * <p>Default is none, destroying all singletons one after the other on the calling thread.
+   */
+  public void setDestructionExecutor(Executor destructionExecutor) {
+    this.destructionExecutor = destructionExecutor;
+  }
+
+  public Executor getDestructionExecutor() {
+    return this.destructionExecutor;
+  }
+
+  /**
+   * Set the maximum time to wait for the destruction of a single bean when destroying
+   * singletons concurrently, in milliseconds. Once exceeded, the destruction gets
+   * interrupted and the bean abandoned with a warning: shutdown no longer waits for
+   * it, and the beans it depends on are left undestroyed since its destruction
+   * callback may still be using them. All other beans get destroyed as usual, so
+   * shutdown takes at most this timeout per bean along the longest dependency chain.
+   * <p>Default is 0, waiting as long as it takes.
+   * @see #setDestructionExecutor
+   */
+  public void setDestructionTimeout(long destructionTimeout) {
+    Assert.isTrue(destructionTimeout >= 0, "'destructionTimeout' must not be negative");
+    this.destructionTimeout = destructionTimeout;
+  }
+
+  public long getDestructionTimeout() {
+    return this.destructionTimeout;
+  }
+
+  public void destroySingletons() {
+    if (logger.isDebugEnabled()) {
+      logger.debug("Destroying singletons in " + this);
+    }
+    synchronized (this.singletonObjects) {
+      this.singletonsCurrentlyInDestruction = true;
+    }
+
+    String[] disposableBeanNames;
+    synchronized (this.disposableBeans) {
+      disposableBeanNames = StringUtils.toStringArray(this.disposableBeans.keySet());
+    }
+    Set<String> destroyed = Collections.emptySet();
+    if (this.destructionExecutor != null) {
+      destroyed = destroySingletonsConcurrently(disposableBeanNames);
+    }
+    // Serially: all beans without an executor, otherwise those left over by dependency cycles.
+    for (int i = disposableBeanNames.length - 1; i >= 0; i--) {
+      if (!destroyed.contains(disposableBeanNames[i])) {
+        destroySingleton(disposableBeanNames[i]);
+      }
+    }
+
+    this.containedBeanMap.clear();
+    synchronized (this.dependentBeanMap) {
+      this.dependentBeanMap.clear();
+    }
+    synchronized (this.dependenciesForBeanMap) {
+      this.dependenciesForBeanMap.clear();
+    }
+
+    clearSingletonCache();
+  }
+
+  /**
+   * Destroy singletons on the destruction executor, each as soon as all beans that
+   * depend on it or contain it have been destroyed. Beans that become eligible at
+   * the same time are submitted in reverse registration order.
+   * <p>Beans in dependency cycles never become eligible; they are left to the
+   * serial destruction in {@link #destroySingletons()}.
+   * <p>A bean whose destruction exceeds the {@link #setDestructionTimeout destruction
+   * timeout} gets abandoned: it is no longer waited for, and neither it nor any bean
+   * it (transitively) depends on is left to the serial destruction.
+   * @param disposableBeanNames the names of the disposable beans, in registration order
+   * @return the names of the beans not to destroy serially: those whose destruction
+   * has been started, and those still in use by an abandoned or running destruction
+   */
+  private Set<String> destroySingletonsConcurrently(String[] disposableBeanNames) {
+    // Destruction order as a graph: bean name --> beans that may only be destroyed after it.
+    Map<String, Set<String>> destroyBefore = new HashMap<String, Set<String>>();
+    Map<String, Integer> pendingCounts = new LinkedHashMap<String, Integer>();
+    for (int i = disposableBeanNames.length - 1; i >= 0; i--) {
+      pendingCounts.put(disposableBeanNames[i], 0);
+    }
+    synchronized (this.dependentBeanMap) {
+      for (Map.Entry<String, Set<String>> entry : this.dependentBeanMap.entrySet()) {
+        for (String dependentBeanName : entry.getValue()) {
+          addDestructionOrder(dependentBeanName, entry.getKey(), destroyBefore, pendingCounts);
+        }
+      }
+    }
+    synchronized (this.containedBeanMap) {
+      for (Map.Entry<String, Set<String>> entry : this.containedBeanMap.entrySet()) {
+        for (String containedBeanName : entry.getValue()) {
+          addDestructionOrder(entry.getKey(), containedBeanName, destroyBefore, pendingCounts);
+        }
+      }
+    }
+
+    Deque<String> eligible = new ArrayDeque<String>();
+    for (Map.Entry<String, Integer> entry : pendingCounts.entrySet()) {
+      if (entry.getValue() == 0) {
+        eligible.add(entry.getKey());
+      }
+    }
+
+    CompletionService<String> completionService = new ExecutorCompletionService<String>(this.destructionExecutor);
+    // Threads currently running a destruction callback, for interrupting it on timeout.
+    final Map<String, Thread> destroyingThreads = new HashMap<String, Thread>();
+    Map<String, Future<String>> running = new HashMap<String, Future<String>>();
+    Map<String, Long> deadlines = new HashMap<String, Long>();
+    Set<String> started = new HashSet<String>();
+    Set<String> abandoned = new LinkedHashSet<String>();
+    try {
+      while (!eligible.isEmpty() || !running.isEmpty()) {
+        while (!eligible.isEmpty()) {
+          final String beanName = eligible.poll();
+          started.add(beanName);
+          try {
+            running.put(beanName, completionService.submit(new Callable<String>() {
+              @Override
+              public String call() {
+                synchronized (destroyingThreads) {
+                  destroyingThreads.put(beanName, Thread.currentThread());
+                }
+                try {
+                  destroySingletonOnly(beanName);
+                }
+                finally {
+                  synchronized (destroyingThreads) {
+                    destroyingThreads.remove(beanName);
+                  }
+                  // Don't leak an interrupt for a timeout into the executor's next task.
+                  Thread.interrupted();
+                }
+                return beanName;
+              }
+            }));
+            if (this.destructionTimeout > 0) {
+              deadlines.put(beanName, System.currentTimeMillis() + this.destructionTimeout);
+            }
+          }
+          catch (RejectedExecutionException ex) {
+            // Executor shut down or saturated: destroy on the calling thread.
+            destroySingletonOnly(beanName);
+            markDestroyed(beanName, destroyBefore, pendingCounts, eligible);
+          }
+        }
+        if (running.isEmpty()) {
+          break;
+        }
+
+        Future<String> done;
+        if (this.destructionTimeout <= 0) {
+          done = completionService.take();
+        }
+        else {
+          long wait = Collections.min(deadlines.values()) - System.currentTimeMillis();
+          done = (wait > 0 ? completionService.poll(wait, TimeUnit.MILLISECONDS) : completionService.poll());
+        }
+        if (done == null) {
+          long now = System.currentTimeMillis();
+          for (Iterator<Map.Entry<String, Long>> it = deadlines.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Long> deadline = it.next();
+            if (deadline.getValue() <= now) {
+              // Interrupt and stop waiting, but leave the beans it depends on alone:
+              // the destruction callback may still use them while it winds down.
+              String beanName = deadline.getKey();
+              it.remove();
+              running.remove(beanName);
+              abandoned.add(beanName);
+              synchronized (destroyingThreads) {
+                Thread destroyingThread = destroyingThreads.get(beanName);
+                if (destroyingThread != null) {
+                  destroyingThread.interrupt();
+                }
+              }
+              logger.warn("Destruction of bean with name '" + beanName + "' did not complete within " +
+                      this.destructionTimeout + " ms - interrupted and abandoned, not destroying " +
+                      "the beans it depends on");
+            }
+          }
+        }
+        else {
+          String beanName = done.get();
+          deadlines.remove(beanName);
+          if (running.remove(beanName) != null || abandoned.remove(beanName)) {
+            // An abandoned destruction that finished late releases its dependencies after all.
+            markDestroyed(beanName, destroyBefore, pendingCounts, eligible);
+          }
+        }
+      }
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      logger.warn("Interrupted while destroying singletons concurrently - destroying the remaining ones serially, " +
+              "except for those still in use by running destructions");
+    }
+    catch (ExecutionException ex) {
+      // Not expected: destruction errors get logged within the task.
+      logger.error("Failed to destroy singletons concurrently - destroying the remaining ones serially, " +
+              "except for those still in use by running destructions", ex.getCause());
+    }
+
+    Set<String> inUse = new LinkedHashSet<String>(abandoned);
+    inUse.addAll(running.keySet());
+    Set<String> leftInUse = getTransitiveSuccessors(inUse, destroyBefore);
+    leftInUse.removeAll(started);
+    if (!leftInUse.isEmpty()) {
+      logger.warn("Not destroying beans " + leftInUse + " since destructions depending on them are still running");
+    }
+    started.addAll(leftInUse);
+    return started;
+  }
+
+  private static Set<String> getTransitiveSuccessors(Set<String> beanNames, Map<String, Set<String>> destroyBefore) {
+    Set<String> result = new LinkedHashSet<String>();
+    Deque<String> toVisit = new ArrayDeque<String>(beanNames);
+    while (!toVisit.isEmpty()) {
+      Set<String> successors = destroyBefore.get(toVisit.poll());
+      if (successors != null) {
+        for (String successor : successors) {
+          if (result.add(successor)) {
+            toVisit.add(successor);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private static void addDestructionOrder(String first, String then,
+                                          Map<String, Set<String>> destroyBefore, Map<String, Integer> pendingCounts) {
+    if (first.equals(then)) {
+      return;
+    }
+    Set<String> successors = destroyBefore.get(first);
+    if (successors == null) {
+      successors = new LinkedHashSet<String>();
+      destroyBefore.put(first, successors);
+    }
+    if (!pendingCounts.containsKey(first)) {
+      pendingCounts.put(first, 0);
+    }
+    if (successors.add(then)) {
+      Integer pendingCount = pendingCounts.get(then);
+      pendingCounts.put(then, (pendingCount != null ? pendingCount + 1 : 1));
+    }
+  }
+
+  private static void markDestroyed(String beanName, Map<String, Set<String>> destroyBefore,
+                                    Map<String, Integer> pendingCounts, Deque<String> eligible) {
+    Set<String> successors = destroyBefore.get(beanName);
+    if (successors != null) {
+      for (String successor : successors) {
+        int pendingCount = pendingCounts.get(successor) - 1;
+        pendingCounts.put(successor, pendingCount);
+        if (pendingCount == 0) {
+          eligible.add(successor);
+        }
+      }
+    }
+  }
+
+  /**
+   * Remove the given singleton and invoke its destruction callback, without
+   * cascading to dependent or contained beans: for use once those are destroyed.
+   * @param beanName the name of the bean
+   */
+  private void destroySingletonOnly(String beanName) {
+    removeSingleton(beanName);
+    DisposableBean disposableBean;
+    synchronized (this.disposableBeans) {
+      disposableBean = (DisposableBean) this.disposableBeans.remove(beanName);
+    }
+    if (disposableBean != null) {
+      try {
+        disposableBean.destroy();
+      }
+      catch (Throwable ex) {
+        logger.error("Destroy method on bean with name '" + beanName + "' threw an exception", ex);
+      }
+    }
+  }
+
+  /**
+   * Clear all cached singleton instances in this registry.
+   * @since 4.3.15
+   */
+  protected void clearSingletonCache() {
+    synchronized (this.singletonObjects) {
+      this.singletonObjects.clear();
+      this.singletonFactories.clear();
+      this.earlySingletonObjects.clear();
+      this.registeredSingletons.clear();
+      this.singletonsCurrentlyInDestruction = false;
+    }
+    // Keep the locks that other threads hold or wait for: dropping them would let
+    // a new lock for the same bean name coexist with the one still in use.
+    for (Iterator<Map.Entry<String, SingletonCreationLock>> it = this.singletonLocks.entrySet().iterator(); it.hasNext();) {
+      SingletonCreationLock lock = it.next().getValue();
+      if (!lock.isLocked() && !lock.hasQueuedThreads() && !this.singletonLockWaiters.containsValue(lock.beanName)) {
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Destroy the given bean. Delegates to {@code destroyBean}
+   * if a corresponding disposable bean instance is found.
+   * @param beanName the name of the bean
+   * @see #destroyBean
+   */
+  public void destroySingleton(String beanName) {
+    // Remove a registered singleton of the given name, if any.
+    removeSingleton(beanName);
+
+    // Destroy the corresponding DisposableBean instance.
+    DisposableBean disposableBean;
+    synchronized (this.disposableBeans) {
+      disposableBean = (DisposableBean) this.disposableBeans.remove(beanName);
+    }
+    destroyBean(beanName, disposableBean);
+  }
+
+  /**
+   * Destroy the given bean. Must destroy beans that depend on the given
+   * bean before the bean itself. Should not throw any exceptions.
+   * @param beanName the name of the bean
+   * @param bean the bean instance to destroy
+   */
+  protected void destroyBean(String beanName, DisposableBean bean) {
+    // Trigger destruction of dependent beans first...
+    Set<String> dependencies;
+    synchronized (this.dependentBeanMap) {
+      dependencies = this.dependentBeanMap.remove(beanName);
+    }
+    if (dependencies != null) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Retrieved dependent beans for bean '" + beanName + "': " + dependencies);
+      }
+      for (String dependentBeanName : dependencies) {
+        destroySingleton(dependentBeanName);
+      }
+    }
+
+    // Actually destroy the bean now...
+    if (bean != null) {
+      try {
+        bean.destroy();
+      }
+      catch (Throwable ex) {
+        logger.error("Destroy method on bean with name '" + beanName + "' threw an exception", ex);
+      }
+    }
+
+    // Trigger destruction of contained beans...
+    Set<String> containedBeans = this.containedBeanMap.remove(beanName);
+    if (containedBeans != null) {
+      for (String containedBeanName : containedBeans) {
+        destroySingleton(containedBeanName);
+      }
+    }
+
+    // Remove destroyed bean from other beans' dependencies.
+    synchronized (this.dependentBeanMap) {
+      for (Iterator<Map.Entry<String, Set<String>>> it = this.dependentBeanMap.entrySet().iterator(); it.hasNext();) {
+        Map.Entry<String, Set<String>> entry = it.next();
+        Set<String> dependenciesToClean = entry.getValue();
+        dependenciesToClean.remove(beanName);
+        if (dependenciesToClean.isEmpty()) {
+          it.remove();
+        }
+      }
+    }
+
+    // Remove destroyed bean's prepared dependency information.
+    synchronized (this.dependenciesForBeanMap) {
+      this.dependenciesForBeanMap.remove(beanName);
+    }
+  }
+
+  /**
+   * Exposes the singleton mutex to subclasses and external collaborators.
+   * <p>Subclasses should synchronize on the given Object if they perform
+   * any sort of extended singleton creation phase. In particular, subclasses
+   * should <i>not</i> have their own mutexes involved in singleton creation,
+   * to avoid the potential for deadlocks in lazy-init situations.
+   * <p>Note that the mutex only guards updates of the singleton caches here,
+   * not the creation of singletons: see {@link #acquireSingletonLock(String)}
+   * for a per-bean lock held for the duration of a singleton's creation.
+   */
+  @Override
+  public final Object getSingletonMutex() {
+    return this.singletonObjects;
+  }
+
+
+  /**
+   * ReentrantLock exposing its owner, for lock cycle detection,
+   * and counting the holds of the current thread.
+   */
+  @SuppressWarnings("serial")
+  private class SingletonCreationLock extends ReentrantLock {
+
+    private final String beanName;
+
+    public SingletonCreationLock(String beanName) {
+      this.beanName = beanName;
+    }
+
+    public Thread getOwningThread() {
+      return getOwner();
+    }
+
+    @Override
+    public void lock() {
+      super.lock();
+      singletonLockHoldCount.get()[0]++;
+    }
+
+    @Override
+    public boolean tryLock() {
+      if (super.tryLock()) {
+        singletonLockHoldCount.get()[0]++;
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+      if (super.tryLock(timeout, unit)) {
+        singletonLockHoldCount.get()[0]++;
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public void unlock() {
+      super.unlock();
+      singletonLockHoldCount.get()[0]--;
+    }
+  }
+
+
+  /**
+   * Thrown by the thread backing off from a singleton lock cycle,
+   * to be caught by its outermost singleton creation.
+   */
+  @SuppressWarnings("serial")
+  private static class SingletonLockCycleException extends BeanCurrentlyInCreationException {
+
+    public SingletonLockCycleException(String beanName) {
+      super(beanName, "Requested bean is currently in creation on another thread which in turn waits " +
+              "for a bean that this thread is creating: backing off to let the other thread proceed");
+    }
+  }
+
+}
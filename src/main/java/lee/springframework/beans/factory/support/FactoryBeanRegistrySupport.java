@@ -0,0 +1,272 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: FactoryBeanRegistrySupport.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/18
+ */
+
+package lee.springframework.beans.factory.support;
+
+import lee.springframework.beans.BeansException;
+
+import java.security.AccessControlContext;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Support base class for singleton registries which need to handle
+ * {@link FactoryBean} instances,
+ * integrated with {@link DefaultSingletonBeanRegistry}'s singleton management.
+ * 处理FactoryBean的单例注册器基类
+ *
+ * <p>Serves as base class for {@link AbstractBeanFactory}.
+ *
+ * <p>The singleton object of a FactoryBean is obtained under the creation
+ * lock of the FactoryBean's own name rather than the registry-wide mutex,
+ * so FactoryBeans with different names produce their objects concurrently.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-18 14:10
+ * @lastdate: 2026-10-18
+ * @see DefaultSingletonBeanRegistry#acquireSingletonLock(String)
+ */
+public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanRegistry {
+
+  /** Cache of singleton objects created by FactoryBeans: FactoryBean name --> object */
+  private final Map<String, Object> factoryBeanObjectCache = new ConcurrentHashMap<String, Object>(16);
+
+
+  /**
+   * Determine the type for the given FactoryBean.
+   * @param factoryBean the FactoryBean instance to check
+   * @return the FactoryBean's object type,
+   * or {@code null} if the type cannot be determined yet
+   */
+  protected Class<?> getTypeForFactoryBean(final FactoryBean<?> factoryBean) {
+    try {
+      if (System.getSecurityManager() != null) {
+        return AccessController.doPrivileged(new PrivilegedAction<Class<?>>() {
+          @Override
+          public Class<?> run() {
+            return factoryBean.getObjectType();
+          }
+        }, getAccessControlContext());
+      }
+      else {
+        return factoryBean.getObjectType();
+      }
+    }
+    catch (Throwable ex) {
+      // Thrown from the FactoryBean's getObjectType implementation.
+      logger.warn("FactoryBean threw exception from getObjectType, despite the contract saying " +
+              "that it should return null if the type of its object cannot be determined yet", ex);
+      return null;
+    }
+  }
+
+  /**
+   * Obtain an object to expose from the given FactoryBean, if available
+   * in cached form. Quick check for minimal synchronization.
+   * @param beanName the name of the bean
+   * @return the object obtained from the FactoryBean,
+   * or {@code null} if not available
+   */
+  protected Object getCachedObjectForFactoryBean(String beanName) {
+    Object object = this.factoryBeanObjectCache.get(beanName);
+    return (object != NULL_OBJECT ? object : null);
+  }
+
+  /**
+   * Obtain an object to expose from the given FactoryBean.
+   * <p>A singleton object is obtained under the creation lock of the given
+   * bean name, and cached; backing off from a lock cycle with another creating
+   * thread gets retried just like in {@link #getSingleton(String, ObjectFactory)}.
+   * @param factory the FactoryBean instance
+   * @param beanName the name of the bean
+   * @param shouldPostProcess whether the bean is subject to post-processing
+   * @return the object obtained from the FactoryBean
+   * @throws BeanCreationException if FactoryBean object creation failed
+   * @see FactoryBean#getObject()
+   */
+  protected Object getObjectFromFactoryBean(FactoryBean<?> factory, String beanName, boolean shouldPostProcess) {
+    if (factory.isSingleton() && containsSingleton(beanName)) {
+      Object object = this.factoryBeanObjectCache.get(beanName);
+      while (object == null) {
+        boolean outermost = !isHoldingSingletonLock();
+        try {
+          object = getSingletonObjectFromFactoryBean(factory, beanName, shouldPostProcess);
+          if (object == null) {
+            object = NULL_OBJECT;
+          }
+        }
+        catch (BeansException ex) {
+          if (!outermost || !awaitSingletonLockCycleResolution(ex)) {
+            throw ex;
+          }
+        }
+      }
+      return (object != NULL_OBJECT ? object : null);
+    }
+    else {
+      Object object = doGetObjectFromFactoryBean(factory, beanName);
+      if (object != null && shouldPostProcess) {
+        try {
+          object = postProcessObjectFromFactoryBean(object, beanName);
+        }
+        catch (Throwable ex) {
+          throw new BeanCreationException(beanName, "Post-processing of FactoryBean's object failed", ex);
+        }
+      }
+      return object;
+    }
+  }
+
+  /**
+   * Obtain the singleton object to expose from the given FactoryBean
+   * under the creation lock of the given bean name, caching it.
+   */
+  private Object getSingletonObjectFromFactoryBean(FactoryBean<?> factory, String beanName, boolean shouldPostProcess) {
+    Lock lock = acquireSingletonLock(beanName);
+    try {
+      Object object = this.factoryBeanObjectCache.get(beanName);
+      if (object == null) {
+        object = doGetObjectFromFactoryBean(factory, beanName);
+        if (object != null && shouldPostProcess) {
+          if (isSingletonCurrentlyInCreation(beanName)) {
+            // Temporarily return non-post-processed object, not storing it yet..
+            return object;
+          }
+          beforeSingletonCreation(beanName);
+          try {
+            object = postProcessObjectFromFactoryBean(object, beanName);
+          }
+          catch (Throwable ex) {
+            throw new BeanCreationException(beanName,
+                    "Post-processing of FactoryBean's singleton object failed", ex);
+          }
+          finally {
+            afterSingletonCreation(beanName);
+          }
+        }
+        if (containsSingleton(beanName)) {
+          this.factoryBeanObjectCache.put(beanName, (object != null ? object : NULL_OBJECT));
+        }
+      }
+      return object;
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Obtain an object to expose from the given FactoryBean.
+   * @param factory the FactoryBean instance
+   * @param beanName the name of the bean
+   * @return the object obtained from the FactoryBean
+   * @throws BeanCreationException if FactoryBean object creation failed
+   * @see FactoryBean#getObject()
+   */
+  private Object doGetObjectFromFactoryBean(final FactoryBean<?> factory, final String beanName)
+          throws BeanCreationException {
+
+    Object object;
+    try {
+      if (System.getSecurityManager() != null) {
+        AccessControlContext acc = getAccessControlContext();
+        try {
+          object = AccessController.doPrivileged(new PrivilegedExceptionAction<Object>() {
+            @Override
+            public Object run() throws Exception {
+              return factory.getObject();
+            }
+          }, acc);
+        }
+        catch (PrivilegedActionException pae) {
+          throw pae.getException();
+        }
+      }
+      else {
+        object = factory.getObject();
+      }
+    }
+    catch (FactoryBeanNotInitializedException ex) {
+      throw new BeanCurrentlyInCreationException(beanName, ex.toString());
+    }
+    catch (Throwable ex) {
+      throw new BeanCreationException(beanName, "FactoryBean threw exception on object creation", ex);
+    }
+
+    // Do not accept a null value for a FactoryBean that's not fully
+    // initialized yet: Many FactoryBeans just return null then.
+    if (object == null && isSingletonCurrentlyInCreation(beanName)) {
+      throw new BeanCurrentlyInCreationException(
+              beanName, "FactoryBean which is currently in creation returned null from getObject");
+    }
+    return object;
+  }
+
+  /**
+   * Post-process the given object that has been obtained from the FactoryBean.
+   * The resulting object will get exposed for bean references.
+   * <p>The default implementation simply returns the given object as-is.
+   * Subclasses may override this, for example, to apply post-processors.
+   * @param object the object obtained from the FactoryBean.
+   * @param beanName the name of the bean
+   * @return the object to expose
+   * @throws BeansException if any post-processing failed
+   */
+  protected Object postProcessObjectFromFactoryBean(Object object, String beanName) throws BeansException {
+    return object;
+  }
+
+  /**
+   * Get a FactoryBean for the given bean if possible.
+   * @param beanName the name of the bean
+   * @param beanInstance the corresponding bean instance
+   * @return the bean instance as FactoryBean
+   * @throws BeansException if the given bean cannot be exposed as a FactoryBean
+   */
+  protected FactoryBean<?> getFactoryBean(String beanName, Object beanInstance) throws BeansException {
+    if (!(beanInstance instanceof FactoryBean)) {
+      throw new BeanCreationException(beanName,
+              "Bean instance of type [" + beanInstance.getClass() + "] is not a FactoryBean");
+    }
+    return (FactoryBean<?>) beanInstance;
+  }
+
+  /**
+   * Overridden to clear the FactoryBean object cache as well.
+   */
+  @Override
+  protected void removeSingleton(String beanName) {
+    super.removeSingleton(beanName);
+    this.factoryBeanObjectCache.remove(beanName);
+  }
+
+  /**
+   * Overridden to clear the FactoryBean object cache as well.
+   */
+  @Override
+  protected void clearSingletonCache() {
+    super.clearSingletonCache();
+    this.factoryBeanObjectCache.clear();
+  }
+
+  /**
+   * Return the security context for this bean factory. If a security manager
+   * is set, interaction with the user code will be executed using the privileged
+   * of the security context returned by this method.
+   * @see AccessController#getContext()
+   */
+  protected AccessControlContext getAccessControlContext() {
+    return AccessController.getContext();
+  }
+
+}
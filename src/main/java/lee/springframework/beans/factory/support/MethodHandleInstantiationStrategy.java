@@ -0,0 +1,263 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: MethodHandleInstantiationStrategy.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.beans.factory.support;
+
+import lee.springframework.beans.factory.BeanFactory;
+import lee.springframework.util.ClassUtils;
+import lee.springframework.util.ReflectionUtils;
+import lee.springframework.util.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Instantiation strategy that invokes bean constructors and factory methods
+ * through {@link MethodHandle MethodHandles} instead of reflection, so that
+ * the JIT can inline hot prototype and scoped bean creation.
+ *
+ * <p>For every constructor or factory method, an invoker is built once and
+ * cached: a {@link Supplier} spun up through {@link LambdaMetafactory} for
+ * public no-arg constructors of classes visible to this strategy, a spreading
+ * {@code MethodHandle} for everything else. If lookup access to a member is
+ * denied, that member keeps being invoked reflectively by the superclass.
+ *
+ * <p>Beans with method overrides are still instantiated through CGLIB, and
+ * factory methods on CGLIB-enhanced factory beans (configuration classes which
+ * rely on {@link #getCurrentlyInvokedFactoryMethod()}) as well as everything
+ * running under a SecurityManager are delegated to the superclass as-is.
+ *
+ * <p>Not the default: set it through
+ * {@link AbstractAutowireCapableBeanFactory#setInstantiationStrategy}.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 15:10
+ * @lastdate:
+ */
+public class MethodHandleInstantiationStrategy extends CglibSubclassingInstantiationStrategy {
+
+  private static final Log logger = LogFactory.getLog(MethodHandleInstantiationStrategy.class);
+
+  private static final Object[] NO_ARGS = new Object[0];
+
+  /** Marker for members that have to be invoked reflectively */
+  private static final Instantiator REFLECTIVE = new Instantiator() {
+    @Override
+    public Object invoke(Object target, Object[] args) {
+      throw new UnsupportedOperationException();
+    }
+  };
+
+  /** Cache of invokers: Constructor or factory Method -> Instantiator */
+  private final ConcurrentMap<Member, Instantiator> instantiatorCache =
+          new ConcurrentHashMap<Member, Instantiator>(256);
+
+
+  @Override
+  public Object instantiate(RootBeanDefinition bd, String beanName, BeanFactory owner) {
+    if (bd.hasMethodOverrides() || System.getSecurityManager() != null) {
+      return super.instantiate(bd, beanName, owner);
+    }
+    Constructor<?> constructorToUse;
+    synchronized (bd.constructorArgumentLock) {
+      constructorToUse = (Constructor<?>) bd.resolvedConstructorOrFactoryMethod;
+    }
+    if (constructorToUse == null) {
+      // Let the superclass resolve the default constructor and cache it in the bean definition.
+      return super.instantiate(bd, beanName, owner);
+    }
+    Instantiator instantiator = getInstantiator(constructorToUse);
+    if (instantiator == REFLECTIVE) {
+      return super.instantiate(bd, beanName, owner);
+    }
+    return invokeConstructor(instantiator, constructorToUse, NO_ARGS);
+  }
+
+  @Override
+  public Object instantiate(RootBeanDefinition bd, String beanName, BeanFactory owner,
+                            Constructor<?> ctor, Object... args) {
+
+    if (bd.hasMethodOverrides() || System.getSecurityManager() != null) {
+      return super.instantiate(bd, beanName, owner, ctor, args);
+    }
+    Instantiator instantiator = getInstantiator(ctor);
+    if (instantiator == REFLECTIVE) {
+      return super.instantiate(bd, beanName, owner, ctor, args);
+    }
+    return invokeConstructor(instantiator, ctor, (args != null ? args : NO_ARGS));
+  }
+
+  @Override
+  public Object instantiate(RootBeanDefinition bd, String beanName, BeanFactory owner,
+                            Object factoryBean, Method factoryMethod, Object... args) {
+
+    if (System.getSecurityManager() != null ||
+            (factoryBean != null && ClassUtils.isCglibProxy(factoryBean))) {
+      return super.instantiate(bd, beanName, owner, factoryBean, factoryMethod, args);
+    }
+    Instantiator instantiator = getInstantiator(factoryMethod);
+    if (instantiator == REFLECTIVE) {
+      return super.instantiate(bd, beanName, owner, factoryBean, factoryMethod, args);
+    }
+    try {
+      return instantiator.invoke(factoryBean, (args != null ? args : NO_ARGS));
+    }
+    catch (Throwable ex) {
+      throw new BeanInstantiationException(factoryMethod,
+              "Factory method '" + factoryMethod.getName() + "' threw exception", ex);
+    }
+  }
+
+  private Object invokeConstructor(Instantiator instantiator, Constructor<?> ctor, Object[] args) {
+    try {
+      return instantiator.invoke(null, args);
+    }
+    catch (Throwable ex) {
+      throw new BeanInstantiationException(ctor, "Constructor threw exception", ex);
+    }
+  }
+
+
+  /**
+   * Return the cached invoker for the given constructor or factory method,
+   * building it on first access.
+   * @return the invoker, or {@link #REFLECTIVE} if the member has to be
+   * invoked through reflection
+   */
+  private Instantiator getInstantiator(Member member) {
+    Instantiator instantiator = this.instantiatorCache.get(member);
+    if (instantiator == null) {
+      instantiator = createInstantiator(member);
+      Instantiator existing = this.instantiatorCache.putIfAbsent(member, instantiator);
+      if (existing != null) {
+        instantiator = existing;
+      }
+    }
+    return instantiator;
+  }
+
+  private Instantiator createInstantiator(Member member) {
+    try {
+      if (member instanceof Constructor) {
+        Constructor<?> ctor = (Constructor<?>) member;
+        if (ctor.getParameterTypes().length == 0 && isPubliclyAccessible(ctor) &&
+                ClassUtils.isVisible(ctor.getDeclaringClass(), getClass().getClassLoader())) {
+          return createSupplierInstantiator(ctor);
+        }
+        ReflectionUtils.makeAccessible(ctor);
+        return new HandleInstantiator(MethodHandles.lookup().unreflectConstructor(ctor),
+                ctor.getParameterTypes().length, true);
+      }
+      else {
+        Method method = (Method) member;
+        ReflectionUtils.makeAccessible(method);
+        return new HandleInstantiator(MethodHandles.lookup().unreflect(method),
+                method.getParameterTypes().length, Modifier.isStatic(method.getModifiers()));
+      }
+    }
+    catch (Throwable ex) {
+      // Lookup access denied or lambda linkage failed: stick to plain reflection.
+      if (logger.isDebugEnabled()) {
+        logger.debug("Falling back to reflective invocation of [" + member + "]: " + ex);
+      }
+      return REFLECTIVE;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Instantiator createSupplierInstantiator(Constructor<?> ctor) throws Throwable {
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    MethodHandle handle = lookup.unreflectConstructor(ctor);
+    CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+            MethodType.methodType(Supplier.class), MethodType.methodType(Object.class),
+            handle, MethodType.methodType(ctor.getDeclaringClass()));
+    return new SupplierInstantiator((Supplier<Object>) site.getTarget().invoke());
+  }
+
+  private static boolean isPubliclyAccessible(Constructor<?> ctor) {
+    return (Modifier.isPublic(ctor.getModifiers()) && Modifier.isPublic(ctor.getDeclaringClass().getModifiers()) &&
+            ctor.getDeclaringClass().getEnclosingClass() == null);
+  }
+
+
+  /**
+   * Cached invoker for a constructor or factory method.
+   */
+  private interface Instantiator {
+
+    /**
+     * Invoke the underlying constructor or factory method.
+     * @param target the factory bean for an instance factory method,
+     * ignored for constructors and static factory methods
+     * @param args the arguments to pass
+     */
+    Object invoke(Object target, Object[] args) throws Throwable;
+  }
+
+
+  /**
+   * Instantiator for a public no-arg constructor, through a generated Supplier.
+   */
+  private static final class SupplierInstantiator implements Instantiator {
+
+    private final Supplier<Object> supplier;
+
+    public SupplierInstantiator(Supplier<Object> supplier) {
+      this.supplier = supplier;
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] args) {
+      return this.supplier.get();
+    }
+  }
+
+
+  /**
+   * Instantiator for any constructor or method, through a MethodHandle of
+   * type {@code (Object, Object[])Object} that spreads the argument array.
+   */
+  private static final class HandleInstantiator implements Instantiator {
+
+    private final MethodHandle handle;
+
+    private final int parameterCount;
+
+    public HandleInstantiator(MethodHandle handle, int parameterCount, boolean withoutTarget) {
+      MethodHandle generic = handle.asFixedArity().asType(
+              MethodType.genericMethodType(parameterCount + (withoutTarget ? 0 : 1)));
+      if (withoutTarget) {
+        generic = MethodHandles.dropArguments(generic, 0, Object.class);
+      }
+      this.handle = generic.asSpreader(Object[].class, parameterCount);
+      this.parameterCount = parameterCount;
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] args) throws Throwable {
+      if (args.length != this.parameterCount) {
+        throw new IllegalArgumentException("Expected " + this.parameterCount + " arguments but got " +
+                args.length + ": " + StringUtils.arrayToCommaDelimitedString(args));
+      }
+      return (Object) this.handle.invokeExact(target, args);
+    }
+  }
+
+}
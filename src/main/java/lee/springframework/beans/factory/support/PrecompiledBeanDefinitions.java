@@ -0,0 +1,854 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: PrecompiledBeanDefinitions.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.beans.factory.support;
+
+import lee.springframework.beans.MutablePropertyValues;
+import lee.springframework.beans.PropertyValue;
+import lee.springframework.beans.factory.cofnig.BeanDefinition;
+import lee.springframework.beans.factory.cofnig.BeanDefinitionHolder;
+import lee.springframework.beans.factory.cofnig.ConstructorArgumentValues;
+import lee.springframework.beans.factory.cofnig.RuntimeBeanNameReference;
+import lee.springframework.beans.factory.cofnig.RuntimeBeanReference;
+import lee.springframework.beans.factory.cofnig.TypedStringValue;
+import lee.springframework.beans.factory.xml.StaxElementParser;
+import lee.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import lee.springframework.core.io.Resource;
+import lee.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import lee.springframework.core.io.support.ResourcePatternResolver;
+import lee.springframework.util.Assert;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary form of the bean definitions read from a set of configuration
+ * files, so that later starts can register them without parsing XML at all.
+ *
+ * <p>Each definition is written with its bean class name, parent, scope, flags,
+ * depends-on, lifecycle and factory methods, property values and constructor
+ * arguments. Values may be the ones produced by the XML reader: typed strings,
+ * bean references, collections, maps, properties and inner beans. Registries
+ * holding anything else (e.g. method overrides, qualifiers or definition
+ * attributes added by custom namespaces) are not compiled.
+ *
+ * <p>Neither are registries holding component-scanned definitions: the source
+ * checksums cover the configuration files only, so a component class added,
+ * removed or changed since would go unnoticed.
+ *
+ * <p>The file records the URL and CRC-32 checksum of every source file,
+ * imported ones included. It is only loaded if the given configuration
+ * resources are the recorded top-level ones, in the same order, and no source
+ * has changed since; otherwise the caller falls back to parsing the XML.
+ *
+ * <p>What the reader made of the XML also depends on its Environment and
+ * configuration, so the file records those as well: the namespace element
+ * parsers registered, every "profile" attribute evaluated along with whether
+ * it was accepted, and every import location with placeholders along with
+ * what it resolved to. The file is stale if the reader to load with has other
+ * parsers registered, or its Environment now decides any of these differently.
+ *
+ * <p>File layout: magic number and format version, the source table, a table
+ * of all distinct strings, then the definitions and aliases with strings
+ * referenced by table index. The file is read through a memory-mapped buffer.
+ *
+ * <p>Files can be compiled at build time through {@link #main}, or on the first
+ * start through {@link #write} once the XML has been read.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 22:10
+ * @lastdate: 2026-10-18
+ * @see lee.springframework.context.support.LAbstractXmlApplicationContext#setPrecompiledDefinitionsFile
+ */
+public abstract class PrecompiledBeanDefinitions {
+
+  private static final int MAGIC = 0x4C424443;
+
+  private static final int FORMAT_VERSION = 2;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final Log logger = LogFactory.getLog(PrecompiledBeanDefinitions.class);
+
+  // Value tags
+  private static final byte NULL = 0;
+  private static final byte STRING = 1;
+  private static final byte TYPED_STRING = 2;
+  private static final byte BEAN_REFERENCE = 3;
+  private static final byte BEAN_NAME_REFERENCE = 4;
+  private static final byte LIST = 5;
+  private static final byte SET = 6;
+  private static final byte ARRAY = 7;
+  private static final byte MAP = 8;
+  private static final byte PROPERTIES = 9;
+  private static final byte INNER_BEAN = 10;
+
+  // Definition flags
+  private static final int ABSTRACT = 1;
+  private static final int LAZY_INIT = 1 << 1;
+  private static final int PRIMARY = 1 << 2;
+  private static final int AUTOWIRE_CANDIDATE = 1 << 3;
+  private static final int ENFORCE_INIT_METHOD = 1 << 4;
+  private static final int ENFORCE_DESTROY_METHOD = 1 << 5;
+  private static final int SYNTHETIC = 1 << 6;
+  private static final int LENIENT_CONSTRUCTOR_RESOLUTION = 1 << 7;
+  private static final int NON_PUBLIC_ACCESS_ALLOWED = 1 << 8;
+
+
+  /**
+   * Compile the given configuration files: read them with an
+   * {@link XmlBeanDefinitionReader} and write the resulting definitions.
+   * <p>Arguments: the file to write, followed by the class path locations
+   * of the configuration files.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: PrecompiledBeanDefinitions <target file> <config location>...");
+      System.exit(1);
+    }
+    ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+    List<Resource> configResources = new ArrayList<Resource>();
+    for (int i = 1; i < args.length; i++) {
+      configResources.addAll(Arrays.asList(resolver.getResources(args[i])));
+    }
+
+    DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(beanFactory);
+    reader.loadBeanDefinitions(configResources.toArray(new Resource[configResources.size()]));
+    if (!write(reader, configResources, new File(args[0]))) {
+      System.err.println("Bean definitions in " + configResources + " cannot be precompiled");
+      System.exit(2);
+    }
+  }
+
+  /**
+   * Write the bean definitions and aliases of the given reader's registry to
+   * the given file, replacing it atomically.
+   * @param reader the reader that has read the definitions from the
+   * configuration resources into its registry
+   * @param configResources the configuration resources read, in order
+   * @param file the file to write
+   * @return {@code true} if the file has been written, {@code false} if the
+   * definitions cannot be represented in the binary format or have been found
+   * by component scanning, or a source has no URL
+   * @throws IOException if the file cannot be written
+   */
+  public static boolean write(XmlBeanDefinitionReader reader, Collection<Resource> configResources, File file)
+          throws IOException {
+
+    Assert.notNull(reader, "XmlBeanDefinitionReader must not be null");
+    Assert.notNull(file, "File must not be null");
+    BeanDefinitionRegistry registry = reader.getRegistry();
+    Collection<Resource> sources = reader.getLoadedResources();
+
+    List<String> sourceUrls = new ArrayList<String>(sources.size() + configResources.size());
+    List<Long> checksums = new ArrayList<Long>(sources.size() + configResources.size());
+    try {
+      for (Resource resource : configResources) {
+        sourceUrls.add(resource.getURL().toExternalForm());
+      }
+      for (Resource resource : sources) {
+        String url = resource.getURL().toExternalForm();
+        if (!sourceUrls.contains(url)) {
+          sourceUrls.add(url);
+        }
+      }
+      for (String url : sourceUrls) {
+        checksums.add(checksum(url));
+      }
+    }
+    catch (IOException ex) {
+      logger.info("Not precompiling bean definitions: source not available by URL - " + ex);
+      return false;
+    }
+
+    Encoder encoder = new Encoder();
+    String[] beanNames = registry.getBeanDefinitionNames();
+    try {
+      encoder.out.writeInt(beanNames.length);
+      for (String beanName : beanNames) {
+        BeanDefinition bd = registry.getBeanDefinition(beanName);
+        if (bd.getSource() instanceof Class) {
+          // Scanned from a class file, which the source checksums do not cover.
+          throw new IllegalArgumentException("component-scanned bean definition '" + beanName + "'");
+        }
+        encoder.writeString(beanName);
+        encoder.writeDefinition(bd);
+      }
+      List<String[]> aliases = new ArrayList<String[]>();
+      for (String beanName : beanNames) {
+        for (String alias : registry.getAliases(beanName)) {
+          aliases.add(new String[] {alias, beanName});
+        }
+      }
+      encoder.out.writeInt(aliases.size());
+      for (String[] alias : aliases) {
+        encoder.writeString(alias[0]);
+        encoder.writeString(alias[1]);
+      }
+    }
+    catch (IllegalArgumentException ex) {
+      logger.info("Not precompiling bean definitions: " + ex.getMessage());
+      return false;
+    }
+
+    File tempFile = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+    DataOutputStream out = new DataOutputStream(new FileOutputStream(tempFile));
+    boolean written = false;
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(configResources.size());
+      out.writeInt(sourceUrls.size());
+      for (int i = 0; i < sourceUrls.size(); i++) {
+        writeRawString(out, sourceUrls.get(i));
+        out.writeLong(checksums.get(i));
+      }
+      writeReaderState(out, reader);
+      encoder.writeTo(out);
+      written = true;
+    }
+    finally {
+      out.close();
+      if (!written) {
+        tempFile.delete();
+      }
+    }
+    Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    if (logger.isDebugEnabled()) {
+      logger.debug("Precompiled " + beanNames.length + " bean definitions from " + sourceUrls.size() +
+              " resources to [" + file + "]");
+    }
+    return true;
+  }
+
+  /**
+   * Register the bean definitions of the given file with the given reader's
+   * registry, if the file has been compiled from the given configuration
+   * resources, none of its sources has changed since, and the given reader
+   * would read them the same way.
+   * @param reader the fully configured reader that would read the configuration
+   * resources otherwise, holding the registry to register with
+   * @param configResources the configuration resources to load, in order
+   * @param file the precompiled file
+   * @return {@code true} if the definitions have been registered, {@code false}
+   * if the file does not exist or is stale, in which case the registry is left untouched
+   * @throws IOException if the file cannot be read
+   */
+  public static boolean load(XmlBeanDefinitionReader reader, Resource[] configResources, File file)
+          throws IOException {
+
+    Assert.notNull(reader, "XmlBeanDefinitionReader must not be null");
+    Assert.notNull(file, "File must not be null");
+    BeanDefinitionRegistry registry = reader.getRegistry();
+    if (!file.isFile()) {
+      return false;
+    }
+
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = raf.getChannel();
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+        logger.info("Ignoring precompiled bean definitions [" + file + "]: unknown format");
+        return false;
+      }
+      if (!isUpToDate(buffer, configResources, file) || !isReaderStateUnchanged(buffer, reader, file)) {
+        return false;
+      }
+
+      Decoder decoder = new Decoder(buffer);
+      int beanCount = readCount(buffer, 4);
+      Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<String, BeanDefinition>(beanCount);
+      for (int i = 0; i < beanCount; i++) {
+        String beanName = decoder.readString();
+        beanDefinitions.put(beanName, decoder.readDefinition());
+      }
+      int aliasCount = readCount(buffer, 8);
+      Map<String, String> aliases = new LinkedHashMap<String, String>(aliasCount);
+      for (int i = 0; i < aliasCount; i++) {
+        String alias = decoder.readString();
+        aliases.put(alias, decoder.readString());
+      }
+
+      // Everything has been read successfully: only now touch the registry.
+      for (Map.Entry<String, BeanDefinition> entry : beanDefinitions.entrySet()) {
+        registry.registerBeanDefinition(entry.getKey(), entry.getValue());
+      }
+      for (Map.Entry<String, String> alias : aliases.entrySet()) {
+        registry.registerAlias(alias.getValue(), alias.getKey());
+      }
+      if (logger.isDebugEnabled()) {
+        logger.debug("Loaded " + beanCount + " precompiled bean definitions from [" + file + "]");
+      }
+      return true;
+    }
+    catch (BufferUnderflowException ex) {
+      logger.info("Ignoring precompiled bean definitions [" + file + "]: file is truncated");
+      return false;
+    }
+    catch (IllegalArgumentException ex) {
+      logger.info("Ignoring precompiled bean definitions [" + file + "]: " + ex.getMessage());
+      return false;
+    }
+    finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * Read the source table and check it against the given configuration resources
+   * and the current content of every source.
+   */
+  private static boolean isUpToDate(ByteBuffer buffer, Resource[] configResources, File file) {
+    int configCount = buffer.getInt();
+    int sourceCount = readCount(buffer, 12);
+    if (configCount != configResources.length) {
+      logger.info("Ignoring precompiled bean definitions [" + file + "]: configuration resources have changed");
+      return false;
+    }
+    for (int i = 0; i < sourceCount; i++) {
+      String url = readRawString(buffer);
+      long checksum = buffer.getLong();
+      try {
+        if (i < configCount && !url.equals(configResources[i].getURL().toExternalForm())) {
+          logger.info("Ignoring precompiled bean definitions [" + file + "]: configuration resources have changed");
+          return false;
+        }
+        if (checksum(url) != checksum) {
+          logger.info("Ignoring precompiled bean definitions [" + file + "]: [" + url + "] has changed");
+          return false;
+        }
+      }
+      catch (IOException ex) {
+        logger.info("Ignoring precompiled bean definitions [" + file + "]: cannot read [" + url + "] - " + ex);
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Write what the definitions read depend on besides the sources: the
+   * registered element parsers, the evaluated profiles and the resolved
+   * import locations.
+   */
+  private static void writeReaderState(DataOutputStream out, XmlBeanDefinitionReader reader) throws IOException {
+    Map<String, StaxElementParser> parsers = reader.getElementParsers();
+    out.writeInt(parsers.size());
+    for (Map.Entry<String, StaxElementParser> entry : parsers.entrySet()) {
+      writeRawString(out, entry.getKey());
+      writeRawString(out, entry.getValue().getClass().getName());
+    }
+    Map<String, Boolean> profiles = reader.getEvaluatedProfiles();
+    out.writeInt(profiles.size());
+    for (Map.Entry<String, Boolean> entry : profiles.entrySet()) {
+      writeRawString(out, entry.getKey());
+      out.writeBoolean(entry.getValue());
+    }
+    Map<String, String> importLocations = reader.getResolvedImportLocations();
+    out.writeInt(importLocations.size());
+    for (Map.Entry<String, String> entry : importLocations.entrySet()) {
+      writeRawString(out, entry.getKey());
+      writeRawString(out, entry.getValue());
+    }
+  }
+
+  /**
+   * Read the reader state and check that the given reader has the same element
+   * parsers registered, and that its Environment still accepts the same profiles
+   * and resolves the import locations the same way.
+   */
+  private static boolean isReaderStateUnchanged(ByteBuffer buffer, XmlBeanDefinitionReader reader, File file) {
+    Map<String, StaxElementParser> parsers = reader.getElementParsers();
+    int parserCount = readCount(buffer, 8);
+    boolean unchanged = (parserCount == parsers.size());
+    for (int i = 0; i < parserCount; i++) {
+      StaxElementParser parser = parsers.get(readRawString(buffer));
+      String parserClassName = readRawString(buffer);
+      if (parser == null || !parser.getClass().getName().equals(parserClassName)) {
+        unchanged = false;
+      }
+    }
+    if (!unchanged) {
+      logger.info("Ignoring precompiled bean definitions [" + file + "]: element parsers have changed");
+      return false;
+    }
+
+    int profileCount = readCount(buffer, 5);
+    for (int i = 0; i < profileCount; i++) {
+      String profile = readRawString(buffer);
+      boolean accepted = (buffer.get() != 0);
+      if (reader.acceptsProfile(profile) != accepted) {
+        logger.info("Ignoring precompiled bean definitions [" + file + "]: profile '" + profile + "' is " +
+                (accepted ? "no longer" : "now") + " active");
+        return false;
+      }
+    }
+
+    int importCount = readCount(buffer, 8);
+    for (int i = 0; i < importCount; i++) {
+      String location = readRawString(buffer);
+      String resolvedLocation = readRawString(buffer);
+      String currentLocation;
+      try {
+        currentLocation = reader.resolveImportLocation(location);
+      }
+      catch (IllegalArgumentException ex) {
+        currentLocation = null;
+      }
+      if (!resolvedLocation.equals(currentLocation)) {
+        logger.info("Ignoring precompiled bean definitions [" + file + "]: import location [" + location +
+                "] no longer resolves to [" + resolvedLocation + "]");
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long checksum(String url) throws IOException {
+    CRC32 crc = new CRC32();
+    InputStream in = new URL(url).openStream();
+    try {
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        crc.update(buffer, 0, read);
+      }
+    }
+    finally {
+      in.close();
+    }
+    return crc.getValue();
+  }
+
+  private static void writeRawString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readRawString(ByteBuffer buffer) {
+    byte[] bytes = new byte[readCount(buffer, 1)];
+    buffer.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  /**
+   * Read an element count, rejecting a negative one or one that the rest of
+   * the buffer cannot hold, given the minimum number of bytes per element:
+   * a corrupt count must not lead to a huge or negative allocation.
+   */
+  static int readCount(ByteBuffer buffer, int minElementBytes) {
+    return checkCount(buffer, buffer.getInt(), minElementBytes);
+  }
+
+  static int checkCount(ByteBuffer buffer, int count, int minElementBytes) {
+    if (count < 0 || count > buffer.remaining() / minElementBytes) {
+      throw new IllegalArgumentException("invalid element count " + count);
+    }
+    return count;
+  }
+
+
+  /**
+   * Writes definitions into an in-memory body, collecting the string table.
+   * Also used for the definitions in a {@link BeanFactorySnapshot}.
+   */
+  static class Encoder {
+
+    /** Distinct strings, in order of first use, with their table index */
+    final Map<String, Integer> strings = new LinkedHashMap<String, Integer>(256);
+
+    final ByteArrayOutputStream body = new ByteArrayOutputStream(16 * 1024);
+
+    final DataOutputStream out = new DataOutputStream(this.body);
+
+    void writeString(String value) throws IOException {
+      if (value == null) {
+        this.out.writeInt(-1);
+        return;
+      }
+      Integer index = this.strings.get(value);
+      if (index == null) {
+        index = this.strings.size();
+        this.strings.put(value, index);
+      }
+      this.out.writeInt(index);
+    }
+
+    /**
+     * Write the string table followed by the body to the given stream.
+     */
+    void writeTo(DataOutputStream target) throws IOException {
+      target.writeInt(this.strings.size());
+      for (String value : this.strings.keySet()) {
+        writeRawString(target, value);
+      }
+      this.body.writeTo(target);
+    }
+
+    void writeDefinition(BeanDefinition beanDefinition) throws IOException {
+      if (!(beanDefinition instanceof AbstractBeanDefinition)) {
+        throw new IllegalArgumentException("unsupported bean definition type [" +
+                beanDefinition.getClass().getName() + "]");
+      }
+      AbstractBeanDefinition bd = (AbstractBeanDefinition) beanDefinition;
+      if (!bd.getMethodOverrides().isEmpty() || !bd.getQualifiers().isEmpty() || bd.attributeNames().length > 0) {
+        throw new IllegalArgumentException("bean definition with method overrides, qualifiers or attributes: " + bd);
+      }
+
+      writeString(bd.getBeanClassName());
+      writeString(bd.getParentName());
+      writeString(bd.getScope());
+      int flags = 0;
+      flags |= (bd.isAbstract() ? ABSTRACT : 0);
+      flags |= (bd.isLazyInit() ? LAZY_INIT : 0);
+      flags |= (bd.isPrimary() ? PRIMARY : 0);
+      flags |= (bd.isAutowireCandidate() ? AUTOWIRE_CANDIDATE : 0);
+      flags |= (bd.isEnforceInitMethod() ? ENFORCE_INIT_METHOD : 0);
+      flags |= (bd.isEnforceDestroyMethod() ? ENFORCE_DESTROY_METHOD : 0);
+      flags |= (bd.isSynthetic() ? SYNTHETIC : 0);
+      flags |= (bd.isLenientConstructorResolution() ? LENIENT_CONSTRUCTOR_RESOLUTION : 0);
+      flags |= (bd.isNonPublicAccessAllowed() ? NON_PUBLIC_ACCESS_ALLOWED : 0);
+      this.out.writeInt(flags);
+      this.out.writeInt(bd.getAutowireMode());
+      this.out.writeInt(bd.getDependencyCheck());
+      this.out.writeInt(bd.getRole());
+
+      String[] dependsOn = bd.getDependsOn();
+      this.out.writeInt(dependsOn != null ? dependsOn.length : -1);
+      if (dependsOn != null) {
+        for (String dependency : dependsOn) {
+          writeString(dependency);
+        }
+      }
+      writeString(bd.getInitMethodName());
+      writeString(bd.getDestroyMethodName());
+      writeString(bd.getFactoryBeanName());
+      writeString(bd.getFactoryMethodName());
+      writeString(bd.getDescription());
+      writeString(bd.getResourceDescription());
+
+      PropertyValue[] pvs = bd.getPropertyValues().getPropertyValues();
+      this.out.writeInt(pvs.length);
+      for (PropertyValue pv : pvs) {
+        writeString(pv.getName());
+        writeValue(pv.getValue());
+      }
+
+      ConstructorArgumentValues cav = bd.getConstructorArgumentValues();
+      Map<Integer, ConstructorArgumentValues.ValueHolder> indexedArgs = cav.getIndexedArgumentValues();
+      this.out.writeInt(indexedArgs.size());
+      for (Map.Entry<Integer, ConstructorArgumentValues.ValueHolder> entry : indexedArgs.entrySet()) {
+        this.out.writeInt(entry.getKey());
+        writeValueHolder(entry.getValue());
+      }
+      List<ConstructorArgumentValues.ValueHolder> genericArgs = cav.getGenericArgumentValues();
+      this.out.writeInt(genericArgs.size());
+      for (ConstructorArgumentValues.ValueHolder valueHolder : genericArgs) {
+        writeValueHolder(valueHolder);
+      }
+    }
+
+    void writeValueHolder(ConstructorArgumentValues.ValueHolder valueHolder) throws IOException {
+      writeValue(valueHolder.getValue());
+      writeString(valueHolder.getType());
+      writeString(valueHolder.getName());
+    }
+
+    void writeValue(Object value) throws IOException {
+      if (value == null) {
+        this.out.writeByte(NULL);
+      }
+      else if (value instanceof String) {
+        this.out.writeByte(STRING);
+        writeString((String) value);
+      }
+      else if (value instanceof TypedStringValue) {
+        TypedStringValue typedValue = (TypedStringValue) value;
+        this.out.writeByte(TYPED_STRING);
+        writeString(typedValue.getValue());
+        writeString(typedValue.getTargetTypeName());
+      }
+      else if (value instanceof RuntimeBeanReference) {
+        RuntimeBeanReference ref = (RuntimeBeanReference) value;
+        this.out.writeByte(BEAN_REFERENCE);
+        writeString(ref.getBeanName());
+        this.out.writeBoolean(ref.isToParent());
+      }
+      else if (value instanceof RuntimeBeanNameReference) {
+        this.out.writeByte(BEAN_NAME_REFERENCE);
+        writeString(((RuntimeBeanNameReference) value).getBeanName());
+      }
+      else if (value instanceof ManagedArray) {
+        ManagedArray array = (ManagedArray) value;
+        this.out.writeByte(ARRAY);
+        writeString(array.getElementTypeName());
+        this.out.writeBoolean(array.isMergeEnabled());
+        writeElements(array);
+      }
+      else if (value instanceof ManagedList) {
+        ManagedList<?> list = (ManagedList<?>) value;
+        this.out.writeByte(LIST);
+        writeString(list.getElementTypeName());
+        this.out.writeBoolean(list.isMergeEnabled());
+        writeElements(list);
+      }
+      else if (value instanceof ManagedSet) {
+        ManagedSet<?> set = (ManagedSet<?>) value;
+        this.out.writeByte(SET);
+        writeString(set.getElementTypeName());
+        this.out.writeBoolean(set.isMergeEnabled());
+        writeElements(set);
+      }
+      else if (value instanceof ManagedMap) {
+        ManagedMap<?, ?> map = (ManagedMap<?, ?>) value;
+        this.out.writeByte(MAP);
+        writeString(map.getKeyTypeName());
+        writeString(map.getValueTypeName());
+        this.out.writeBoolean(map.isMergeEnabled());
+        this.out.writeInt(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+          writeValue(entry.getKey());
+          writeValue(entry.getValue());
+        }
+      }
+      else if (value instanceof ManagedProperties) {
+        ManagedProperties props = (ManagedProperties) value;
+        this.out.writeByte(PROPERTIES);
+        this.out.writeBoolean(props.isMergeEnabled());
+        this.out.writeInt(props.size());
+        for (Map.Entry<Object, Object> entry : props.entrySet()) {
+          writeValue(entry.getKey());
+          writeValue(entry.getValue());
+        }
+      }
+      else if (value instanceof BeanDefinitionHolder) {
+        BeanDefinitionHolder holder = (BeanDefinitionHolder) value;
+        this.out.writeByte(INNER_BEAN);
+        writeString(holder.getBeanName());
+        String[] aliases = holder.getAliases();
+        this.out.writeInt(aliases != null ? aliases.length : 0);
+        if (aliases != null) {
+          for (String alias : aliases) {
+            writeString(alias);
+          }
+        }
+        writeDefinition(holder.getBeanDefinition());
+      }
+      else {
+        throw new IllegalArgumentException("unsupported value type [" + value.getClass().getName() + "]");
+      }
+    }
+
+    void writeElements(Collection<?> elements) throws IOException {
+      this.out.writeInt(elements.size());
+      for (Object element : elements) {
+        writeValue(element);
+      }
+    }
+  }
+
+
+  /**
+   * Reads definitions from the mapped file, after the string table.
+   * Also used for the definitions in a {@link BeanFactorySnapshot}.
+   */
+  static class Decoder {
+
+    private final ByteBuffer buffer;
+
+    private final String[] strings;
+
+    public Decoder(ByteBuffer buffer) {
+      this.buffer = buffer;
+      this.strings = new String[readCount(buffer, 4)];
+      for (int i = 0; i < this.strings.length; i++) {
+        this.strings[i] = readRawString(buffer);
+      }
+    }
+
+    String readString() {
+      int index = this.buffer.getInt();
+      if (index < -1 || index >= this.strings.length) {
+        throw new IllegalArgumentException("invalid string index " + index);
+      }
+      return (index >= 0 ? this.strings[index] : null);
+    }
+
+    GenericBeanDefinition readDefinition() {
+      GenericBeanDefinition bd = new GenericBeanDefinition();
+      bd.setBeanClassName(readString());
+      bd.setParentName(readString());
+      bd.setScope(readString());
+      int flags = this.buffer.getInt();
+      bd.setAbstract((flags & ABSTRACT) != 0);
+      bd.setLazyInit((flags & LAZY_INIT) != 0);
+      bd.setPrimary((flags & PRIMARY) != 0);
+      bd.setAutowireCandidate((flags & AUTOWIRE_CANDIDATE) != 0);
+      bd.setEnforceInitMethod((flags & ENFORCE_INIT_METHOD) != 0);
+      bd.setEnforceDestroyMethod((flags & ENFORCE_DESTROY_METHOD) != 0);
+      bd.setSynthetic((flags & SYNTHETIC) != 0);
+      bd.setLenientConstructorResolution((flags & LENIENT_CONSTRUCTOR_RESOLUTION) != 0);
+      bd.setNonPublicAccessAllowed((flags & NON_PUBLIC_ACCESS_ALLOWED) != 0);
+      bd.setAutowireMode(this.buffer.getInt());
+      bd.setDependencyCheck(this.buffer.getInt());
+      bd.setRole(this.buffer.getInt());
+
+      int dependsOnCount = this.buffer.getInt();
+      if (dependsOnCount != -1) {
+        String[] dependsOn = new String[checkCount(this.buffer, dependsOnCount, 4)];
+        for (int i = 0; i < dependsOnCount; i++) {
+          dependsOn[i] = readString();
+        }
+        bd.setDependsOn(dependsOn);
+      }
+      bd.setInitMethodName(readString());
+      bd.setDestroyMethodName(readString());
+      bd.setFactoryBeanName(readString());
+      bd.setFactoryMethodName(readString());
+      bd.setDescription(readString());
+      bd.setResourceDescription(readString());
+
+      int propertyCount = readCount(this.buffer, 5);
+      MutablePropertyValues pvs = bd.getPropertyValues();
+      for (int i = 0; i < propertyCount; i++) {
+        String name = readString();
+        pvs.addPropertyValue(new PropertyValue(name, readValue()));
+      }
+
+      ConstructorArgumentValues cav = bd.getConstructorArgumentValues();
+      int indexedCount = readCount(this.buffer, 13);
+      for (int i = 0; i < indexedCount; i++) {
+        int index = this.buffer.getInt();
+        cav.addIndexedArgumentValue(index, readValueHolder());
+      }
+      int genericCount = readCount(this.buffer, 9);
+      for (int i = 0; i < genericCount; i++) {
+        cav.addGenericArgumentValue(readValueHolder());
+      }
+      return bd;
+    }
+
+    ConstructorArgumentValues.ValueHolder readValueHolder() {
+      ConstructorArgumentValues.ValueHolder valueHolder = new ConstructorArgumentValues.ValueHolder(readValue());
+      valueHolder.setType(readString());
+      valueHolder.setName(readString());
+      return valueHolder;
+    }
+
+    Object readValue() {
+      byte tag = this.buffer.get();
+      switch (tag) {
+        case NULL:
+          return null;
+        case STRING:
+          return readString();
+        case TYPED_STRING: {
+          String value = readString();
+          String typeName = readString();
+          return (typeName != null ? new TypedStringValue(value, typeName) : new TypedStringValue(value));
+        }
+        case BEAN_REFERENCE: {
+          String beanName = readString();
+          return new RuntimeBeanReference(beanName, this.buffer.get() != 0);
+        }
+        case BEAN_NAME_REFERENCE:
+          return new RuntimeBeanNameReference(readString());
+        case LIST: {
+          ManagedList<Object> list = new ManagedList<Object>();
+          list.setElementTypeName(readString());
+          list.setMergeEnabled(this.buffer.get() != 0);
+          readElements(list);
+          return list;
+        }
+        case SET: {
+          ManagedSet<Object> set = new ManagedSet<Object>();
+          set.setElementTypeName(readString());
+          set.setMergeEnabled(this.buffer.get() != 0);
+          readElements(set);
+          return set;
+        }
+        case ARRAY: {
+          String elementTypeName = readString();
+          boolean merge = (this.buffer.get() != 0);
+          List<Object> elements = new ArrayList<Object>();
+          readElements(elements);
+          ManagedArray array = new ManagedArray(elementTypeName, elements.size());
+          array.addAll(elements);
+          array.setMergeEnabled(merge);
+          return array;
+        }
+        case MAP: {
+          ManagedMap<Object, Object> map = new ManagedMap<Object, Object>();
+          map.setKeyTypeName(readString());
+          map.setValueTypeName(readString());
+          map.setMergeEnabled(this.buffer.get() != 0);
+          int size = readCount(this.buffer, 2);
+          for (int i = 0; i < size; i++) {
+            Object key = readValue();
+            map.put(key, readValue());
+          }
+          return map;
+        }
+        case PROPERTIES: {
+          ManagedProperties props = new ManagedProperties();
+          props.setMergeEnabled(this.buffer.get() != 0);
+          int size = readCount(this.buffer, 2);
+          for (int i = 0; i < size; i++) {
+            Object key = readValue();
+            props.put(key, readValue());
+          }
+          return props;
+        }
+        case INNER_BEAN: {
+          String beanName = readString();
+          String[] aliases = new String[readCount(this.buffer, 4)];
+          for (int i = 0; i < aliases.length; i++) {
+            aliases[i] = readString();
+          }
+          return new BeanDefinitionHolder(readDefinition(), beanName, aliases);
+        }
+        default:
+          throw new IllegalArgumentException("invalid value tag " + tag);
+      }
+    }
+
+    void readElements(Collection<Object> target) {
+      int size = readCount(this.buffer, 1);
+      for (int i = 0; i < size; i++) {
+        target.add(readValue());
+      }
+    }
+  }
+
+}
@@ -0,0 +1,143 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: PropertySetterCache.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.beans.factory.support;
+
+import lee.springframework.util.ClassUtils;
+import lee.springframework.util.ReflectionUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of direct setter invokers, keyed by bean class, used by
+ * {@link AbstractAutowireCapableBeanFactory} to inject property values
+ * without going through the BeanWrapper when no conversion is needed.
+ *
+ * <p>Setters are introspected and turned into {@link MethodHandle MethodHandles}
+ * once per bean class. Setters that cannot be looked up (e.g. because access
+ * is denied) are simply left out, so that the corresponding properties keep
+ * being set through the BeanWrapper.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 16:20
+ * @lastdate:
+ */
+final class PropertySetterCache {
+
+  private static final Log logger = LogFactory.getLog(PropertySetterCache.class);
+
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+  /** Setters by property name, keyed by bean class */
+  private final ConcurrentMap<Class<?>, Map<String, PropertySetter>> settersByClass =
+          new ConcurrentHashMap<Class<?>, Map<String, PropertySetter>>(256);
+
+
+  /**
+   * Return the setter for the given property of the given bean class.
+   * @param beanClass the class of the bean instance
+   * @param propertyName the name of the property (no nested or indexed path)
+   * @return the setter, or {@code null} if none available for direct invocation
+   */
+  public PropertySetter getSetter(Class<?> beanClass, String propertyName) {
+    Map<String, PropertySetter> setters = this.settersByClass.get(beanClass);
+    if (setters == null) {
+      setters = introspect(beanClass);
+      Map<String, PropertySetter> existing = this.settersByClass.putIfAbsent(beanClass, setters);
+      if (existing != null) {
+        setters = existing;
+      }
+    }
+    return setters.get(propertyName);
+  }
+
+  private static Map<String, PropertySetter> introspect(Class<?> beanClass) {
+    Map<String, PropertySetter> setters = new HashMap<String, PropertySetter>();
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    for (PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(beanClass)) {
+      Method writeMethod = pd.getWriteMethod();
+      if (writeMethod == null || pd.getPropertyType() == null) {
+        continue;
+      }
+      try {
+        ReflectionUtils.makeAccessible(writeMethod);
+        MethodHandle handle = lookup.unreflect(writeMethod).asType(SETTER_TYPE);
+        setters.put(pd.getName(), new PropertySetter(pd.getPropertyType(), handle));
+      }
+      catch (Throwable ex) {
+        // Lookup access denied: leave this property to the BeanWrapper.
+        if (logger.isDebugEnabled()) {
+          logger.debug("No direct setter for property '" + pd.getName() + "' of [" +
+                  beanClass.getName() + "]: " + ex);
+        }
+      }
+    }
+    return (setters.isEmpty() ? Collections.<String, PropertySetter>emptyMap() : setters);
+  }
+
+
+  /**
+   * Direct invoker for a single property setter.
+   */
+  static final class PropertySetter {
+
+    private final Class<?> propertyType;
+
+    private final MethodHandle handle;
+
+    PropertySetter(Class<?> propertyType, MethodHandle handle) {
+      this.propertyType = propertyType;
+      this.handle = handle;
+    }
+
+    /**
+     * Return the type of the property.
+     */
+    public Class<?> getPropertyType() {
+      return this.propertyType;
+    }
+
+    /**
+     * Return whether the given value can be passed to the setter as-is,
+     * without any conversion: that is, a non-null value of the property type
+     * which is not a collection, map or array (whose elements might still need
+     * to be converted to the generic element type of the property).
+     */
+    public boolean acceptsAsIs(Object value) {
+      return (value != null && ClassUtils.isAssignableValue(this.propertyType, value) &&
+              !(value instanceof Collection || value instanceof Map || value.getClass().isArray()));
+    }
+
+    /**
+     * Invoke the setter on the given bean.
+     * @throws Exception any exception thrown by the setter, as-is
+     * (errors propagate unchanged)
+     */
+    public void set(Object bean, Object value) throws Exception {
+      try {
+        this.handle.invokeExact(bean, value);
+      }
+      catch (Throwable ex) {
+        ReflectionUtils.rethrowException(ex);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,42 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: StaxElementParser.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.beans.factory.xml;
+
+import lee.springframework.beans.factory.support.BeanDefinitionRegistry;
+import lee.springframework.core.io.Resource;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Parser for the top-level elements of a custom namespace, used by the
+ * streaming {@link XmlBeanDefinitionReader} in place of a DOM-based
+ * namespace handler.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 21:45
+ * @lastdate:
+ * @see XmlBeanDefinitionReader#registerElementParser
+ */
+public interface StaxElementParser {
+
+  /**
+   * Parse the element the reader is positioned at (on its start tag),
+   * registering the resulting bean definitions with the given registry.
+   * <p>Implementations must consume the element entirely, leaving the
+   * reader at its end tag.
+   * @param reader the reader, positioned at the start tag of the element
+   * @param registry the registry to register bean definitions with
+   * @param resource the resource the element has been read from
+   * @return the number of bean definitions registered
+   * @throws XMLStreamException in case of XML errors
+   */
+  int parse(XMLStreamReader reader, BeanDefinitionRegistry registry, Resource resource) throws XMLStreamException;
+
+}
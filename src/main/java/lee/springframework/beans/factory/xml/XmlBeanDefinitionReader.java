@@ -7,11 +7,1310 @@
 
 package lee.springframework.beans.factory.xml;
 
+import lee.springframework.beans.BeanMetadataAttribute;
+import lee.springframework.beans.MutablePropertyValues;
+import lee.springframework.beans.PropertyValue;
+import lee.springframework.beans.factory.BeanDefinitionStoreException;
+import lee.springframework.beans.factory.cofnig.BeanDefinitionHolder;
+import lee.springframework.beans.factory.cofnig.ConstructorArgumentValues;
+import lee.springframework.beans.factory.cofnig.RuntimeBeanNameReference;
+import lee.springframework.beans.factory.cofnig.RuntimeBeanReference;
+import lee.springframework.beans.factory.cofnig.TypedStringValue;
+import lee.springframework.beans.factory.support.AbstractBeanDefinition;
+import lee.springframework.beans.factory.support.AbstractBeanDefinitionReader;
+import lee.springframework.beans.factory.support.AutowireCandidateQualifier;
+import lee.springframework.beans.factory.support.BeanDefinitionReaderUtils;
+import lee.springframework.beans.factory.support.BeanDefinitionRegistry;
+import lee.springframework.beans.factory.support.GenericBeanDefinition;
+import lee.springframework.beans.factory.support.ManagedArray;
+import lee.springframework.beans.factory.support.ManagedList;
+import lee.springframework.beans.factory.support.ManagedMap;
+import lee.springframework.beans.factory.support.ManagedProperties;
+import lee.springframework.beans.factory.support.ManagedSet;
+import lee.springframework.core.Conventions;
+import lee.springframework.core.env.Environment;
+import lee.springframework.core.io.Resource;
+import lee.springframework.core.io.support.ResourcePatternUtils;
+import lee.springframework.util.Assert;
+import lee.springframework.util.ObjectUtils;
+import lee.springframework.util.ResourceUtils;
+import lee.springframework.util.StringUtils;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
+ * Bean definition reader for XML bean definitions in the "beans" namespace,
+ * reading the document as a stream through StAX rather than building a DOM.
+ *
+ * <p>Every top-level {@code <bean>} element is turned into a bean definition and
+ * registered with the {@link BeanDefinitionRegistry} as soon as its end tag has
+ * been read, after which nothing of it is retained by the reader. Memory used
+ * while reading is therefore bounded by the size of the largest single bean
+ * element (including its inner beans), not by the size of the document.
+ *
+ * <p>Supported are {@code <beans>} (nested, with "profile" and the
+ * "default-lazy-init", "default-autowire", "default-init-method" and
+ * "default-destroy-method" defaults), {@code <bean>}, {@code <alias>},
+ * {@code <import>} and {@code <description>}, with the common property and
+ * constructor argument values: {@code <value>}, {@code <ref>}, {@code <idref>},
+ * {@code <null>}, {@code <list>}, {@code <set>}, {@code <array>}, {@code <map>},
+ * {@code <props>} and inner beans, as well as {@code <qualifier>} and {@code <meta>}
+ * elements and the "p" and "c" namespace shortcut attributes for property values
+ * and constructor arguments. Elements of other namespaces are handed to the
+ * {@link StaxElementParser} registered for their namespace, if any.
+ *
+ * <p>Not supported are {@code <lookup-method>} and {@code <replaced-method>}:
+ * documents containing them are rejected with an "Unsupported element" error,
+ * as are attributes of any other namespace on a {@code <bean>} element.
+ *
+ * <p>Import locations may contain placeholders, resolved against the reader's
+ * Environment. Absolute locations ("classpath:", "classpath*:", URLs and
+ * absolute paths) are loaded through the reader's ResourceLoader; other
+ * locations are relative to the importing resource.
+ *
+ * <p>Documents are not validated against the XML schema: the schema is not
+ * available to a streaming parser without reading the whole document first.
+ * Structural errors are reported with the line number they occur at instead.
+ *
+ * <p>The "profile" attribute is evaluated against the reader's Environment;
+ * without an Environment, profiled elements are skipped.
+ *
  * @description:
  * @author: liyong18
  * @createdate: 2018-07-29 08:59
- * @lastdate:
+ * @lastdate: 2026-10-18
  */
-public class XmlBeanDefinitionReader {
+public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
+
+  public static final String BEANS_NAMESPACE_URI = "http://www.springframework.org/schema/beans";
+
+  public static final String P_NAMESPACE_URI = "http://www.springframework.org/schema/p";
+
+  public static final String C_NAMESPACE_URI = "http://www.springframework.org/schema/c";
+
+  public static final String MULTI_VALUE_ATTRIBUTE_DELIMITERS = ",; ";
+
+  public static final String TRUE_VALUE = "true";
+
+  public static final String DEFAULT_VALUE = "default";
+
+  private static final String BEANS_ELEMENT = "beans";
+
+  private static final String BEAN_ELEMENT = "bean";
+
+  private static final String ALIAS_ELEMENT = "alias";
+
+  private static final String IMPORT_ELEMENT = "import";
+
+  private static final String DESCRIPTION_ELEMENT = "description";
+
+  private static final String PROPERTY_ELEMENT = "property";
+
+  private static final String CONSTRUCTOR_ARG_ELEMENT = "constructor-arg";
+
+  private static final String QUALIFIER_ELEMENT = "qualifier";
+
+  private static final String META_ELEMENT = "meta";
+
+  private static final String QUALIFIER_ATTRIBUTE_ELEMENT = "attribute";
+
+  private static final String REF_SUFFIX = "-ref";
+
+  /** Parsers for elements of other namespaces, keyed by namespace URI */
+  private final Map<String, StaxElementParser> customElementParsers =
+          new ConcurrentHashMap<String, StaxElementParser>(4);
+
+  /** Configured once; creating readers from it is guarded by its monitor */
+  private final XMLInputFactory inputFactory;
+
+  /** All resources read so far, imported ones included */
+  private final Set<Resource> loadedResources = Collections.synchronizedSet(new LinkedHashSet<Resource>());
+
+  /** Profile expressions evaluated so far, with whether they have been accepted */
+  private final Map<String, Boolean> evaluatedProfiles = Collections.synchronizedMap(new LinkedHashMap<String, Boolean>());
+
+  /** Import locations with placeholders read so far, with their resolved form */
+  private final Map<String, String> resolvedImportLocations =
+          Collections.synchronizedMap(new LinkedHashMap<String, String>());
+
+  /** Resources currently being loaded on this thread, to detect cyclic imports */
+  private final ThreadLocal<Set<Resource>> resourcesCurrentlyBeingLoaded = new ThreadLocal<Set<Resource>>();
+
+
+  /**
+   * Create a new XmlBeanDefinitionReader for the given registry.
+   * @param registry the BeanFactory to load bean definitions into,
+   * in the form of a BeanDefinitionRegistry
+   */
+  public XmlBeanDefinitionReader(BeanDefinitionRegistry registry) {
+    super(registry);
+    this.inputFactory = createInputFactory();
+  }
+
+
+  /**
+   * Register a parser for the elements of the given namespace.
+   * <p>When resources are loaded in parallel, the parser does not run while
+   * parsing: it runs on a copy of its element while the registrations of the
+   * resource are replayed, so that it sees the target registry in the same
+   * state as with sequential loading.
+   * @param namespaceUri the namespace URI
+   * @param parser the parser for top-level elements of that namespace
+   * @see #setParallelLoadingExecutor
+   */
+  public void registerElementParser(String namespaceUri, StaxElementParser parser) {
+    Assert.hasText(namespaceUri, "Namespace URI must not be empty");
+    Assert.notNull(parser, "StaxElementParser must not be null");
+    this.customElementParsers.put(namespaceUri, parser);
+  }
+
+  /**
+   * Return all resources that bean definitions have been read from so far,
+   * including imported ones.
+   */
+  public Set<Resource> getLoadedResources() {
+    synchronized (this.loadedResources) {
+      return new LinkedHashSet<Resource>(this.loadedResources);
+    }
+  }
+
+  /**
+   * Return the parsers registered for elements of other namespaces,
+   * keyed by namespace URI.
+   * @see #registerElementParser
+   */
+  public Map<String, StaxElementParser> getElementParsers() {
+    return Collections.unmodifiableMap(new LinkedHashMap<String, StaxElementParser>(this.customElementParsers));
+  }
+
+  /**
+   * Return the "profile" attribute values evaluated so far, with whether they
+   * have been accepted by the Environment: the definitions read depend on these.
+   * @see #acceptsProfile
+   */
+  public Map<String, Boolean> getEvaluatedProfiles() {
+    synchronized (this.evaluatedProfiles) {
+      return new LinkedHashMap<String, Boolean>(this.evaluatedProfiles);
+    }
+  }
+
+  /**
+   * Return the import locations containing placeholders read so far, with the
+   * location they have been resolved to: the resources read depend on these.
+   * @see #resolveImportLocation
+   */
+  public Map<String, String> getResolvedImportLocations() {
+    synchronized (this.resolvedImportLocations) {
+      return new LinkedHashMap<String, String>(this.resolvedImportLocations);
+    }
+  }
+
+  /**
+   * Determine whether the given "profile" attribute value is accepted by the
+   * reader's Environment; without an Environment, no profile is accepted.
+   * @param profile the profile expression, possibly a list of profiles
+   */
+  public boolean acceptsProfile(String profile) {
+    String[] profiles = StringUtils.tokenizeToStringArray(profile, MULTI_VALUE_ATTRIBUTE_DELIMITERS);
+    Environment environment = getEnvironment();
+    return (environment != null && !ObjectUtils.isEmpty(profiles) && environment.acceptsProfiles(profiles));
+  }
+
+  /**
+   * Resolve the placeholders in the given import location against the reader's
+   * Environment; without an Environment, the location is returned as-is.
+   * @throws IllegalArgumentException if a placeholder cannot be resolved
+   */
+  public String resolveImportLocation(String location) {
+    return (getEnvironment() != null ? getEnvironment().resolveRequiredPlaceholders(location) : location);
+  }
+
+
+  /**
+   * Load bean definitions from the specified XML file into the given registry.
+   * @param resource the resource descriptor for the XML file
+   * @param registry the registry to register the bean definitions with
+   * @return the number of bean definitions found
+   * @throws BeanDefinitionStoreException in case of loading or parsing errors
+   */
+  @Override
+  protected int loadBeanDefinitions(Resource resource, BeanDefinitionRegistry registry)
+          throws BeanDefinitionStoreException {
+    Assert.notNull(resource, "Resource must not be null");
+    if (logger.isDebugEnabled()) {
+      logger.debug("Loading XML bean definitions from " + resource);
+    }
+
+    Set<Resource> currentResources = this.resourcesCurrentlyBeingLoaded.get();
+    if (currentResources == null) {
+      currentResources = new HashSet<Resource>(4);
+      this.resourcesCurrentlyBeingLoaded.set(currentResources);
+    }
+    if (!currentResources.add(resource)) {
+      throw new BeanDefinitionStoreException(
+              "Detected cyclic loading of " + resource + " - check your import definitions!");
+    }
+    this.loadedResources.add(resource);
+    try {
+      InputStream inputStream = resource.getInputStream();
+      try {
+        return doLoadBeanDefinitions(inputStream, resource, registry);
+      }
+      finally {
+        inputStream.close();
+      }
+    }
+    catch (IOException ex) {
+      throw new BeanDefinitionStoreException(
+              "IOException parsing XML document from " + resource.getDescription(), ex);
+    }
+    finally {
+      currentResources.remove(resource);
+      if (currentResources.isEmpty()) {
+        this.resourcesCurrentlyBeingLoaded.remove();
+      }
+    }
+  }
+
+  /**
+   * Actually load bean definitions from the specified XML file.
+   * @param inputStream the stream to read the document from
+   * @param resource the resource descriptor for the XML file
+   * @param registry the registry to register the bean definitions with
+   * @return the number of bean definitions found
+   * @throws BeanDefinitionStoreException in case of parsing errors
+   */
+  protected int doLoadBeanDefinitions(InputStream inputStream, Resource resource, BeanDefinitionRegistry registry)
+          throws BeanDefinitionStoreException {
+
+    XMLStreamReader reader = null;
+    try {
+      synchronized (this.inputFactory) {
+        reader = this.inputFactory.createXMLStreamReader(inputStream);
+      }
+      while (reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT) {
+        // Skip prolog: XML declaration, comments, processing instructions.
+      }
+      if (!reader.isStartElement() || !isBeansElement(reader, BEANS_ELEMENT)) {
+        throw new BeanDefinitionStoreException(resource.getDescription(),
+                "Expected <beans> as root element of XML document from " + resource);
+      }
+      ParseState state = new ParseState(resource, reader, registry);
+      parseBeansElement(state, new BeansDefaults(null, reader));
+      return state.beanDefinitionCount;
+    }
+    catch (XMLStreamException ex) {
+      throw new BeanDefinitionStoreException(resource.getDescription(),
+              "Line " + lineNumberOf(ex.getLocation()) + " in XML document from " + resource + " is invalid", ex);
+    }
+    finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        }
+        catch (XMLStreamException ex) {
+          logger.debug("Could not close XMLStreamReader", ex);
+        }
+      }
+    }
+  }
+
+  /**
+   * Create the XMLInputFactory to read documents with: namespace-aware,
+   * coalescing text, and without DTD or external entity resolution.
+   */
+  protected XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    return factory;
+  }
+
+
+  //---------------------------------------------------------------------
+  // Top-level elements
+  //---------------------------------------------------------------------
+
+  /**
+   * Parse the children of a {@code <beans>} element, positioned at its start tag.
+   * Leaves the reader at its end tag.
+   */
+  private void parseBeansElement(ParseState state, BeansDefaults defaults) throws XMLStreamException {
+    XMLStreamReader reader = state.reader;
+    String profile = attribute(reader, "profile");
+    if (StringUtils.hasText(profile) && !isProfileAccepted(profile)) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Skipped XML bean definition elements for profile '" + profile + "' in " + state.resource);
+      }
+      skipElement(reader);
+      return;
+    }
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      if (isBeansNamespace(reader)) {
+        String name = reader.getLocalName();
+        if (BEAN_ELEMENT.equals(name)) {
+          BeanDefinitionHolder holder = parseBeanElement(state, defaults, null);
+          registerBeanDefinition(state, holder);
+        }
+        else if (ALIAS_ELEMENT.equals(name)) {
+          parseAliasElement(state);
+        }
+        else if (IMPORT_ELEMENT.equals(name)) {
+          parseImportElement(state);
+        }
+        else if (BEANS_ELEMENT.equals(name)) {
+          parseBeansElement(state, new BeansDefaults(defaults, reader));
+        }
+        else if (DESCRIPTION_ELEMENT.equals(name)) {
+          skipElement(reader);
+        }
+        else {
+          throw error(state, "Unexpected element <" + name + "> in <beans>");
+        }
+      }
+      else {
+        parseCustomElement(state);
+      }
+    }
+  }
+
+  private void parseCustomElement(ParseState state) throws XMLStreamException {
+    XMLStreamReader reader = state.reader;
+    StaxElementParser parser = this.customElementParsers.get(reader.getNamespaceURI());
+    if (parser == null) {
+      throw error(state, "Unable to locate parser for XML element <" + reader.getLocalName() +
+              "> of namespace [" + reader.getNamespaceURI() + "]");
+    }
+    if (isDeferredRegistry(state.registry)) {
+      // Loading in parallel: run the parser when the registrations of this resource get
+      // replayed, so that it sees the target registry just like in sequential loading.
+      final StaxElementParser parserToUse = parser;
+      final String element = captureElement(reader);
+      final Resource resource = state.resource;
+      deferRegistration(state.registry, new DeferredRegistration() {
+        @Override
+        public int register(BeanDefinitionRegistry registry) {
+          return parseCapturedElement(parserToUse, element, registry, resource);
+        }
+      });
+      return;
+    }
+    state.beanDefinitionCount += parser.parse(reader, state.registry, state.resource);
+    if (!reader.isEndElement()) {
+      throw error(state, "StaxElementParser [" + parser + "] did not consume its element");
+    }
+  }
+
+  /**
+   * Copy the element the reader is positioned at, with its content, into a
+   * standalone XML fragment, declaring the namespaces it uses. Leaves the
+   * reader at its end tag. Comments and processing instructions are dropped.
+   */
+  private String captureElement(XMLStreamReader reader) throws XMLStreamException {
+    XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+    outputFactory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, Boolean.TRUE);
+    StringWriter out = new StringWriter(256);
+    XMLStreamWriter writer = outputFactory.createXMLStreamWriter(out);
+    int depth = 0;
+    do {
+      switch (reader.getEventType()) {
+        case XMLStreamConstants.START_ELEMENT:
+          writer.writeStartElement(nullToEmpty(reader.getPrefix()), reader.getLocalName(),
+                  nullToEmpty(reader.getNamespaceURI()));
+          for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            writer.writeNamespace(nullToEmpty(reader.getNamespacePrefix(i)), reader.getNamespaceURI(i));
+          }
+          for (int i = 0; i < reader.getAttributeCount(); i++) {
+            writer.writeAttribute(nullToEmpty(reader.getAttributePrefix(i)),
+                    nullToEmpty(reader.getAttributeNamespace(i)), reader.getAttributeLocalName(i),
+                    reader.getAttributeValue(i));
+          }
+          depth++;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          writer.writeEndElement();
+          depth--;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          writer.writeCharacters(reader.getText());
+          break;
+        default:
+          break;
+      }
+    }
+    while (depth > 0 && reader.next() >= 0);
+    writer.close();
+    return out.toString();
+  }
+
+  /**
+   * Run the given parser on an element captured by {@link #captureElement}.
+   * Line numbers reported by the parser refer to the captured element.
+   */
+  private int parseCapturedElement(StaxElementParser parser, String element, BeanDefinitionRegistry registry,
+                                   Resource resource) throws BeanDefinitionStoreException {
+    XMLStreamReader reader = null;
+    try {
+      synchronized (this.inputFactory) {
+        reader = this.inputFactory.createXMLStreamReader(new StringReader(element));
+      }
+      while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+        // Skip to the captured element.
+      }
+      int count = parser.parse(reader, registry, resource);
+      if (!reader.isEndElement()) {
+        throw new BeanDefinitionStoreException(resource.getDescription(),
+                "StaxElementParser [" + parser + "] did not consume its element");
+      }
+      return count;
+    }
+    catch (XMLStreamException ex) {
+      throw new BeanDefinitionStoreException(resource.getDescription(),
+              "Custom element in XML document from " + resource + " is invalid", ex);
+    }
+    finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        }
+        catch (XMLStreamException ex) {
+          logger.debug("Could not close XMLStreamReader", ex);
+        }
+      }
+    }
+  }
+
+  private static String nullToEmpty(String value) {
+    return (value != null ? value : "");
+  }
+
+  private void parseAliasElement(ParseState state) throws XMLStreamException {
+    XMLStreamReader reader = state.reader;
+    String name = attribute(reader, "name");
+    String alias = attribute(reader, "alias");
+    if (!StringUtils.hasText(name)) {
+      throw error(state, "Name must not be empty");
+    }
+    if (!StringUtils.hasText(alias)) {
+      throw error(state, "Alias must not be empty");
+    }
+    try {
+      state.registry.registerAlias(name, alias);
+    }
+    catch (Exception ex) {
+      throw new BeanDefinitionStoreException(state.resource.getDescription(),
+              "Failed to register alias '" + alias + "' for bean with name '" + name + "'", ex);
+    }
+    skipElement(reader);
+  }
+
+  private void parseImportElement(ParseState state) throws XMLStreamException {
+    XMLStreamReader reader = state.reader;
+    String location = attribute(reader, "resource");
+    if (!StringUtils.hasText(location)) {
+      throw error(state, "Resource location must not be empty");
+    }
+    // Resolve system properties: e.g. "${user.dir}"
+    try {
+      String resolvedLocation = resolveImportLocation(location);
+      if (!resolvedLocation.equals(location) || location.contains("${")) {
+        this.resolvedImportLocations.put(location, resolvedLocation);
+      }
+      location = resolvedLocation;
+    }
+    catch (IllegalArgumentException ex) {
+      throw error(state, "Could not resolve placeholders in resource location [" + location + "]: " +
+              ex.getMessage());
+    }
+    skipElement(reader);
+
+    // Discover whether the location is an absolute or relative URI
+    boolean absoluteLocation = false;
+    try {
+      absoluteLocation = ResourcePatternUtils.isUrl(location) || ResourceUtils.toURI(location).isAbsolute();
+    }
+    catch (URISyntaxException ex) {
+      // cannot convert to an URI, considering the location relative
+    }
+
+    if (absoluteLocation) {
+      for (Resource resource : getResources(location)) {
+        state.beanDefinitionCount += loadBeanDefinitions(resource, state.registry);
+      }
+      return;
+    }
+    try {
+      Resource relativeResource = state.resource.createRelative(location);
+      if (!relativeResource.exists()) {
+        throw error(state, "Imported resource [" + location + "] does not exist");
+      }
+      state.beanDefinitionCount += loadBeanDefinitions(relativeResource, state.registry);
+    }
+    catch (IOException ex) {
+      throw new BeanDefinitionStoreException(state.resource.getDescription(),
+              "Failed to import bean definitions from relative location [" + location + "]", ex);
+    }
+  }
+
+  /**
+   * Register the given top-level bean definition under its name and aliases.
+   */
+  private void registerBeanDefinition(ParseState state, BeanDefinitionHolder holder) {
+    String beanName = holder.getBeanName();
+    try {
+      state.registry.registerBeanDefinition(beanName, holder.getBeanDefinition());
+    }
+    catch (BeanDefinitionStoreException ex) {
+      throw ex;
+    }
+    catch (Exception ex) {
+      throw new BeanDefinitionStoreException(state.resource.getDescription(), beanName,
+              "Failed to register bean definition", ex);
+    }
+    String[] aliases = holder.getAliases();
+    if (aliases != null) {
+      for (String alias : aliases) {
+        try {
+          state.registry.registerAlias(beanName, alias);
+        }
+        catch (Exception ex) {
+          throw new BeanDefinitionStoreException(state.resource.getDescription(),
+                  "Failed to register alias '" + alias + "' for bean with name '" + beanName + "'", ex);
+        }
+      }
+    }
+    state.beanDefinitionCount++;
+  }
+
+
+  //---------------------------------------------------------------------
+  // <bean> elements
+  //---------------------------------------------------------------------
+
+  /**
+   * Parse a {@code <bean>} element, positioned at its start tag.
+   * Leaves the reader at its end tag.
+   * @param containingBean the definition of the containing bean for inner beans,
+   * or {@code null} for top-level beans
+   */
+  private BeanDefinitionHolder parseBeanElement(ParseState state, BeansDefaults defaults,
+                                                AbstractBeanDefinition containingBean) throws XMLStreamException {
+
+    XMLStreamReader reader = state.reader;
+    String id = attribute(reader, "id");
+    String nameAttr = attribute(reader, "name");
+
+    List<String> aliases = new ArrayList<String>();
+    if (StringUtils.hasLength(nameAttr)) {
+      aliases.addAll(Arrays.asList(StringUtils.tokenizeToStringArray(nameAttr, MULTI_VALUE_ATTRIBUTE_DELIMITERS)));
+    }
+    String beanName = id;
+    if (!StringUtils.hasText(beanName) && !aliases.isEmpty()) {
+      beanName = aliases.remove(0);
+    }
+    if (containingBean == null) {
+      checkNameUniqueness(state, beanName, aliases);
+    }
+
+    GenericBeanDefinition bd = new GenericBeanDefinition();
+    String className = attribute(reader, "class");
+    if (className != null) {
+      className = className.trim();
+      if (getBeanClassLoader() != null) {
+        try {
+          bd.setBeanClass(getBeanClassLoader().loadClass(className));
+        }
+        catch (ClassNotFoundException ex) {
+          throw new BeanDefinitionStoreException(state.resource.getDescription(), beanName,
+                  "Bean class [" + className + "] not found", ex);
+        }
+      }
+      else {
+        bd.setBeanClassName(className);
+      }
+    }
+    bd.setParentName(attribute(reader, "parent"));
+    bd.setResourceDescription(state.resource.getDescription());
+    parseBeanAttributes(state, defaults, bd, containingBean);
+    // Applied after the sub-elements, so that conflicts with <property> and <constructor-arg> are detected.
+    List<String[]> shortcutAttributes = getShortcutAttributes(state);
+
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      if (!isBeansNamespace(reader)) {
+        throw error(state, "Unexpected element <" + reader.getLocalName() + "> in <bean>");
+      }
+      String name = reader.getLocalName();
+      if (PROPERTY_ELEMENT.equals(name)) {
+        parsePropertyElement(state, defaults, bd);
+      }
+      else if (CONSTRUCTOR_ARG_ELEMENT.equals(name)) {
+        parseConstructorArgElement(state, defaults, bd);
+      }
+      else if (DESCRIPTION_ELEMENT.equals(name)) {
+        bd.setDescription(reader.getElementText().trim());
+      }
+      else if (QUALIFIER_ELEMENT.equals(name)) {
+        parseQualifierElement(state, bd);
+      }
+      else if (META_ELEMENT.equals(name)) {
+        bd.addMetadataAttribute(parseMetaElement(state));
+      }
+      else {
+        throw error(state, "Unsupported element <" + name + "> in <bean>");
+      }
+    }
+    applyShortcutAttributes(state, shortcutAttributes, bd);
+
+    if (!StringUtils.hasText(beanName)) {
+      try {
+        beanName = (containingBean != null ?
+                BeanDefinitionReaderUtils.generateBeanName(bd, state.registry, true) :
+                generateBeanName(bd, state.registry));
+      }
+      catch (BeanDefinitionStoreException ex) {
+        throw error(state, ex.getMessage());
+      }
+    }
+    return new BeanDefinitionHolder(bd, beanName, StringUtils.toStringArray(aliases));
+  }
+
+  /**
+   * Collect the "p" and "c" namespace attributes of the current element,
+   * as namespace URI, local name and value.
+   */
+  private List<String[]> getShortcutAttributes(ParseState state) {
+    XMLStreamReader reader = state.reader;
+    List<String[]> shortcutAttributes = new ArrayList<String[]>();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String namespaceUri = reader.getAttributeNamespace(i);
+      if (!StringUtils.hasLength(namespaceUri) || BEANS_NAMESPACE_URI.equals(namespaceUri)) {
+        continue;
+      }
+      if (!P_NAMESPACE_URI.equals(namespaceUri) && !C_NAMESPACE_URI.equals(namespaceUri)) {
+        throw error(state, "Unsupported attribute '" + reader.getAttributeLocalName(i) + "' of namespace [" +
+                namespaceUri + "] in <bean>");
+      }
+      shortcutAttributes.add(new String[] {namespaceUri, reader.getAttributeLocalName(i), reader.getAttributeValue(i)});
+    }
+    return shortcutAttributes;
+  }
+
+  /**
+   * Apply "p:name" / "p:name-ref" attributes as property values and "c:name" /
+   * "c:_index" (also with "-ref" suffix) attributes as constructor arguments.
+   */
+  private void applyShortcutAttributes(ParseState state, List<String[]> shortcutAttributes, GenericBeanDefinition bd) {
+    for (String[] shortcutAttribute : shortcutAttributes) {
+      String name = shortcutAttribute[1];
+      String value = shortcutAttribute[2];
+      boolean reference = name.endsWith(REF_SUFFIX);
+      if (reference) {
+        name = name.substring(0, name.length() - REF_SUFFIX.length());
+      }
+      Object argValue = (reference ? new RuntimeBeanReference(value.trim()) : new TypedStringValue(value));
+
+      if (P_NAMESPACE_URI.equals(shortcutAttribute[0])) {
+        String propertyName = Conventions.attributeNameToPropertyName(name);
+        if (bd.getPropertyValues().contains(propertyName)) {
+          throw error(state, "Property '" + propertyName + "' is already defined using " +
+                  "both <property> and inline syntax. Only one approach may be used per property.");
+        }
+        bd.getPropertyValues().addPropertyValue(new PropertyValue(propertyName, argValue));
+        continue;
+      }
+
+      ConstructorArgumentValues cav = bd.getConstructorArgumentValues();
+      ConstructorArgumentValues.ValueHolder valueHolder = new ConstructorArgumentValues.ValueHolder(argValue);
+      if (name.startsWith("_")) {
+        int index;
+        try {
+          index = Integer.parseInt(name.substring(1));
+        }
+        catch (NumberFormatException ex) {
+          throw error(state, "Constructor argument '" + name + "' specifies an invalid integer");
+        }
+        if (index < 0) {
+          throw error(state, "Constructor argument '" + name + "' specifies a negative index");
+        }
+        if (cav.hasIndexedArgumentValue(index)) {
+          throw error(state, "Constructor argument '" + name + "' with index " + index +
+                  " already defined using <constructor-arg>. Only one approach may be used per argument.");
+        }
+        cav.addIndexedArgumentValue(index, valueHolder);
+      }
+      else {
+        valueHolder.setName(Conventions.attributeNameToPropertyName(name));
+        cav.addGenericArgumentValue(valueHolder);
+      }
+    }
+  }
+
+  /**
+   * Parse a {@code <qualifier>} element with its {@code <attribute>} sub-elements,
+   * positioned at its start tag. Leaves the reader at its end tag.
+   */
+  private void parseQualifierElement(ParseState state, AbstractBeanDefinition bd) throws XMLStreamException {
+    XMLStreamReader reader = state.reader;
+    String typeName = attribute(reader, "type");
+    if (!StringUtils.hasLength(typeName)) {
+      throw error(state, "Tag 'qualifier' must have a 'type' attribute");
+    }
+    AutowireCandidateQualifier qualifier = new AutowireCandidateQualifier(typeName);
+    String value = attribute(reader, "value");
+    if (StringUtils.hasLength(value)) {
+      qualifier.setAttribute(AutowireCandidateQualifier.VALUE_KEY, value);
+    }
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      if (!isBeansElement(reader, QUALIFIER_ATTRIBUTE_ELEMENT)) {
+        throw error(state, "Unexpected element <" + reader.getLocalName() + "> in <qualifier>");
+      }
+      String attributeName = attribute(reader, "key");
+      String attributeValue = attribute(reader, "value");
+      if (!StringUtils.hasLength(attributeName) || !StringUtils.hasLength(attributeValue)) {
+        throw error(state, "Qualifier 'attribute' tag must have a 'key' and 'value'");
+      }
+      qualifier.addMetadataAttribute(new BeanMetadataAttribute(attributeName, attributeValue));
+      skipElement(reader);
+    }
+    bd.addQualifier(qualifier);
+  }
+
+  /**
+   * Parse a {@code <meta>} element, positioned at its start tag.
+   * Leaves the reader at its end tag.
+   */
+  private BeanMetadataAttribute parseMetaElement(ParseState state) throws XMLStreamException {
+    XMLStreamReader reader = state.reader;
+    String key = attribute(reader, "key");
+    String value = attribute(reader, "value");
+    if (!StringUtils.hasLength(key)) {
+      throw error(state, "Tag 'meta' must have a 'key' attribute");
+    }
+    skipElement(reader);
+    return new BeanMetadataAttribute(key, value);
+  }
+
+  private void parseBeanAttributes(ParseState state, BeansDefaults defaults, GenericBeanDefinition bd,
+                                   AbstractBeanDefinition containingBean) {
+
+    XMLStreamReader reader = state.reader;
+    String scope = attribute(reader, "scope");
+    if (scope != null) {
+      bd.setScope(scope);
+    }
+    else if (containingBean != null) {
+      // Inner beans take the scope of the containing bean.
+      bd.setScope(containingBean.getScope());
+    }
+    if (TRUE_VALUE.equals(attribute(reader, "abstract"))) {
+      bd.setAbstract(true);
+    }
+    String lazyInit = attribute(reader, "lazy-init");
+    if (lazyInit == null || DEFAULT_VALUE.equals(lazyInit)) {
+      lazyInit = defaults.lazyInit;
+    }
+    bd.setLazyInit(TRUE_VALUE.equals(lazyInit));
+
+    String autowire = attribute(reader, "autowire");
+    if (autowire == null || DEFAULT_VALUE.equals(autowire)) {
+      autowire = defaults.autowire;
+    }
+    bd.setAutowireMode(getAutowireMode(state, autowire));
+
+    String dependsOn = attribute(reader, "depends-on");
+    if (dependsOn != null) {
+      bd.setDependsOn(StringUtils.tokenizeToStringArray(dependsOn, MULTI_VALUE_ATTRIBUTE_DELIMITERS));
+    }
+    String autowireCandidate = attribute(reader, "autowire-candidate");
+    if (autowireCandidate != null && !DEFAULT_VALUE.equals(autowireCandidate)) {
+      bd.setAutowireCandidate(TRUE_VALUE.equals(autowireCandidate));
+    }
+    if (TRUE_VALUE.equals(attribute(reader, "primary"))) {
+      bd.setPrimary(true);
+    }
+
+    String initMethod = attribute(reader, "init-method");
+    if (initMethod != null) {
+      bd.setInitMethodName(initMethod);
+    }
+    else if (defaults.initMethod != null) {
+      bd.setInitMethodName(defaults.initMethod);
+      bd.setEnforceInitMethod(false);
+    }
+    String destroyMethod = attribute(reader, "destroy-method");
+    if (destroyMethod != null) {
+      bd.setDestroyMethodName(destroyMethod);
+    }
+    else if (defaults.destroyMethod != null) {
+      bd.setDestroyMethodName(defaults.destroyMethod);
+      bd.setEnforceDestroyMethod(false);
+    }
+
+    String factoryMethod = attribute(reader, "factory-method");
+    if (factoryMethod != null) {
+      bd.setFactoryMethodName(factoryMethod);
+    }
+    String factoryBean = attribute(reader, "factory-bean");
+    if (factoryBean != null) {
+      bd.setFactoryBeanName(factoryBean);
+    }
+  }
+
+  private int getAutowireMode(ParseState state, String autowire) {
+    if (autowire == null || "no".equals(autowire)) {
+      return AbstractBeanDefinition.AUTOWIRE_NO;
+    }
+    else if ("byName".equals(autowire)) {
+      return AbstractBeanDefinition.AUTOWIRE_BY_NAME;
+    }
+    else if ("byType".equals(autowire)) {
+      return AbstractBeanDefinition.AUTOWIRE_BY_TYPE;
+    }
+    else if ("constructor".equals(autowire)) {
+      return AbstractBeanDefinition.AUTOWIRE_CONSTRUCTOR;
+    }
+    throw error(state, "Invalid autowire mode '" + autowire + "'");
+  }
+
+  /**
+   * Check that the given bean name and aliases have not been used in the
+   * current document yet.
+   */
+  private void checkNameUniqueness(ParseState state, String beanName, List<String> aliases) {
+    String foundName = null;
+    if (StringUtils.hasText(beanName) && state.usedNames.contains(beanName)) {
+      foundName = beanName;
+    }
+    if (foundName == null) {
+      for (String alias : aliases) {
+        if (state.usedNames.contains(alias)) {
+          foundName = alias;
+          break;
+        }
+      }
+    }
+    if (foundName != null) {
+      throw error(state, "Bean name '" + foundName + "' is already used in this <beans> element");
+    }
+    if (StringUtils.hasText(beanName)) {
+      state.usedNames.add(beanName);
+    }
+    state.usedNames.addAll(aliases);
+  }
+
+  private void parsePropertyElement(ParseState state, BeansDefaults defaults, GenericBeanDefinition bd)
+          throws XMLStreamException {
+
+    String propertyName = attribute(state.reader, "name");
+    if (!StringUtils.hasLength(propertyName)) {
+      throw error(state, "Tag 'property' must have a 'name' attribute");
+    }
+    MutablePropertyValues pvs = bd.getPropertyValues();
+    if (pvs.contains(propertyName)) {
+      throw error(state, "Multiple 'property' definitions for property '" + propertyName + "'");
+    }
+    List<BeanMetadataAttribute> metaAttributes = new ArrayList<BeanMetadataAttribute>();
+    Object value = parseValueHolderElement(state, defaults, bd,
+            "<property> element for property '" + propertyName + "'", metaAttributes);
+    PropertyValue pv = new PropertyValue(propertyName, value);
+    for (BeanMetadataAttribute metaAttribute : metaAttributes) {
+      pv.addMetadataAttribute(metaAttribute);
+    }
+    pvs.addPropertyValue(pv);
+  }
+
+  private void parseConstructorArgElement(ParseState state, BeansDefaults defaults, GenericBeanDefinition bd)
+          throws XMLStreamException {
+
+    XMLStreamReader reader = state.reader;
+    String indexAttr = attribute(reader, "index");
+    String typeAttr = attribute(reader, "type");
+    String nameAttr = attribute(reader, "name");
+    Object value = parseValueHolderElement(state, defaults, bd, "<constructor-arg> element", null);
+
+    ConstructorArgumentValues.ValueHolder valueHolder = new ConstructorArgumentValues.ValueHolder(value);
+    if (StringUtils.hasLength(typeAttr)) {
+      valueHolder.setType(typeAttr);
+    }
+    if (StringUtils.hasLength(nameAttr)) {
+      valueHolder.setName(nameAttr);
+    }
+    ConstructorArgumentValues cav = bd.getConstructorArgumentValues();
+    if (StringUtils.hasLength(indexAttr)) {
+      int index;
+      try {
+        index = Integer.parseInt(indexAttr);
+      }
+      catch (NumberFormatException ex) {
+        throw error(state, "Attribute 'index' of tag 'constructor-arg' must be an integer");
+      }
+      if (index < 0) {
+        throw error(state, "'index' cannot be lower than 0");
+      }
+      if (cav.hasIndexedArgumentValue(index)) {
+        throw error(state, "Ambiguous constructor-arg entries for index " + index);
+      }
+      cav.addIndexedArgumentValue(index, valueHolder);
+    }
+    else {
+      cav.addGenericArgumentValue(valueHolder);
+    }
+  }
+
+  /**
+   * Parse the value of a {@code <property>} or {@code <constructor-arg>}
+   * element: either its "value" or "ref" attribute, or its single value
+   * sub-element. Leaves the reader at the end tag of the element.
+   * @param metaAttributes the list to add {@code <meta>} sub-elements to,
+   * or {@code null} if not applicable (as for constructor arguments)
+   */
+  private Object parseValueHolderElement(ParseState state, BeansDefaults defaults, AbstractBeanDefinition bd,
+                                         String elementName, List<BeanMetadataAttribute> metaAttributes)
+          throws XMLStreamException {
+
+    XMLStreamReader reader = state.reader;
+    String valueAttr = attribute(reader, "value");
+    String refAttr = attribute(reader, "ref");
+    if (valueAttr != null && refAttr != null) {
+      throw error(state, elementName + " is only allowed to contain either 'ref' attribute OR 'value' attribute");
+    }
+
+    Object value = null;
+    if (refAttr != null) {
+      if (!StringUtils.hasText(refAttr)) {
+        throw error(state, elementName + " contains empty 'ref' attribute");
+      }
+      value = new RuntimeBeanReference(refAttr);
+    }
+    else if (valueAttr != null) {
+      value = new TypedStringValue(valueAttr);
+    }
+
+    boolean subElementFound = false;
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      if (isBeansElement(reader, DESCRIPTION_ELEMENT)) {
+        skipElement(reader);
+        continue;
+      }
+      if (isBeansElement(reader, META_ELEMENT)) {
+        if (metaAttributes == null) {
+          throw error(state, "Unsupported element <meta> in " + elementName);
+        }
+        metaAttributes.add(parseMetaElement(state));
+        continue;
+      }
+      if (value != null || subElementFound) {
+        throw error(state, elementName + " must not contain more than one sub-element, " +
+                "nor both a sub-element and a 'value' or 'ref' attribute");
+      }
+      value = parseValueElement(state, defaults, bd);
+      subElementFound = true;
+    }
+    if (value == null && !subElementFound) {
+      throw error(state, elementName + " must specify a ref or value");
+    }
+    return value;
+  }
+
+  /**
+   * Parse a value element (including collections and inner beans),
+   * positioned at its start tag. Leaves the reader at its end tag.
+   */
+  private Object parseValueElement(ParseState state, BeansDefaults defaults, AbstractBeanDefinition bd)
+          throws XMLStreamException {
+
+    XMLStreamReader reader = state.reader;
+    if (!isBeansNamespace(reader)) {
+      throw error(state, "Unexpected value element <" + reader.getLocalName() + ">");
+    }
+    String name = reader.getLocalName();
+    if (BEAN_ELEMENT.equals(name)) {
+      return parseBeanElement(state, defaults, bd);
+    }
+    else if ("ref".equals(name)) {
+      String refName = attribute(reader, "bean");
+      boolean toParent = false;
+      if (!StringUtils.hasLength(refName)) {
+        refName = attribute(reader, "parent");
+        toParent = true;
+      }
+      if (!StringUtils.hasText(refName)) {
+        throw error(state, "'bean' or 'parent' is required for <ref> element");
+      }
+      skipElement(reader);
+      return new RuntimeBeanReference(refName, toParent);
+    }
+    else if ("idref".equals(name)) {
+      String refName = attribute(reader, "bean");
+      if (!StringUtils.hasText(refName)) {
+        throw error(state, "'bean' is required for <idref> element");
+      }
+      skipElement(reader);
+      return new RuntimeBeanNameReference(refName);
+    }
+    else if ("value".equals(name)) {
+      String typeName = attribute(reader, "type");
+      String text = reader.getElementText();
+      return (StringUtils.hasText(typeName) ? new TypedStringValue(text, typeName) : new TypedStringValue(text));
+    }
+    else if ("null".equals(name)) {
+      skipElement(reader);
+      return new TypedStringValue(null);
+    }
+    else if ("list".equals(name)) {
+      ManagedList<Object> list = new ManagedList<Object>();
+      list.setElementTypeName(attribute(reader, "value-type"));
+      list.setMergeEnabled(TRUE_VALUE.equals(attribute(reader, "merge")));
+      parseCollectionElements(state, defaults, bd, list);
+      return list;
+    }
+    else if ("set".equals(name)) {
+      ManagedSet<Object> set = new ManagedSet<Object>();
+      set.setElementTypeName(attribute(reader, "value-type"));
+      set.setMergeEnabled(TRUE_VALUE.equals(attribute(reader, "merge")));
+      parseCollectionElements(state, defaults, bd, set);
+      return set;
+    }
+    else if ("array".equals(name)) {
+      String elementType = attribute(reader, "value-type");
+      boolean merge = TRUE_VALUE.equals(attribute(reader, "merge"));
+      List<Object> elements = new ArrayList<Object>();
+      parseCollectionElements(state, defaults, bd, elements);
+      ManagedArray array = new ManagedArray(elementType != null ? elementType : "", elements.size());
+      array.addAll(elements);
+      array.setMergeEnabled(merge);
+      return array;
+    }
+    else if ("map".equals(name)) {
+      return parseMapElement(state, defaults, bd);
+    }
+    else if ("props".equals(name)) {
+      ManagedProperties props = new ManagedProperties();
+      props.setMergeEnabled(TRUE_VALUE.equals(attribute(reader, "merge")));
+      while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+        if (!"prop".equals(reader.getLocalName())) {
+          throw error(state, "Unexpected element <" + reader.getLocalName() + "> in <props>");
+        }
+        String key = attribute(reader, "key");
+        props.put(new TypedStringValue(key), new TypedStringValue(reader.getElementText().trim()));
+      }
+      return props;
+    }
+    throw error(state, "Unknown property sub-element: <" + name + ">");
+  }
+
+  private void parseCollectionElements(ParseState state, BeansDefaults defaults, AbstractBeanDefinition bd,
+                                       Collection<Object> target) throws XMLStreamException {
+
+    XMLStreamReader reader = state.reader;
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      if (isBeansNamespace(reader) && DESCRIPTION_ELEMENT.equals(reader.getLocalName())) {
+        skipElement(reader);
+        continue;
+      }
+      target.add(parseValueElement(state, defaults, bd));
+    }
+  }
+
+  private ManagedMap<Object, Object> parseMapElement(ParseState state, BeansDefaults defaults,
+                                                     AbstractBeanDefinition bd) throws XMLStreamException {
+
+    XMLStreamReader reader = state.reader;
+    ManagedMap<Object, Object> map = new ManagedMap<Object, Object>();
+    map.setKeyTypeName(attribute(reader, "key-type"));
+    map.setValueTypeName(attribute(reader, "value-type"));
+    map.setMergeEnabled(TRUE_VALUE.equals(attribute(reader, "merge")));
+
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      String name = reader.getLocalName();
+      if (DESCRIPTION_ELEMENT.equals(name)) {
+        skipElement(reader);
+        continue;
+      }
+      if (!"entry".equals(name)) {
+        throw error(state, "Unexpected element <" + name + "> in <map>");
+      }
+      String keyAttr = attribute(reader, "key");
+      String keyRefAttr = attribute(reader, "key-ref");
+      String valueAttr = attribute(reader, "value");
+      String valueRefAttr = attribute(reader, "value-ref");
+      if (keyAttr != null && keyRefAttr != null) {
+        throw error(state, "<entry> element is only allowed to contain either a 'key' attribute OR a 'key-ref' attribute");
+      }
+      if (valueAttr != null && valueRefAttr != null) {
+        throw error(state, "<entry> element is only allowed to contain either 'value' attribute OR 'value-ref' attribute");
+      }
+      Object key = (keyAttr != null ? new TypedStringValue(keyAttr) :
+              keyRefAttr != null ? new RuntimeBeanReference(keyRefAttr) : null);
+      Object value = (valueAttr != null ? new TypedStringValue(valueAttr) :
+              valueRefAttr != null ? new RuntimeBeanReference(valueRefAttr) : null);
+
+      while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+        if ("key".equals(reader.getLocalName())) {
+          if (key != null) {
+            throw error(state, "<entry> element must not contain both a key attribute and a <key> sub-element");
+          }
+          if (reader.nextTag() != XMLStreamConstants.START_ELEMENT) {
+            throw error(state, "<key> element must contain a value element");
+          }
+          key = parseValueElement(state, defaults, bd);
+          if (reader.nextTag() != XMLStreamConstants.END_ELEMENT) {
+            throw error(state, "<key> element must not contain more than one value element");
+          }
+        }
+        else if (DESCRIPTION_ELEMENT.equals(reader.getLocalName())) {
+          skipElement(reader);
+        }
+        else {
+          if (value != null) {
+            throw error(state, "<entry> element must not contain more than one value, " +
+                    "nor both a value attribute and a value sub-element");
+          }
+          value = parseValueElement(state, defaults, bd);
+        }
+      }
+      if (key == null) {
+        throw error(state, "<entry> element must specify a key");
+      }
+      if (value == null) {
+        throw error(state, "<entry> element must specify a value");
+      }
+      map.put(key, value);
+    }
+    return map;
+  }
+
+
+  //---------------------------------------------------------------------
+  // Helpers
+  //---------------------------------------------------------------------
+
+  private boolean isProfileAccepted(String profile) {
+    boolean accepted = acceptsProfile(profile);
+    this.evaluatedProfiles.put(profile, accepted);
+    return accepted;
+  }
+
+  private static boolean isBeansNamespace(XMLStreamReader reader) {
+    String namespaceUri = reader.getNamespaceURI();
+    return (!StringUtils.hasLength(namespaceUri) || BEANS_NAMESPACE_URI.equals(namespaceUri));
+  }
+
+  private static boolean isBeansElement(XMLStreamReader reader, String localName) {
+    return (isBeansNamespace(reader) && localName.equals(reader.getLocalName()));
+  }
+
+  /**
+   * Return the value of the given unqualified attribute of the current element,
+   * or {@code null} if not present.
+   */
+  private static String attribute(XMLStreamReader reader, String name) {
+    return reader.getAttributeValue(null, name);
+  }
+
+  /**
+   * Skip the current element including all of its content, positioned at
+   * its start tag. Leaves the reader at its end tag.
+   */
+  static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      }
+      else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  private static int lineNumberOf(Location location) {
+    return (location != null ? location.getLineNumber() : -1);
+  }
+
+  private static BeanDefinitionStoreException error(ParseState state, String msg) {
+    return new BeanDefinitionStoreException(state.resource.getDescription(),
+            "Line " + lineNumberOf(state.reader.getLocation()) + " in XML document from " + state.resource +
+                    ": " + msg);
+  }
+
+
+  /**
+   * State of reading a single document.
+   */
+  private static class ParseState {
+
+    final Resource resource;
+
+    final XMLStreamReader reader;
+
+    /** The registry to register with: the target registry, or a deferring one */
+    final BeanDefinitionRegistry registry;
+
+    /** Bean names and aliases used in this document so far */
+    final Set<String> usedNames = new LinkedHashSet<String>();
+
+    int beanDefinitionCount;
+
+    public ParseState(Resource resource, XMLStreamReader reader, BeanDefinitionRegistry registry) {
+      this.resource = resource;
+      this.reader = reader;
+      this.registry = registry;
+    }
+  }
+
+
+  /**
+   * Defaults of a {@code <beans>} element, inherited by nested ones.
+   */
+  private static class BeansDefaults {
+
+    final String lazyInit;
+
+    final String autowire;
+
+    final String initMethod;
+
+    final String destroyMethod;
+
+    public BeansDefaults(BeansDefaults parent, XMLStreamReader reader) {
+      this.lazyInit = inherit(parent != null ? parent.lazyInit : "false", attribute(reader, "default-lazy-init"));
+      this.autowire = inherit(parent != null ? parent.autowire : "no", attribute(reader, "default-autowire"));
+      this.initMethod = inherit(parent != null ? parent.initMethod : null, attribute(reader, "default-init-method"));
+      this.destroyMethod = inherit(parent != null ? parent.destroyMethod : null,
+              attribute(reader, "default-destroy-method"));
+    }
+
+    private static String inherit(String parentValue, String value) {
+      return (value == null || DEFAULT_VALUE.equals(value) ? parentValue : value);
+    }
+  }
+
 }
@@ -0,0 +1,150 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: ClassPathBeanDefinitionScanner.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/18
+ */
+
+package lee.springframework.context.annotation;
+
+import lee.springframework.beans.factory.cofnig.BeanDefinition;
+import lee.springframework.beans.factory.support.BeanDefinitionRegistry;
+import lee.springframework.core.annotation.AnnotationUtils;
+import lee.springframework.core.io.ResourceLoader;
+import lee.springframework.stereotype.Component;
+import lee.springframework.util.Assert;
+import lee.springframework.util.ClassUtils;
+import lee.springframework.util.ObjectUtils;
+import lee.springframework.util.StringUtils;
+
+import java.beans.Introspector;
+import java.lang.annotation.Annotation;
+
+/**
+ * A bean definition scanner that detects bean candidates on the classpath,
+ * registering corresponding bean definitions with a given registry
+ * ({@code BeanFactory} or {@code ApplicationContext}).
+ * 扫描候选组件并注册到BeanDefinitionRegistry
+ *
+ * <p>Candidate classes are detected through the component index if
+ * available, see {@link ClassPathScanningCandidateComponentProvider}.
+ *
+ * <p>Bean names are taken from the {@code value} of the {@link Component @Component}
+ * stereotype annotation if specified, and derived from the short class name
+ * otherwise ("myService" for "com.example.MyService").
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-18 10:30
+ * @lastdate:
+ * @see ComponentScanBeanDefinitionParser
+ */
+public class ClassPathBeanDefinitionScanner extends ClassPathScanningCandidateComponentProvider {
+
+  private final BeanDefinitionRegistry registry;
+
+
+  /**
+   * Create a new {@code ClassPathBeanDefinitionScanner} for the given bean factory.
+   * <p>If the passed-in bean factory does not only implement the
+   * {@code BeanDefinitionRegistry} interface but also the {@code ResourceLoader}
+   * interface, it will be used as default {@code ResourceLoader} as well. This will
+   * usually be the case for {@link lee.springframework.context.ApplicationContext}
+   * implementations.
+   * @param registry the {@code BeanFactory} to load bean definitions into, in the form
+   * of a {@code BeanDefinitionRegistry}
+   */
+  public ClassPathBeanDefinitionScanner(BeanDefinitionRegistry registry) {
+    this(registry, (registry instanceof ResourceLoader ? (ResourceLoader) registry : null));
+  }
+
+  /**
+   * Create a new {@code ClassPathBeanDefinitionScanner} for the given bean factory
+   * and resource loader.
+   * @param registry the {@code BeanFactory} to load bean definitions into, in the form
+   * of a {@code BeanDefinitionRegistry}
+   * @param resourceLoader the resource loader to use,
+   * or {@code null} for a default one
+   */
+  public ClassPathBeanDefinitionScanner(BeanDefinitionRegistry registry, ResourceLoader resourceLoader) {
+    super(resourceLoader);
+    Assert.notNull(registry, "BeanDefinitionRegistry must not be null");
+    this.registry = registry;
+  }
+
+
+  /**
+   * Return the BeanDefinitionRegistry that this scanner operates on.
+   */
+  public final BeanDefinitionRegistry getRegistry() {
+    return this.registry;
+  }
+
+  /**
+   * Perform a scan within the specified base packages.
+   * @param basePackages the packages to check for annotated classes
+   * @return number of beans registered
+   */
+  public int scan(String... basePackages) {
+    Assert.notEmpty(basePackages, "At least one base package must be specified");
+    int count = 0;
+    for (String basePackage : basePackages) {
+      for (BeanDefinition candidate : findCandidateComponents(basePackage)) {
+        String beanName = generateBeanName(candidate);
+        if (checkCandidate(beanName, candidate)) {
+          this.registry.registerBeanDefinition(beanName, candidate);
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Derive a bean name for the given candidate component: the {@code value}
+   * of its {@code @Component} stereotype annotation, or else the decapitalized
+   * short class name.
+   * @param candidate the candidate bean definition
+   * @return the bean name
+   */
+  protected String generateBeanName(BeanDefinition candidate) {
+    Class<?> beanClass = ClassUtils.resolveClassName(candidate.getBeanClassName(), getResourceLoader().getClassLoader());
+    for (Annotation annotation : beanClass.getDeclaredAnnotations()) {
+      Class<? extends Annotation> annotationType = annotation.annotationType();
+      if (annotationType == Component.class ||
+              AnnotationUtils.isAnnotationMetaPresent(annotationType, Component.class)) {
+        Object value = AnnotationUtils.getValue(annotation);
+        if (value instanceof String && StringUtils.hasLength((String) value)) {
+          return (String) value;
+        }
+      }
+    }
+    return Introspector.decapitalize(ClassUtils.getShortName(beanClass));
+  }
+
+  /**
+   * Check the given candidate's bean name, determining whether the corresponding
+   * bean definition needs to be registered or conflicts with an existing definition.
+   * @param beanName the suggested name for the bean
+   * @param candidate the candidate bean definition
+   * @return {@code true} if the bean can be registered as-is;
+   * {@code false} if it should be skipped because there is an
+   * existing, compatible bean definition for the specified name
+   * @throws IllegalStateException if an existing, incompatible
+   * bean definition has been found for the specified name
+   */
+  protected boolean checkCandidate(String beanName, BeanDefinition candidate) throws IllegalStateException {
+    if (!this.registry.containsBeanDefinition(beanName)) {
+      return true;
+    }
+    BeanDefinition existingDef = this.registry.getBeanDefinition(beanName);
+    if (ObjectUtils.nullSafeEquals(existingDef.getBeanClassName(), candidate.getBeanClassName())) {
+      // Typically the same package scanned twice.
+      return false;
+    }
+    throw new IllegalStateException("Annotation-specified bean name '" + beanName +
+            "' for bean class [" + candidate.getBeanClassName() + "] conflicts with existing, " +
+            "non-compatible bean definition of same name and class [" + existingDef.getBeanClassName() + "]");
+  }
+
+}
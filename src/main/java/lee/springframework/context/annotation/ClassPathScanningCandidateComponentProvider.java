@@ -0,0 +1,334 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: ClassPathScanningCandidateComponentProvider.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/18
+ */
+
+package lee.springframework.context.annotation;
+
+import lee.springframework.beans.factory.BeanDefinitionStoreException;
+import lee.springframework.beans.factory.cofnig.BeanDefinition;
+import lee.springframework.beans.factory.support.GenericBeanDefinition;
+import lee.springframework.context.index.CandidateComponentsIndex;
+import lee.springframework.context.index.CandidateComponentsIndexLoader;
+import lee.springframework.core.annotation.AnnotationUtils;
+import lee.springframework.core.io.ResourceLoader;
+import lee.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import lee.springframework.core.io.support.ResourcePatternResolver;
+import lee.springframework.core.type.classreading.ClassFileHeader;
+import lee.springframework.core.type.classreading.ClassFileScanner;
+import lee.springframework.stereotype.Component;
+import lee.springframework.stereotype.Indexed;
+import lee.springframework.util.Assert;
+import lee.springframework.util.ClassUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A component provider that provides candidate components from a base package.
+ * 从基础包中查找候选组件：优先使用编译期生成的组件索引，没有索引时扫描类路径
+ *
+ * <p>Can use the {@link CandidateComponentsIndex component index} if it is
+ * available, and scans the classpath otherwise. Candidate components are
+ * identified by include annotations, {@link Component @Component} by default;
+ * meta-annotations are honored, so {@code @Component}-annotated stereotype
+ * annotations identify components as well.
+ *
+ * <p>The index is only used if all include annotations are
+ * {@link Indexed @Indexed}: otherwise it cannot be complete. With the index,
+ * only the listed candidate classes are loaded, without walking any directory
+ * or jar file. Without it, the class files are parsed in parallel by a
+ * {@link ClassFileScanner}, and again only candidate classes are loaded.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-18 10:05
+ * @lastdate:
+ * @see CandidateComponentsIndexLoader
+ * @see ClassFileScanner
+ * @see ClassPathBeanDefinitionScanner
+ */
+public class ClassPathScanningCandidateComponentProvider {
+
+  protected final Log logger = LogFactory.getLog(getClass());
+
+  private final List<Class<? extends Annotation>> includeAnnotations = new ArrayList<Class<? extends Annotation>>();
+
+  private ResourcePatternResolver resourcePatternResolver;
+
+  private CandidateComponentsIndex componentsIndex;
+
+  private ClassFileScanner classFileScanner = new ClassFileScanner();
+
+  /** Annotation type name -> whether it is, or is meta-annotated with, an include annotation */
+  private final Map<String, Boolean> includeAnnotationTypeCache = new ConcurrentHashMap<String, Boolean>(64);
+
+
+  /**
+   * Create a ClassPathScanningCandidateComponentProvider with a default
+   * {@link PathMatchingResourcePatternResolver}, including {@link Component @Component}
+   * annotated classes.
+   */
+  public ClassPathScanningCandidateComponentProvider() {
+    this(null);
+  }
+
+  /**
+   * Create a ClassPathScanningCandidateComponentProvider for the given
+   * resource loader, including {@link Component @Component} annotated classes.
+   * @param resourceLoader the resource loader to scan with,
+   * or {@code null} for a default {@link PathMatchingResourcePatternResolver}
+   */
+  public ClassPathScanningCandidateComponentProvider(ResourceLoader resourceLoader) {
+    this.includeAnnotations.add(Component.class);
+    setResourceLoader(resourceLoader);
+  }
+
+
+  /**
+   * Set the {@link ResourceLoader} to use for resource locations.
+   * This will typically be a {@link ResourcePatternResolver} implementation.
+   * <p>Default is a {@code PathMatchingResourcePatternResolver}, also capable of
+   * resource pattern resolving through the {@code ResourcePatternResolver} interface.
+   * <p>Also (re)loads the component index through the class loader of the
+   * given resource loader.
+   */
+  public void setResourceLoader(ResourceLoader resourceLoader) {
+    if (resourceLoader instanceof ResourcePatternResolver) {
+      this.resourcePatternResolver = (ResourcePatternResolver) resourceLoader;
+    }
+    else if (resourceLoader != null) {
+      this.resourcePatternResolver = new PathMatchingResourcePatternResolver(resourceLoader);
+    }
+    else {
+      this.resourcePatternResolver = new PathMatchingResourcePatternResolver();
+    }
+    this.componentsIndex = CandidateComponentsIndexLoader.loadIndex(this.resourcePatternResolver.getClassLoader());
+  }
+
+  /**
+   * Return the ResourceLoader that this component provider uses.
+   */
+  public final ResourceLoader getResourceLoader() {
+    return this.resourcePatternResolver;
+  }
+
+  /**
+   * Set the scanner reading the class files of a package when there is no
+   * component index, e.g. one parsing on a dedicated ForkJoinPool.
+   * <p>Default is a {@link ClassFileScanner} on the common pool.
+   */
+  public void setClassFileScanner(ClassFileScanner classFileScanner) {
+    Assert.notNull(classFileScanner, "ClassFileScanner must not be null");
+    this.classFileScanner = classFileScanner;
+  }
+
+  /**
+   * Add an annotation identifying candidate components, in addition to
+   * {@link Component @Component}.
+   * @param annotationType the annotation type
+   */
+  public void addIncludeAnnotation(Class<? extends Annotation> annotationType) {
+    Assert.notNull(annotationType, "Annotation type must not be null");
+    this.includeAnnotations.add(annotationType);
+    this.includeAnnotationTypeCache.clear();
+  }
+
+  /**
+   * Reset the include annotations to just {@link Component @Component}.
+   */
+  public void resetIncludeAnnotations() {
+    this.includeAnnotations.clear();
+    this.includeAnnotations.add(Component.class);
+    this.includeAnnotationTypeCache.clear();
+  }
+
+
+  /**
+   * Scan the class path for candidate components.
+   * @param basePackage the package to check for annotated classes
+   * @return a corresponding Set of autodetected bean definitions,
+   * in a stable order: by class name
+   */
+  public Set<BeanDefinition> findCandidateComponents(String basePackage) {
+    Assert.hasText(basePackage, "Base package must not be empty");
+    Set<String> candidateTypes;
+    if (this.componentsIndex != null && indexSupportsIncludeAnnotations()) {
+      candidateTypes = getCandidateTypesFromIndex(this.componentsIndex, basePackage);
+    }
+    else {
+      candidateTypes = scanCandidateTypes(basePackage);
+    }
+
+    Set<BeanDefinition> candidates = new LinkedHashSet<BeanDefinition>();
+    ClassLoader classLoader = getClassLoader();
+    for (String typeName : candidateTypes) {
+      Class<?> candidateClass;
+      try {
+        candidateClass = ClassUtils.forName(typeName, classLoader);
+      }
+      catch (Throwable ex) {
+        // Typically a class with an optional dependency that is not present.
+        if (logger.isDebugEnabled()) {
+          logger.debug("Ignored candidate class [" + typeName + "] that could not be loaded: " + ex);
+        }
+        continue;
+      }
+      if (isCandidateComponent(candidateClass)) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Identified candidate component class: " + typeName);
+        }
+        candidates.add(createBeanDefinition(candidateClass));
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * Determine if the index can be used by this instance: only if every
+   * include annotation is a stereotype of the index.
+   */
+  private boolean indexSupportsIncludeAnnotations() {
+    for (Class<? extends Annotation> annotationType : this.includeAnnotations) {
+      if (AnnotationUtils.getAnnotation(annotationType, Indexed.class) == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Set<String> getCandidateTypesFromIndex(CandidateComponentsIndex index, String basePackage) {
+    Set<String> types = new TreeSet<String>();
+    for (Class<? extends Annotation> annotationType : this.includeAnnotations) {
+      types.addAll(index.getCandidateTypes(basePackage, annotationType.getName()));
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug("Using component index for package '" + basePackage + "': " + types.size() + " candidate(s)");
+    }
+    return types;
+  }
+
+  /**
+   * Fallback without index: read the headers of all class files in the given
+   * package and its sub-packages, keeping the concrete, independent classes
+   * carrying an include annotation. Only the types of the annotations found
+   * are loaded, not the scanned classes themselves.
+   * @param basePackage the package to scan
+   * @return the names of the candidate classes, sorted
+   */
+  protected Set<String> scanCandidateTypes(String basePackage) {
+    List<ClassFileHeader> headers;
+    try {
+      headers = this.classFileScanner.scan(this.resourcePatternResolver, basePackage);
+    }
+    catch (IOException ex) {
+      throw new BeanDefinitionStoreException("I/O failure during classpath scanning of package '" +
+              basePackage + "'", ex);
+    }
+    Set<String> types = new TreeSet<String>();
+    for (ClassFileHeader header : headers) {
+      if (header.isConcrete() && header.isIndependent() && hasIncludeAnnotation(header)) {
+        types.add(header.getClassName());
+      }
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug("Scanned package '" + basePackage + "' without " +
+              CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION + ": " + headers.size() +
+              " class(es), " + types.size() + " candidate(s)");
+    }
+    return types;
+  }
+
+  private boolean hasIncludeAnnotation(ClassFileHeader header) {
+    for (String annotationType : header.getAnnotationTypes()) {
+      Boolean include = this.includeAnnotationTypeCache.get(annotationType);
+      if (include == null) {
+        include = isIncludeAnnotationType(annotationType);
+        this.includeAnnotationTypeCache.put(annotationType, include);
+      }
+      if (include) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @SuppressWarnings("unchecked")
+  private boolean isIncludeAnnotationType(String annotationTypeName) {
+    Class<?> annotationType;
+    try {
+      annotationType = ClassUtils.forName(annotationTypeName, getClassLoader());
+    }
+    catch (Throwable ex) {
+      // An annotation that is not present at runtime cannot mark a component.
+      return false;
+    }
+    if (!annotationType.isAnnotation()) {
+      return false;
+    }
+    for (Class<? extends Annotation> includeAnnotation : this.includeAnnotations) {
+      if (annotationType == includeAnnotation || AnnotationUtils.isAnnotationMetaPresent(
+              (Class<? extends Annotation>) annotationType, includeAnnotation)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Determine whether the given class is a candidate component: a concrete,
+   * independent class carrying one of the include annotations, directly or
+   * as meta-annotation.
+   * @param candidateClass the class to check
+   * @return whether the class qualifies as a candidate component
+   */
+  protected boolean isCandidateComponent(Class<?> candidateClass) {
+    int modifiers = candidateClass.getModifiers();
+    if (candidateClass.isInterface() || candidateClass.isAnnotation() || Modifier.isAbstract(modifiers)) {
+      return false;
+    }
+    if (candidateClass.getEnclosingClass() != null && !Modifier.isStatic(modifiers)) {
+      // Inner class: cannot be instantiated on its own.
+      return false;
+    }
+    for (Annotation annotation : candidateClass.getDeclaredAnnotations()) {
+      for (Class<? extends Annotation> includeAnnotation : this.includeAnnotations) {
+        if (annotation.annotationType() == includeAnnotation ||
+                AnnotationUtils.isAnnotationMetaPresent(annotation.annotationType(), includeAnnotation)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Create the bean definition for the given candidate component class.
+   * @param candidateClass the candidate component class
+   * @return the bean definition
+   */
+  protected BeanDefinition createBeanDefinition(Class<?> candidateClass) {
+    GenericBeanDefinition beanDefinition = new GenericBeanDefinition();
+    beanDefinition.setBeanClass(candidateClass);
+    beanDefinition.setSource(candidateClass);
+    return beanDefinition;
+  }
+
+  private ClassLoader getClassLoader() {
+    ClassLoader classLoader = this.resourcePatternResolver.getClassLoader();
+    return (classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader());
+  }
+
+}
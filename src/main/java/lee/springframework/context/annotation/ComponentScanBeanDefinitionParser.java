@@ -0,0 +1,143 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: ComponentScanBeanDefinitionParser.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/18
+ */
+
+package lee.springframework.context.annotation;
+
+import lee.springframework.beans.factory.BeanDefinitionStoreException;
+import lee.springframework.beans.factory.support.BeanDefinitionRegistry;
+import lee.springframework.beans.factory.xml.StaxElementParser;
+import lee.springframework.core.io.Resource;
+import lee.springframework.core.io.ResourceLoader;
+import lee.springframework.util.ClassUtils;
+import lee.springframework.util.StringUtils;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser for the {@code <context:component-scan/>} element.
+ * 解析 {@code <context:component-scan/>}，通过组件索引（或类路径扫描）注册组件
+ *
+ * <p>Supports the {@code base-package} attribute (comma, semicolon or
+ * whitespace separated) and nested {@code <context:include-filter type="annotation"/>}
+ * elements adding include annotations; the component index is used only if
+ * all of them are {@link lee.springframework.stereotype.Indexed @Indexed}.
+ * Other filter types are rejected rather than silently ignored.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-18 10:50
+ * @lastdate:
+ * @see lee.springframework.beans.factory.xml.XmlBeanDefinitionReader#registerElementParser
+ * @see ClassPathBeanDefinitionScanner
+ */
+public class ComponentScanBeanDefinitionParser implements StaxElementParser {
+
+  public static final String CONTEXT_NAMESPACE_URI = "http://www.springframework.org/schema/context";
+
+  private static final String COMPONENT_SCAN_ELEMENT = "component-scan";
+
+  private static final String BASE_PACKAGE_ATTRIBUTE = "base-package";
+
+  private static final String INCLUDE_FILTER_ELEMENT = "include-filter";
+
+  private static final String FILTER_TYPE_ATTRIBUTE = "type";
+
+  private static final String FILTER_EXPRESSION_ATTRIBUTE = "expression";
+
+  private static final String ANNOTATION_FILTER_TYPE = "annotation";
+
+  private final ResourceLoader resourceLoader;
+
+
+  /**
+   * Create a new ComponentScanBeanDefinitionParser that scans through the
+   * registry if it is a ResourceLoader, or a default resource loader.
+   */
+  public ComponentScanBeanDefinitionParser() {
+    this(null);
+  }
+
+  /**
+   * Create a new ComponentScanBeanDefinitionParser for the given resource loader.
+   * @param resourceLoader the resource loader to scan with (typically the
+   * application context), or {@code null} for a default
+   */
+  public ComponentScanBeanDefinitionParser(ResourceLoader resourceLoader) {
+    this.resourceLoader = resourceLoader;
+  }
+
+
+  @Override
+  public int parse(XMLStreamReader reader, BeanDefinitionRegistry registry, Resource resource)
+          throws XMLStreamException {
+
+    if (!COMPONENT_SCAN_ELEMENT.equals(reader.getLocalName())) {
+      throw error(reader, resource, "Unsupported element <context:" + reader.getLocalName() + ">");
+    }
+    String basePackage = reader.getAttributeValue(null, BASE_PACKAGE_ATTRIBUTE);
+    if (!StringUtils.hasText(basePackage)) {
+      throw error(reader, resource, "Attribute '" + BASE_PACKAGE_ATTRIBUTE + "' is required");
+    }
+    String[] basePackages = StringUtils.tokenizeToStringArray(basePackage, ",; \t\n");
+
+    ClassPathBeanDefinitionScanner scanner = (this.resourceLoader != null ?
+            new ClassPathBeanDefinitionScanner(registry, this.resourceLoader) :
+            new ClassPathBeanDefinitionScanner(registry));
+    for (Class<? extends Annotation> includeAnnotation : parseIncludeFilters(reader, resource, scanner)) {
+      scanner.addIncludeAnnotation(includeAnnotation);
+    }
+    return scanner.scan(basePackages);
+  }
+
+  /**
+   * Read the nested filter elements, leaving the reader at the end tag of
+   * the component-scan element.
+   */
+  @SuppressWarnings("unchecked")
+  private List<Class<? extends Annotation>> parseIncludeFilters(XMLStreamReader reader, Resource resource,
+                                                               ClassPathBeanDefinitionScanner scanner)
+          throws XMLStreamException {
+
+    List<Class<? extends Annotation>> includeAnnotations = new ArrayList<Class<? extends Annotation>>();
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      String type = reader.getAttributeValue(null, FILTER_TYPE_ATTRIBUTE);
+      String expression = reader.getAttributeValue(null, FILTER_EXPRESSION_ATTRIBUTE);
+      if (!INCLUDE_FILTER_ELEMENT.equals(reader.getLocalName()) || !ANNOTATION_FILTER_TYPE.equals(type)) {
+        throw error(reader, resource, "Unsupported filter <context:" + reader.getLocalName() +
+                " type=\"" + type + "\">: only annotation include filters are supported");
+      }
+      Class<?> annotationType;
+      try {
+        annotationType = ClassUtils.forName(expression.trim(), scanner.getResourceLoader().getClassLoader());
+      }
+      catch (Throwable ex) {
+        throw error(reader, resource, "Include filter annotation [" + expression + "] cannot be loaded: " + ex);
+      }
+      if (!annotationType.isAnnotation()) {
+        throw error(reader, resource, "Include filter [" + expression + "] is not an annotation type");
+      }
+      includeAnnotations.add((Class<? extends Annotation>) annotationType);
+      // Filter elements have no content.
+      reader.nextTag();
+    }
+    return includeAnnotations;
+  }
+
+  private static BeanDefinitionStoreException error(XMLStreamReader reader, Resource resource, String msg) {
+    Location location = reader.getLocation();
+    return new BeanDefinitionStoreException(resource.getDescription(),
+            "Line " + (location != null ? location.getLineNumber() : -1) + " in XML document from " + resource +
+                    ": " + msg);
+  }
+
+}
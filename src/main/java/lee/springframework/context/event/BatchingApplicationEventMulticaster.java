@@ -0,0 +1,527 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: BatchingApplicationEventMulticaster.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.context.event;
+
+import lee.springframework.beans.factory.BeanFactory;
+import lee.springframework.beans.factory.DisposableBean;
+import lee.springframework.context.ApplicationEvent;
+import lee.springframework.context.ApplicationListener;
+import lee.springframework.core.ResolvableType;
+import lee.springframework.util.Assert;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link RoutingApplicationEventMulticaster} that hands events over to a bounded
+ * queue per listener and returns to the publisher right away; events are
+ * delivered in batches on a background executor.
+ *
+ * <p>Each listener is served by at most one drainer at a time, so every
+ * listener receives its events in publication order, while different
+ * listeners are served independently of each other. A drainer delivers up to
+ * {@link #setBatchSize batchSize} events before yielding its executor thread.
+ *
+ * <p>When a listener queue is full, the {@link BackpressurePolicy} decides:
+ * block the publisher until there is room, drop the event, or let the
+ * publisher deliver the pending events for that listener itself. A listener
+ * that publishes an event to itself while its queue is full delivers the
+ * queued events and then the new one right away: waiting for room would
+ * wait for the listener itself.
+ *
+ * <p>A thread that is delivering events never blocks on a full queue, whatever
+ * the policy: blocking drainers could wait for each other's queues, or use up
+ * the delivery executor. It delivers the pending events for that listener
+ * itself instead, or, if another thread is draining that listener right now,
+ * the new event only: such an event may overtake events queued before it.
+ *
+ * <p>A listener's queue is discarded once it has been drained, so that
+ * listener instances that come and go do not accumulate queues.
+ *
+ * <p>Errors thrown by listeners are passed to the {@link #setErrorHandler
+ * ErrorHandler} if set, and logged otherwise: they never reach the publisher.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 18:10
+ * @lastdate: 2026-10-18
+ */
+public class BatchingApplicationEventMulticaster extends RoutingApplicationEventMulticaster implements DisposableBean {
+
+  /**
+   * What to do with an event if the queue of a listener is full.
+   */
+  public enum BackpressurePolicy {
+
+    /** Block the publisher until there is room in the queue */
+    BLOCK,
+
+    /** Drop the event for that listener */
+    DROP,
+
+    /** Let the publisher deliver the queued events and the new one itself */
+    CALLER_RUNS
+  }
+
+
+  public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+  public static final int DEFAULT_BATCH_SIZE = 64;
+
+  private static final Log logger = LogFactory.getLog(BatchingApplicationEventMulticaster.class);
+
+  /** The queue the current thread is delivering events from, if any */
+  private static final ThreadLocal<ListenerQueue> currentDeliveryQueue = new ThreadLocal<ListenerQueue>();
+
+  private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+  private int batchSize = DEFAULT_BATCH_SIZE;
+
+  private BackpressurePolicy backpressurePolicy = BackpressurePolicy.BLOCK;
+
+  private Executor deliveryExecutor;
+
+  /** Executor created on demand if none has been specified; shut down on destroy */
+  private ExecutorService defaultExecutor;
+
+  /** Queues per listener, for as long as events are queued or being published */
+  private final ConcurrentMap<ApplicationListener<?>, ListenerQueue> listenerQueues =
+          new ConcurrentHashMap<ApplicationListener<?>, ListenerQueue>(64);
+
+  private final AtomicLong droppedEventCount = new AtomicLong();
+
+  private volatile boolean active = true;
+
+
+  /**
+   * Create a new BatchingApplicationEventMulticaster.
+   */
+  public BatchingApplicationEventMulticaster() {
+  }
+
+  /**
+   * Create a new BatchingApplicationEventMulticaster for the given BeanFactory.
+   */
+  public BatchingApplicationEventMulticaster(BeanFactory beanFactory) {
+    super(beanFactory);
+  }
+
+
+  /**
+   * Set the capacity of the event queue per listener. Default is 1024.
+   */
+  public void setQueueCapacity(int queueCapacity) {
+    Assert.isTrue(queueCapacity > 0, "'queueCapacity' must be positive");
+    this.queueCapacity = queueCapacity;
+  }
+
+  public int getQueueCapacity() {
+    return this.queueCapacity;
+  }
+
+  /**
+   * Set the maximum number of events delivered to a listener in one go
+   * before its drainer yields the executor thread. Default is 64.
+   */
+  public void setBatchSize(int batchSize) {
+    Assert.isTrue(batchSize > 0, "'batchSize' must be positive");
+    this.batchSize = batchSize;
+  }
+
+  public int getBatchSize() {
+    return this.batchSize;
+  }
+
+  /**
+   * Set what to do with an event if the queue of a listener is full.
+   * Default is {@link BackpressurePolicy#BLOCK}.
+   */
+  public void setBackpressurePolicy(BackpressurePolicy backpressurePolicy) {
+    Assert.notNull(backpressurePolicy, "BackpressurePolicy must not be null");
+    this.backpressurePolicy = backpressurePolicy;
+  }
+
+  public BackpressurePolicy getBackpressurePolicy() {
+    return this.backpressurePolicy;
+  }
+
+  /**
+   * Set the executor to deliver batches of events on.
+   * <p>Default is a pool of daemon threads, one per available processor,
+   * which gets shut down along with this multicaster.
+   */
+  public void setDeliveryExecutor(Executor deliveryExecutor) {
+    this.deliveryExecutor = deliveryExecutor;
+  }
+
+  /**
+   * Return the number of events dropped so far because of full listener queues.
+   */
+  public long getDroppedEventCount() {
+    return this.droppedEventCount.get();
+  }
+
+
+  @Override
+  public void multicastEvent(ApplicationEvent event, ResolvableType eventType) {
+    if (!this.active) {
+      // Shut down: deliver whatever still gets published synchronously.
+      super.multicastEvent(event, eventType);
+      return;
+    }
+    for (ApplicationListener<?> listener : getRoutedListeners(event, eventType)) {
+      // A queue discarded in the meantime refuses the event: retry with a new one.
+      while (!enqueue(getListenerQueue(listener), event)) {
+        Thread.yield();
+      }
+    }
+  }
+
+  @Override
+  public void removeApplicationListener(ApplicationListener<?> listener) {
+    super.removeApplicationListener(listener);
+    this.listenerQueues.remove(listener);
+  }
+
+  @Override
+  public void removeAllListeners() {
+    super.removeAllListeners();
+    this.listenerQueues.clear();
+  }
+
+  /**
+   * Stop accepting events for asynchronous delivery, deliver the events
+   * still queued, and shut down the default executor if one has been created.
+   */
+  @Override
+  public void destroy() {
+    this.active = false;
+    for (ListenerQueue queue : this.listenerQueues.values()) {
+      queue.drainFully();
+    }
+    synchronized (this.listenerQueues) {
+      if (this.defaultExecutor != null) {
+        this.defaultExecutor.shutdown();
+        try {
+          this.defaultExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+        this.defaultExecutor = null;
+      }
+    }
+  }
+
+
+  private ListenerQueue getListenerQueue(ApplicationListener<?> listener) {
+    ListenerQueue queue = this.listenerQueues.get(listener);
+    if (queue == null) {
+      queue = new ListenerQueue(listener, this.queueCapacity);
+      ListenerQueue existing = this.listenerQueues.putIfAbsent(listener, queue);
+      if (existing != null) {
+        queue = existing;
+      }
+    }
+    return queue;
+  }
+
+  /**
+   * Queue the given event for the listener of the given queue, or deliver it
+   * according to the backpressure policy if the queue is full.
+   * @return {@code false} if the queue has been discarded, {@code true} otherwise
+   */
+  private boolean enqueue(ListenerQueue queue, ApplicationEvent event) {
+    if (!queue.acquire()) {
+      return false;
+    }
+    try {
+      doEnqueue(queue, event);
+    }
+    finally {
+      queue.release();
+    }
+    return true;
+  }
+
+  private void doEnqueue(ListenerQueue queue, ApplicationEvent event) {
+    if (queue.events.offer(event)) {
+      queue.schedule();
+      return;
+    }
+    if (this.backpressurePolicy == BackpressurePolicy.DROP) {
+      this.droppedEventCount.incrementAndGet();
+      if (logger.isDebugEnabled()) {
+        logger.debug("Dropping event for listener [" + queue.listener + "] - queue is full: " + event);
+      }
+      return;
+    }
+    if (queue.drainerThread == Thread.currentThread()) {
+      // Published by the listener to itself: there won't be room before it returns.
+      queue.deliverQueuedAndThen(event);
+      return;
+    }
+    // Deliver the backlog on the publisher thread, keeping the order for this listener.
+    // If another thread is draining this listener right now, wait for room instead.
+    boolean delivering = (currentDeliveryQueue.get() != null);
+    if ((this.backpressurePolicy == BackpressurePolicy.CALLER_RUNS || delivering) && queue.tryRunOnCaller(event)) {
+      return;
+    }
+    if (delivering) {
+      // Never block a delivering thread: the other drainer might wait for this one.
+      deliver(queue.listener, event);
+      return;
+    }
+    try {
+      queue.events.put(event);
+      queue.schedule();
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting to queue event: " + event, ex);
+    }
+  }
+
+  private Executor getDeliveryExecutor() {
+    if (this.deliveryExecutor != null) {
+      return this.deliveryExecutor;
+    }
+    synchronized (this.listenerQueues) {
+      if (this.defaultExecutor == null) {
+        this.defaultExecutor = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), new DeliveryThreadFactory());
+      }
+      return this.defaultExecutor;
+    }
+  }
+
+  private void deliver(ApplicationListener<?> listener, ApplicationEvent event) {
+    try {
+      invokeListener(listener, event);
+    }
+    catch (Throwable ex) {
+      logger.warn("Listener [" + listener + "] failed to handle event: " + event, ex);
+    }
+  }
+
+
+  /**
+   * Bounded event queue of a single listener, with at most one drainer at a time.
+   * Discarded once idle, i.e. empty with neither a drainer nor a publisher on it.
+   */
+  private class ListenerQueue implements Runnable {
+
+    final ApplicationListener<?> listener;
+
+    final BlockingQueue<ApplicationEvent> events;
+
+    /** Whether a drainer owns this queue, either scheduled or running */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /** The thread currently delivering events from this queue, if any */
+    volatile Thread drainerThread;
+
+    /** Number of publishers currently queueing events; guarded by this queue */
+    private int publishers;
+
+    /** Whether this queue has been discarded; guarded by this queue */
+    private boolean discarded;
+
+    public ListenerQueue(ApplicationListener<?> listener, int capacity) {
+      this.listener = listener;
+      this.events = new ArrayBlockingQueue<ApplicationEvent>(capacity);
+    }
+
+    /**
+     * Register a publisher about to queue an event.
+     * @return {@code false} if this queue has been discarded already
+     */
+    public synchronized boolean acquire() {
+      if (this.discarded) {
+        return false;
+      }
+      this.publishers++;
+      return true;
+    }
+
+    public void release() {
+      synchronized (this) {
+        this.publishers--;
+      }
+      discardIfIdle();
+    }
+
+    /**
+     * Remove this queue from the multicaster if nothing is queued, draining
+     * or being published; a later event for the listener gets a new queue.
+     */
+    private void discardIfIdle() {
+      synchronized (this) {
+        if (this.publishers == 0 && !this.draining.get() && this.events.isEmpty()) {
+          this.discarded = true;
+          listenerQueues.remove(this.listener, this);
+        }
+      }
+    }
+
+    /**
+     * Schedule a drainer unless one is scheduled or running already.
+     */
+    public void schedule() {
+      if (this.draining.compareAndSet(false, true)) {
+        try {
+          getDeliveryExecutor().execute(this);
+        }
+        catch (RejectedExecutionException ex) {
+          // Executor shut down or saturated: deliver on the publisher thread.
+          run();
+        }
+      }
+    }
+
+    /**
+     * Deliver one batch, then hand over to a new drainer if events are left.
+     */
+    @Override
+    public void run() {
+      ListenerQueue previousQueue = beginDelivery();
+      try {
+        for (int i = 0; i < getBatchSize(); i++) {
+          ApplicationEvent event = this.events.poll();
+          if (event == null) {
+            break;
+          }
+          deliver(this.listener, event);
+        }
+      }
+      finally {
+        endDelivery(previousQueue);
+      }
+      // Re-check after releasing: events may have been queued in the meantime.
+      if (!this.events.isEmpty()) {
+        schedule();
+      }
+      else {
+        discardIfIdle();
+      }
+    }
+
+    /**
+     * Take over as drainer on the calling thread, delivering all queued events
+     * and then the given one; returns {@code false} if another drainer is active.
+     */
+    public boolean tryRunOnCaller(ApplicationEvent event) {
+      if (!this.draining.compareAndSet(false, true)) {
+        return false;
+      }
+      ListenerQueue previousQueue = beginDelivery();
+      try {
+        deliverQueuedAndThen(event);
+      }
+      finally {
+        endDelivery(previousQueue);
+      }
+      if (!this.events.isEmpty()) {
+        schedule();
+      }
+      return true;
+    }
+
+    /**
+     * Deliver all queued events and then the given one, in that order;
+     * to be called by the current drainer only.
+     */
+    public void deliverQueuedAndThen(ApplicationEvent event) {
+      ApplicationEvent queued;
+      while ((queued = this.events.poll()) != null) {
+        deliver(this.listener, queued);
+      }
+      deliver(this.listener, event);
+    }
+
+    /**
+     * Deliver all queued events on the calling thread, waiting for an active
+     * drainer to finish first.
+     */
+    public void drainFully() {
+      while (!this.events.isEmpty() || this.draining.get()) {
+        if (this.draining.compareAndSet(false, true)) {
+          ListenerQueue previousQueue = beginDelivery();
+          try {
+            ApplicationEvent event;
+            while ((event = this.events.poll()) != null) {
+              deliver(this.listener, event);
+            }
+          }
+          finally {
+            endDelivery(previousQueue);
+          }
+        }
+        else {
+          Thread.yield();
+        }
+      }
+    }
+
+    /**
+     * Mark the current thread as the drainer of this queue, which it owns already.
+     * @return the queue the current thread was delivering from before, if any
+     */
+    private ListenerQueue beginDelivery() {
+      ListenerQueue previousQueue = currentDeliveryQueue.get();
+      currentDeliveryQueue.set(this);
+      this.drainerThread = Thread.currentThread();
+      return previousQueue;
+    }
+
+    /**
+     * Release ownership of this queue, restoring the given queue as the one
+     * the current thread delivers from.
+     */
+    private void endDelivery(ListenerQueue previousQueue) {
+      this.drainerThread = null;
+      this.draining.set(false);
+      if (previousQueue != null) {
+        currentDeliveryQueue.set(previousQueue);
+      }
+      else {
+        currentDeliveryQueue.remove();
+      }
+    }
+  }
+
+
+  /**
+   * Creates named daemon threads for the default delivery executor.
+   */
+  private static class DeliveryThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "event-delivery-" + this.threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
+}
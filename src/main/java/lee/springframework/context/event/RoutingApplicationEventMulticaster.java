@@ -0,0 +1,237 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: RoutingApplicationEventMulticaster.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.context.event;
+
+import lee.springframework.beans.BeansException;
+import lee.springframework.beans.factory.BeanFactory;
+import lee.springframework.context.ApplicationEvent;
+import lee.springframework.context.ApplicationListener;
+import lee.springframework.core.ResolvableType;
+import lee.springframework.core.ResolvableTypeProvider;
+import lee.springframework.util.ClassUtils;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link SimpleApplicationEventMulticaster} that dispatches through a routing
+ * table: for every combination of event type and source type, the matching
+ * listeners are determined once and kept as a pre-sorted array.
+ *
+ * <p>The event type is taken as given by the publisher, falling back to the
+ * event class (or the event's own {@link ResolvableTypeProvider} type).
+ * Publishers that pass a canonical {@link ResolvableType} per event class, as
+ * {@code AbstractApplicationContext} does for payload events, get dispatched
+ * with one table lookup and one array walk, without any allocation.
+ *
+ * <p>The table is discarded whenever listeners or listener beans get added or
+ * removed. Routes are not cached for event or source classes that are not
+ * cache-safe for the bean ClassLoader, nor while any listener bean is not a
+ * singleton, since a new listener instance may be obtained on every lookup.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 19:05
+ * @lastdate:
+ */
+public class RoutingApplicationEventMulticaster extends SimpleApplicationEventMulticaster {
+
+  private static final ApplicationListener<?>[] NO_LISTENERS = new ApplicationListener<?>[0];
+
+  /** The current routing table, replaced as a whole on listener changes */
+  private volatile RoutingTable routingTable = new RoutingTable();
+
+  /** Names of all registered listener beans */
+  private final Set<String> listenerBeanNames = new LinkedHashSet<String>();
+
+  private BeanFactory beanFactory;
+
+  private ClassLoader beanClassLoader;
+
+
+  /**
+   * Create a new RoutingApplicationEventMulticaster.
+   */
+  public RoutingApplicationEventMulticaster() {
+  }
+
+  /**
+   * Create a new RoutingApplicationEventMulticaster for the given BeanFactory.
+   */
+  public RoutingApplicationEventMulticaster(BeanFactory beanFactory) {
+    setBeanFactory(beanFactory);
+  }
+
+
+  @Override
+  public void setBeanFactory(BeanFactory beanFactory) {
+    super.setBeanFactory(beanFactory);
+    this.beanFactory = beanFactory;
+    invalidateRoutes();
+  }
+
+  @Override
+  public void setBeanClassLoader(ClassLoader classLoader) {
+    super.setBeanClassLoader(classLoader);
+    this.beanClassLoader = classLoader;
+    invalidateRoutes();
+  }
+
+  @Override
+  public void addApplicationListener(ApplicationListener<?> listener) {
+    super.addApplicationListener(listener);
+    invalidateRoutes();
+  }
+
+  @Override
+  public void addApplicationListenerBean(String listenerBeanName) {
+    super.addApplicationListenerBean(listenerBeanName);
+    synchronized (this.listenerBeanNames) {
+      this.listenerBeanNames.add(listenerBeanName);
+    }
+    invalidateRoutes();
+  }
+
+  @Override
+  public void removeApplicationListener(ApplicationListener<?> listener) {
+    super.removeApplicationListener(listener);
+    invalidateRoutes();
+  }
+
+  @Override
+  public void removeApplicationListenerBean(String listenerBeanName) {
+    super.removeApplicationListenerBean(listenerBeanName);
+    synchronized (this.listenerBeanNames) {
+      this.listenerBeanNames.remove(listenerBeanName);
+    }
+    invalidateRoutes();
+  }
+
+  @Override
+  public void removeAllListeners() {
+    super.removeAllListeners();
+    synchronized (this.listenerBeanNames) {
+      this.listenerBeanNames.clear();
+    }
+    invalidateRoutes();
+  }
+
+
+  @Override
+  public void multicastEvent(final ApplicationEvent event, ResolvableType eventType) {
+    Executor executor = getTaskExecutor();
+    for (final ApplicationListener<?> listener : getRoutedListeners(event, eventType)) {
+      if (executor != null) {
+        executor.execute(new Runnable() {
+          @Override
+          public void run() {
+            invokeListener(listener, event);
+          }
+        });
+      }
+      else {
+        invokeListener(listener, event);
+      }
+    }
+  }
+
+  /**
+   * Return the listeners for the given event, in invocation order,
+   * from the routing table if possible.
+   * @param event the event to dispatch
+   * @param eventType the event type, or {@code null} to derive it from the event
+   * @return the listeners (never {@code null}; not to be modified)
+   */
+  protected ApplicationListener<?>[] getRoutedListeners(ApplicationEvent event, ResolvableType eventType) {
+    Object routeKey = eventType;
+    if (routeKey == null) {
+      routeKey = (event instanceof ResolvableTypeProvider ? ResolvableType.forInstance(event) : event.getClass());
+    }
+    Class<?> sourceClass = event.getSource().getClass();
+
+    // Routes computed against a table that got replaced meanwhile end up in the discarded table.
+    RoutingTable table = this.routingTable;
+    ConcurrentMap<Class<?>, ApplicationListener<?>[]> routesForType = table.routes.get(routeKey);
+    if (routesForType != null) {
+      ApplicationListener<?>[] listeners = routesForType.get(sourceClass);
+      if (listeners != null) {
+        return listeners;
+      }
+    }
+
+    ResolvableType type = (routeKey instanceof ResolvableType ?
+            (ResolvableType) routeKey : ResolvableType.forInstance(event));
+    ApplicationListener<?>[] listeners = toArray(getApplicationListeners(event, type));
+    if (isRoutable(table) && ClassUtils.isCacheSafe(event.getClass(), this.beanClassLoader) &&
+            ClassUtils.isCacheSafe(sourceClass, this.beanClassLoader)) {
+      if (routesForType == null) {
+        routesForType = new ConcurrentHashMap<Class<?>, ApplicationListener<?>[]>(4);
+        ConcurrentMap<Class<?>, ApplicationListener<?>[]> existing = table.routes.putIfAbsent(routeKey, routesForType);
+        if (existing != null) {
+          routesForType = existing;
+        }
+      }
+      routesForType.put(sourceClass, listeners);
+    }
+    return listeners;
+  }
+
+  /**
+   * Discard the routing table, e.g. after listeners got added or removed.
+   */
+  protected void invalidateRoutes() {
+    this.routingTable = new RoutingTable();
+  }
+
+  private boolean isRoutable(RoutingTable table) {
+    Boolean routable = table.routable;
+    if (routable == null) {
+      routable = Boolean.TRUE;
+      synchronized (this.listenerBeanNames) {
+        for (String listenerBeanName : this.listenerBeanNames) {
+          try {
+            if (this.beanFactory == null || !this.beanFactory.isSingleton(listenerBeanName)) {
+              routable = Boolean.FALSE;
+              break;
+            }
+          }
+          catch (BeansException ex) {
+            // Listener bean not resolvable at this point: do not cache anything.
+            routable = Boolean.FALSE;
+            break;
+          }
+        }
+      }
+      table.routable = routable;
+    }
+    return routable;
+  }
+
+  private static ApplicationListener<?>[] toArray(Collection<ApplicationListener<?>> listeners) {
+    return (listeners.isEmpty() ? NO_LISTENERS : listeners.toArray(new ApplicationListener<?>[listeners.size()]));
+  }
+
+
+  /**
+   * Routing table for one generation of listener registrations.
+   */
+  private static class RoutingTable {
+
+    /** Event type (or event class) -> source class -> sorted listeners */
+    final ConcurrentMap<Object, ConcurrentMap<Class<?>, ApplicationListener<?>[]>> routes =
+            new ConcurrentHashMap<Object, ConcurrentMap<Class<?>, ApplicationListener<?>[]>>(64);
+
+    /** Whether routes may be cached, i.e. whether all listener beans are singletons */
+    volatile Boolean routable;
+  }
+
+}
@@ -0,0 +1,105 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: CandidateComponentsIndex.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/18
+ */
+
+package lee.springframework.context.index;
+
+import lee.springframework.util.LinkedMultiValueMap;
+import lee.springframework.util.MultiValueMap;
+import lee.springframework.util.StringUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Provide access to the candidates that are defined in {@code META-INF/spring.components}.
+ * 组件索引：构造型 -> 候选类名，由编译期生成的索引文件合并而来
+ *
+ * <p>An arbitrary number of stereotypes can be registered (and queried) on the index: a
+ * typical example is the fully qualified name of an annotation that flags the class for
+ * a certain use case. The following call returns all the {@code @Component}
+ * <b>candidate</b> types for the {@code com.example} package (and its sub-packages):
+ * <pre class="code">
+ * Set&lt;String&gt; candidates = index.getCandidateTypes(
+ *         "com.example", "lee.springframework.stereotype.Component");
+ * </pre>
+ *
+ * <p>The {@code type} is usually the fully qualified name of a class, though this is
+ * not a rule. Similarly, the {@code stereotype} is usually the fully qualified name of
+ * a target type but it can be any marker really.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-18 09:20
+ * @lastdate:
+ * @see CandidateComponentsIndexLoader
+ */
+public class CandidateComponentsIndex {
+
+  private final MultiValueMap<String, String> index;
+
+
+  CandidateComponentsIndex(List<Properties> content) {
+    this.index = parseIndex(content);
+  }
+
+
+  /**
+   * Return the candidate types that are associated with the specified stereotype.
+   * @param basePackage the package to check for candidates
+   * @param stereotype the stereotype to use
+   * @return the candidate types associated with the specified {@code stereotype},
+   * sorted by name, or an empty set if none has been found for the specified {@code basePackage}
+   */
+  public Set<String> getCandidateTypes(String basePackage, String stereotype) {
+    List<String> candidates = this.index.get(stereotype);
+    if (candidates == null) {
+      return Collections.emptySet();
+    }
+    String packagePrefix = basePackage + ".";
+    Set<String> result = new TreeSet<String>();
+    for (String type : candidates) {
+      if (type.startsWith(packagePrefix)) {
+        result.add(type);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Return whether the index has an entry for the given stereotype at all.
+   * @param stereotype the stereotype to check
+   */
+  public boolean hasStereotype(String stereotype) {
+    return this.index.containsKey(stereotype);
+  }
+
+  /**
+   * Index files are keyed by stereotype, listing the candidate types of
+   * that stereotype as comma-separated value. The same stereotype usually
+   * appears in the index file of several jars.
+   */
+  private static MultiValueMap<String, String> parseIndex(List<Properties> content) {
+    MultiValueMap<String, String> index = new LinkedMultiValueMap<String, String>();
+    for (Properties entry : content) {
+      for (Map.Entry<Object, Object> stereotype : entry.entrySet()) {
+        String[] types = StringUtils.commaDelimitedListToStringArray((String) stereotype.getValue());
+        for (String type : types) {
+          type = type.trim();
+          if (type.length() > 0) {
+            index.add((String) stereotype.getKey(), type);
+          }
+        }
+      }
+    }
+    return index;
+  }
+
+}
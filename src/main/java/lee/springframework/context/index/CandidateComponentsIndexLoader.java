@@ -0,0 +1,125 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: CandidateComponentsIndexLoader.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/18
+ */
+
+package lee.springframework.context.index;
+
+import lee.springframework.core.io.ClassPathResource;
+import lee.springframework.util.ClassUtils;
+import lee.springframework.util.ConcurrentReferenceHashMap;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Candidate components index loading mechanism for internal use within the framework.
+ * 加载并缓存类路径上所有的组件索引文件
+ *
+ * <p>The index files of all jars are merged. Without any index file on the
+ * class path, or if the {@link #IGNORE_INDEX} system property is set,
+ * {@code null} is returned and callers fall back to classpath scanning.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-18 09:25
+ * @lastdate:
+ */
+public abstract class CandidateComponentsIndexLoader {
+
+  /**
+   * The location to look for components.
+   * <p>Can be present in multiple JAR files.
+   */
+  public static final String COMPONENTS_RESOURCE_LOCATION = "META-INF/spring.components";
+
+  /**
+   * System property that instructs to ignore the index, i.e. to always return
+   * {@code null} from {@link #loadIndex(ClassLoader)}.
+   * <p>The default is "false", allowing for regular use of the index. Switching this
+   * flag to {@code true} fulfills a corner case scenario when an index is partially
+   * available for some libraries (or use cases) but couldn't be built for the whole
+   * application. In this case, the application context fallbacks to a regular
+   * classpath arrangement (i.e. as no index was present at all).
+   */
+  public static final String IGNORE_INDEX = "spring.index.ignore";
+
+  private static final boolean shouldIgnoreIndex = Boolean.getBoolean(IGNORE_INDEX);
+
+  private static final Log logger = LogFactory.getLog(CandidateComponentsIndexLoader.class);
+
+  /** Cache of loaded indexes per class loader; a missing index is cached as empty list */
+  private static final ConcurrentReferenceHashMap<ClassLoader, List<Properties>> cache =
+          new ConcurrentReferenceHashMap<ClassLoader, List<Properties>>();
+
+
+  /**
+   * Load and instantiate the {@link CandidateComponentsIndex} from
+   * {@value #COMPONENTS_RESOURCE_LOCATION}, using the given class loader. If no
+   * index is available, return {@code null}.
+   * @param classLoader the ClassLoader to use for loading (can be {@code null} to use the default)
+   * @return the index to use or {@code null} if no index was found
+   * @throws IllegalArgumentException if any module index cannot
+   * be loaded or if an error occurs while creating {@link CandidateComponentsIndex}
+   */
+  public static CandidateComponentsIndex loadIndex(ClassLoader classLoader) {
+    if (shouldIgnoreIndex) {
+      return null;
+    }
+    ClassLoader classLoaderToUse = classLoader;
+    if (classLoaderToUse == null) {
+      classLoaderToUse = ClassUtils.getDefaultClassLoader();
+      if (classLoaderToUse == null) {
+        classLoaderToUse = ClassLoader.getSystemClassLoader();
+      }
+    }
+    ClassPathResource probe = new ClassPathResource(COMPONENTS_RESOURCE_LOCATION, classLoaderToUse);
+    List<Properties> content = cache.get(classLoaderToUse);
+    if (content == null) {
+      content = doLoadIndex(classLoaderToUse, probe);
+      cache.putIfAbsent(classLoaderToUse, content);
+    }
+    return (content.isEmpty() ? null : new CandidateComponentsIndex(content));
+  }
+
+  private static List<Properties> doLoadIndex(ClassLoader classLoader, ClassPathResource probe) {
+    List<Properties> result = new ArrayList<Properties>();
+    // Cheap check first: without any index file there is nothing to enumerate.
+    if (!probe.exists()) {
+      return result;
+    }
+    try {
+      Enumeration<URL> urls = classLoader.getResources(COMPONENTS_RESOURCE_LOCATION);
+      while (urls.hasMoreElements()) {
+        URL url = urls.nextElement();
+        Properties properties = new Properties();
+        InputStream is = url.openStream();
+        try {
+          properties.load(is);
+        }
+        finally {
+          is.close();
+        }
+        result.add(properties);
+      }
+      if (logger.isDebugEnabled()) {
+        logger.debug("Loaded " + result.size() + " index(es)");
+      }
+      return result;
+    }
+    catch (IOException ex) {
+      throw new IllegalArgumentException("Unable to load indexes from location [" +
+              COMPONENTS_RESOURCE_LOCATION + "]", ex);
+    }
+  }
+
+}
@@ -21,16 +21,30 @@ import lee.springframework.beans.factory.BeanFactory;
 import lee.springframework.beans.factory.NoSuchBeanDefinitionException;
 import lee.springframework.beans.factory.cofnig.AutowireCapableBeanFactory;
 import lee.springframework.beans.factory.cofnig.ConfigurableListableBeanFactory;
+import lee.springframework.beans.factory.support.BeanFactorySnapshot;
+import lee.springframework.beans.factory.support.DefaultListableBeanFactory;
+import lee.springframework.beans.factory.support.DefaultSingletonBeanRegistry;
+import lee.springframework.context.event.BatchingApplicationEventMulticaster;
+import lee.springframework.context.event.RoutingApplicationEventMulticaster;
 import lee.springframework.core.ResolvableType;
+import lee.springframework.core.ResolvableTypeProvider;
 import lee.springframework.core.convert.ConversionService;
+import lee.springframework.core.metrics.ApplicationStartup;
+import lee.springframework.core.metrics.StartupStep;
 import lee.springframework.util.Assert;
+import lee.springframework.util.ConcurrentReferenceHashMap;
 import lee.springframework.util.ObjectUtils;
 import lee.springframework.util.ReflectionUtils;
 import sun.rmi.runtime.Log;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 
@@ -54,7 +68,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * for application events can be supplied as "applicationEventMulticaster" bean
  * of type {@link org.springframework.context.event.ApplicationEventMulticaster}
  * in the context; otherwise, a default multicaster of type
- * {@link org.springframework.context.event.SimpleApplicationEventMulticaster} will be used.
+ * {@link lee.springframework.context.event.RoutingApplicationEventMulticaster} will be used.
  *
  * <p>Implements resource loading through extending
  * {@link org.springframework.core.io.DefaultResourceLoader}.
@@ -98,7 +112,7 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 
   /**
    * Name of the ApplicationEventMulticaster bean in the instantiation.
-   * If none is supplied, a default SimpleApplicationEventMulticaster is used.
+   * If none is supplied, a default RoutingApplicationEventMulticaster is used.
    *
    * @see org.springframework.context.event.ApplicationEventMulticaster
    * @see org.springframework.context.event.SimpleApplicationEventMulticaster
@@ -174,14 +188,76 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
    * MessageSource we delegate our implementation of this interface to
    */
   private MessageSource messageSource;
+  /**
+   * Maximum number of messages to cache in front of the MessageSource; 0 for no cache
+   */
+  private int messageCacheLimit = 0;
+  /**
+   * Number of milliseconds to cache a message for; null for the MessageSource's own cache period
+   */
+  private Long messageCacheMillis;
   /**
    * Helper class used in event publishing
    */
   private ApplicationEventMulticaster applicationEventMulticaster;
   /**
-   * ApplicationEvents published early
+   * ApplicationEvents published early, while still buffering
+   */
+  private EarlyApplicationEventBuffer earlyApplicationEvents;
+  /**
+   * Buffer of the last refresh, kept for its statistics
+   */
+  private EarlyApplicationEventBuffer earlyEventBuffer;
+  /**
+   * Capacity of the early event buffer
+   */
+  private int earlyEventBufferCapacity = EarlyApplicationEventBuffer.DEFAULT_CAPACITY;
+  /**
+   * Number of early events to replay in one batch
+   */
+  private int earlyEventReplayBatchSize = 256;
+  /**
+   * Executor for refresh phases that may run concurrently, if any
+   */
+  private Executor refreshExecutor;
+  /**
+   * Timings of the phases of the last refresh, in order of completion
+   */
+  private final List<RefreshPhaseTiming> refreshPhaseTimings =
+          Collections.synchronizedList(new ArrayList<RefreshPhaseTiming>());
+  /**
+   * Records startup steps during refresh; no-op by default
+   */
+  private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+  /**
+   * Executor to destroy singletons on concurrently on close, if any
+   */
+  private Executor destructionExecutor;
+  /**
+   * Maximum time to wait for the destruction of a single bean on close, in milliseconds
+   */
+  private long destructionTimeout = 0;
+  /**
+   * Names of the beans needed at startup, if initialization of all others is deferred
+   */
+  private String[] deferredInitializationRoots;
+  /**
+   * File to keep a snapshot of the post-processed bean definitions in, if any
+   */
+  private File beanFactorySnapshotFile;
+  /**
+   * Whether the bean factory of the current refresh has been restored from the snapshot
+   */
+  private boolean beanFactorySnapshotRestored;
+  /**
+   * Whether the default multicaster delivers events asynchronously
    */
-  private Set<ApplicationEvent> earlyApplicationEvents;
+  private boolean asyncEventPublishing = false;
+  /**
+   * Event types of PayloadApplicationEvents, keyed by payload class
+   */
+  private final Map<Class<?>, ResolvableType> payloadEventTypeCache =
+          new ConcurrentReferenceHashMap<Class<?>, ResolvableType>(64);
 
 
   /**
@@ -372,13 +448,16 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
     } else {
       applicationEvent = new PayloadApplicationEvent<Object>(this, event);
       if (eventType == null) {
-        eventType = ((PayloadApplicationEvent) applicationEvent).getResolvableType();
+        eventType = getPayloadEventType((PayloadApplicationEvent<?>) applicationEvent);
       }
     }
 
     // Multicast right now if possible - or lazily once the multicaster is initialized
-    if (this.earlyApplicationEvents != null) {
-      this.earlyApplicationEvents.add(applicationEvent);
+    EarlyApplicationEventBuffer earlyEvents = this.earlyApplicationEvents;
+    if (earlyEvents != null) {
+      if (!earlyEvents.add(applicationEvent) && logger.isDebugEnabled()) {
+        logger.debug("Not buffering early event (duplicate or buffer full): " + applicationEvent);
+      }
     } else {
       getApplicationEventMulticaster().multicastEvent(applicationEvent, eventType);
     }
@@ -393,6 +472,27 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
     }
   }
 
+  /**
+   * Return the event type for the given payload event: shared per payload class,
+   * unless the payload determines its own type through {@link ResolvableTypeProvider}.
+   * The canonical instance lets the multicaster route the event with a single lookup.
+   *
+   * @param event the payload event to determine the type for
+   * @return the resolved event type
+   */
+  private ResolvableType getPayloadEventType(PayloadApplicationEvent<?> event) {
+    Object payload = event.getPayload();
+    if (payload instanceof ResolvableTypeProvider) {
+      return event.getResolvableType();
+    }
+    ResolvableType eventType = this.payloadEventTypeCache.get(payload.getClass());
+    if (eventType == null) {
+      eventType = event.getResolvableType();
+      this.payloadEventTypeCache.put(payload.getClass(), eventType);
+    }
+    return eventType;
+  }
+
   /**
    * Return the internal ApplicationEventMulticaster used by the context.
    *
@@ -477,6 +577,188 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
     return this.applicationListeners;
   }
 
+  /**
+   * Set whether events should be delivered to listeners asynchronously,
+   * through a {@link BatchingApplicationEventMulticaster} with default settings
+   * instead of the synchronous default multicaster.
+   * <p>Only applies if no "applicationEventMulticaster" bean is defined: to tune
+   * queue capacity, batch size or backpressure, define such a bean instead.
+   * Needs to be set before refresh.
+   *
+   * @see #initApplicationEventMulticaster()
+   */
+  public void setAsyncEventPublishing(boolean asyncEventPublishing) {
+    this.asyncEventPublishing = asyncEventPublishing;
+  }
+
+  /**
+   * Return whether events get delivered to listeners asynchronously
+   * by the default multicaster.
+   */
+  public boolean isAsyncEventPublishing() {
+    return this.asyncEventPublishing;
+  }
+
+  /**
+   * Set the maximum number of distinct events to buffer while refreshing,
+   * before the event multicaster is available. Further events are dropped.
+   * Default is {@link EarlyApplicationEventBuffer#DEFAULT_CAPACITY}.
+   */
+  public void setEarlyEventBufferCapacity(int earlyEventBufferCapacity) {
+    Assert.isTrue(earlyEventBufferCapacity > 0, "'earlyEventBufferCapacity' must be positive");
+    this.earlyEventBufferCapacity = earlyEventBufferCapacity;
+  }
+
+  /**
+   * Set the number of early events to replay in one batch once listeners
+   * have been registered. Default is 256.
+   */
+  public void setEarlyEventReplayBatchSize(int earlyEventReplayBatchSize) {
+    Assert.isTrue(earlyEventReplayBatchSize > 0, "'earlyEventReplayBatchSize' must be positive");
+    this.earlyEventReplayBatchSize = earlyEventReplayBatchSize;
+  }
+
+  /**
+   * Set an executor for refresh phases without data dependencies on each other:
+   * the MessageSource then gets initialized concurrently with the
+   * ApplicationEventMulticaster. Default is none, running all phases in order.
+   *
+   * @see #refresh()
+   */
+  public void setRefreshExecutor(Executor refreshExecutor) {
+    this.refreshExecutor = refreshExecutor;
+  }
+
+  /**
+   * Set the {@link ApplicationStartup} for this context, e.g. a
+   * {@link lee.springframework.core.metrics.TraceApplicationStartup} to record
+   * which beans take how long to create. Also applied to the internal bean
+   * factory on refresh. Default is {@link ApplicationStartup#DEFAULT}, recording nothing.
+   */
+  public void setApplicationStartup(ApplicationStartup applicationStartup) {
+    Assert.notNull(applicationStartup, "ApplicationStartup must not be null");
+    this.applicationStartup = applicationStartup;
+  }
+
+  /**
+   * Return the {@link ApplicationStartup} for this context.
+   */
+  public ApplicationStartup getApplicationStartup() {
+    return this.applicationStartup;
+  }
+
+  /**
+   * Set an executor to destroy singletons on concurrently when this context gets
+   * closed: beans are still destroyed after all beans depending on them, but
+   * independent beans no longer wait for each other. Default is none.
+   *
+   * @see DefaultSingletonBeanRegistry#setDestructionExecutor
+   */
+  public void setDestructionExecutor(Executor destructionExecutor) {
+    this.destructionExecutor = destructionExecutor;
+  }
+
+  /**
+   * Set the maximum time to wait for the destruction of a single bean when
+   * destroying singletons concurrently, in milliseconds, before interrupting it.
+   * The beans it depends on are still destroyed only after it has finished.
+   * Default is 0, no limit.
+   *
+   * @see DefaultSingletonBeanRegistry#setDestructionTimeout
+   */
+  public void setDestructionTimeout(long destructionTimeout) {
+    this.destructionTimeout = destructionTimeout;
+  }
+
+  /**
+   * Enable deferred initialization: only the given root beans, and the singletons
+   * reachable from them through their bean definitions, get instantiated on refresh.
+   * All other singletons are created on first use, with interface-typed injection
+   * points receiving a proxy that creates the actual bean on its first method call.
+   * Default is none, instantiating all non-lazy singletons on refresh.
+   *
+   * @see DefaultListableBeanFactory#deferSingletonsNotReachableFrom
+   */
+  public void setDeferredInitializationRoots(String... rootBeanNames) {
+    this.deferredInitializationRoots = rootBeanNames;
+  }
+
+  /**
+   * Set a file to keep a snapshot of the bean factory in, as of after the bean
+   * factory post-processors have run. The snapshot gets written on refresh
+   * whenever it has not been restored, and can be restored by subclasses in
+   * {@link #refreshBeanFactory()} through {@link #restoreBeanFactorySnapshot}.
+   * The bean factory post-processors still run on a restored bean factory,
+   * only bean definition registry post-processing is skipped.
+   * Default is none.
+   *
+   * @see BeanFactorySnapshot
+   */
+  public void setBeanFactorySnapshotFile(File beanFactorySnapshotFile) {
+    this.beanFactorySnapshotFile = beanFactorySnapshotFile;
+  }
+
+  /**
+   * Set the maximum number of resolved messages to cache in front of the
+   * context's MessageSource, with their precompiled MessageFormats and the
+   * outcome of parent MessageSource fallbacks. Default is 0, not caching.
+   * <p>The MessageSource bean itself is left as is; only messages resolved
+   * through the context (and its child contexts) go through the cache.
+   *
+   * @see CachingMessageSource
+   */
+  public void setMessageCacheLimit(int messageCacheLimit) {
+    this.messageCacheLimit = messageCacheLimit;
+  }
+
+  /**
+   * Set the number of milliseconds to cache a resolved message for, if a
+   * message cache limit is set: -1 to cache forever, 0 to disable the cache.
+   * <p>Default is the cache period of the MessageSource itself for a
+   * resource-based one (e.g. the "cacheSeconds" of a
+   * {@code ReloadableResourceBundleMessageSource}), so that reloaded messages
+   * get picked up, and forever otherwise.
+   *
+   * @see #setMessageCacheLimit
+   * @see CachingMessageSource#setCacheMillis
+   */
+  public void setMessageCacheMillis(long messageCacheMillis) {
+    this.messageCacheMillis = messageCacheMillis;
+  }
+
+  /**
+   * Discard all messages cached in front of the context's MessageSource,
+   * e.g. after its messages have been changed or reloaded explicitly.
+   * Does nothing if no message cache limit is set.
+   *
+   * @see #setMessageCacheLimit
+   */
+  public void clearMessageCache() {
+    if (this.messageSource instanceof CachingMessageSource) {
+      ((CachingMessageSource) this.messageSource).clearCache();
+    }
+  }
+
+  /**
+   * Return the timings of the phases of the last (or current) refresh,
+   * with wall time and allocation per phase, in order of completion.
+   */
+  public List<RefreshPhaseTiming> getRefreshPhaseTimings() {
+    synchronized (this.refreshPhaseTimings) {
+      return Collections.unmodifiableList(new ArrayList<RefreshPhaseTiming>(this.refreshPhaseTimings));
+    }
+  }
+
+  /**
+   * Return the early event buffer of the last refresh, reporting how many
+   * events have been buffered, coalesced, dropped and replayed.
+   *
+   * @return the buffer, or {@code null} if this context has not been refreshed yet
+   */
+  public EarlyApplicationEventBuffer getEarlyEventBuffer() {
+    return this.earlyEventBuffer;
+  }
+
   /**
    * Create and return a new {@link StandardEnvironment}.
    * <p>Subclasses may override this method in order to supply
@@ -489,42 +771,60 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
   @Override
   public void refresh() throws BeansException, IllegalStateException {
     synchronized (this.startupShutdownMonitor) {
+      this.refreshPhaseTimings.clear();
+
       // Prepare this context for refreshing.
 //      为刷新准备上下文
+      RefreshPhaseTiming.Stopwatch phase = RefreshPhaseTiming.start("prepareRefresh");
       prepareRefresh();
 
       // Tell the subclass to refresh the internal bean instantiation.
+      phase = nextPhase(phase, "obtainFreshBeanFactory");
       ConfigurableListableBeanFactory beanFactory = obtainFreshBeanFactory();
 
       // Prepare the bean instantiation for use in this context.
+      phase = nextPhase(phase, "prepareBeanFactory");
       prepareBeanFactory(beanFactory);
 
+      StartupStep refreshStep = this.applicationStartup.start("context.refresh");
       try {
         // Allows post-processing of the bean instantiation in context subclasses.
+        phase = nextPhase(phase, "postProcessBeanFactory");
         postProcessBeanFactory(beanFactory);
 
         // Invoke instantiation processors registered as beans in the context.
-        invokeBeanFactoryPostProcessors(beanFactory);
+        phase = nextPhase(phase, "invokeBeanFactoryPostProcessors");
+        if (this.beanFactorySnapshotRestored) {
+          invokeBeanFactoryPostProcessorsOnSnapshot(beanFactory);
+        } else {
+          invokeBeanFactoryPostProcessors(beanFactory);
+          writeBeanFactorySnapshot(beanFactory);
+        }
 
         // Register bean processors that intercept bean creation.
+        phase = nextPhase(phase, "registerBeanPostProcessors");
         registerBeanPostProcessors(beanFactory);
 
-        // Initialize message source for this context.
-        initMessageSource();
-
-        // Initialize event multicaster for this context.
-        initApplicationEventMulticaster();
+        // Initialize message source and event multicaster for this context,
+        // concurrently if a refresh executor has been specified.
+        endPhase(phase);
+        phase = null;
+        initMessageSourceAndEventMulticaster();
 
         // Initialize other special beans in specific context subclasses.
+        phase = RefreshPhaseTiming.start("onRefresh");
         onRefresh();
 
         // Check for listener beans and register them.
+        phase = nextPhase(phase, "registerListeners");
         registerListeners();
 
         // Instantiate all remaining (non-lazy-init) singletons.
+        phase = nextPhase(phase, "finishBeanFactoryInitialization");
         finishBeanFactoryInitialization(beanFactory);
 
         // Last step: publish corresponding event.
+        phase = nextPhase(phase, "finishRefresh");
         finishRefresh();
       } catch (BeansException ex) {
         if (logger.isWarnEnabled()) {
@@ -544,7 +844,179 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
         // Reset common introspection caches in Spring's core, since we
         // might not ever need metadata for singleton beans anymore...
         resetCommonCaches();
+
+        // Record the last phase, also if it failed.
+        endPhase(phase);
+        refreshStep.end();
+        if (logger.isDebugEnabled()) {
+          logger.debug("Refresh phases of " + getDisplayName() + ": " + getRefreshPhaseTimings());
+        }
+      }
+    }
+  }
+
+  /**
+   * Populate the given, still empty bean factory from the bean factory snapshot,
+   * if one has been configured and is valid for the current classpath. To be called
+   * by subclasses from {@link #refreshBeanFactory()} instead of loading bean definitions.
+   *
+   * @param beanFactory the new bean factory of this context
+   * @return {@code true} if the snapshot has been restored, {@code false} if bean
+   * definitions need to be loaded as usual
+   * @see #setBeanFactorySnapshotFile
+   */
+  protected boolean restoreBeanFactorySnapshot(DefaultListableBeanFactory beanFactory) {
+    if (this.beanFactorySnapshotFile == null) {
+      return false;
+    }
+    try {
+      this.beanFactorySnapshotRestored = BeanFactorySnapshot.restore(beanFactory, this.beanFactorySnapshotFile);
+    } catch (IOException ex) {
+      logger.warn("Could not read bean factory snapshot [" + this.beanFactorySnapshotFile + "]", ex);
+    }
+    return this.beanFactorySnapshotRestored;
+  }
+
+  private void writeBeanFactorySnapshot(ConfigurableListableBeanFactory beanFactory) {
+    if (this.beanFactorySnapshotFile == null) {
+      return;
+    }
+    if (!(beanFactory instanceof DefaultListableBeanFactory)) {
+      if (logger.isWarnEnabled()) {
+        logger.warn("Bean factory snapshots not supported by bean factory [" + beanFactory + "] - ignored");
+      }
+      return;
+    }
+    try {
+      BeanFactorySnapshot.write((DefaultListableBeanFactory) beanFactory, this.beanFactorySnapshotFile);
+    } catch (IOException ex) {
+      // Not fatal: the next start will simply not find a usable snapshot.
+      logger.warn("Could not write bean factory snapshot [" + this.beanFactorySnapshotFile + "]", ex);
+    }
+  }
+
+  /**
+   * Record the timing of the given refresh phase and start measuring the next one.
+   */
+  private RefreshPhaseTiming.Stopwatch nextPhase(RefreshPhaseTiming.Stopwatch current, String nextPhase) {
+    endPhase(current);
+    return RefreshPhaseTiming.start(nextPhase);
+  }
+
+  private void endPhase(RefreshPhaseTiming.Stopwatch phase) {
+    if (phase != null) {
+      this.refreshPhaseTimings.add(phase.stop());
+    }
+  }
+
+  /**
+   * Initialize the MessageSource and the ApplicationEventMulticaster, which do not
+   * depend on each other: on the refresh executor and the calling thread respectively,
+   * if a refresh executor has been specified, or one after the other otherwise.
+   *
+   * @see #setRefreshExecutor
+   */
+  private void initMessageSourceAndEventMulticaster() {
+    if (this.refreshExecutor == null) {
+      RefreshPhaseTiming.Stopwatch phase = RefreshPhaseTiming.start("initMessageSource");
+      initMessageSource();
+      phase = nextPhase(phase, "initApplicationEventMulticaster");
+      initApplicationEventMulticaster();
+      endPhase(phase);
+      return;
+    }
+
+    final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    final AtomicBoolean messageSourceStarted = new AtomicBoolean();
+    final CountDownLatch messageSourceFinished = new CountDownLatch(1);
+    FutureTask<Object> messageSourceTask = new FutureTask<Object>(new Runnable() {
+      @Override
+      public void run() {
+        if (!messageSourceStarted.compareAndSet(false, true)) {
+          // Cancelled before it got to run.
+          return;
+        }
+        Thread currentThread = Thread.currentThread();
+        ClassLoader previousClassLoader = currentThread.getContextClassLoader();
+        currentThread.setContextClassLoader(classLoader);
+        RefreshPhaseTiming.Stopwatch phase = RefreshPhaseTiming.start("initMessageSource");
+        try {
+          initMessageSource();
+        } finally {
+          endPhase(phase);
+          currentThread.setContextClassLoader(previousClassLoader);
+          messageSourceFinished.countDown();
+        }
       }
+    }, null);
+    this.refreshExecutor.execute(messageSourceTask);
+
+    RefreshPhaseTiming.Stopwatch phase = RefreshPhaseTiming.start("initApplicationEventMulticaster");
+    Throwable failure = null;
+    try {
+      initApplicationEventMulticaster();
+    } catch (RuntimeException ex) {
+      failure = ex;
+      throw ex;
+    } catch (Error err) {
+      failure = err;
+      throw err;
+    } finally {
+      endPhase(phase);
+      // Always wait for the concurrent phase, also if this one failed.
+      awaitMessageSourceInitialization(messageSourceTask, messageSourceStarted, messageSourceFinished, failure);
+    }
+  }
+
+  /**
+   * Wait for the concurrent MessageSource initialization to complete, and propagate
+   * its failure, if any. If the calling thread failed already, a failure of the
+   * MessageSource initialization is added to that one as suppressed exception instead.
+   * <p>If interrupted, the initialization gets cancelled, and is still waited for
+   * if it has started already: the refresh must not proceed (or fail) while the
+   * MessageSource is being initialized on another thread.
+   */
+  private void awaitMessageSourceInitialization(FutureTask<?> messageSourceTask, AtomicBoolean started,
+                                                CountDownLatch finished, Throwable callerFailure) {
+    Throwable failure;
+    try {
+      messageSourceTask.get();
+      return;
+    } catch (InterruptedException ex) {
+      messageSourceTask.cancel(true);
+      if (!started.compareAndSet(false, true)) {
+        awaitUninterruptibly(finished);
+      }
+      Thread.currentThread().interrupt();
+      failure = new IllegalStateException("Interrupted while initializing MessageSource", ex);
+    } catch (ExecutionException ex) {
+      failure = ex.getCause();
+    }
+    if (callerFailure != null) {
+      callerFailure.addSuppressed(failure);
+      return;
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    throw new IllegalStateException("Failed to initialize MessageSource", failure);
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      } catch (InterruptedException ex) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
     }
   }
 
@@ -554,6 +1026,7 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
    */
   protected void prepareRefresh() {
     this.startupDate = System.currentTimeMillis();
+    this.beanFactorySnapshotRestored = false;
     this.closed.set(false);
     this.active.set(true);
 
@@ -572,7 +1045,8 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 
     // Allow for the collection of early ApplicationEvents,
     // to be published once the multicaster is available...
-    this.earlyApplicationEvents = new LinkedHashSet<ApplicationEvent>();
+    this.earlyEventBuffer = new EarlyApplicationEventBuffer(this.earlyEventBufferCapacity);
+    this.earlyApplicationEvents = this.earlyEventBuffer;
   }
 
   /**
@@ -610,6 +1084,7 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
   protected void prepareBeanFactory(ConfigurableListableBeanFactory beanFactory) {
     // Tell the internal bean instantiation to use the context's class loader etc.
     beanFactory.setBeanClassLoader(getClassLoader());
+    beanFactory.setApplicationStartup(getApplicationStartup());
     beanFactory.setBeanExpressionResolver(new StandardBeanExpressionResolver(beanFactory.getBeanClassLoader()));
     beanFactory.addPropertyEditorRegistrar(new ResourceEditorRegistrar(this, getEnvironment()));
 
@@ -678,6 +1153,65 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
     }
   }
 
+  /**
+   * Invoke all registered BeanFactoryPostProcessors on a bean factory restored
+   * from the snapshot, respecting explicit order if given.
+   * <p>Their changes to the bean definitions are part of the snapshot, but not
+   * their effects on the bean factory itself, e.g. the embedded value resolvers
+   * of placeholder configurers, or the scopes and property editors registered by
+   * {@code CustomScopeConfigurer} and {@code CustomEditorConfigurer}. Hence they
+   * run again; only {@link BeanDefinitionRegistryPostProcessor#postProcessBeanDefinitionRegistry}
+   * is skipped, since the bean definitions registered there have been restored already.
+   *
+   * @see #restoreBeanFactorySnapshot
+   */
+  protected void invokeBeanFactoryPostProcessorsOnSnapshot(ConfigurableListableBeanFactory beanFactory) {
+    invokeBeanFactoryPostProcessors(getBeanFactoryPostProcessors(), beanFactory);
+
+    // Instantiate and invoke the PriorityOrdered ones first, since they may resolve
+    // placeholders in the definitions of the others, then the Ordered ones, then the rest.
+    String[] postProcessorNames = beanFactory.getBeanNamesForType(BeanFactoryPostProcessor.class, true, false);
+    List<BeanFactoryPostProcessor> priorityOrderedPostProcessors = new ArrayList<BeanFactoryPostProcessor>();
+    List<String> orderedPostProcessorNames = new ArrayList<String>();
+    List<String> nonOrderedPostProcessorNames = new ArrayList<String>();
+    for (String postProcessorName : postProcessorNames) {
+      if (beanFactory.isTypeMatch(postProcessorName, PriorityOrdered.class)) {
+        priorityOrderedPostProcessors.add(beanFactory.getBean(postProcessorName, BeanFactoryPostProcessor.class));
+      } else if (beanFactory.isTypeMatch(postProcessorName, Ordered.class)) {
+        orderedPostProcessorNames.add(postProcessorName);
+      } else {
+        nonOrderedPostProcessorNames.add(postProcessorName);
+      }
+    }
+    OrderComparator.sort(priorityOrderedPostProcessors);
+    invokeBeanFactoryPostProcessors(priorityOrderedPostProcessors, beanFactory);
+
+    List<BeanFactoryPostProcessor> orderedPostProcessors = new ArrayList<BeanFactoryPostProcessor>();
+    for (String postProcessorName : orderedPostProcessorNames) {
+      orderedPostProcessors.add(beanFactory.getBean(postProcessorName, BeanFactoryPostProcessor.class));
+    }
+    OrderComparator.sort(orderedPostProcessors);
+    invokeBeanFactoryPostProcessors(orderedPostProcessors, beanFactory);
+
+    List<BeanFactoryPostProcessor> nonOrderedPostProcessors = new ArrayList<BeanFactoryPostProcessor>();
+    for (String postProcessorName : nonOrderedPostProcessorNames) {
+      nonOrderedPostProcessors.add(beanFactory.getBean(postProcessorName, BeanFactoryPostProcessor.class));
+    }
+    invokeBeanFactoryPostProcessors(nonOrderedPostProcessors, beanFactory);
+
+    if (beanFactory.getTempClassLoader() == null && beanFactory.containsBean(LOAD_TIME_WEAVER_BEAN_NAME)) {
+      beanFactory.addBeanPostProcessor(new LoadTimeWeaverAwareProcessor(beanFactory));
+      beanFactory.setTempClassLoader(new ContextTypeMatchClassLoader(beanFactory.getBeanClassLoader()));
+    }
+  }
+
+  private void invokeBeanFactoryPostProcessors(Collection<? extends BeanFactoryPostProcessor> postProcessors,
+                                               ConfigurableListableBeanFactory beanFactory) {
+    for (BeanFactoryPostProcessor postProcessor : postProcessors) {
+      postProcessor.postProcessBeanFactory(beanFactory);
+    }
+  }
+
   /**
    * Instantiate and invoke all registered BeanPostProcessor beans,
    * respecting explicit order if given.
@@ -690,6 +1224,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
   /**
    * Initialize the MessageSource.
    * Use parent's if none defined in this context.
+   * Wrapped in a CachingMessageSource if a message cache limit has been set.
+   *
+   * @see #setMessageCacheLimit
    */
   protected void initMessageSource() {
     ConfigurableListableBeanFactory beanFactory = getBeanFactory();
@@ -718,13 +1255,23 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
                 "': using default [" + this.messageSource + "]");
       }
     }
+    if (this.messageCacheLimit > 0) {
+      CachingMessageSource cms = new CachingMessageSource(this.messageSource);
+      cms.setCacheLimit(this.messageCacheLimit);
+      if (this.messageCacheMillis != null) {
+        cms.setCacheMillis(this.messageCacheMillis);
+      }
+      this.messageSource = cms;
+    }
   }
 
   /**
    * Initialize the ApplicationEventMulticaster.
-   * Uses SimpleApplicationEventMulticaster if none defined in the context.
+   * Uses RoutingApplicationEventMulticaster if none defined in the context,
+   * or BatchingApplicationEventMulticaster if asynchronous publishing is enabled.
    *
-   * @see org.springframework.context.event.SimpleApplicationEventMulticaster
+   * @see lee.springframework.context.event.RoutingApplicationEventMulticaster
+   * @see #setAsyncEventPublishing
    */
   protected void initApplicationEventMulticaster() {
     ConfigurableListableBeanFactory beanFactory = getBeanFactory();
@@ -735,7 +1282,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
         logger.debug("Using ApplicationEventMulticaster [" + this.applicationEventMulticaster + "]");
       }
     } else {
-      this.applicationEventMulticaster = new SimpleApplicationEventMulticaster(beanFactory);
+      this.applicationEventMulticaster = (this.asyncEventPublishing ?
+              new BatchingApplicationEventMulticaster(beanFactory) :
+              new RoutingApplicationEventMulticaster(beanFactory));
       beanFactory.registerSingleton(APPLICATION_EVENT_MULTICASTER_BEAN_NAME, this.applicationEventMulticaster);
       if (logger.isDebugEnabled()) {
         logger.debug("Unable to locate ApplicationEventMulticaster with name '" +
@@ -802,11 +1351,22 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
     }
 
     // Publish early application events now that we finally have a multicaster...
-    Set<ApplicationEvent> earlyEventsToProcess = this.earlyApplicationEvents;
+    // Replay batch by batch, so that replayed events can be reclaimed early.
+    EarlyApplicationEventBuffer earlyEventsToProcess = this.earlyApplicationEvents;
     this.earlyApplicationEvents = null;
     if (earlyEventsToProcess != null) {
-      for (ApplicationEvent earlyEvent : earlyEventsToProcess) {
-        getApplicationEventMulticaster().multicastEvent(earlyEvent);
+      List<ApplicationEvent> batch;
+      while (!(batch = earlyEventsToProcess.nextBatch(this.earlyEventReplayBatchSize)).isEmpty()) {
+        for (ApplicationEvent earlyEvent : batch) {
+          getApplicationEventMulticaster().multicastEvent(earlyEvent);
+        }
+      }
+      if (earlyEventsToProcess.getDroppedCount() > 0) {
+        logger.warn("Dropped " + earlyEventsToProcess.getDroppedCount() +
+                " early application events - buffer capacity " + earlyEventsToProcess.getCapacity() + " exceeded");
+      }
+      if (logger.isDebugEnabled()) {
+        logger.debug(earlyEventsToProcess.toString());
       }
     }
   }
@@ -847,6 +1407,15 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
     // Allow for caching all bean definition metadata, not expecting further changes.
     beanFactory.freezeConfiguration();
 
+    // Leave singletons that are not needed at startup to their first use.
+    if (this.deferredInitializationRoots != null) {
+      if (beanFactory instanceof DefaultListableBeanFactory) {
+        ((DefaultListableBeanFactory) beanFactory).deferSingletonsNotReachableFrom(this.deferredInitializationRoots);
+      } else if (logger.isWarnEnabled()) {
+        logger.warn("Deferred initialization not supported by bean factory [" + beanFactory + "] - ignored");
+      }
+    }
+
     // Instantiate all remaining (non-lazy-init) singletons.
     beanFactory.preInstantiateSingletons();
   }
@@ -986,6 +1555,11 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
         logger.warn("Exception thrown from ApplicationListener handling ContextClosedEvent", ex);
       }
 
+      // Deliver events still queued for asynchronous delivery while all beans are around.
+      if (this.applicationEventMulticaster instanceof BatchingApplicationEventMulticaster) {
+        ((BatchingApplicationEventMulticaster) this.applicationEventMulticaster).destroy();
+      }
+
       // Stop all Lifecycle beans, to avoid delays during individual destruction.
       try {
         getLifecycleProcessor().onClose();
@@ -1019,7 +1593,20 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
    * @see org.springframework.beans.factory.config.ConfigurableBeanFactory#destroySingletons()
    */
   protected void destroyBeans() {
-    getBeanFactory().destroySingletons();
+    ConfigurableListableBeanFactory beanFactory = getBeanFactory();
+    // Every AbstractBeanFactory is a DefaultSingletonBeanRegistry: only a custom
+    // bean factory may not support concurrent destruction.
+    if (this.destructionExecutor != null) {
+      if (beanFactory instanceof DefaultSingletonBeanRegistry) {
+        DefaultSingletonBeanRegistry registry = (DefaultSingletonBeanRegistry) beanFactory;
+        registry.setDestructionExecutor(this.destructionExecutor);
+        registry.setDestructionTimeout(this.destructionTimeout);
+      } else if (logger.isWarnEnabled()) {
+        logger.warn("Concurrent destruction not supported by bean factory [" + beanFactory +
+                "] - destroying singletons serially");
+      }
+    }
+    beanFactory.destroySingletons();
   }
 
   /**
@@ -7,11 +7,272 @@
 
 package lee.springframework.context.support;
 
+import lee.springframework.beans.BeansException;
+import lee.springframework.beans.factory.BeanFactory;
+import lee.springframework.beans.factory.cofnig.ConfigurableListableBeanFactory;
+import lee.springframework.beans.factory.support.DefaultListableBeanFactory;
+import lee.springframework.util.Assert;
+import lee.springframework.util.ObjectUtils;
+import lee.springframework.util.StringUtils;
+
+import java.io.IOException;
+
 /**
+ * Base class for {@link ApplicationContext}
+ * implementations which are supposed to support multiple calls to {@link #refresh()},
+ * creating a new internal bean factory instance every time, and which hold their
+ * configuration in a set of config locations.
+ *
+ * <p>Combines what Spring splits into AbstractRefreshableApplicationContext and
+ * AbstractRefreshableConfigApplicationContext: subclasses only need to implement
+ * {@link #loadBeanDefinitions}, which gets invoked on each refresh - unless the
+ * bean factory could be restored from the {@link #setBeanFactorySnapshotFile
+ * bean factory snapshot}, in which case there is nothing left to load.
+ *
  * @description:
  * @author: liyong18
  * @createdate: 2018-07-27 15:02
- * @lastdate:
+ * @lastdate: 2026-10-18
+ * @see #loadBeanDefinitions
+ * @see lee.springframework.beans.factory.support.DefaultListableBeanFactory
  */
-public class AbstractRefreshableConfigApplicationContext {
+public abstract class AbstractRefreshableConfigApplicationContext extends AbstractApplicationContext {
+
+  private String[] configLocations;
+
+  private Boolean allowBeanDefinitionOverriding;
+
+  private Boolean allowCircularReferences;
+
+  /** Bean factory for this context */
+  private DefaultListableBeanFactory beanFactory;
+
+  /** Synchronization monitor for the internal BeanFactory */
+  private final Object beanFactoryMonitor = new Object();
+
+
+  /**
+   * Create a new AbstractRefreshableConfigApplicationContext with no parent.
+   */
+  public AbstractRefreshableConfigApplicationContext() {
+  }
+
+  /**
+   * Create a new AbstractRefreshableConfigApplicationContext with the given parent context.
+   * @param parent the parent context
+   */
+  public AbstractRefreshableConfigApplicationContext(ApplicationContext parent) {
+    super(parent);
+  }
+
+
+  /**
+   * Set the config locations for this application context in init-param style,
+   * i.e. with distinct locations separated by commas, semicolons or whitespace.
+   * <p>If not set, the implementation may use a default as appropriate.
+   */
+  public void setConfigLocation(String location) {
+    setConfigLocations(StringUtils.tokenizeToStringArray(location, ",; \t\n"));
+  }
+
+  /**
+   * Set the config locations for this application context.
+   * <p>If not set, the implementation may use a default as appropriate.
+   */
+  public void setConfigLocations(String... locations) {
+    if (locations != null) {
+      Assert.noNullElements(locations, "Config locations must not be null");
+      this.configLocations = new String[locations.length];
+      for (int i = 0; i < locations.length; i++) {
+        this.configLocations[i] = resolvePath(locations[i]).trim();
+      }
+    }
+    else {
+      this.configLocations = null;
+    }
+  }
+
+  /**
+   * Return an array of resource locations, referring to the XML bean definition
+   * files that this context should be built with. Can also include location
+   * patterns, which will get resolved via a ResourcePatternResolver.
+   * <p>The default implementation returns {@code null}. Subclasses can override
+   * this to provide a set of resource locations to load bean definitions from.
+   * @return an array of resource locations, or {@code null} if none
+   * @see #getResources
+   * @see #getResourcePatternResolver
+   */
+  protected String[] getConfigLocations() {
+    return (this.configLocations != null ? this.configLocations : getDefaultConfigLocations());
+  }
+
+  /**
+   * Return the default config locations to use, for the case where no
+   * explicit config locations have been specified.
+   * <p>The default implementation returns {@code null},
+   * requiring explicit config locations.
+   * @return an array of default config locations, if any
+   * @see #setConfigLocations
+   */
+  protected String[] getDefaultConfigLocations() {
+    return null;
+  }
+
+  /**
+   * Resolve the given path, replacing placeholders with corresponding
+   * environment property values if necessary. Applied to config locations.
+   * @param path the original file path
+   * @return the resolved file path
+   */
+  protected String resolvePath(String path) {
+    return getEnvironment().resolveRequiredPlaceholders(path);
+  }
+
+  /**
+   * Set whether it should be allowed to override bean definitions by registering
+   * a different definition with the same name, automatically replacing the former.
+   * If not, an exception will be thrown. Default is "true".
+   * @see DefaultListableBeanFactory#setAllowBeanDefinitionOverriding
+   */
+  public void setAllowBeanDefinitionOverriding(boolean allowBeanDefinitionOverriding) {
+    this.allowBeanDefinitionOverriding = allowBeanDefinitionOverriding;
+  }
+
+  /**
+   * Set whether to allow circular references between beans - and automatically
+   * try to resolve them.
+   * <p>Default is "true". Turn this off to throw an exception when encountering
+   * a circular reference, disallowing them completely.
+   * @see DefaultListableBeanFactory#setAllowCircularReferences
+   */
+  public void setAllowCircularReferences(boolean allowCircularReferences) {
+    this.allowCircularReferences = allowCircularReferences;
+  }
+
+
+  /**
+   * This implementation performs an actual refresh of this context's underlying
+   * bean factory, shutting down the previous bean factory (if any) and
+   * initializing a fresh bean factory for the next phase of the context's lifecycle.
+   * Bean definitions are restored from the bean factory snapshot if possible,
+   * and loaded through {@link #loadBeanDefinitions} otherwise.
+   */
+  @Override
+  protected final void refreshBeanFactory() throws BeansException {
+    if (hasBeanFactory()) {
+      destroyBeans();
+      closeBeanFactory();
+    }
+    try {
+      DefaultListableBeanFactory beanFactory = createBeanFactory();
+      beanFactory.setSerializationId(getId());
+      customizeBeanFactory(beanFactory);
+      if (!restoreBeanFactorySnapshot(beanFactory)) {
+        loadBeanDefinitions(beanFactory);
+      }
+      synchronized (this.beanFactoryMonitor) {
+        this.beanFactory = beanFactory;
+      }
+    }
+    catch (IOException ex) {
+      throw new ApplicationContextException("I/O error parsing bean definition source for " + getDisplayName(), ex);
+    }
+  }
+
+  @Override
+  protected void cancelRefresh(BeansException ex) {
+    synchronized (this.beanFactoryMonitor) {
+      if (this.beanFactory != null) {
+        this.beanFactory.setSerializationId(null);
+      }
+    }
+    super.cancelRefresh(ex);
+  }
+
+  @Override
+  protected final void closeBeanFactory() {
+    synchronized (this.beanFactoryMonitor) {
+      if (this.beanFactory != null) {
+        this.beanFactory.setSerializationId(null);
+        this.beanFactory = null;
+      }
+    }
+  }
+
+  /**
+   * Determine whether this context currently holds a bean factory,
+   * i.e. has been refreshed at least once and not been closed yet.
+   */
+  protected final boolean hasBeanFactory() {
+    synchronized (this.beanFactoryMonitor) {
+      return (this.beanFactory != null);
+    }
+  }
+
+  @Override
+  public final ConfigurableListableBeanFactory getBeanFactory() {
+    synchronized (this.beanFactoryMonitor) {
+      if (this.beanFactory == null) {
+        throw new IllegalStateException("BeanFactory not initialized or already closed - " +
+                "call 'refresh' before accessing beans via the ApplicationContext");
+      }
+      return this.beanFactory;
+    }
+  }
+
+  /**
+   * Create an internal bean factory for this context.
+   * Called for each {@link #refresh()} attempt.
+   * <p>The default implementation creates a
+   * {@link lee.springframework.beans.factory.support.DefaultListableBeanFactory}
+   * with the internal bean factory of this context's parent as parent bean factory.
+   * @return the bean factory for this context
+   */
+  protected DefaultListableBeanFactory createBeanFactory() {
+    return new DefaultListableBeanFactory(getInternalParentBeanFactory());
+  }
+
+  /**
+   * Return the internal bean factory of the parent context if it implements
+   * ConfigurableApplicationContext; else, return the parent context itself.
+   */
+  protected BeanFactory getInternalParentBeanFactory() {
+    return (getParent() instanceof ConfigurableApplicationContext) ?
+            ((ConfigurableApplicationContext) getParent()).getBeanFactory() : getParent();
+  }
+
+  /**
+   * Customize the internal bean factory used by this context.
+   * Called for each {@link #refresh()} attempt.
+   * <p>The default implementation applies this context's
+   * {@linkplain #setAllowBeanDefinitionOverriding "allowBeanDefinitionOverriding"}
+   * and {@linkplain #setAllowCircularReferences "allowCircularReferences"} settings,
+   * if specified.
+   * @param beanFactory the newly created bean factory for this context
+   */
+  protected void customizeBeanFactory(DefaultListableBeanFactory beanFactory) {
+    if (this.allowBeanDefinitionOverriding != null) {
+      beanFactory.setAllowBeanDefinitionOverriding(this.allowBeanDefinitionOverriding);
+    }
+    if (this.allowCircularReferences != null) {
+      beanFactory.setAllowCircularReferences(this.allowCircularReferences);
+    }
+  }
+
+  /**
+   * Load bean definitions into the given bean factory, typically through
+   * delegating to one or more bean definition readers.
+   * @param beanFactory the bean factory to load bean definitions into
+   * @throws BeansException if parsing of the bean definitions failed
+   * @throws IOException if loading of bean definition files failed
+   */
+  protected abstract void loadBeanDefinitions(DefaultListableBeanFactory beanFactory)
+          throws BeansException, IOException;
+
+  @Override
+  public String toString() {
+    return super.toString() + (ObjectUtils.isEmpty(this.configLocations) ? "" :
+            "; config locations " + ObjectUtils.nullSafeToString(this.configLocations));
+  }
+
 }
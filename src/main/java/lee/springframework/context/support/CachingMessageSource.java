@@ -0,0 +1,406 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: CachingMessageSource.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.context.support;
+
+import lee.springframework.util.Assert;
+import lee.springframework.util.ObjectUtils;
+
+import java.text.MessageFormat;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link HierarchicalMessageSource} that delegates to a target MessageSource and
+ * caches the outcome of every (code, Locale) lookup: the message pattern along
+ * with its precompiled {@link MessageFormat}, or the fact that no message is
+ * defined for the code at all.
+ *
+ * <p>The target is asked for the plain message of a code once; arguments are
+ * then applied to the cached MessageFormat. Since the target resolves codes
+ * through its parent chain, fallbacks to a parent MessageSource - and codes
+ * that none of the chain knows - are memoized as well, so repeated lookups
+ * never walk the chain again.
+ *
+ * <p>The cache holds at most {@link #setCacheLimit cacheLimit} entries; once
+ * it is full, the entries added first get evicted. Entries may also expire
+ * after {@link #setCacheMillis cacheMillis}, for targets that reload their
+ * messages; for a resource-based target such as
+ * {@code ReloadableResourceBundleMessageSource}, this defaults to the target's
+ * own cache period, so reloaded messages show up as they would without this
+ * cache. Changes of the target's messages are not noticed otherwise:
+ * call {@link #clearCache()} after modifying them.
+ *
+ * <p>Only messages that the target actually defines are cached as found: the
+ * target is asked with a default message of its own, so that a target falling
+ * back to the code as default message ("useCodeAsDefaultMessage") does not
+ * make the code look like a defined message. Where a caller gives no default
+ * message for an undefined code, the target's own fallback applies, as without
+ * this cache.
+ *
+ * <p>Note: this assumes the target's default message rendering, i.e. plain
+ * messages returned as-is when there are no arguments (as with
+ * {@code AbstractMessageSource} unless "alwaysUseMessageFormat" is set).
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 21:20
+ * @lastdate: 2026-10-18
+ */
+public class CachingMessageSource implements HierarchicalMessageSource {
+
+  public static final int DEFAULT_CACHE_LIMIT = 4096;
+
+  /** Default message to tell a code the target does not define from a defined message */
+  private static final String NOT_FOUND = CachingMessageSource.class.getName() + ".NOT_FOUND";
+
+  private final MessageSource targetMessageSource;
+
+  private int cacheLimit = DEFAULT_CACHE_LIMIT;
+
+  private long cacheMillis = -1;
+
+  /** Cache of resolved messages, keyed by MessageKey */
+  private final ConcurrentMap<MessageKey, CachedMessage> cachedMessages =
+          new ConcurrentHashMap<MessageKey, CachedMessage>(256);
+
+  /** Cached keys in order of insertion, for eviction */
+  private final Queue<MessageKey> insertionOrder = new ConcurrentLinkedQueue<MessageKey>();
+
+  private final AtomicInteger cacheSize = new AtomicInteger();
+
+  private final AtomicLong hitCount = new AtomicLong();
+
+  private final AtomicLong missCount = new AtomicLong();
+
+  private final AtomicLong evictionCount = new AtomicLong();
+
+
+  /**
+   * Create a new CachingMessageSource for the given target.
+   * @param targetMessageSource the MessageSource to resolve messages through
+   * @see #setCacheMillis
+   */
+  public CachingMessageSource(MessageSource targetMessageSource) {
+    Assert.notNull(targetMessageSource, "Target MessageSource must not be null");
+    this.targetMessageSource = targetMessageSource;
+    if (targetMessageSource instanceof AbstractResourceBasedMessageSource) {
+      this.cacheMillis = ((AbstractResourceBasedMessageSource) targetMessageSource).getCacheMillis();
+    }
+  }
+
+
+  /**
+   * Return the MessageSource that messages get resolved through.
+   */
+  public MessageSource getTargetMessageSource() {
+    return this.targetMessageSource;
+  }
+
+  /**
+   * Set the maximum number of (code, Locale) entries to cache. Default is 4096.
+   */
+  public void setCacheLimit(int cacheLimit) {
+    Assert.isTrue(cacheLimit > 0, "'cacheLimit' must be positive");
+    this.cacheLimit = cacheLimit;
+  }
+
+  public int getCacheLimit() {
+    return this.cacheLimit;
+  }
+
+  /**
+   * Set the number of milliseconds to cache a resolved message for.
+   * <p>Default is the cache period of the target if it is an
+   * {@link AbstractResourceBasedMessageSource} (as set through its
+   * "cacheSeconds" or "cacheMillis"), and -1 otherwise.
+   * -1 caches forever; 0 effectively disables the cache.
+   */
+  public void setCacheMillis(long cacheMillis) {
+    this.cacheMillis = cacheMillis;
+  }
+
+  public long getCacheMillis() {
+    return this.cacheMillis;
+  }
+
+  /**
+   * Set the parent of the target MessageSource, if hierarchical, and discard
+   * all cached messages, which may have been resolved through the former parent.
+   */
+  @Override
+  public void setParentMessageSource(MessageSource parent) {
+    if (!(this.targetMessageSource instanceof HierarchicalMessageSource)) {
+      throw new IllegalStateException("Target MessageSource [" + this.targetMessageSource +
+              "] is not hierarchical: cannot set parent MessageSource");
+    }
+    ((HierarchicalMessageSource) this.targetMessageSource).setParentMessageSource(parent);
+    clearCache();
+  }
+
+  @Override
+  public MessageSource getParentMessageSource() {
+    return (this.targetMessageSource instanceof HierarchicalMessageSource ?
+            ((HierarchicalMessageSource) this.targetMessageSource).getParentMessageSource() : null);
+  }
+
+
+  @Override
+  public String getMessage(String code, Object[] args, String defaultMessage, Locale locale) {
+    CachedMessage message = getCachedMessage(code, locale);
+    if (message.isFound()) {
+      return message.format(resolveArguments(args, locale));
+    }
+    if (defaultMessage == null) {
+      // Let the target apply its own fallback, e.g. the code as default message.
+      return this.targetMessageSource.getMessage(code, args, null, locale);
+    }
+    return renderDefaultMessage(defaultMessage, args, locale);
+  }
+
+  @Override
+  public String getMessage(String code, Object[] args, Locale locale) throws NoSuchMessageException {
+    CachedMessage message = getCachedMessage(code, locale);
+    if (!message.isFound()) {
+      // Throws NoSuchMessageException unless the target has a fallback of its own.
+      return this.targetMessageSource.getMessage(code, args, locale);
+    }
+    return message.format(resolveArguments(args, locale));
+  }
+
+  @Override
+  public String getMessage(MessageSourceResolvable resolvable, Locale locale) throws NoSuchMessageException {
+    String[] codes = resolvable.getCodes();
+    if (codes != null) {
+      for (String code : codes) {
+        CachedMessage message = getCachedMessage(code, locale);
+        if (message.isFound()) {
+          return message.format(resolveArguments(resolvable.getArguments(), locale));
+        }
+      }
+    }
+    String defaultMessage = resolvable.getDefaultMessage();
+    if (defaultMessage != null) {
+      return renderDefaultMessage(defaultMessage, resolvable.getArguments(), locale);
+    }
+    // Throws NoSuchMessageException unless the target has a fallback of its own.
+    return this.targetMessageSource.getMessage(resolvable, locale);
+  }
+
+
+  /**
+   * Discard all cached messages.
+   */
+  public void clearCache() {
+    this.cachedMessages.clear();
+    this.insertionOrder.clear();
+    this.cacheSize.set(0);
+  }
+
+  /**
+   * Return the number of (code, Locale) entries currently cached.
+   */
+  public int getCacheSize() {
+    return this.cacheSize.get();
+  }
+
+  /**
+   * Return the number of lookups answered from the cache.
+   */
+  public long getHitCount() {
+    return this.hitCount.get();
+  }
+
+  /**
+   * Return the number of lookups that had to be resolved through the target.
+   */
+  public long getMissCount() {
+    return this.missCount.get();
+  }
+
+  /**
+   * Return the number of entries evicted because the cache was full.
+   */
+  public long getEvictionCount() {
+    return this.evictionCount.get();
+  }
+
+  @Override
+  public String toString() {
+    return "CachingMessageSource for [" + this.targetMessageSource + "]: " + this.cacheSize.get() +
+            " cached, " + this.hitCount.get() + " hits, " + this.missCount.get() + " misses, " +
+            this.evictionCount.get() + " evicted";
+  }
+
+
+  /**
+   * Return the cached outcome for the given code and Locale, resolving it
+   * through the target on a miss.
+   * @return the cached message, possibly recording that the code is not defined
+   */
+  private CachedMessage getCachedMessage(String code, Locale locale) {
+    MessageKey key = new MessageKey(code, locale);
+    CachedMessage message = this.cachedMessages.get(key);
+    if (message != null && !isExpired(message)) {
+      this.hitCount.incrementAndGet();
+      return message;
+    }
+    this.missCount.incrementAndGet();
+    String pattern = this.targetMessageSource.getMessage(code, null, NOT_FOUND, locale);
+    if (NOT_FOUND.equals(pattern)) {
+      pattern = null;
+    }
+    message = new CachedMessage(pattern, locale, System.currentTimeMillis());
+    if (this.cacheMillis != 0) {
+      if (this.cachedMessages.put(key, message) == null) {
+        this.insertionOrder.add(key);
+        if (this.cacheSize.incrementAndGet() > this.cacheLimit) {
+          evictOldest();
+        }
+      }
+    }
+    return message;
+  }
+
+  private boolean isExpired(CachedMessage message) {
+    return (this.cacheMillis >= 0 && System.currentTimeMillis() - message.timestamp > this.cacheMillis);
+  }
+
+  /**
+   * Evict the entries added first until the cache is within its limit again.
+   */
+  private void evictOldest() {
+    while (this.cacheSize.get() > this.cacheLimit) {
+      MessageKey oldest = this.insertionOrder.poll();
+      if (oldest == null) {
+        break;
+      }
+      if (this.cachedMessages.remove(oldest) != null) {
+        this.cacheSize.decrementAndGet();
+        this.evictionCount.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Resolve arguments that are MessageSourceResolvables themselves.
+   */
+  private Object[] resolveArguments(Object[] args, Locale locale) {
+    if (ObjectUtils.isEmpty(args)) {
+      return args;
+    }
+    Object[] resolvedArgs = null;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i] instanceof MessageSourceResolvable) {
+        if (resolvedArgs == null) {
+          resolvedArgs = args.clone();
+        }
+        resolvedArgs[i] = getMessage((MessageSourceResolvable) args[i], locale);
+      }
+    }
+    return (resolvedArgs != null ? resolvedArgs : args);
+  }
+
+  /**
+   * Render the given default message: as-is without arguments, else through
+   * a MessageFormat that is not cached, default messages being ad-hoc strings.
+   */
+  private String renderDefaultMessage(String defaultMessage, Object[] args, Locale locale) {
+    if (ObjectUtils.isEmpty(args)) {
+      return defaultMessage;
+    }
+    return createMessageFormat(defaultMessage, locale).format(resolveArguments(args, locale));
+  }
+
+  private static MessageFormat createMessageFormat(String pattern, Locale locale) {
+    return new MessageFormat(pattern, (locale != null ? locale : Locale.getDefault()));
+  }
+
+
+  /**
+   * Cache key: message code and Locale.
+   */
+  private static final class MessageKey {
+
+    private final String code;
+
+    private final Locale locale;
+
+    private final int hashCode;
+
+    public MessageKey(String code, Locale locale) {
+      this.code = code;
+      this.locale = locale;
+      this.hashCode = ObjectUtils.nullSafeHashCode(code) * 29 + ObjectUtils.nullSafeHashCode(locale);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof MessageKey)) {
+        return false;
+      }
+      MessageKey otherKey = (MessageKey) other;
+      return (ObjectUtils.nullSafeEquals(this.code, otherKey.code) &&
+              ObjectUtils.nullSafeEquals(this.locale, otherKey.locale));
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hashCode;
+    }
+  }
+
+
+  /**
+   * Outcome of a lookup: the message pattern and its MessageFormat, compiled
+   * on first use with arguments; or no pattern if the code is not defined.
+   */
+  private static final class CachedMessage {
+
+    private final String pattern;
+
+    private final Locale locale;
+
+    final long timestamp;
+
+    private volatile MessageFormat messageFormat;
+
+    public CachedMessage(String pattern, Locale locale, long timestamp) {
+      this.pattern = pattern;
+      this.locale = locale;
+      this.timestamp = timestamp;
+    }
+
+    public boolean isFound() {
+      return (this.pattern != null);
+    }
+
+    public String format(Object[] args) {
+      if (ObjectUtils.isEmpty(args)) {
+        return this.pattern;
+      }
+      MessageFormat format = this.messageFormat;
+      if (format == null) {
+        format = createMessageFormat(this.pattern, this.locale);
+        this.messageFormat = format;
+      }
+      // MessageFormat is not thread-safe.
+      synchronized (format) {
+        return format.format(args);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,206 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: EarlyApplicationEventBuffer.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.context.support;
+
+import lee.springframework.context.ApplicationEvent;
+import lee.springframework.context.PayloadApplicationEvent;
+import lee.springframework.util.Assert;
+import lee.springframework.util.ObjectUtils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded buffer for the events that get published during refresh before the
+ * ApplicationEventMulticaster is available, replayed once listeners have been
+ * registered.
+ *
+ * <p>Duplicate events are coalesced into the first occurrence: events are
+ * considered duplicates if they are equal or, for {@link PayloadApplicationEvent
+ * PayloadApplicationEvents}, if they are of the same event class, from the
+ * same source, with equal payloads. Once the capacity is
+ * reached, further distinct events are dropped (and counted) rather than
+ * growing the buffer without limit.
+ *
+ * <p>Replay removes events from the buffer in batches, so the memory held by
+ * replayed events can be reclaimed while the rest is still being delivered.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 19:40
+ * @lastdate: 2026-10-18
+ */
+public class EarlyApplicationEventBuffer {
+
+  /** Default capacity: large enough for any sane refresh, yet bounded */
+  public static final int DEFAULT_CAPACITY = 10000;
+
+  private final int capacity;
+
+  /** Buffered events in publication order, keyed by their coalescing key */
+  private final Map<Object, ApplicationEvent> events = new LinkedHashMap<Object, ApplicationEvent>();
+
+  private int bufferedCount;
+
+  private int coalescedCount;
+
+  private int droppedCount;
+
+  private int replayedCount;
+
+
+  /**
+   * Create a new buffer with the given capacity.
+   * @param capacity the maximum number of distinct events to hold
+   */
+  public EarlyApplicationEventBuffer(int capacity) {
+    Assert.isTrue(capacity > 0, "'capacity' must be positive");
+    this.capacity = capacity;
+  }
+
+
+  /**
+   * Add the given event, unless a duplicate is buffered already or the
+   * buffer is full.
+   * @param event the event published early
+   * @return {@code true} if the event has been buffered, {@code false}
+   * if it has been coalesced with a duplicate or dropped
+   */
+  public synchronized boolean add(ApplicationEvent event) {
+    Object key = getCoalescingKey(event);
+    if (this.events.containsKey(key)) {
+      this.coalescedCount++;
+      return false;
+    }
+    if (this.events.size() >= this.capacity) {
+      this.droppedCount++;
+      return false;
+    }
+    this.events.put(key, event);
+    this.bufferedCount++;
+    return true;
+  }
+
+  /**
+   * Remove and return the next batch of events in publication order.
+   * @param maxEvents the maximum number of events to return
+   * @return the events (empty once the buffer has been drained)
+   */
+  public synchronized List<ApplicationEvent> nextBatch(int maxEvents) {
+    List<ApplicationEvent> batch = new ArrayList<ApplicationEvent>(Math.min(maxEvents, this.events.size()));
+    Iterator<ApplicationEvent> it = this.events.values().iterator();
+    while (it.hasNext() && batch.size() < maxEvents) {
+      batch.add(it.next());
+      it.remove();
+    }
+    this.replayedCount += batch.size();
+    return batch;
+  }
+
+  /**
+   * Return the number of events still waiting to be replayed.
+   */
+  public synchronized int size() {
+    return this.events.size();
+  }
+
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  /**
+   * Return the number of distinct events that have been buffered.
+   */
+  public synchronized int getBufferedCount() {
+    return this.bufferedCount;
+  }
+
+  /**
+   * Return the number of events that have been coalesced with a duplicate.
+   */
+  public synchronized int getCoalescedCount() {
+    return this.coalescedCount;
+  }
+
+  /**
+   * Return the number of events that have been dropped because the buffer was full.
+   */
+  public synchronized int getDroppedCount() {
+    return this.droppedCount;
+  }
+
+  /**
+   * Return the number of events that have been handed out for replay.
+   */
+  public synchronized int getReplayedCount() {
+    return this.replayedCount;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "EarlyApplicationEventBuffer: capacity " + this.capacity + ", buffered " + this.bufferedCount +
+            ", coalesced " + this.coalescedCount + ", dropped " + this.droppedCount +
+            ", replayed " + this.replayedCount;
+  }
+
+
+  /**
+   * Determine the key under which duplicates of the given event get coalesced.
+   */
+  private static Object getCoalescingKey(ApplicationEvent event) {
+    if (event instanceof PayloadApplicationEvent) {
+      return new PayloadKey(event.getClass(), event.getSource(), ((PayloadApplicationEvent<?>) event).getPayload());
+    }
+    return event;
+  }
+
+
+  /**
+   * Coalescing key for payload events: same event class and source with equal
+   * payloads, regardless of the (identity-based) equality of the wrapping events.
+   * Events of different sources or types are delivered separately, since
+   * listeners may tell them apart.
+   */
+  private static class PayloadKey {
+
+    private final Class<?> eventType;
+
+    private final Object source;
+
+    private final Object payload;
+
+    public PayloadKey(Class<?> eventType, Object source, Object payload) {
+      this.eventType = eventType;
+      this.source = source;
+      this.payload = payload;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof PayloadKey)) {
+        return false;
+      }
+      PayloadKey otherKey = (PayloadKey) other;
+      return (this.eventType == otherKey.eventType && ObjectUtils.nullSafeEquals(this.source, otherKey.source) &&
+              this.payload.equals(otherKey.payload));
+    }
+
+    @Override
+    public int hashCode() {
+      return (this.eventType.hashCode() * 31 + ObjectUtils.nullSafeHashCode(this.source)) * 31 +
+              this.payload.hashCode();
+    }
+  }
+
+}
@@ -7,11 +7,175 @@
 
 package lee.springframework.context.support;
 
+import lee.springframework.beans.BeansException;
+import lee.springframework.beans.factory.support.DefaultListableBeanFactory;
+import lee.springframework.beans.factory.support.PrecompiledBeanDefinitions;
+import lee.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import lee.springframework.context.annotation.ComponentScanBeanDefinitionParser;
+import lee.springframework.core.io.Resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
+ * Convenient base class for {@link ApplicationContext} implementations, drawing
+ * configuration from XML documents containing bean definitions understood by an
+ * {@link XmlBeanDefinitionReader}.
+ *
+ * <p>Subclasses just have to implement the {@link #getConfigResources} and/or
+ * the {@link #getConfigLocations} method.
+ *
+ * <p>If a {@link #setPrecompiledDefinitionsFile precompiled definitions file} is
+ * set, the bean definitions are registered from that file as long as it is up
+ * to date with the XML, without parsing any XML. Otherwise the XML is parsed, and
+ * the file is (re)written from the result for the next start.
+ *
  * @description:
  * @author: liyong18
  * @createdate: 2018-07-27 15:01
- * @lastdate:
+ * @lastdate: 2026-10-18
+ * @see #getConfigResources
+ * @see #getConfigLocations
+ * @see PrecompiledBeanDefinitions
  */
-public class LAbstractXmlApplicationContext {
+public abstract class LAbstractXmlApplicationContext extends AbstractRefreshableConfigApplicationContext {
+
+  private File precompiledDefinitionsFile;
+
+
+  /**
+   * Create a new LAbstractXmlApplicationContext with no parent.
+   */
+  public LAbstractXmlApplicationContext() {
+  }
+
+  /**
+   * Create a new LAbstractXmlApplicationContext with the given parent context.
+   * @param parent the parent context
+   */
+  public LAbstractXmlApplicationContext(ApplicationContext parent) {
+    super(parent);
+  }
+
+
+  /**
+   * Set a file to keep the bean definitions read from the XML in, in a binary
+   * form that later refreshes register directly instead of parsing the XML,
+   * as long as none of the XML files has changed. The file may also have been
+   * compiled at build time. Default is none.
+   * <p>Only the XML files are checksummed, so configurations using
+   * {@code <context:component-scan/>} are not precompiled: they are parsed
+   * on every refresh, as without this file. The file is also recompiled when
+   * the Environment activates other profiles or resolves placeholders in import
+   * locations differently, or {@link #initBeanDefinitionReader} registers other
+   * element parsers.
+   * @see PrecompiledBeanDefinitions#main
+   */
+  public void setPrecompiledDefinitionsFile(File precompiledDefinitionsFile) {
+    this.precompiledDefinitionsFile = precompiledDefinitionsFile;
+  }
+
+
+  /**
+   * Loads the bean definitions via an XmlBeanDefinitionReader, or from the
+   * precompiled definitions file if up to date.
+   * @see XmlBeanDefinitionReader
+   * @see #initBeanDefinitionReader
+   * @see #loadBeanDefinitions
+   */
+  @Override
+  protected void loadBeanDefinitions(DefaultListableBeanFactory beanFactory) throws BeansException, IOException {
+    // Create a new XmlBeanDefinitionReader for the given BeanFactory.
+    XmlBeanDefinitionReader beanDefinitionReader = new XmlBeanDefinitionReader(beanFactory);
+
+    // Configure the bean definition reader with this context's
+    // resource loading environment.
+    beanDefinitionReader.setEnvironment(getEnvironment());
+    beanDefinitionReader.setResourceLoader(this);
+    beanDefinitionReader.registerElementParser(ComponentScanBeanDefinitionParser.CONTEXT_NAMESPACE_URI,
+            new ComponentScanBeanDefinitionParser(this));
+
+    // Allow a subclass to provide custom initialization of the reader,
+    // then proceed with actually loading the bean definitions: from the
+    // precompiled file if the fully configured reader would read the same.
+    initBeanDefinitionReader(beanDefinitionReader);
+    List<Resource> configResources = resolveConfigResources();
+    if (this.precompiledDefinitionsFile != null && PrecompiledBeanDefinitions.load(beanDefinitionReader,
+            configResources.toArray(new Resource[configResources.size()]), this.precompiledDefinitionsFile)) {
+      return;
+    }
+    loadBeanDefinitions(beanDefinitionReader, configResources);
+
+    if (this.precompiledDefinitionsFile != null) {
+      try {
+        PrecompiledBeanDefinitions.write(beanDefinitionReader, configResources, this.precompiledDefinitionsFile);
+      }
+      catch (IOException ex) {
+        // Not fatal: the next start will simply parse the XML again.
+        logger.warn("Could not write precompiled bean definitions [" + this.precompiledDefinitionsFile + "]", ex);
+      }
+    }
+  }
+
+  /**
+   * Initialize the bean definition reader used for loading the bean
+   * definitions of this context. Default implementation is empty.
+   * <p>Can be overridden in subclasses, e.g. for registering element parsers
+   * for custom namespaces or setting a parallel loading executor.
+   * @param reader the bean definition reader used by this context
+   * @see XmlBeanDefinitionReader#registerElementParser
+   * @see XmlBeanDefinitionReader#setParallelLoadingExecutor
+   */
+  protected void initBeanDefinitionReader(XmlBeanDefinitionReader reader) {
+  }
+
+  /**
+   * Load the bean definitions from the given resources with the given
+   * XmlBeanDefinitionReader.
+   * <p>The lifecycle of the bean factory is handled by the {@link #refreshBeanFactory}
+   * method; hence this method is just supposed to load and/or register bean definitions.
+   * @param reader the XmlBeanDefinitionReader to use
+   * @param configResources the resolved configuration resources, in order
+   * @throws BeansException in case of bean registration errors
+   */
+  protected void loadBeanDefinitions(XmlBeanDefinitionReader reader, List<Resource> configResources)
+          throws BeansException {
+    reader.loadBeanDefinitions(configResources.toArray(new Resource[configResources.size()]));
+  }
+
+  /**
+   * Resolve the config resources and config locations of this context into
+   * the list of resources to read, in order.
+   */
+  private List<Resource> resolveConfigResources() throws IOException {
+    List<Resource> configResources = new ArrayList<Resource>();
+    Resource[] resources = getConfigResources();
+    if (resources != null) {
+      Collections.addAll(configResources, resources);
+    }
+    String[] configLocations = getConfigLocations();
+    if (configLocations != null) {
+      for (String location : configLocations) {
+        configResources.addAll(Arrays.asList(getResources(location)));
+      }
+    }
+    return configResources;
+  }
+
+  /**
+   * Return an array of Resource objects, referring to the XML bean definition
+   * files that this context should be built with.
+   * <p>The default implementation returns {@code null}. Subclasses can override
+   * this to provide pre-built Resource objects rather than location Strings.
+   * @return an array of Resource objects, or {@code null} if none
+   * @see #getConfigLocations()
+   */
+  protected Resource[] getConfigResources() {
+    return null;
+  }
+
 }
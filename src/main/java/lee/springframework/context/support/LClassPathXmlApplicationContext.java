@@ -7,11 +7,118 @@
 
 package lee.springframework.context.support;
 
+import lee.springframework.beans.BeansException;
+import lee.springframework.core.io.ClassPathResource;
+import lee.springframework.core.io.Resource;
+import lee.springframework.util.Assert;
+
 /**
+ * Standalone XML application context, taking the context definition files
+ * from the class path, interpreting plain paths as class path resource names
+ * that include the package path (e.g. "mypackage/myresource.txt").
+ *
+ * <p>The config location defaults can be overridden via {@link #getConfigLocations},
+ * Config locations can either denote concrete files like "/myfiles/context.xml"
+ * or Ant-style patterns like "/myfiles/*-context.xml".
+ *
+ * <p>Note: In case of multiple config locations, later bean definitions will
+ * override ones defined in earlier loaded files. This can be leveraged to
+ * deliberately override certain bean definitions via an extra XML file.
+ *
+ * <p>To avoid parsing the XML on every start, see
+ * {@link #setPrecompiledDefinitionsFile}.
+ *
  * @description:
  * @author: liyong18
  * @createdate: 2018-07-27 15:01
- * @lastdate:
+ * @lastdate: 2026-10-18
+ * @see #getResource
+ * @see #getResourceByPath
  */
-public class LClassPathXmlApplicationContext {
+public class LClassPathXmlApplicationContext extends LAbstractXmlApplicationContext {
+
+  private Resource[] configResources;
+
+
+  /**
+   * Create a new LClassPathXmlApplicationContext for bean-style configuration.
+   * @see #setConfigLocation
+   * @see #setConfigLocations
+   * @see #refresh()
+   */
+  public LClassPathXmlApplicationContext() {
+  }
+
+  /**
+   * Create a new LClassPathXmlApplicationContext for bean-style configuration.
+   * @param parent the parent context
+   * @see #setConfigLocation
+   * @see #setConfigLocations
+   * @see #refresh()
+   */
+  public LClassPathXmlApplicationContext(ApplicationContext parent) {
+    super(parent);
+  }
+
+  /**
+   * Create a new LClassPathXmlApplicationContext, loading the definitions
+   * from the given XML files and automatically refreshing the context.
+   * @param configLocations array of resource locations
+   * @throws BeansException if context creation failed
+   */
+  public LClassPathXmlApplicationContext(String... configLocations) throws BeansException {
+    this(configLocations, true, null);
+  }
+
+  /**
+   * Create a new LClassPathXmlApplicationContext with the given parent,
+   * loading the definitions from the given XML files.
+   * @param configLocations array of resource locations
+   * @param refresh whether to automatically refresh the context,
+   * loading all bean definitions and creating all singletons.
+   * Alternatively, call refresh manually after further configuring the context,
+   * e.g. after setting a precompiled definitions file.
+   * @param parent the parent context
+   * @throws BeansException if context creation failed
+   * @see #refresh()
+   */
+  public LClassPathXmlApplicationContext(String[] configLocations, boolean refresh, ApplicationContext parent)
+          throws BeansException {
+
+    super(parent);
+    setConfigLocations(configLocations);
+    if (refresh) {
+      refresh();
+    }
+  }
+
+  /**
+   * Create a new LClassPathXmlApplicationContext with the given parent,
+   * loading the definitions from the given XML files relative to the given
+   * Class and automatically refreshing the context.
+   * @param paths array of relative (or absolute) paths within the class path
+   * @param clazz the class to load resources with (basis for the given paths)
+   * @param parent the parent context
+   * @throws BeansException if context creation failed
+   * @see lee.springframework.core.io.ClassPathResource#ClassPathResource(String, Class)
+   */
+  public LClassPathXmlApplicationContext(String[] paths, Class<?> clazz, ApplicationContext parent)
+          throws BeansException {
+
+    super(parent);
+    Assert.notNull(paths, "Path array must not be null");
+    Assert.notNull(clazz, "Class argument must not be null");
+    this.configResources = new Resource[paths.length];
+    for (int i = 0; i < paths.length; i++) {
+      this.configResources[i] = new ClassPathResource(paths[i], clazz);
+    }
+    refresh();
+  }
+
+
+  @Override
+  protected Resource[] getConfigResources() {
+    return this.configResources;
+  }
+
 }
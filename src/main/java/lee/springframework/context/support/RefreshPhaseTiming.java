@@ -0,0 +1,161 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: RefreshPhaseTiming.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.context.support;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Timing of a single phase of {@link AbstractApplicationContext#refresh()}:
+ * wall time, and the bytes allocated by the thread that ran the phase.
+ *
+ * <p>Allocation is measured through the HotSpot-specific
+ * {@code com.sun.management.ThreadMXBean} and reported as -1 where that is not
+ * available, or where thread allocation accounting has been disabled: it is
+ * enabled by default on HotSpot, and never switched on from here, since that
+ * would affect the whole VM. It only covers the thread running the phase:
+ * allocations made by helper threads (e.g. parallel singleton pre-instantiation)
+ * are not included.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 20:15
+ * @lastdate: 2026-10-18
+ */
+public final class RefreshPhaseTiming {
+
+  private static final com.sun.management.ThreadMXBean allocationMXBean;
+
+  static {
+    com.sun.management.ThreadMXBean mxBean = null;
+    try {
+      ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+      if (threadMXBean instanceof com.sun.management.ThreadMXBean &&
+              ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported()) {
+        mxBean = (com.sun.management.ThreadMXBean) threadMXBean;
+      }
+    }
+    catch (Throwable ex) {
+      // Not a HotSpot VM, or not permitted: no allocation figures.
+      mxBean = null;
+    }
+    allocationMXBean = mxBean;
+  }
+
+
+  private final String phase;
+
+  private final String threadName;
+
+  private final long durationNanos;
+
+  private final long allocatedBytes;
+
+
+  RefreshPhaseTiming(String phase, String threadName, long durationNanos, long allocatedBytes) {
+    this.phase = phase;
+    this.threadName = threadName;
+    this.durationNanos = durationNanos;
+    this.allocatedBytes = allocatedBytes;
+  }
+
+
+  /**
+   * Return the name of the phase, e.g. "invokeBeanFactoryPostProcessors".
+   */
+  public String getPhase() {
+    return this.phase;
+  }
+
+  /**
+   * Return the name of the thread that ran the phase.
+   */
+  public String getThreadName() {
+    return this.threadName;
+  }
+
+  /**
+   * Return the wall time of the phase, in nanoseconds.
+   */
+  public long getDurationNanos() {
+    return this.durationNanos;
+  }
+
+  /**
+   * Return the number of bytes allocated by the thread running the phase,
+   * or -1 if not measurable on this VM.
+   */
+  public long getAllocatedBytes() {
+    return this.allocatedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return this.phase + " [" + this.threadName + "]: " + (this.durationNanos / 1000000) + " ms" +
+            (this.allocatedBytes >= 0 ? ", " + (this.allocatedBytes / 1024) + " KB allocated" : "");
+  }
+
+
+  /**
+   * Start measuring the given phase on the current thread.
+   */
+  static Stopwatch start(String phase) {
+    return new Stopwatch(phase);
+  }
+
+  private static long currentThreadAllocatedBytes() {
+    if (allocationMXBean == null) {
+      return -1;
+    }
+    try {
+      if (!allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+        return -1;
+      }
+      return allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    catch (Throwable ex) {
+      return -1;
+    }
+  }
+
+
+  /**
+   * Measurement of a phase in progress; to be stopped on the thread that started it.
+   */
+  static final class Stopwatch {
+
+    private final String phase;
+
+    private final long startNanos;
+
+    private final long startAllocatedBytes;
+
+    private RefreshPhaseTiming result;
+
+    private Stopwatch(String phase) {
+      this.phase = phase;
+      this.startAllocatedBytes = currentThreadAllocatedBytes();
+      this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Stop measuring, if not stopped already.
+     * @return the timing of the phase
+     */
+    public RefreshPhaseTiming stop() {
+      if (this.result == null) {
+        long durationNanos = System.nanoTime() - this.startNanos;
+        long allocatedBytes = currentThreadAllocatedBytes();
+        this.result = new RefreshPhaseTiming(this.phase, Thread.currentThread().getName(), durationNanos,
+                (allocatedBytes >= 0 && this.startAllocatedBytes >= 0 ? allocatedBytes - this.startAllocatedBytes : -1));
+      }
+      return this.result;
+    }
+  }
+
+}
@@ -0,0 +1,45 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: ApplicationStartup.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.core.metrics;
+
+/**
+ * Instruments the application startup phase using {@link StartupStep steps}.
+ *
+ * <p>The core container uses it to record a tree of steps for bean creation,
+ * property population, initialization, post-processor invocations and
+ * dependency lookups. Steps started while another one is active on the same
+ * thread become its children.
+ *
+ * <p>The {@link #DEFAULT} implementation records nothing and allocates
+ * nothing, so instrumentation is effectively free unless a recording
+ * implementation such as {@link TraceApplicationStartup} has been set.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 20:40
+ * @lastdate:
+ */
+public interface ApplicationStartup {
+
+  /**
+   * Default "no op" {@code ApplicationStartup} implementation.
+   */
+  ApplicationStartup DEFAULT = new DefaultApplicationStartup();
+
+
+  /**
+   * Create a new step and mark its beginning.
+   * <p>A step name describes the current action or phase. This technical
+   * name should be "." namespaced and can be reused to describe other instances of
+   * the same step during application startup, e.g. "beans.createBean".
+   * @param name the step name
+   * @return the started step, to be {@link StartupStep#end() ended} by the caller
+   */
+  StartupStep start(String name);
+
+}
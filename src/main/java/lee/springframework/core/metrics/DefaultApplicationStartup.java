@@ -0,0 +1,57 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: DefaultApplicationStartup.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.core.metrics;
+
+/**
+ * Default "no op" {@code ApplicationStartup} implementation: hands out a
+ * shared, stateless step, so instrumented code neither records nor allocates.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 20:40
+ * @lastdate:
+ */
+class DefaultApplicationStartup implements ApplicationStartup {
+
+  private static final DefaultStartupStep DEFAULT_STARTUP_STEP = new DefaultStartupStep();
+
+
+  @Override
+  public StartupStep start(String name) {
+    return DEFAULT_STARTUP_STEP;
+  }
+
+
+  private static class DefaultStartupStep implements StartupStep {
+
+    @Override
+    public String getName() {
+      return "default";
+    }
+
+    @Override
+    public long getId() {
+      return 0L;
+    }
+
+    @Override
+    public Long getParentId() {
+      return null;
+    }
+
+    @Override
+    public StartupStep tag(String key, String value) {
+      return this;
+    }
+
+    @Override
+    public void end() {
+    }
+  }
+
+}
@@ -0,0 +1,57 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: StartupStep.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.core.metrics;
+
+/**
+ * Step recording metrics about a particular phase or action happening during
+ * the {@link ApplicationStartup}.
+ *
+ * <p>The lifecycle of a step goes as follows: it is created and started with
+ * {@link ApplicationStartup#start(String)}, tagged while running, and
+ * finally marked as ended with {@link #end()}, which must happen on the
+ * thread that started it.
+ *
+ * <p>Each step records its parent: the step that was active on the same
+ * thread when it got started, if any.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 20:40
+ * @lastdate:
+ */
+public interface StartupStep {
+
+  /**
+   * Return the name of the startup step, e.g. "beans.createBean".
+   */
+  String getName();
+
+  /**
+   * Return the unique id of this step within the application startup.
+   */
+  long getId();
+
+  /**
+   * Return the id of the parent step, or {@code null} if none.
+   */
+  Long getParentId();
+
+  /**
+   * Add a tag with the given key and value to this step.
+   * @param key the tag key
+   * @param value the tag value
+   * @return this step, for chained calls
+   */
+  StartupStep tag(String key, String value);
+
+  /**
+   * Mark this step as ended. Subsequent calls have no effect.
+   */
+  void end();
+
+}
@@ -0,0 +1,326 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: TraceApplicationStartup.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/17
+ */
+
+package lee.springframework.core.metrics;
+
+import lee.springframework.util.Assert;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ApplicationStartup} that records every ended step in memory, with its
+ * parent, thread, start time, duration and tags, and exports the recording in
+ * the Chrome trace event format ({@code chrome://tracing}, Perfetto).
+ *
+ * <p>Steps are kept in the order in which they ended. Once the capacity is
+ * reached, further steps are dropped (and counted) rather than growing the
+ * recording without limit.
+ *
+ * <p>Meant for diagnosing startup time, e.g. which beans are slow to create
+ * and which dependencies they pull in; use the no-op
+ * {@link ApplicationStartup#DEFAULT} otherwise.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-17 20:50
+ * @lastdate:
+ */
+public class TraceApplicationStartup implements ApplicationStartup {
+
+  /** Default maximum number of steps to record */
+  public static final int DEFAULT_CAPACITY = 100000;
+
+  private final int capacity;
+
+  /** Time origin of the recording, all step times are relative to it */
+  private final long originNanos = System.nanoTime();
+
+  private final AtomicLong stepIdSequence = new AtomicLong();
+
+  /** The innermost step currently running on each thread */
+  private final ThreadLocal<RecordedStep> currentStep = new ThreadLocal<RecordedStep>();
+
+  /** Ended steps, in order of ending */
+  private final Queue<RecordedStep> recordedSteps = new ConcurrentLinkedQueue<RecordedStep>();
+
+  private final AtomicInteger recordedStepCount = new AtomicInteger();
+
+  private final AtomicLong droppedStepCount = new AtomicLong();
+
+
+  /**
+   * Create a new TraceApplicationStartup with the default capacity.
+   */
+  public TraceApplicationStartup() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Create a new TraceApplicationStartup.
+   * @param capacity the maximum number of steps to record
+   */
+  public TraceApplicationStartup(int capacity) {
+    Assert.isTrue(capacity > 0, "'capacity' must be positive");
+    this.capacity = capacity;
+  }
+
+
+  @Override
+  public StartupStep start(String name) {
+    RecordedStep parent = this.currentStep.get();
+    RecordedStep step = new RecordedStep(this, this.stepIdSequence.incrementAndGet(), parent, name,
+            Thread.currentThread(), System.nanoTime() - this.originNanos);
+    this.currentStep.set(step);
+    return step;
+  }
+
+  /**
+   * Return the steps recorded so far, in order of ending.
+   */
+  public List<RecordedStep> getRecordedSteps() {
+    return Collections.unmodifiableList(new ArrayList<RecordedStep>(this.recordedSteps));
+  }
+
+  /**
+   * Return the number of steps that have been dropped because the capacity was reached.
+   */
+  public long getDroppedStepCount() {
+    return this.droppedStepCount.get();
+  }
+
+  /**
+   * Write the steps recorded so far to the given file, in the Chrome trace event format.
+   * @param file the file to write to (will be overwritten)
+   * @throws IOException in case of I/O errors
+   */
+  public void writeChromeTrace(File file) throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+    try {
+      writeChromeTrace(writer);
+    }
+    finally {
+      writer.close();
+    }
+  }
+
+  /**
+   * Write the steps recorded so far to the given Writer, in the Chrome trace event
+   * format: one complete ("X") event per step, with times in microseconds, the
+   * recording thread as "tid", and the step id, parent id and tags as "args".
+   * @param writer the Writer to write to (not closed)
+   * @throws IOException in case of I/O errors
+   */
+  public void writeChromeTrace(Writer writer) throws IOException {
+    writer.write("{\"traceEvents\":[");
+    boolean first = true;
+    for (RecordedStep step : this.recordedSteps) {
+      if (!first) {
+        writer.write(",\n");
+      }
+      first = false;
+      writer.write("{\"name\":");
+      writeJsonString(writer, step.getName());
+      writer.write(",\"cat\":\"startup\",\"ph\":\"X\",\"pid\":1,\"tid\":");
+      writer.write(Long.toString(step.threadId));
+      writer.write(",\"ts\":");
+      writer.write(Long.toString(step.startNanos / 1000));
+      writer.write(",\"dur\":");
+      writer.write(Long.toString(step.durationNanos / 1000));
+      writer.write(",\"args\":{\"id\":");
+      writer.write(Long.toString(step.id));
+      if (step.parentId != null) {
+        writer.write(",\"parentId\":");
+        writer.write(step.parentId.toString());
+      }
+      writer.write(",\"thread\":");
+      writeJsonString(writer, step.threadName);
+      for (Map.Entry<String, String> tag : step.getTags().entrySet()) {
+        writer.write(',');
+        writeJsonString(writer, tag.getKey());
+        writer.write(':');
+        writeJsonString(writer, tag.getValue());
+      }
+      writer.write("}}");
+    }
+    writer.write("],\"displayTimeUnit\":\"ms\"}\n");
+    writer.flush();
+  }
+
+  @Override
+  public String toString() {
+    return "TraceApplicationStartup: " + this.recordedStepCount.get() + " steps recorded, " +
+            this.droppedStepCount.get() + " dropped";
+  }
+
+
+  /**
+   * Record the given step as ended, and make its parent the current step again.
+   */
+  private void stepEnded(RecordedStep step, RecordedStep parent) {
+    if (this.currentStep.get() == step) {
+      if (parent != null) {
+        this.currentStep.set(parent);
+      }
+      else {
+        this.currentStep.remove();
+      }
+    }
+    if (this.recordedStepCount.incrementAndGet() <= this.capacity) {
+      this.recordedSteps.add(step);
+    }
+    else {
+      this.recordedStepCount.decrementAndGet();
+      this.droppedStepCount.incrementAndGet();
+    }
+  }
+
+  private static void writeJsonString(Writer writer, String value) throws IOException {
+    if (value == null) {
+      writer.write("null");
+      return;
+    }
+    writer.write('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        writer.write('\\');
+        writer.write(c);
+      }
+      else if (c < 0x20) {
+        writer.write(String.format("\\u%04x", (int) c));
+      }
+      else {
+        writer.write(c);
+      }
+    }
+    writer.write('"');
+  }
+
+
+  /**
+   * A step recorded by a {@link TraceApplicationStartup}.
+   */
+  public static final class RecordedStep implements StartupStep {
+
+    private final TraceApplicationStartup startup;
+
+    private final long id;
+
+    private final Long parentId;
+
+    private final String name;
+
+    private final long threadId;
+
+    private final String threadName;
+
+    private final long startNanos;
+
+    private Map<String, String> tags;
+
+    /** The parent step while running, to be restored as current step on end */
+    private RecordedStep parent;
+
+    private volatile long durationNanos = -1;
+
+    private RecordedStep(TraceApplicationStartup startup, long id, RecordedStep parent, String name,
+                         Thread thread, long startNanos) {
+      this.startup = startup;
+      this.id = id;
+      this.parent = parent;
+      this.parentId = (parent != null ? parent.id : null);
+      this.name = name;
+      this.threadId = thread.getId();
+      this.threadName = thread.getName();
+      this.startNanos = startNanos;
+    }
+
+    @Override
+    public String getName() {
+      return this.name;
+    }
+
+    @Override
+    public long getId() {
+      return this.id;
+    }
+
+    @Override
+    public Long getParentId() {
+      return this.parentId;
+    }
+
+    @Override
+    public StartupStep tag(String key, String value) {
+      Assert.state(this.durationNanos < 0, "StartupStep has already ended");
+      if (this.tags == null) {
+        this.tags = new LinkedHashMap<String, String>(4);
+      }
+      this.tags.put(key, value);
+      return this;
+    }
+
+    @Override
+    public void end() {
+      if (this.durationNanos < 0) {
+        this.durationNanos = System.nanoTime() - this.startup.originNanos - this.startNanos;
+        RecordedStep parent = this.parent;
+        this.parent = null;
+        this.startup.stepEnded(this, parent);
+      }
+    }
+
+    /**
+     * Return the name of the thread that started this step.
+     */
+    public String getThreadName() {
+      return this.threadName;
+    }
+
+    /**
+     * Return the start time of this step, in nanoseconds since the recording began.
+     */
+    public long getStartNanos() {
+      return this.startNanos;
+    }
+
+    /**
+     * Return the duration of this step in nanoseconds, or -1 if still running.
+     */
+    public long getDurationNanos() {
+      return this.durationNanos;
+    }
+
+    /**
+     * Return the tags of this step, in the order they were added.
+     */
+    public Map<String, String> getTags() {
+      return (this.tags != null ? Collections.unmodifiableMap(this.tags) : Collections.<String, String>emptyMap());
+    }
+
+    @Override
+    public String toString() {
+      return this.name + " #" + this.id + (this.parentId != null ? " (parent #" + this.parentId + ")" : "") +
+              " " + getTags() + (this.durationNanos >= 0 ? ": " + (this.durationNanos / 1000) + " us" : "");
+    }
+  }
+
+}
@@ -0,0 +1,391 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: ClassFileHeader.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/18
+ */
+
+package lee.springframework.core.type.classreading;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The header of a class file: class name, modifiers, supertypes and the
+ * runtime-visible class-level annotations, read without loading the class.
+ * 类文件头信息：不加载类，直接解析类文件得到类名、修饰符、父类型和类级别注解
+ *
+ * <p>Only the constant pool and the class-level attributes are decoded;
+ * fields and methods are skipped over. Of the annotation attributes, only
+ * a {@code value} of type String is kept, as needed for bean names.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-18 11:20
+ * @lastdate:
+ * @see ClassFileScanner
+ */
+public final class ClassFileHeader {
+
+  private static final int MAGIC = 0xCAFEBABE;
+
+  private static final int ACC_STATIC = 0x0008;
+
+  private static final int ACC_INTERFACE = 0x0200;
+
+  private static final int ACC_ABSTRACT = 0x0400;
+
+  private static final int ACC_ANNOTATION = 0x2000;
+
+  private final String className;
+
+  private final String superClassName;
+
+  private final String[] interfaceNames;
+
+  private final int access;
+
+  private final boolean independent;
+
+  /** Annotation type name -> String {@code value} attribute, or {@code null} */
+  private final Map<String, String> annotations;
+
+
+  private ClassFileHeader(String className, String superClassName, String[] interfaceNames, int access,
+                          boolean independent, Map<String, String> annotations) {
+
+    this.className = className;
+    this.superClassName = superClassName;
+    this.interfaceNames = interfaceNames;
+    this.access = access;
+    this.independent = independent;
+    this.annotations = annotations;
+  }
+
+
+  /**
+   * Return the binary name of the class, e.g. "com.example.Outer$Inner".
+   */
+  public String getClassName() {
+    return this.className;
+  }
+
+  /**
+   * Return the name of the superclass, or {@code null} for
+   * {@code java.lang.Object} (and module descriptors).
+   */
+  public String getSuperClassName() {
+    return this.superClassName;
+  }
+
+  /**
+   * Return the names of all interfaces that the class implements directly.
+   */
+  public String[] getInterfaceNames() {
+    return this.interfaceNames.clone();
+  }
+
+  /**
+   * Return whether the class is an interface (including annotation types).
+   */
+  public boolean isInterface() {
+    return ((this.access & ACC_INTERFACE) != 0);
+  }
+
+  /**
+   * Return whether the class is an annotation type.
+   */
+  public boolean isAnnotation() {
+    return ((this.access & ACC_ANNOTATION) != 0);
+  }
+
+  /**
+   * Return whether the class is marked as abstract.
+   */
+  public boolean isAbstract() {
+    return ((this.access & ACC_ABSTRACT) != 0);
+  }
+
+  /**
+   * Return whether the class is concrete, i.e. neither an interface
+   * nor an abstract class.
+   */
+  public boolean isConcrete() {
+    return !(isInterface() || isAbstract());
+  }
+
+  /**
+   * Return whether the class can be constructed independently from an
+   * enclosing class: a top-level class or a static nested class.
+   */
+  public boolean isIndependent() {
+    return this.independent;
+  }
+
+  /**
+   * Return the names of the runtime-visible annotation types present on
+   * the class, in declaration order.
+   */
+  public List<String> getAnnotationTypes() {
+    return Collections.unmodifiableList(new ArrayList<String>(this.annotations.keySet()));
+  }
+
+  /**
+   * Return the String {@code value} attribute of the given annotation present
+   * on the class, or {@code null} if it is not present or has no String value.
+   * @param annotationType the fully qualified annotation type name
+   */
+  public String getAnnotationValue(String annotationType) {
+    return this.annotations.get(annotationType);
+  }
+
+  @Override
+  public String toString() {
+    return "ClassFileHeader for [" + this.className + "]";
+  }
+
+
+  /**
+   * Read the header of the given class file.
+   * @param classFile the content of the class file
+   * @return the class file header
+   * @throws IOException if the content is not a valid class file
+   */
+  public static ClassFileHeader read(byte[] classFile) throws IOException {
+    try {
+      return new Parser(classFile).parse();
+    }
+    catch (ArrayIndexOutOfBoundsException ex) {
+      throw new IOException("Truncated class file", ex);
+    }
+  }
+
+
+  /**
+   * Single-use cursor over the bytes of a class file.
+   */
+  private static class Parser {
+
+    private final byte[] bytes;
+
+    private int pos;
+
+    /** Offset of each constant pool entry, right after its tag */
+    private int[] constantOffsets;
+
+    public Parser(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    public ClassFileHeader parse() throws IOException {
+      if (u4() != MAGIC) {
+        throw new IOException("Not a class file: bad magic number");
+      }
+      // minor and major version
+      this.pos += 4;
+      readConstantPool();
+
+      int access = u2();
+      int thisClass = u2();
+      String className = className(thisClass);
+      int superClass = u2();
+      String superClassName = (superClass != 0 ? className(superClass) : null);
+      String[] interfaceNames = new String[u2()];
+      for (int i = 0; i < interfaceNames.length; i++) {
+        interfaceNames[i] = className(u2());
+      }
+      skipMembers();
+      skipMembers();
+
+      Map<String, String> annotations = new LinkedHashMap<String, String>(4);
+      boolean independent = true;
+      int attributeCount = u2();
+      for (int i = 0; i < attributeCount; i++) {
+        String name = utf8(u2());
+        int length = u4();
+        int end = this.pos + length;
+        if ("RuntimeVisibleAnnotations".equals(name)) {
+          int count = u2();
+          for (int j = 0; j < count; j++) {
+            readAnnotation(annotations);
+          }
+        }
+        else if ("InnerClasses".equals(name)) {
+          int count = u2();
+          for (int j = 0; j < count; j++) {
+            int innerClass = u2();
+            // outer class and simple name
+            this.pos += 4;
+            int innerAccess = u2();
+            if (innerClass == thisClass) {
+              independent = ((innerAccess & ACC_STATIC) != 0);
+            }
+          }
+        }
+        this.pos = end;
+      }
+      return new ClassFileHeader(className, superClassName, interfaceNames, access, independent, annotations);
+    }
+
+    private void readConstantPool() throws IOException {
+      int count = u2();
+      this.constantOffsets = new int[count];
+      for (int i = 1; i < count; i++) {
+        int tag = this.bytes[this.pos++];
+        this.constantOffsets[i] = this.pos;
+        switch (tag) {
+          case 1:
+            // Utf8
+            this.pos += 2 + u2At(this.pos);
+            break;
+          case 7: case 8: case 16: case 19: case 20:
+            // Class, String, MethodType, Module, Package
+            this.pos += 2;
+            break;
+          case 15:
+            // MethodHandle
+            this.pos += 3;
+            break;
+          case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+            // Integer, Float, member refs, NameAndType, (Invoke)Dynamic
+            this.pos += 4;
+            break;
+          case 5: case 6:
+            // Long and Double take two entries
+            this.pos += 8;
+            i++;
+            break;
+          default:
+            throw new IOException("Unknown constant pool tag " + tag + " at entry " + i);
+        }
+      }
+    }
+
+    /**
+     * Skip the fields or methods of the class.
+     */
+    private void skipMembers() {
+      int count = u2();
+      for (int i = 0; i < count; i++) {
+        // access flags, name and descriptor
+        this.pos += 6;
+        int attributeCount = u2();
+        for (int j = 0; j < attributeCount; j++) {
+          this.pos += 2;
+          int length = u4();
+          this.pos += length;
+        }
+      }
+    }
+
+    private void readAnnotation(Map<String, String> annotations) throws IOException {
+      String type = descriptorToClassName(utf8(u2()));
+      String value = null;
+      int pairs = u2();
+      for (int i = 0; i < pairs; i++) {
+        String name = utf8(u2());
+        if ("value".equals(name) && this.bytes[this.pos] == 's') {
+          this.pos++;
+          value = utf8(u2());
+        }
+        else {
+          skipElementValue();
+        }
+      }
+      annotations.put(type, value);
+    }
+
+    private void skipElementValue() throws IOException {
+      int tag = this.bytes[this.pos++];
+      switch (tag) {
+        case 'B': case 'C': case 'D': case 'F': case 'I': case 'J': case 'S': case 'Z': case 's': case 'c':
+          this.pos += 2;
+          break;
+        case 'e':
+          this.pos += 4;
+          break;
+        case '@':
+          this.pos += 2;
+          int pairs = u2();
+          for (int i = 0; i < pairs; i++) {
+            this.pos += 2;
+            skipElementValue();
+          }
+          break;
+        case '[':
+          int count = u2();
+          for (int i = 0; i < count; i++) {
+            skipElementValue();
+          }
+          break;
+        default:
+          throw new IOException("Unknown annotation element value tag '" + (char) tag + "'");
+      }
+    }
+
+    private String className(int classIndex) throws IOException {
+      return utf8(u2At(this.constantOffsets[classIndex])).replace('/', '.');
+    }
+
+    /**
+     * Decode the given Utf8 constant, in the modified UTF-8 of class files.
+     */
+    private String utf8(int index) throws IOException {
+      int offset = this.constantOffsets[index];
+      if (offset == 0 || this.bytes[offset - 1] != 1) {
+        throw new IOException("Constant pool entry " + index + " is not a Utf8 constant");
+      }
+      int length = u2At(offset);
+      char[] chars = new char[length];
+      int charCount = 0;
+      int i = offset + 2;
+      int end = i + length;
+      while (i < end) {
+        int b = this.bytes[i] & 0xFF;
+        if (b < 0x80) {
+          chars[charCount++] = (char) b;
+          i++;
+        }
+        else if ((b & 0xE0) == 0xC0) {
+          chars[charCount++] = (char) (((b & 0x1F) << 6) | (this.bytes[i + 1] & 0x3F));
+          i += 2;
+        }
+        else {
+          chars[charCount++] = (char) (((b & 0x0F) << 12) | ((this.bytes[i + 1] & 0x3F) << 6) |
+                  (this.bytes[i + 2] & 0x3F));
+          i += 3;
+        }
+      }
+      return new String(chars, 0, charCount);
+    }
+
+    private int u2() {
+      int value = u2At(this.pos);
+      this.pos += 2;
+      return value;
+    }
+
+    private int u2At(int offset) {
+      return ((this.bytes[offset] & 0xFF) << 8) | (this.bytes[offset + 1] & 0xFF);
+    }
+
+    private int u4() {
+      int value = ((this.bytes[this.pos] & 0xFF) << 24) | ((this.bytes[this.pos + 1] & 0xFF) << 16) |
+              ((this.bytes[this.pos + 2] & 0xFF) << 8) | (this.bytes[this.pos + 3] & 0xFF);
+      this.pos += 4;
+      return value;
+    }
+
+    private static String descriptorToClassName(String descriptor) {
+      if (descriptor.startsWith("L") && descriptor.endsWith(";")) {
+        return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+      }
+      return descriptor;
+    }
+  }
+
+}
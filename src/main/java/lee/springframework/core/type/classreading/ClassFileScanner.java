@@ -0,0 +1,320 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: ClassFileScanner.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/18
+ */
+
+package lee.springframework.core.type.classreading;
+
+import lee.springframework.core.io.AbstractFileResolvingResource;
+import lee.springframework.core.io.Resource;
+import lee.springframework.core.io.support.ResourcePatternResolver;
+import lee.springframework.util.Assert;
+import lee.springframework.util.ClassUtils;
+import lee.springframework.util.ResourceUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Scanner reading the {@link ClassFileHeader headers} of all class files in
+ * a package and its sub-packages, across all class path roots.
+ * 并行扫描包下所有类文件的头信息，用于没有组件索引时的类路径扫描
+ *
+ * <p>The class files are listed per class path root: directories are walked
+ * with {@link Files#walkFileTree}, and jar files are opened as zip file
+ * systems and walked the same way, without going through a jar URL
+ * connection per entry. Other roots (e.g. nested jars) fall back to resource
+ * pattern matching. The listed class files are then read and parsed in
+ * parallel on a {@link ForkJoinPool}.
+ *
+ * <p>The result does not depend on the order in which files are listed or
+ * parsed: headers are sorted by class name, and of a class present in several
+ * roots the one of the first root wins, as with class loading.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-18 11:50
+ * @lastdate:
+ * @see ClassFileHeader
+ */
+public class ClassFileScanner {
+
+  /** Number of class files parsed by a single task before splitting */
+  private static final int PARSE_THRESHOLD = 32;
+
+  private static final String CLASSPATH_ALL_URL_PREFIX = "classpath*:";
+
+  private static final String CLASS_FILE_PATTERN = "**/*" + ClassUtils.CLASS_FILE_SUFFIX;
+
+  private static final Log logger = LogFactory.getLog(ClassFileScanner.class);
+
+  private final ForkJoinPool pool;
+
+
+  /**
+   * Create a new ClassFileScanner parsing on the common ForkJoinPool.
+   */
+  public ClassFileScanner() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Create a new ClassFileScanner parsing on the given ForkJoinPool.
+   * @param pool the pool to parse class files on
+   */
+  public ClassFileScanner(ForkJoinPool pool) {
+    Assert.notNull(pool, "ForkJoinPool must not be null");
+    this.pool = pool;
+  }
+
+
+  /**
+   * Read the headers of all classes in the given package and its sub-packages.
+   * @param resourcePatternResolver the resolver to find the class path roots
+   * of the package with
+   * @param basePackage the package to scan
+   * @return the class file headers, sorted by class name
+   * @throws IOException in case of I/O errors, or if a class file cannot be parsed
+   */
+  public List<ClassFileHeader> scan(ResourcePatternResolver resourcePatternResolver, String basePackage)
+          throws IOException {
+
+    String packagePath = ClassUtils.convertClassNameToResourcePath(basePackage);
+    Resource[] roots = resourcePatternResolver.getResources(CLASSPATH_ALL_URL_PREFIX + packagePath + "/");
+
+    List<ClassFileSource> sources = new ArrayList<ClassFileSource>();
+    List<FileSystem> jarFileSystems = new ArrayList<FileSystem>();
+    try {
+      for (Resource root : roots) {
+        collectClassFiles(resourcePatternResolver, root, packagePath, sources, jarFileSystems);
+      }
+      ClassFileHeader[] headers = new ClassFileHeader[sources.size()];
+      try {
+        this.pool.invoke(new ParseTask(sources, headers, 0, sources.size()));
+      }
+      catch (UncheckedIOException ex) {
+        throw ex.getCause();
+      }
+      return merge(headers);
+    }
+    finally {
+      for (FileSystem fileSystem : jarFileSystems) {
+        try {
+          fileSystem.close();
+        }
+        catch (IOException ex) {
+          logger.debug("Could not close jar file system", ex);
+        }
+      }
+    }
+  }
+
+  private void collectClassFiles(ResourcePatternResolver resourcePatternResolver, Resource root, String packagePath,
+                                 List<ClassFileSource> sources, List<FileSystem> jarFileSystems)
+          throws IOException {
+
+    URL rootUrl = root.getURL();
+    if (ResourceUtils.isJarURL(rootUrl)) {
+      File jarFile = getJarFile(rootUrl);
+      if (jarFile != null) {
+        FileSystem fileSystem = FileSystems.newFileSystem(jarFile.toPath(), (ClassLoader) null);
+        jarFileSystems.add(fileSystem);
+        walkClassFiles(fileSystem.getPath("/" + packagePath), sources);
+        return;
+      }
+    }
+    else if (root instanceof AbstractFileResolvingResource) {
+      try {
+        File directory = root.getFile();
+        if (directory.isDirectory()) {
+          walkClassFiles(directory.toPath(), sources);
+          return;
+        }
+      }
+      catch (FileNotFoundException ex) {
+        // Not in the file system: fall through to pattern matching.
+      }
+    }
+
+    if (logger.isDebugEnabled()) {
+      logger.debug("Falling back to resource pattern matching for class path root " + root);
+    }
+    String rootLocation = rootUrl.toString();
+    if (!rootLocation.endsWith("/")) {
+      rootLocation += "/";
+    }
+    for (Resource resource : resourcePatternResolver.getResources(rootLocation + CLASS_FILE_PATTERN)) {
+      if (!isInfoFile(resource.getFilename())) {
+        sources.add(new ClassFileSource(null, resource));
+      }
+    }
+  }
+
+  /**
+   * Return the local jar file of the given jar URL, or {@code null} if it is
+   * not a plain "jar:file:" URL (e.g. a jar nested in another jar).
+   */
+  private static File getJarFile(URL jarUrl) {
+    String urlFile = jarUrl.getFile();
+    int separatorIndex = urlFile.indexOf(ResourceUtils.JAR_URL_SEPARATOR);
+    if (!ResourceUtils.URL_PROTOCOL_JAR.equals(jarUrl.getProtocol()) || separatorIndex == -1 ||
+            urlFile.indexOf(ResourceUtils.JAR_URL_SEPARATOR, separatorIndex + 1) != -1) {
+      return null;
+    }
+    try {
+      return ResourceUtils.getFile(ResourceUtils.extractJarFileURL(jarUrl), "Jar URL");
+    }
+    catch (IOException ex) {
+      return null;
+    }
+  }
+
+  private static void walkClassFiles(Path start, final List<ClassFileSource> sources)
+          throws IOException {
+
+    if (!Files.isDirectory(start)) {
+      return;
+    }
+    Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        String fileName = file.getFileName().toString();
+        if (fileName.endsWith(ClassUtils.CLASS_FILE_SUFFIX) && !isInfoFile(fileName)) {
+          sources.add(new ClassFileSource(file, null));
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private static boolean isInfoFile(String fileName) {
+    return (fileName != null && (fileName.startsWith("package-info.") || fileName.startsWith("module-info.")));
+  }
+
+  /**
+   * Merge the parsed headers: sources are listed in root order, so the first
+   * occurrence of a class name is the one that class loading would see.
+   */
+  private static List<ClassFileHeader> merge(ClassFileHeader[] headers) {
+    Map<String, ClassFileHeader> merged = new TreeMap<String, ClassFileHeader>();
+    for (ClassFileHeader header : headers) {
+      if (!merged.containsKey(header.getClassName())) {
+        merged.put(header.getClassName(), header);
+      }
+    }
+    return new ArrayList<ClassFileHeader>(merged.values());
+  }
+
+  private static byte[] readFully(InputStream in) throws IOException {
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    }
+    finally {
+      in.close();
+    }
+  }
+
+
+  /**
+   * A class file to parse: a path in the file system or a jar file system,
+   * or a resource found through pattern matching.
+   */
+  private static class ClassFileSource {
+
+    final Path path;
+
+    final Resource resource;
+
+    public ClassFileSource(Path path, Resource resource) {
+      this.path = path;
+      this.resource = resource;
+    }
+
+    public ClassFileHeader read() throws IOException {
+      byte[] content = (this.path != null ? Files.readAllBytes(this.path) :
+              readFully(this.resource.getInputStream()));
+      try {
+        return ClassFileHeader.read(content);
+      }
+      catch (IOException ex) {
+        throw new IOException("Could not parse class file " + this, ex);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return (this.path != null ? this.path.toUri().toString() : this.resource.getDescription());
+    }
+  }
+
+
+  /**
+   * Parses a range of class files, splitting it in halves while it is
+   * larger than {@link #PARSE_THRESHOLD}.
+   */
+  private static class ParseTask extends RecursiveAction {
+
+    private final List<ClassFileSource> sources;
+
+    private final ClassFileHeader[] headers;
+
+    private final int from;
+
+    private final int to;
+
+    public ParseTask(List<ClassFileSource> sources, ClassFileHeader[] headers, int from, int to) {
+      this.sources = sources;
+      this.headers = headers;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.to - this.from <= PARSE_THRESHOLD) {
+        for (int i = this.from; i < this.to; i++) {
+          try {
+            this.headers[i] = this.sources.get(i).read();
+          }
+          catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+          }
+        }
+      }
+      else {
+        int middle = (this.from + this.to) >>> 1;
+        invokeAll(new ParseTask(this.sources, this.headers, this.from, middle),
+                new ParseTask(this.sources, this.headers, middle, this.to));
+      }
+    }
+  }
+
+}
@@ -0,0 +1,66 @@
+/**
+ * @copyright: Copyright (c) travel.jd.com All Rights Reserved
+ * @file: Indexed.java project: lee-spirng
+ * @creator: liyong18
+ * @date: 2026/10/18
+ */
+
+package lee.springframework.stereotype;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indicate that the annotated element represents a stereotype for the index.
+ * 标记一个构造型，编译期由注解处理器写入组件索引
+ *
+ * <p>The {@code CandidateComponentsIndex} is an alternative to classpath
+ * scanning that uses a metadata file generated at compilation time. The
+ * index allows retrieving the candidate components (i.e. fully qualified
+ * name) based on a stereotype. This annotation instructs the generator to
+ * index the element on which the annotated element is present or if it
+ * implements or extends from the annotated element. The stereotype is the
+ * fully qualified name of the annotated element.
+ *
+ * <p>Consider the default {@link Component} annotation that is meta-annotated
+ * with this annotation. If a component is annotated with {@link Component},
+ * an entry for that component will be added to the index using the
+ * {@code lee.springframework.stereotype.Component} stereotype.
+ *
+ * <p>This annotation is also honored on meta-annotations. Consider this
+ * custom annotation:
+ * <pre class="code">
+ * package com.example;
+ *
+ * &#064;Target(ElementType.TYPE)
+ * &#064;Retention(RetentionPolicy.RUNTIME)
+ * &#064;Documented
+ * &#064;Indexed
+ * &#064;Service
+ * public @interface PrivilegedService { ... }
+ * </pre>
+ * If the above annotation is present on a type, it will be indexed with two
+ * stereotypes: {@code lee.springframework.stereotype.Component} and
+ * {@code com.example.PrivilegedService}.
+ *
+ * <p>If an interface or an abstract class carries this annotation, all of its
+ * implementations are indexed under its fully qualified name.
+ *
+ * <p>The index is generated by the annotation processor of the separate
+ * {@code context-indexer} module, which has to be on the annotation
+ * processor path of the project declaring the components.
+ *
+ * @description:
+ * @author: liyong18
+ * @createdate: 2026-10-18 09:10
+ * @lastdate: 2026-10-18
+ * @see lee.springframework.context.index.CandidateComponentsIndex
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Indexed {
+}